@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Mide el tiempo desde el lanzamiento del contenedor hasta la primera respuesta 200 de la API,
+# con y sin el archivo CDS. Requiere que la base de docker compose esté arriba.
+#
+#   docker compose up -d db
+#   docker build -t tienda-app .
+#   scripts/tiempo-primer-request.sh [repeticiones]
+set -euo pipefail
+
+REPETICIONES="${1:-5}"
+IMAGEN="${IMAGEN:-tienda-app}"
+RED="${RED:-$(basename "$PWD")_default}"
+URL="http://localhost:8080/api/clientes/1"
+
+medir() {
+  local nombre="$1"; shift
+  local inicio fin
+  inicio=$(date +%s%N)
+  docker run -d --rm --name tienda_ttfr --network "$RED" -p 8080:8080 \
+    -e SPRING_DATASOURCE_URL=jdbc:mysql://db:3306/tienda \
+    -e SPRING_DATASOURCE_USERNAME=root -e SPRING_DATASOURCE_PASSWORD= \
+    --entrypoint java "$IMAGEN" "$@" -jar app.jar > /dev/null
+  # 404 también cuenta: la API respondió
+  until code=$(curl -s -o /dev/null -w '%{http_code}' "$URL") && [[ "$code" == 200 || "$code" == 404 ]]; do
+    sleep 0.05
+  done
+  fin=$(date +%s%N)
+  docker stop tienda_ttfr > /dev/null
+  echo "$nombre $(( (fin - inicio) / 1000000 ))"
+}
+
+for _ in $(seq "$REPETICIONES"); do
+  medir "sin-cds" -Xshare:auto
+  medir "con-cds" -XX:SharedArchiveFile=application.jsa
+done | awk '{ s[$1] += $2; n[$1]++; print } END { for (k in s) printf "%s: media %d ms\n", k, s[k] / n[k] }'
@@ -0,0 +1,213 @@
+package com.tienda.analytics;
+
+import com.tienda.model.EstadoCotizacion;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Agregaciones sobre una {@link ColumnasCotizacion.Vista} usando fork-join.
+ * Cada tarea barre un rango contiguo de filas (acceso secuencial a arreglos primitivos)
+ * y los resultados parciales se combinan sumando.
+ */
+public class AgregadorCotizaciones {
+
+    /** Por debajo de este número de filas una tarea ya no se divide. */
+    static final int UMBRAL = 32 * 1024;
+
+    private static final int N_ESTADOS = EstadoCotizacion.values().length;
+
+    private final ForkJoinPool pool;
+
+    public AgregadorCotizaciones(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Histograma de totales (en centavos) con {@code buckets} intervalos iguales entre
+     * {@code minCentavos} y {@code maxCentavos}. Los valores fuera del rango se acumulan
+     * en el primer o último intervalo.
+     */
+    public long[] histograma(ColumnasCotizacion.Vista v, FiltroSnapshot f,
+                             long minCentavos, long maxCentavos, int buckets) {
+        if (buckets <= 0 || maxCentavos <= minCentavos) {
+            throw new IllegalArgumentException("Rango de histograma inválido");
+        }
+        return pool.invoke(new HistogramaTask(v, f, 0, v.filas(), minCentavos, maxCentavos, buckets));
+    }
+
+    /**
+     * Percentiles (nearest-rank) del total en centavos. Devuelve un valor por cada
+     * percentil pedido (0..100), o un arreglo vacío si ninguna fila pasa el filtro.
+     */
+    public long[] percentiles(ColumnasCotizacion.Vista v, FiltroSnapshot f, double... ps) {
+        long[] valores = pool.invoke(new SeleccionTask(v, f, 0, v.filas()));
+        if (valores.length == 0) {
+            return new long[0];
+        }
+        Arrays.parallelSort(valores);
+        long[] out = new long[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            double p = ps[i];
+            if (p < 0 || p > 100) {
+                throw new IllegalArgumentException("Percentil fuera de rango: " + p);
+            }
+            int rank = (int) Math.ceil(p / 100.0 * valores.length);
+            out[i] = valores[Math.max(0, rank - 1)];
+        }
+        return out;
+    }
+
+    /**
+     * Conteo diario por estado entre {@code desdeDia} y {@code hastaDia} (inclusive).
+     * El resultado es una matriz aplanada: {@code [dia - desdeDia][estado.ordinal()]}.
+     */
+    public long[] conteoDiario(ColumnasCotizacion.Vista v, FiltroSnapshot f, int desdeDia, int hastaDia) {
+        if (hastaDia < desdeDia) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+        FiltroSnapshot acotado = new FiltroSnapshot(f.estado(),
+                Math.max(f.desdeDia(), desdeDia), Math.min(f.hastaDia(), hastaDia));
+        return pool.invoke(new DiarioTask(v, acotado, 0, v.filas(), desdeDia, hastaDia - desdeDia + 1));
+    }
+
+    public static int estados() {
+        return N_ESTADOS;
+    }
+
+    private abstract static class SumaTask extends RecursiveTask<long[]> {
+        final ColumnasCotizacion.Vista v;
+        final FiltroSnapshot f;
+        final int desde;
+        final int hasta;
+
+        SumaTask(ColumnasCotizacion.Vista v, FiltroSnapshot f, int desde, int hasta) {
+            this.v = v;
+            this.f = f;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        abstract SumaTask sub(int desde, int hasta);
+
+        abstract long[] barrer();
+
+        @Override
+        protected long[] compute() {
+            if (hasta - desde <= UMBRAL) {
+                return barrer();
+            }
+            int medio = (desde + hasta) >>> 1;
+            SumaTask izq = sub(desde, medio);
+            izq.fork();
+            long[] der = sub(medio, hasta).compute();
+            long[] acc = izq.join();
+            for (int i = 0; i < acc.length; i++) {
+                acc[i] += der[i];
+            }
+            return acc;
+        }
+    }
+
+    private static final class HistogramaTask extends SumaTask {
+        private final long min;
+        private final long max;
+        private final int buckets;
+
+        HistogramaTask(ColumnasCotizacion.Vista v, FiltroSnapshot f, int desde, int hasta,
+                       long min, long max, int buckets) {
+            super(v, f, desde, hasta);
+            this.min = min;
+            this.max = max;
+            this.buckets = buckets;
+        }
+
+        @Override
+        SumaTask sub(int d, int h) {
+            return new HistogramaTask(v, f, d, h, min, max, buckets);
+        }
+
+        @Override
+        long[] barrer() {
+            long[] out = new long[buckets];
+            long[] totales = v.totalCentavos();
+            double ancho = (double) (max - min) / buckets;
+            for (int i = desde; i < hasta; i++) {
+                if (!f.acepta(v, i)) {
+                    continue;
+                }
+                int b = (int) ((totales[i] - min) / ancho);
+                out[Math.min(buckets - 1, Math.max(0, b))]++;
+            }
+            return out;
+        }
+    }
+
+    private static final class DiarioTask extends SumaTask {
+        private final int primerDia;
+        private final int dias;
+
+        DiarioTask(ColumnasCotizacion.Vista v, FiltroSnapshot f, int desde, int hasta, int primerDia, int dias) {
+            super(v, f, desde, hasta);
+            this.primerDia = primerDia;
+            this.dias = dias;
+        }
+
+        @Override
+        SumaTask sub(int d, int h) {
+            return new DiarioTask(v, f, d, h, primerDia, dias);
+        }
+
+        @Override
+        long[] barrer() {
+            long[] out = new long[dias * N_ESTADOS];
+            int[] dia = v.diaEpoch();
+            byte[] est = v.estado();
+            for (int i = desde; i < hasta; i++) {
+                if (f.acepta(v, i)) {
+                    out[(dia[i] - primerDia) * N_ESTADOS + est[i]]++;
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Recolecta los totales que pasan el filtro (para ordenar y calcular percentiles). */
+    private static final class SeleccionTask extends RecursiveTask<long[]> {
+        private final ColumnasCotizacion.Vista v;
+        private final FiltroSnapshot f;
+        private final int desde;
+        private final int hasta;
+
+        SeleccionTask(ColumnasCotizacion.Vista v, FiltroSnapshot f, int desde, int hasta) {
+            this.v = v;
+            this.f = f;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hasta - desde <= UMBRAL) {
+                long[] buf = new long[hasta - desde];
+                long[] totales = v.totalCentavos();
+                int n = 0;
+                for (int i = desde; i < hasta; i++) {
+                    if (f.acepta(v, i)) {
+                        buf[n++] = totales[i];
+                    }
+                }
+                return n == buf.length ? buf : Arrays.copyOf(buf, n);
+            }
+            int medio = (desde + hasta) >>> 1;
+            SeleccionTask izq = new SeleccionTask(v, f, desde, medio);
+            izq.fork();
+            long[] der = new SeleccionTask(v, f, medio, hasta).compute();
+            long[] a = izq.join();
+            long[] out = Arrays.copyOf(a, a.length + der.length);
+            System.arraycopy(der, 0, out, a.length, der.length);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.tienda.analytics;
+
+import com.tienda.model.EstadoCotizacion;
+
+import java.util.Arrays;
+
+/**
+ * Copia columnar (solo lectura para los consumidores) de la tabla cotizacion.
+ * <p>
+ * Cada fila ocupa ~29 bytes repartidos en arreglos primitivos, frente a los cientos
+ * de bytes de una entidad {@code Cotizacion} con su proxy de {@code Cliente}.
+ * Un único escritor agrega filas al final; los lectores trabajan sobre una
+ * {@link Vista} inmutable publicada de forma volátil, por lo que nunca ven filas a medio escribir.
+ */
+public final class ColumnasCotizacion {
+
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private long[] ids;
+    private long[] clienteIds;
+    private long[] totalCentavos;
+    private int[] diaEpoch;
+    private byte[] estado;
+    private int filas;
+    private long maximo;
+
+    private volatile Vista vista;
+
+    public ColumnasCotizacion() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public ColumnasCotizacion(int capacidadInicial) {
+        int cap = Math.max(16, capacidadInicial);
+        ids = new long[cap];
+        clienteIds = new long[cap];
+        totalCentavos = new long[cap];
+        diaEpoch = new int[cap];
+        estado = new byte[cap];
+        vista = new Vista(ids, clienteIds, totalCentavos, diaEpoch, estado, 0, 0L);
+    }
+
+    /**
+     * Agrega una fila. No es visible para los lectores hasta llamar a {@link #publicar()}.
+     * Solo debe invocarse desde un único hilo escritor.
+     */
+    public void agregar(long id, long clienteId, long centavos, int dia, EstadoCotizacion est) {
+        if (filas == ids.length) {
+            crecer();
+        }
+        ids[filas] = id;
+        clienteIds[filas] = clienteId;
+        totalCentavos[filas] = centavos;
+        diaEpoch[filas] = dia;
+        estado[filas] = (byte) est.ordinal();
+        filas++;
+        maximo = Math.max(maximo, id);
+    }
+
+    /**
+     * Hace visibles para los lectores todas las filas agregadas hasta ahora. El watermark es el mayor id
+     * cargado: una fila que se confirmó tarde se agrega al final con un id menor.
+     */
+    public void publicar() {
+        vista = new Vista(ids, clienteIds, totalCentavos, diaEpoch, estado, filas, maximo);
+    }
+
+    public Vista vista() {
+        return vista;
+    }
+
+    private void crecer() {
+        int nuevaCap = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, nuevaCap);
+        clienteIds = Arrays.copyOf(clienteIds, nuevaCap);
+        totalCentavos = Arrays.copyOf(totalCentavos, nuevaCap);
+        diaEpoch = Arrays.copyOf(diaEpoch, nuevaCap);
+        estado = Arrays.copyOf(estado, nuevaCap);
+    }
+
+    /**
+     * Foto consistente de las columnas: solo las posiciones {@code [0, filas)} son válidas.
+     * Las filas ya publicadas nunca se modifican, así que compartir los arreglos es seguro.
+     */
+    public record Vista(long[] ids,
+                        long[] clienteIds,
+                        long[] totalCentavos,
+                        int[] diaEpoch,
+                        byte[] estado,
+                        int filas,
+                        long watermark) {
+
+        /** Bytes ocupados por las filas válidas (sin contar la capacidad libre). */
+        public long bytesUsados() {
+            return (long) filas * (Long.BYTES * 3 + Integer.BYTES + Byte.BYTES);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.tienda.analytics;
+
+import com.tienda.model.EstadoCotizacion;
+
+import java.time.LocalDate;
+
+/**
+ * Filtro aplicado durante el barrido de columnas.
+ * {@code estado == -1} significa "todos los estados"; el rango de días es inclusivo.
+ */
+public record FiltroSnapshot(byte estado, int desdeDia, int hastaDia) {
+
+    public static final FiltroSnapshot TODO = new FiltroSnapshot((byte) -1, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    public static FiltroSnapshot de(EstadoCotizacion estado, LocalDate desde, LocalDate hasta) {
+        return new FiltroSnapshot(
+                estado != null ? (byte) estado.ordinal() : (byte) -1,
+                desde != null ? (int) desde.toEpochDay() : Integer.MIN_VALUE,
+                hasta != null ? (int) hasta.toEpochDay() : Integer.MAX_VALUE
+        );
+    }
+
+    boolean acepta(ColumnasCotizacion.Vista v, int i) {
+        int dia = v.diaEpoch()[i];
+        return dia >= desdeDia && dia <= hastaDia && (estado < 0 || v.estado()[i] == estado);
+    }
+}
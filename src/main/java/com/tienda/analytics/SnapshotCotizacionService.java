@@ -0,0 +1,176 @@
+package com.tienda.analytics;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.carga.TipoCarga;
+import com.tienda.model.EstadoCotizacion;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mantiene en memoria una copia columnar de cotizacion para los tableros de gerencia,
+ * de modo que histogramas, percentiles y conteos diarios no golpeen la base OLTP.
+ * <p>
+ * El refresco es incremental por watermark de id (solo lee filas nuevas). Los cambios
+ * de estado sobre filas ya cargadas se recogen con la reconstrucción completa periódica.
+ * <p>
+ * Los ids {@code AUTO_INCREMENT} se asignan al insertar pero se ven al confirmar: como en
+ * {@code BusInvalidacion}, la marca de lectura no pasa un hueco hasta {@code tienda.analitica.gracia-ms}
+ * después de notarlo. Las filas posteriores al hueco se cargan igual y se recuerdan para no duplicarlas;
+ * si pasan de {@code tamano-lote}, la marca avanza sobre los huecos más viejos.
+ * <p>
+ * Con sharding solo lee la base principal: las cotizaciones que viven en los shards no entran en la copia.
+ */
+@Slf4j
+@Service
+public class SnapshotCotizacionService {
+
+    private static final String SQL_INCREMENTAL =
+            "select id, cliente_id, total, estado, created_at from cotizacion where id > ? order by id limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int tamanoLote;
+    private final ForkJoinPool pool;
+    private final AgregadorCotizaciones agregador;
+
+    private final long graciaMs;
+
+    private volatile ColumnasCotizacion columnas = new ColumnasCotizacion();
+    private volatile LocalDateTime ultimaActualizacion;
+    // Solo la modifican refrescar() y reconstruir(), que son synchronized.
+    private Lectura lectura = new Lectura();
+
+    /** Hasta dónde se leyó sin huecos pendientes, y lo cargado más allá. */
+    private static final class Lectura {
+        long marca;
+        final NavigableSet<Long> posteriores = new TreeSet<>();
+        /** Primer id de cada hueco y cuándo se notó. */
+        final Map<Long, Long> huecos = new HashMap<>();
+    }
+
+    public SnapshotCotizacionService(JdbcTemplate jdbcTemplate,
+                                     @Value("${tienda.analitica.tamano-lote:50000}") int tamanoLote,
+                                     @Value("${tienda.analitica.paralelismo:0}") int paralelismo,
+                                     @Value("${tienda.analitica.gracia-ms:60000}") long graciaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanoLote = tamanoLote;
+        this.graciaMs = graciaMs;
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+        this.agregador = new AgregadorCotizaciones(pool);
+    }
+
+    /** Lee las filas con id mayor a la marca de lectura que todavía no estaban y las publica. */
+    @Scheduled(initialDelayString = "${tienda.analitica.retraso-inicial-ms:0}",
+            fixedDelayString = "${tienda.analitica.refresco-ms:30000}")
+    public synchronized void refrescar() {
+        ColumnasCotizacion destino = columnas;
+        int antes = destino.vista().filas();
+        ContextoCarga.ejecutar(TipoCarga.BATCH, () -> cargar(destino, lectura));
+        ultimaActualizacion = LocalDateTime.now();
+        int nuevas = destino.vista().filas() - antes;
+        if (nuevas > 0) {
+            log.debug("Snapshot de cotizaciones: {} filas nuevas (total {})", nuevas, destino.vista().filas());
+        }
+    }
+
+    /** Reconstruye la copia desde cero para reflejar cambios de estado sobre filas existentes. */
+    @Scheduled(cron = "${tienda.analitica.reconstruccion-cron:0 0 3 * * *}")
+    public synchronized void reconstruir() {
+        ColumnasCotizacion nuevas = new ColumnasCotizacion(Math.max(1024, columnas.vista().filas()));
+        Lectura nueva = new Lectura();
+        ContextoCarga.ejecutar(TipoCarga.BATCH, () -> cargar(nuevas, nueva));
+        columnas = nuevas;
+        lectura = nueva;
+        ultimaActualizacion = LocalDateTime.now();
+        log.info("Snapshot de cotizaciones reconstruido: {} filas", nuevas.vista().filas());
+    }
+
+    private void cargar(ColumnasCotizacion destino, Lectura l) {
+        long ahora = System.currentTimeMillis();
+        long desde = l.marca;
+        boolean[] detenida = {false};
+        while (true) {
+            int[] leidas = {0};
+            long[] anterior = {desde};
+            jdbcTemplate.query(SQL_INCREMENTAL, rs -> {
+                long id = rs.getLong(1);
+                if (id > anterior[0] + 1) {
+                    l.huecos.putIfAbsent(anterior[0] + 1, ahora);
+                }
+                anterior[0] = id;
+                leidas[0]++;
+                boolean yaCargada = l.posteriores.contains(id);
+                if (!detenida[0] && (id == l.marca + 1 || vencido(l.huecos.get(l.marca + 1), ahora))) {
+                    l.marca = id;
+                    l.posteriores.remove(id);
+                } else {
+                    detenida[0] = true;
+                    l.posteriores.add(id);
+                }
+                if (yaCargada) {
+                    return;
+                }
+                BigDecimal total = rs.getBigDecimal(3);
+                LocalDateTime creada = rs.getObject(5, LocalDateTime.class);
+                destino.agregar(
+                        id,
+                        rs.getLong(2),
+                        total.movePointRight(2).longValueExact(),
+                        (int) creada.toLocalDate().toEpochDay(),
+                        EstadoCotizacion.valueOf(rs.getString(4))
+                );
+            }, desde, tamanoLote);
+            destino.publicar();
+            while (l.posteriores.size() > tamanoLote) {
+                l.marca = l.posteriores.pollFirst(); // un hueco tan viejo ya no se va a llenar
+            }
+            if (leidas[0] < tamanoLote) {
+                break;
+            }
+            desde = anterior[0];
+        }
+        long m = l.marca;
+        l.huecos.keySet().removeIf(id -> id <= m);
+    }
+
+    private boolean vencido(Long desde, long ahora) {
+        return desde != null && ahora - desde >= graciaMs;
+    }
+
+    public ColumnasCotizacion.Vista vista() {
+        return columnas.vista();
+    }
+
+    public LocalDateTime getUltimaActualizacion() {
+        return ultimaActualizacion;
+    }
+
+    public long[] histograma(FiltroSnapshot filtro, long minCentavos, long maxCentavos, int buckets) {
+        return agregador.histograma(vista(), filtro, minCentavos, maxCentavos, buckets);
+    }
+
+    public long[] percentiles(FiltroSnapshot filtro, double... ps) {
+        return agregador.percentiles(vista(), filtro, ps);
+    }
+
+    public long[] conteoDiario(FiltroSnapshot filtro, LocalDate desde, LocalDate hasta) {
+        return agregador.conteoDiario(vista(), filtro, (int) desde.toEpochDay(), (int) hasta.toEpochDay());
+    }
+
+    @PreDestroy
+    void cerrar() {
+        pool.shutdown();
+    }
+}
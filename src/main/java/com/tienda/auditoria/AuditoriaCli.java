@@ -0,0 +1,91 @@
+package com.tienda.auditoria;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Consulta el diario de auditoría desde la línea de comandos, sin levantar Spring ni otras dependencias
+ * (en la imagen Docker, {@code java -cp app.jar ...} desde {@code /app/application}):
+ * <pre>
+ * java -cp target/classes com.tienda.auditoria.AuditoriaCli auditoria \
+ *      --entidad 42 --desde 2026-10-01T00:00 --hasta 2026-10-19T23:59 --tipo COTIZACION_CREADA
+ * </pre>
+ * Las fechas sin zona se interpretan en la zona del sistema. Imprime una línea por registro
+ * (instante, tipo, entidad, relacionado, detalle separados por tabulador) y el total en stderr.
+ */
+public final class AuditoriaCli {
+
+    private AuditoriaCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            uso("Falta el directorio del diario");
+            return;
+        }
+        Path directorio = Path.of(args[0]);
+        TipoEventoAuditoria tipo = null;
+        Long entidad = null;
+        long desde = Long.MIN_VALUE;
+        long hasta = Long.MAX_VALUE;
+        long limite = 0;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    uso("Falta el valor de " + args[i]);
+                    return;
+                }
+                String v = args[i + 1];
+                switch (args[i]) {
+                    case "--tipo" -> tipo = TipoEventoAuditoria.valueOf(v);
+                    case "--entidad" -> entidad = Long.parseLong(v);
+                    case "--desde" -> desde = instante(v);
+                    case "--hasta" -> hasta = instante(v);
+                    case "--limite" -> limite = Long.parseLong(v);
+                    default -> {
+                        uso("Opción desconocida: " + args[i]);
+                        return;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            uso("Valor inválido: " + e.getMessage());
+            return;
+        }
+
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long n = new LectorAuditoria(directorio).recorrer(new FiltroAuditoria(tipo, entidad, desde, hasta), limite, r -> {
+            try {
+                out.write(r.instante() + "\t" + r.tipo() + "\t" + r.entidadId() + "\t" + r.relacionadoId()
+                        + "\t" + r.detalle());
+                out.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+        System.err.println(n + " registros");
+    }
+
+    static long instante(String texto) {
+        if (texto.endsWith("Z")) {
+            return Instant.parse(texto).toEpochMilli();
+        }
+        return LocalDateTime.parse(texto).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void uso(String error) {
+        System.err.println(error);
+        System.err.println("Uso: AuditoriaCli <directorio> [--entidad ID] [--tipo TIPO] [--desde FECHA] "
+                + "[--hasta FECHA] [--limite N]");
+        System.exit(2);
+    }
+}
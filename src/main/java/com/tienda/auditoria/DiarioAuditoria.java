@@ -0,0 +1,360 @@
+package com.tienda.auditoria;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de auditoría de solo-anexar en archivos mapeados a memoria, fuera de la base de datos.
+ * <p>
+ * Cada productor reserva su espacio con un {@code getAndAdd} sobre la posición del segmento activo y
+ * escribe sin bloqueos; el que cruza el final marca el fin del segmento y activa el siguiente
+ * (preasignado en segundo plano), mientras los demás esperan activamente ese cambio. El {@code force()}
+ * corre cada {@code tienda.auditoria.force-ms}: ante un corte de luz se pierde a lo sumo ese intervalo,
+ * ante la caída del proceso nada (las páginas ya están en el page cache del sistema operativo).
+ * <p>
+ * Dentro de una transacción el registro se escribe después del commit, así que una transacción
+ * revertida no deja rastro. Los segmentos más viejos que {@code tienda.auditoria.retencion-dias} se
+ * borran. Para leer, {@link LectorAuditoria} y {@link AuditoriaCli}.
+ */
+@Slf4j
+@Service
+public class DiarioAuditoria implements SmartLifecycle, MeterBinder {
+
+    private static final int ESPERAS_ACTIVAS = 1_000;
+
+    private static final ThreadLocal<ByteBuffer> REGISTRO =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(FormatoAuditoria.MAX_REGISTRO));
+    private static final ThreadLocal<CRC32C> CRC = ThreadLocal.withInitial(CRC32C::new);
+
+    private final boolean habilitado;
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final long retencionMs;
+
+    private final AtomicReference<Segmento> actual = new AtomicReference<>();
+    private final AtomicReference<Segmento> siguiente = new AtomicReference<>();
+    /** Segmentos cerrados que esperan su último {@code force()}. */
+    private final Queue<Segmento> sellados = new ConcurrentLinkedQueue<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private volatile boolean corriendo;
+
+    private final LongAdder registros = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder rotaciones = new LongAdder();
+
+    /** Un archivo de segmento mapeado completo; {@code posicion} es el próximo byte a reservar. */
+    static final class Segmento {
+        final Path archivo;
+        final FileChannel canal;
+        final MappedByteBuffer buf;
+        final int capacidad;
+        final AtomicLong posicion = new AtomicLong(FormatoAuditoria.ENCABEZADO_SEGMENTO);
+
+        Segmento(Path archivo, FileChannel canal, MappedByteBuffer buf) {
+            this.archivo = archivo;
+            this.canal = canal;
+            this.buf = buf;
+            this.capacidad = buf.capacity();
+        }
+
+        void activar(long ahora) {
+            buf.putLong(FormatoAuditoria.OFFSET_ACTIVADO, ahora);
+        }
+
+        void cerrar() {
+            try {
+                buf.force();
+                canal.close();
+            } catch (IOException e) {
+                log.warn("Auditoría: no se pudo cerrar {}: {}", archivo, e.getMessage());
+            }
+        }
+    }
+
+    public DiarioAuditoria(@Value("${tienda.auditoria.enabled:true}") boolean habilitado,
+                           @Value("${tienda.auditoria.directorio:auditoria}") String directorio,
+                           @Value("${tienda.auditoria.tamano-segmento-mb:64}") int tamanoSegmentoMb,
+                           @Value("${tienda.auditoria.retencion-dias:365}") int retencionDias) {
+        if (tamanoSegmentoMb < 1 || tamanoSegmentoMb > 1024) {
+            throw new IllegalArgumentException("tienda.auditoria.tamano-segmento-mb debe estar entre 1 y 1024");
+        }
+        this.habilitado = habilitado;
+        this.directorio = Paths.get(directorio);
+        this.tamanoSegmento = tamanoSegmentoMb * 1024 * 1024;
+        this.retencionMs = TimeUnit.DAYS.toMillis(retencionDias);
+    }
+
+    /**
+     * Anota el evento. Dentro de una transacción se escribe al confirmarla; fuera de una, enseguida.
+     * Nunca lanza: un fallo de disco se registra en el log y en {@code tienda.auditoria.descartados}.
+     */
+    public void registrar(TipoEventoAuditoria tipo, long entidadId, long relacionadoId, String detalle) {
+        if (!habilitado) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    escribir(tipo, entidadId, relacionadoId, detalle);
+                }
+            });
+        } else {
+            escribir(tipo, entidadId, relacionadoId, detalle);
+        }
+    }
+
+    void escribir(TipoEventoAuditoria tipo, long entidadId, long relacionadoId, String detalle) {
+        ByteBuffer registro = REGISTRO.get();
+        int largo = FormatoAuditoria.codificar(registro, tipo, entidadId, relacionadoId, detalle);
+        int reserva = FormatoAuditoria.alinear(largo);
+        while (true) {
+            Segmento s = actual.get();
+            if (s == null) {
+                descartados.increment();
+                return;
+            }
+            long inicio = s.posicion.getAndAdd(reserva);
+            if (inicio + reserva <= s.capacidad) {
+                // el instante va después de la reserva: nunca es anterior a la activación del segmento
+                FormatoAuditoria.publicar(s.buf, (int) inicio, registro, largo, System.currentTimeMillis(), CRC.get());
+                registros.increment();
+                bytes.add(reserva);
+                return;
+            }
+            if (inicio <= s.capacidad) {
+                // solo un productor cruza (o toca) el final: él cierra el segmento y activa el siguiente
+                if (inicio < s.capacidad) {
+                    FormatoAuditoria.marcarFin(s.buf, (int) inicio);
+                }
+                rotar(s);
+            } else {
+                esperarRotacion(s);
+            }
+        }
+    }
+
+    private void rotar(Segmento lleno) {
+        Segmento nuevo = siguiente.getAndSet(null);
+        if (nuevo == null) {
+            nuevo = crearSegmento();
+        }
+        if (nuevo != null) {
+            nuevo.activar(System.currentTimeMillis());
+            rotaciones.increment();
+        }
+        // si no se pudo crear, actual queda en null y se descarta hasta que forzar() lo reintente
+        if (!actual.compareAndSet(lleno, nuevo) && nuevo != null) {
+            descartar(nuevo); // stop() se adelantó
+        }
+        sellados.add(lleno);
+    }
+
+    private void esperarRotacion(Segmento lleno) {
+        for (int i = 0; actual.get() == lleno; i++) {
+            if (i < ESPERAS_ACTIVAS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private Segmento crearSegmento() {
+        Path archivo = directorio.resolve(FormatoAuditoria.nombre(secuencia.incrementAndGet()));
+        try {
+            FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                FormatoAuditoria.escribirEncabezado(canal);
+                return new Segmento(archivo, canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento));
+            } catch (IOException | RuntimeException e) {
+                canal.close();
+                Files.deleteIfExists(archivo);
+                throw e;
+            }
+        } catch (IOException e) {
+            log.error("Auditoría: no se pudo crear el segmento {}", archivo, e);
+            return null;
+        }
+    }
+
+    /** Fuerza a disco lo escrito, cierra los segmentos llenos y deja listo el siguiente. */
+    @Scheduled(fixedDelayString = "${tienda.auditoria.force-ms:1000}")
+    public void forzar() {
+        if (!corriendo) {
+            return;
+        }
+        Segmento s;
+        while ((s = sellados.poll()) != null) {
+            s.cerrar();
+        }
+        Segmento activo = actual.get();
+        if (activo != null) {
+            activo.buf.force();
+        } else {
+            Segmento nuevo = crearSegmento();
+            if (nuevo != null) {
+                nuevo.activar(System.currentTimeMillis());
+                if (!actual.compareAndSet(null, nuevo)) {
+                    descartar(nuevo);
+                    return;
+                }
+                log.info("Auditoría: escritura reanudada en {}", nuevo.archivo);
+            }
+        }
+        if (siguiente.get() == null) {
+            Segmento pre = crearSegmento();
+            if (pre != null && !siguiente.compareAndSet(null, pre)) {
+                descartar(pre);
+            }
+        }
+    }
+
+    /** Borra los segmentos cuyo último registro posible es anterior a la retención. */
+    @Scheduled(fixedDelayString = "${tienda.auditoria.purga-ms:3600000}")
+    public void purgar() {
+        if (!corriendo) {
+            return;
+        }
+        long limite = System.currentTimeMillis() - retencionMs;
+        try {
+            List<FormatoAuditoria.InfoSegmento> segmentos = FormatoAuditoria.segmentos(directorio);
+            // el último segmento activado puede estar en uso; de los demás, el siguiente acota su final
+            for (int i = 0; i + 1 < segmentos.size(); i++) {
+                long fin = segmentos.get(i + 1).activadoMs();
+                if (fin == 0) {
+                    break;
+                }
+                if (fin + FormatoAuditoria.TOLERANCIA_MS < limite) {
+                    Files.deleteIfExists(segmentos.get(i).archivo());
+                    log.info("Auditoría: segmento {} borrado por retención", segmentos.get(i).archivo().getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Auditoría: no se pudo aplicar la retención: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            Files.createDirectories(directorio);
+            // nunca se continúa un segmento anterior: tras una caída su final no es confiable
+            long ultima = 0;
+            for (FormatoAuditoria.InfoSegmento s : FormatoAuditoria.segmentos(directorio)) {
+                if (s.activadoMs() == 0) {
+                    Files.deleteIfExists(s.archivo()); // preasignado y nunca usado
+                } else {
+                    ultima = Math.max(ultima, s.secuencia());
+                }
+            }
+            secuencia.set(ultima);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo preparar el directorio de auditoría " + directorio, e);
+        }
+        Segmento s = crearSegmento();
+        if (s == null) {
+            throw new IllegalStateException("No se pudo crear el segmento de auditoría en " + directorio);
+        }
+        s.activar(System.currentTimeMillis());
+        actual.set(s);
+        corriendo = true;
+        log.info("Auditoría en {} (segmentos de {} MB)", directorio.toAbsolutePath(), tamanoSegmento >> 20);
+    }
+
+    @Override
+    public void stop() {
+        if (!corriendo) {
+            return;
+        }
+        corriendo = false;
+        Segmento s = actual.getAndSet(null);
+        if (s != null) {
+            // reservar el resto impide nuevas escrituras; si quedaba espacio, se marca el fin
+            long inicio = s.posicion.getAndAdd(s.capacidad);
+            if (inicio < s.capacidad) {
+                FormatoAuditoria.marcarFin(s.buf, (int) inicio);
+            }
+            sellados.add(s);
+        }
+        Segmento sellado;
+        while ((sellado = sellados.poll()) != null) {
+            sellado.cerrar();
+        }
+        Segmento pre = siguiente.getAndSet(null);
+        if (pre != null) {
+            descartar(pre);
+        }
+    }
+
+    /** Arranca antes y se detiene después del servidor web: los últimos requests también quedan auditados. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return corriendo;
+    }
+
+    private static void descartar(Segmento s) {
+        try {
+            s.canal.close();
+            Files.deleteIfExists(s.archivo);
+        } catch (IOException e) {
+            log.warn("Auditoría: no se pudo borrar el segmento preasignado {}: {}", s.archivo, e.getMessage());
+        }
+    }
+
+    public Path directorio() {
+        return directorio;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tienda.auditoria.registros", registros, LongAdder::sum)
+                .description("Registros escritos en el diario de auditoría")
+                .register(registry);
+        FunctionCounter.builder("tienda.auditoria.bytes", bytes, LongAdder::sum)
+                .description("Bytes escritos en el diario de auditoría")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("tienda.auditoria.descartados", descartados, LongAdder::sum)
+                .description("Registros que no pudieron escribirse (sin segmento activo)")
+                .register(registry);
+        FunctionCounter.builder("tienda.auditoria.rotaciones", rotaciones, LongAdder::sum)
+                .description("Segmentos llenos que se cerraron")
+                .register(registry);
+    }
+}
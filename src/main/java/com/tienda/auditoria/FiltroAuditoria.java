@@ -0,0 +1,19 @@
+package com.tienda.auditoria;
+
+/**
+ * Criterios de búsqueda en el diario. {@code tipo} y {@code entidadId} son opcionales; el id coincide
+ * con la entidad o con la relacionada (buscar un cliente trae también sus cotizaciones).
+ * El rango {@code [desdeMs, hastaMs]} es inclusivo.
+ */
+public record FiltroAuditoria(TipoEventoAuditoria tipo, Long entidadId, long desdeMs, long hastaMs) {
+
+    public static FiltroAuditoria todo() {
+        return new FiltroAuditoria(null, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    boolean acepta(long instanteMs, int codigoTipo, long entidad, long relacionado) {
+        return instanteMs >= desdeMs && instanteMs <= hastaMs
+                && (tipo == null || tipo.ordinal() == codigoTipo)
+                && (entidadId == null || entidadId == entidad || entidadId == relacionado);
+    }
+}
@@ -0,0 +1,174 @@
+package com.tienda.auditoria;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binario del diario, compartido por quien escribe y quien lee.
+ * <pre>
+ * segmento {@code 000000000042.aud}:
+ *   0  long  MAGIA_SEGMENTO
+ *   8  int   VERSION
+ *   16 long  activado (ms; 0 = preasignado y nunca usado)
+ *   64 registros, cada uno alineado a 8 bytes
+ *
+ * registro:
+ *   0  int   longitud sin relleno (0 = aún no publicado, -1 = fin del segmento)
+ *   4  int   CRC32C de los bytes [8, longitud)
+ *   8  long  instante (ms)
+ *   16 long  entidadId
+ *   24 long  relacionadoId
+ *   32 byte  tipo
+ *   33 short largo del detalle
+ *   35 detalle UTF-8
+ * </pre>
+ * La longitud se escribe al final con semántica release: un lector que la ve distinta de 0 ve el
+ * registro completo. Un registro reservado y nunca publicado (el proceso murió a mitad) deja un
+ * hueco de ceros; el lector lo salta buscando el siguiente registro con CRC válido.
+ */
+final class FormatoAuditoria {
+
+    static final long MAGIA_SEGMENTO = 0x5449454E44414155L; // "TIENDAAU"
+    static final int VERSION = 1;
+    static final int ENCABEZADO_SEGMENTO = 64;
+    static final int OFFSET_ACTIVADO = 16;
+
+    static final int ENCABEZADO = 35;
+    static final int MAX_DETALLE = 1024;
+    static final int MAX_REGISTRO = alinear(ENCABEZADO + MAX_DETALLE);
+    static final int FIN = -1;
+
+    static final String EXTENSION = ".aud";
+
+    /**
+     * Segmentos posteriores pueden tener registros algo más viejos que su activación: el instante se
+     * toma después de reservar, pero un hilo puede demorarse entre la reserva y el reloj.
+     */
+    static final long TOLERANCIA_MS = 60_000;
+
+    private static final VarHandle INT =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private FormatoAuditoria() {
+    }
+
+    record InfoSegmento(Path archivo, long secuencia, long activadoMs) {
+    }
+
+    static int alinear(int n) {
+        return (n + 7) & ~7;
+    }
+
+    static String nombre(long secuencia) {
+        return String.format("%012d%s", secuencia, EXTENSION);
+    }
+
+    /**
+     * Codifica el registro en {@code dst} (desde 0) sin instante ni CRC, que se completan al publicar.
+     *
+     * @return la longitud sin relleno
+     */
+    static int codificar(ByteBuffer dst, TipoEventoAuditoria tipo, long entidadId, long relacionadoId,
+                         String detalle) {
+        byte[] d = detalle != null ? detalle.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int largoDetalle = Math.min(d.length, MAX_DETALLE);
+        dst.putLong(16, entidadId);
+        dst.putLong(24, relacionadoId);
+        dst.put(32, (byte) tipo.ordinal());
+        dst.putShort(33, (short) largoDetalle);
+        dst.put(ENCABEZADO, d, 0, largoDetalle);
+        return ENCABEZADO + largoDetalle;
+    }
+
+    /**
+     * Completa instante y CRC en {@code registro}, lo copia a {@code pos} y publica la longitud.
+     * {@code pos} debe estar alineada a 8 y el espacio, reservado por quien llama.
+     */
+    static void publicar(ByteBuffer segmento, int pos, ByteBuffer registro, int largo, long instanteMs,
+                         CRC32C crc) {
+        registro.putLong(8, instanteMs);
+        crc.reset();
+        crc.update(registro.array(), 8, largo - 8);
+        registro.putInt(4, (int) crc.getValue());
+        segmento.put(pos + 4, registro.array(), 4, largo - 4);
+        INT.setRelease(segmento, pos, largo);
+    }
+
+    static void marcarFin(ByteBuffer segmento, int pos) {
+        INT.setRelease(segmento, pos, FIN);
+    }
+
+    static int longitud(ByteBuffer segmento, int pos) {
+        return (int) INT.getAcquire(segmento, pos);
+    }
+
+    /** Verifica que en {@code pos} haya un registro completo e íntegro de {@code largo} bytes. */
+    static boolean valido(ByteBuffer segmento, int pos, int largo, byte[] tmp, CRC32C crc) {
+        if (largo < ENCABEZADO || largo > ENCABEZADO + MAX_DETALLE || pos + largo > segmento.limit()) {
+            return false;
+        }
+        int largoDetalle = segmento.getShort(pos + 33);
+        if (largoDetalle < 0 || ENCABEZADO + largoDetalle != largo) {
+            return false;
+        }
+        segmento.get(pos + 8, tmp, 0, largo - 8);
+        crc.reset();
+        crc.update(tmp, 0, largo - 8);
+        return (int) crc.getValue() == segmento.getInt(pos + 4);
+    }
+
+    static void escribirEncabezado(FileChannel canal) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(ENCABEZADO_SEGMENTO);
+        h.putLong(0, MAGIA_SEGMENTO);
+        h.putInt(8, VERSION);
+        canal.write(h, 0);
+    }
+
+    /** Los segmentos del directorio ordenados por secuencia, con su instante de activación. */
+    static List<InfoSegmento> segmentos(Path directorio) throws IOException {
+        List<InfoSegmento> lista = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return lista;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            for (Path p : ds) {
+                String n = p.getFileName().toString();
+                long secuencia;
+                try {
+                    secuencia = Long.parseLong(n.substring(0, n.length() - EXTENSION.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                lista.add(new InfoSegmento(p, secuencia, activado(p)));
+            }
+        }
+        lista.sort(Comparator.comparingLong(InfoSegmento::secuencia));
+        return lista;
+    }
+
+    private static long activado(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer h = ByteBuffer.allocate(ENCABEZADO_SEGMENTO);
+            while (h.hasRemaining() && canal.read(h) >= 0) {
+                // lee el encabezado completo
+            }
+            if (h.position() < ENCABEZADO_SEGMENTO || h.getLong(0) != MAGIA_SEGMENTO) {
+                return 0;
+            }
+            return h.getLong(OFFSET_ACTIVADO);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.tienda.auditoria;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Recorre el diario de auditoría sin cargar segmentos en el heap: cada segmento se mapea en solo
+ * lectura y los filtros se evalúan sobre el encabezado de cada registro; solo los que coinciden se
+ * verifican (CRC) y se decodifican. Los segmentos fuera del rango de fechas ni se abren.
+ * <p>
+ * Puede leer un directorio en uso: ve los registros publicados hasta ese momento.
+ */
+public class LectorAuditoria {
+
+    private final Path directorio;
+    private final byte[] tmp = new byte[FormatoAuditoria.MAX_REGISTRO];
+    private final CRC32C crc = new CRC32C();
+
+    public LectorAuditoria(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    /**
+     * Entrega a {@code destino}, en orden de escritura, los registros que cumplen el filtro.
+     *
+     * @param limite máximo de registros a entregar; 0 o negativo, sin límite
+     * @return cuántos se entregaron
+     */
+    public long recorrer(FiltroAuditoria filtro, long limite, Consumer<RegistroAuditoria> destino) throws IOException {
+        long max = limite > 0 ? limite : Long.MAX_VALUE;
+        List<FormatoAuditoria.InfoSegmento> segmentos = FormatoAuditoria.segmentos(directorio);
+        long entregados = 0;
+        for (int i = 0; i < segmentos.size() && entregados < max; i++) {
+            FormatoAuditoria.InfoSegmento s = segmentos.get(i);
+            if (s.activadoMs() == 0 || s.activadoMs() > filtro.hastaMs()) {
+                continue;
+            }
+            long siguiente = i + 1 < segmentos.size() ? segmentos.get(i + 1).activadoMs() : 0;
+            if (siguiente != 0 && siguiente + FormatoAuditoria.TOLERANCIA_MS < filtro.desdeMs()) {
+                continue;
+            }
+            try {
+                entregados += recorrerSegmento(s.archivo(), filtro, max - entregados, destino);
+            } catch (NoSuchFileException e) {
+                // la retención lo borró mientras se listaba
+            }
+        }
+        return entregados;
+    }
+
+    private long recorrerSegmento(Path archivo, FiltroAuditoria filtro, long max,
+                                  Consumer<RegistroAuditoria> destino) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        long entregados = 0;
+        int pos = FormatoAuditoria.ENCABEZADO_SEGMENTO;
+        int fin = buf.capacity() - FormatoAuditoria.ENCABEZADO;
+        while (pos <= fin && entregados < max) {
+            int largo = FormatoAuditoria.longitud(buf, pos);
+            if (largo == FormatoAuditoria.FIN) {
+                break;
+            }
+            if (largo < FormatoAuditoria.ENCABEZADO || largo > FormatoAuditoria.MAX_REGISTRO) {
+                pos = siguienteValido(buf, pos + 8, fin);
+                continue;
+            }
+            long instante = buf.getLong(pos + 8);
+            long entidad = buf.getLong(pos + 16);
+            long relacionado = buf.getLong(pos + 24);
+            int tipo = buf.get(pos + 32);
+            if (filtro.acepta(instante, tipo, entidad, relacionado)) {
+                if (!FormatoAuditoria.valido(buf, pos, largo, tmp, crc)) {
+                    pos = siguienteValido(buf, pos + 8, fin);
+                    continue;
+                }
+                // tmp quedó con los bytes [8, largo) del registro
+                String detalle = new String(tmp, FormatoAuditoria.ENCABEZADO - 8,
+                        largo - FormatoAuditoria.ENCABEZADO, StandardCharsets.UTF_8);
+                destino.accept(new RegistroAuditoria(instante, TipoEventoAuditoria.deCodigo(tipo),
+                        entidad, relacionado, detalle));
+                entregados++;
+            }
+            pos += FormatoAuditoria.alinear(largo);
+        }
+        return entregados;
+    }
+
+    /**
+     * Salta un hueco (registro reservado y nunca publicado) o un registro dañado: avanza de a 8 bytes
+     * hasta el próximo registro íntegro. Al final de un segmento en uso recorre los ceros hasta el borde.
+     */
+    private int siguienteValido(MappedByteBuffer buf, int desde, int fin) {
+        for (int pos = desde; pos <= fin; pos += 8) {
+            // aquí un -1 puede ser parte de un registro a medias, no el fin: solo cuenta un CRC válido
+            int largo = FormatoAuditoria.longitud(buf, pos);
+            if (largo > 0 && FormatoAuditoria.valido(buf, pos, largo, tmp, crc)
+                    && TipoEventoAuditoria.deCodigo(buf.get(pos + 32)) != null) {
+                return pos;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
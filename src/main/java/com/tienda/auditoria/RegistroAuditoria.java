@@ -0,0 +1,15 @@
+package com.tienda.auditoria;
+
+import java.time.Instant;
+
+/**
+ * Un registro del diario. {@code relacionadoId} es el cliente de una cotización (0 si no aplica);
+ * el detalle no lleva datos personales para que el diario no tenga que purgarse por cliente.
+ */
+public record RegistroAuditoria(long instanteMs, TipoEventoAuditoria tipo, long entidadId, long relacionadoId,
+                                String detalle) {
+
+    public Instant instante() {
+        return Instant.ofEpochMilli(instanteMs);
+    }
+}
@@ -0,0 +1,20 @@
+package com.tienda.auditoria;
+
+/** Eventos que quedan en el diario de auditoría; el ordinal es el byte que se guarda en disco. */
+public enum TipoEventoAuditoria {
+    CLIENTE_CREADO,
+    COTIZACION_CREADA,
+    /** Cambio de {@code EstadoCotizacion}; el detalle es {@code "ANTERIOR>NUEVO"}. */
+    COTIZACION_ESTADO,
+    /** Purga del cliente y sus cotizaciones; el detalle es {@code "cotizaciones=N"}. */
+    CLIENTE_PURGADO,
+    /** Actualización de un cliente desde un extracto de Salesforce; el detalle es el Account Id. */
+    CLIENTE_ACTUALIZADO;
+
+    private static final TipoEventoAuditoria[] VALORES = values();
+
+    /** @return el tipo con ese código, o {@code null} si no existe */
+    static TipoEventoAuditoria deCodigo(int codigo) {
+        return codigo >= 0 && codigo < VALORES.length ? VALORES[codigo] : null;
+    }
+}
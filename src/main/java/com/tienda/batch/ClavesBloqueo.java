@@ -0,0 +1,143 @@
+package com.tienda.batch;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalizaciones usadas para agrupar clientes candidatos a duplicado.
+ * Todas devuelven {@code null} cuando el dato no alcanza para formar una clave útil.
+ */
+public final class ClavesBloqueo {
+
+    private static final int MIN_DIGITOS_DOCUMENTO = 5;
+    private static final int MIN_DIGITOS_TELEFONO = 7;
+    private static final int DIGITOS_TELEFONO = 10;
+
+    private ClavesBloqueo() {
+    }
+
+    /**
+     * Documento sin prefijos ni separadores: "CC 1.234.567" y "1234567" producen la misma clave.
+     * Si el documento no tiene suficientes dígitos se usa su forma alfanumérica en mayúsculas.
+     */
+    public static String documento(String documento) {
+        if (documento == null || documento.isBlank()) {
+            return null;
+        }
+        String digitos = soloDigitos(documento);
+        if (digitos.length() >= MIN_DIGITOS_DOCUMENTO) {
+            return quitarCerosIzquierda(digitos);
+        }
+        StringBuilder sb = new StringBuilder(documento.length());
+        for (int i = 0; i < documento.length(); i++) {
+            char ch = documento.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                sb.append(Character.toUpperCase(ch));
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    /** Últimos 10 dígitos del teléfono (descarta indicativo de país y separadores). */
+    public static String telefono(String telefono) {
+        if (telefono == null) {
+            return null;
+        }
+        String digitos = soloDigitos(telefono);
+        if (digitos.length() < MIN_DIGITOS_TELEFONO) {
+            return null;
+        }
+        return digitos.length() > DIGITOS_TELEFONO ? digitos.substring(digitos.length() - DIGITOS_TELEFONO) : digitos;
+    }
+
+    /** Código fonético del primer nombre y el primer apellido, p. ej. "Cristian Vásquez" = "Kristian Bázquez". */
+    public static String nombreFonetico(String nombres, String apellidos) {
+        String n = fonetico(primerToken(nombres));
+        String a = fonetico(primerToken(apellidos));
+        if (n.isEmpty() || a.isEmpty()) {
+            return null;
+        }
+        return n + "|" + a;
+    }
+
+    /** Texto en minúsculas, sin tildes y con espacios colapsados (para comparar nombres). */
+    public static String normalizarTexto(String s) {
+        if (s == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return sinTildes.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Codificación fonética simplificada para español: unifica b/v, s/z/c suave, k/c dura/qu,
+     * j/g suave, y/ll, elimina la h muda y colapsa letras repetidas.
+     */
+    static String fonetico(String palabra) {
+        String s = normalizarTexto(palabra).replaceAll("[^a-z]", "");
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            char sig = i + 1 < s.length() ? s.charAt(i + 1) : '\0';
+            char cod;
+            switch (c) {
+                case 'h' -> {
+                    continue;
+                }
+                case 'v', 'w' -> cod = 'b';
+                case 'z' -> cod = 's';
+                case 'c' -> cod = (sig == 'e' || sig == 'i') ? 's' : 'k';
+                case 'q' -> {
+                    cod = 'k';
+                    if (sig == 'u') {
+                        i++;
+                    }
+                }
+                case 'g' -> cod = (sig == 'e' || sig == 'i') ? 'j' : 'g';
+                case 'l' -> {
+                    if (sig == 'l') {
+                        cod = 'y';
+                        i++;
+                    } else {
+                        cod = 'l';
+                    }
+                }
+                case 'i' -> cod = (i == 0 && sig != '\0' && "aeou".indexOf(sig) >= 0) ? 'y' : 'i';
+                case 'x' -> cod = 's';
+                default -> cod = c;
+            }
+            if (out.length() == 0 || out.charAt(out.length() - 1) != cod) {
+                out.append(cod);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String primerToken(String s) {
+        if (s == null) {
+            return "";
+        }
+        String t = s.trim();
+        int sp = t.indexOf(' ');
+        return sp > 0 ? t.substring(0, sp) : t;
+    }
+
+    private static String soloDigitos(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String quitarCerosIzquierda(String digitos) {
+        int i = 0;
+        while (i < digitos.length() - 1 && digitos.charAt(i) == '0') {
+            i++;
+        }
+        return digitos.substring(i);
+    }
+}
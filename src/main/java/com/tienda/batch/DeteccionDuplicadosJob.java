@@ -0,0 +1,316 @@
+package com.tienda.batch;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.dto.DuplicadosResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Detección de clientes duplicados por claves de bloqueo (documento, teléfono, nombre fonético).
+ * <p>
+ * Fase 1 recorre cliente por keyset y guarda solo ids y hashes de clave en arreglos primitivos
+ * (~32 bytes por fila). Ordenar esos hashes forma los bloques; los bloques demasiado grandes
+ * (p. ej. un teléfono genérico) se descartan. Fase 2 carga únicamente los clientes que
+ * aparecen en algún par candidato y los puntúa en paralelo con fork-join.
+ */
+@Slf4j
+@Service
+public class DeteccionDuplicadosJob {
+
+    private static final String SQL_CLAVES =
+            "select id, nombres, apellidos, telefono, documento from cliente where id > ? order by id limit ?";
+    private static final String SQL_FIRMAS =
+            "select id, nombres, apellidos, email, telefono, documento from cliente where id in (%s)";
+
+    /** El índice de fila ocupa los bits bajos del valor empaquetado (hasta ~67M clientes). */
+    private static final int BITS_FILA = 26;
+    private static final long MASCARA_FILA = (1L << BITS_FILA) - 1;
+    private static final int LOTE_FIRMAS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int tamanoLote;
+    private final int maxBloque;
+    private final double umbral;
+    private final Path directorio;
+    private final ForkJoinPool pool;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("duplicados-job"));
+
+    private final AtomicBoolean corriendo = new AtomicBoolean();
+    private final AtomicReference<DuplicadosResponse> ultimo =
+            new AtomicReference<>(DuplicadosResponse.builder().estado("NUNCA_EJECUTADO").build());
+
+    public DeteccionDuplicadosJob(JdbcTemplate jdbcTemplate,
+                                  @Value("${tienda.duplicados.tamano-lote:10000}") int tamanoLote,
+                                  @Value("${tienda.duplicados.max-bloque:50}") int maxBloque,
+                                  @Value("${tienda.duplicados.umbral:0.6}") double umbral,
+                                  @Value("${tienda.duplicados.directorio:${java.io.tmpdir}}") String directorio,
+                                  @Value("${tienda.duplicados.paralelismo:0}") int paralelismo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanoLote = tamanoLote;
+        this.maxBloque = maxBloque;
+        this.umbral = umbral;
+        this.directorio = Path.of(directorio);
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Lanza el trabajo en segundo plano. Devuelve {@code false} si ya hay uno en curso. */
+    public boolean iniciar() {
+        if (!corriendo.compareAndSet(false, true)) {
+            return false;
+        }
+        ultimo.set(DuplicadosResponse.builder().estado("EN_CURSO").iniciado(LocalDateTime.now()).build());
+        ejecutor.submit(() -> {
+            try {
+                ultimo.set(ejecutar());
+            } catch (RuntimeException e) {
+                log.error("Falló la detección de duplicados", e);
+                ultimo.set(ultimo.get().toBuilder()
+                        .estado("ERROR")
+                        .finalizado(LocalDateTime.now())
+                        .error(e.getMessage())
+                        .build());
+            } finally {
+                corriendo.set(false);
+            }
+        });
+        return true;
+    }
+
+    public DuplicadosResponse estado() {
+        return ultimo.get();
+    }
+
+    DuplicadosResponse ejecutar() {
+        LocalDateTime inicio = LocalDateTime.now();
+
+        // 1) Ids y claves de bloqueo
+        ListaLong ids = new ListaLong(1 << 16);
+        ListaLong[] claves = {new ListaLong(1 << 16), new ListaLong(1 << 16), new ListaLong(1 << 16)};
+        long desde = 0;
+        while (true) {
+            int[] leidas = {0};
+            long[] ultimoId = {desde};
+            jdbcTemplate.query(SQL_CLAVES, rs -> {
+                int fila = ids.tamano();
+                if (fila > MASCARA_FILA) {
+                    throw new IllegalStateException("Demasiados clientes para un solo recorrido");
+                }
+                long id = rs.getLong(1);
+                ids.agregar(id);
+                agregarClave(claves[0], ClavesBloqueo.documento(rs.getString(5)), fila);
+                agregarClave(claves[1], ClavesBloqueo.telefono(rs.getString(4)), fila);
+                agregarClave(claves[2], ClavesBloqueo.nombreFonetico(rs.getString(2), rs.getString(3)), fila);
+                ultimoId[0] = id;
+                leidas[0]++;
+            }, desde, tamanoLote);
+            if (leidas[0] < tamanoLote) {
+                break;
+            }
+            desde = ultimoId[0];
+        }
+
+        // 2) Bloques -> pares candidatos (filaMenor << 32 | filaMayor)
+        ListaLong pares = new ListaLong(1 << 12);
+        long descartados = 0;
+        for (ListaLong lista : claves) {
+            lista.ordenar();
+            descartados += emitirPares(lista, pares);
+        }
+        pares.ordenarUnicos();
+
+        // 3) Firmas solo de los clientes involucrados
+        SimilitudClientes.Firma[] firmas = cargarFirmas(ids, pares);
+
+        // 4) Puntaje en paralelo
+        List<String> lineas = puntuar(pares, firmas);
+        Path archivo = escribirReporte(lineas);
+
+        log.info("Duplicados: {} clientes, {} pares evaluados, {} candidatos -> {}",
+                ids.tamano(), pares.tamano(), lineas.size(), archivo);
+        return DuplicadosResponse.builder()
+                .estado("COMPLETADO")
+                .iniciado(inicio)
+                .finalizado(LocalDateTime.now())
+                .clientesLeidos(ids.tamano())
+                .bloquesDescartados(descartados)
+                .paresEvaluados(pares.tamano())
+                .candidatos(lineas.size())
+                .archivo(archivo.toString())
+                .build();
+    }
+
+    private static void agregarClave(ListaLong lista, String clave, int fila) {
+        if (clave != null) {
+            lista.agregar((hash(clave) << BITS_FILA) | fila);
+        }
+    }
+
+    /** Recorre una lista ordenada de claves y emite todos los pares de cada bloque. */
+    private long emitirPares(ListaLong lista, ListaLong pares) {
+        long descartados = 0;
+        int n = lista.tamano();
+        int i = 0;
+        while (i < n) {
+            long clave = lista.get(i) >>> BITS_FILA;
+            int j = i + 1;
+            while (j < n && (lista.get(j) >>> BITS_FILA) == clave) {
+                j++;
+            }
+            int tam = j - i;
+            if (tam > maxBloque) {
+                descartados++;
+            } else {
+                for (int a = i; a < j; a++) {
+                    long fa = lista.get(a) & MASCARA_FILA;
+                    for (int b = a + 1; b < j; b++) {
+                        long fb = lista.get(b) & MASCARA_FILA;
+                        pares.agregar(fa < fb ? (fa << 32) | fb : (fb << 32) | fa);
+                    }
+                }
+            }
+            i = j;
+        }
+        return descartados;
+    }
+
+    private SimilitudClientes.Firma[] cargarFirmas(ListaLong ids, ListaLong pares) {
+        BitSet involucradas = new BitSet(ids.tamano());
+        for (int i = 0; i < pares.tamano(); i++) {
+            long par = pares.get(i);
+            involucradas.set((int) (par >>> 32));
+            involucradas.set((int) par);
+        }
+
+        SimilitudClientes.Firma[] firmas = new SimilitudClientes.Firma[ids.tamano()];
+        // id -> fila: las filas están ordenadas por id, así que basta una búsqueda binaria
+        List<Long> lote = new ArrayList<>(LOTE_FIRMAS);
+        for (int fila = involucradas.nextSetBit(0); fila >= 0; fila = involucradas.nextSetBit(fila + 1)) {
+            lote.add(ids.get(fila));
+            if (lote.size() == LOTE_FIRMAS) {
+                cargarLote(lote, ids, firmas);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            cargarLote(lote, ids, firmas);
+        }
+        return firmas;
+    }
+
+    private void cargarLote(List<Long> lote, ListaLong ids, SimilitudClientes.Firma[] firmas) {
+        String marcadores = String.join(",", Collections.nCopies(lote.size(), "?"));
+        jdbcTemplate.query(String.format(SQL_FIRMAS, marcadores), rs -> {
+            long id = rs.getLong(1);
+            int fila = buscarFila(ids, id);
+            if (fila >= 0) {
+                firmas[fila] = SimilitudClientes.Firma.de(id, rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5), rs.getString(6));
+            }
+        }, lote.toArray());
+    }
+
+    private static int buscarFila(ListaLong ids, long id) {
+        int lo = 0;
+        int hi = ids.tamano() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = ids.get(mid);
+            if (v < id) {
+                lo = mid + 1;
+            } else if (v > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private List<String> puntuar(ListaLong pares, SimilitudClientes.Firma[] firmas) {
+        try {
+            return pool.submit(() -> IntStream.range(0, pares.tamano())
+                    .parallel()
+                    .mapToObj(i -> {
+                        long par = pares.get(i);
+                        SimilitudClientes.Firma a = firmas[(int) (par >>> 32)];
+                        SimilitudClientes.Firma b = firmas[(int) par];
+                        if (a == null || b == null) {
+                            return null; // borrado entre fases
+                        }
+                        SimilitudClientes.Resultado r = SimilitudClientes.puntuar(a, b);
+                        if (r.puntaje() < umbral) {
+                            return null;
+                        }
+                        return a.id() + "," + b.id() + "," + String.format(Locale.ROOT, "%.3f", r.puntaje())
+                                + "," + r.motivos();
+                    })
+                    .filter(Objects::nonNull)
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Detección de duplicados interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló el puntaje de pares", e.getCause());
+        }
+    }
+
+    private Path escribirReporte(List<String> lineas) {
+        String nombre = "duplicados-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv";
+        Path archivo = directorio.resolve(nombre);
+        try {
+            Files.createDirectories(directorio);
+            try (BufferedWriter w = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+                w.write("cliente_a,cliente_b,puntaje,motivos");
+                w.newLine();
+                for (String l : lineas) {
+                    w.write(l);
+                    w.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el reporte de duplicados", e);
+        }
+        return archivo;
+    }
+
+    /** FNV-1a de 64 bits; se conservan los 38 bits altos para dejar espacio al índice de fila. */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h >>> BITS_FILA;
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,121 @@
+package com.tienda.batch;
+
+import com.tienda.model.EstadoCotizacion;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Produce las filas sintéticas de un bloque de clientes de forma determinista:
+ * el contenido depende solo de la semilla, del índice de bloque y de los parámetros,
+ * nunca del orden en que los hilos procesan los bloques. Cada cliente se da de alta en un instante
+ * uniforme de {@code [desde, hasta]} y sus cotizaciones caen entre su alta y {@code hasta}.
+ */
+public final class FilasSinteticas {
+
+    private static final String[] NOMBRES = {
+            "Juan", "María", "Carlos", "Ana", "Luis", "Laura", "Andrés", "Camila", "Jorge", "Valentina",
+            "Felipe", "Daniela", "Santiago", "Paula", "Diego", "Natalia", "Sebastián", "Sofía", "Miguel", "Lucía"
+    };
+    private static final String[] APELLIDOS = {
+            "Pérez", "Gómez", "Rodríguez", "López", "Martínez", "García", "Hernández", "Ramírez", "Torres", "Vásquez",
+            "Castro", "Rojas", "Morales", "Ortiz", "Jiménez", "Díaz", "Suárez", "Vargas", "Moreno", "Muñoz"
+    };
+    /** Pesos relativos de cada {@link EstadoCotizacion} (por ordinal). */
+    private static final double[] PESO_ESTADO = {0.6, 0.35, 0.05};
+
+    private final GeneradorDatosProperties props;
+    private final long desdeSeg;
+    private final long rangoSeg;
+
+    public interface Destino {
+        void cliente(long id, String nombres, String apellidos, String email, String telefono,
+                     String documento, LocalDateTime createdAt);
+
+        void cotizacion(long clienteId, long totalCentavos, EstadoCotizacion estado, LocalDateTime createdAt);
+    }
+
+    public FilasSinteticas(GeneradorDatosProperties props) {
+        if (props.getSesgo() <= 1.0) {
+            throw new IllegalArgumentException("El sesgo (exponente de Pareto) debe ser mayor a 1");
+        }
+        if (props.getHasta().isBefore(props.getDesde())) {
+            throw new IllegalArgumentException("El rango de fechas es inválido");
+        }
+        this.props = props;
+        this.desdeSeg = props.getDesde().atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        this.rangoSeg = props.getHasta().plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC) - desdeSeg;
+    }
+
+    /**
+     * Genera el bloque {@code bloque} con ids de cliente consecutivos a partir de {@code primerIdBloque}.
+     * Devuelve el número de cotizaciones emitidas.
+     */
+    public long generarBloque(int bloque, long primerIdBloque, int cantidad, Destino destino) {
+        SplittableRandom rnd = new SplittableRandom(props.getSemilla() * 0x9E3779B97F4A7C15L + bloque);
+        long cotizaciones = 0;
+        String docAnterior = null;
+        String telAnterior = null;
+        for (int i = 0; i < cantidad; i++) {
+            long id = primerIdBloque + i;
+            String documento = "CC" + (10_000_000L + rnd.nextLong(1_000_000_000L));
+            String telefono = "3" + (100_000_000L + rnd.nextLong(900_000_000L));
+            if (docAnterior != null && rnd.nextDouble() < props.getProbabilidadDuplicado()) {
+                documento = docAnterior;
+                telefono = telAnterior;
+            }
+            long altaSeg = desdeSeg + rnd.nextLong(rangoSeg);
+            LocalDateTime alta = LocalDateTime.ofEpochSecond(altaSeg, 0, ZoneOffset.UTC);
+            destino.cliente(id,
+                    NOMBRES[rnd.nextInt(NOMBRES.length)],
+                    APELLIDOS[rnd.nextInt(APELLIDOS.length)] + " " + APELLIDOS[rnd.nextInt(APELLIDOS.length)],
+                    "gen" + id + "@perf.tienda.local",
+                    telefono,
+                    documento,
+                    alta);
+            docAnterior = documento;
+            telAnterior = telefono;
+
+            int n = cotizacionesDe(rnd);
+            for (int q = 0; q < n; q++) {
+                destino.cotizacion(id, totalCentavos(rnd), estado(rnd), fecha(rnd, altaSeg));
+            }
+            cotizaciones += n;
+        }
+        return cotizaciones;
+    }
+
+    /** Muestra de Pareto con media {@code cotizacionesPorCliente}, truncada al tope configurado. */
+    int cotizacionesDe(SplittableRandom rnd) {
+        double alfa = props.getSesgo();
+        double xm = props.getCotizacionesPorCliente() * (alfa - 1) / alfa;
+        double u = 1.0 - rnd.nextDouble(); // (0, 1]
+        double x = xm / Math.pow(u, 1.0 / alfa);
+        return (int) Math.min(props.getMaxCotizacionesPorCliente(), Math.floor(x));
+    }
+
+    /** Log-normal alrededor de ~500.000 con cola larga, en centavos y siempre &gt; 0. */
+    private static long totalCentavos(SplittableRandom rnd) {
+        double gauss = Math.sqrt(-2 * Math.log(1.0 - rnd.nextDouble())) * Math.cos(2 * Math.PI * rnd.nextDouble());
+        double pesos = Math.exp(13.1 + 0.9 * gauss);
+        return Math.max(100, Math.round(pesos * 100));
+    }
+
+    private static EstadoCotizacion estado(SplittableRandom rnd) {
+        double r = rnd.nextDouble();
+        EstadoCotizacion[] estados = EstadoCotizacion.values();
+        for (int i = 0; i < PESO_ESTADO.length && i < estados.length; i++) {
+            r -= PESO_ESTADO[i];
+            if (r < 0) {
+                return estados[i];
+            }
+        }
+        return EstadoCotizacion.CREADA;
+    }
+
+    /** Instante uniforme entre el alta del cliente y el final del rango: nunca una cotización antes del cliente. */
+    private LocalDateTime fecha(SplittableRandom rnd, long altaSeg) {
+        return LocalDateTime.ofEpochSecond(altaSeg + rnd.nextLong(desdeSeg + rangoSeg - altaSeg), 0, ZoneOffset.UTC);
+    }
+}
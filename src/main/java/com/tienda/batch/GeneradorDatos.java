@@ -0,0 +1,187 @@
+package com.tienda.batch;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.model.EstadoCotizacion;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Carga masiva de datos sintéticos con JDBC por lotes y varios hilos.
+ * <p>
+ * No depende del contexto de Spring: las pruebas de carga y las bases embebidas pueden
+ * instanciarlo directamente con un {@link DataSource}. En MySQL conviene añadir
+ * {@code rewriteBatchedStatements=true} a la URL para que cada lote viaje como un solo
+ * {@code INSERT} multi-fila, que es lo que permite millones de filas por minuto.
+ */
+@Slf4j
+public class GeneradorDatos {
+
+    private static final String SQL_CLIENTE =
+            "insert into cliente (id, nombres, apellidos, email, telefono, documento, created_at) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_COTIZACION =
+            "insert into cotizacion (cliente_id, total, estado, created_at) values (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final GeneradorDatosProperties props;
+    private final FilasSinteticas filas;
+
+    public record Resumen(long clientes, long cotizaciones, long millis) {
+        public long filasPorMinuto() {
+            return millis == 0 ? 0 : (clientes + cotizaciones) * 60_000 / millis;
+        }
+    }
+
+    public GeneradorDatos(DataSource dataSource, GeneradorDatosProperties props) {
+        this.dataSource = dataSource;
+        this.props = props;
+        this.filas = new FilasSinteticas(props);
+    }
+
+    public Resumen generar() {
+        long inicio = System.nanoTime();
+        long primerId = siguienteIdCliente();
+        int porBloque = props.getClientesPorBloque();
+        int bloques = (props.getClientes() + porBloque - 1) / porBloque;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, props.getHilos()),
+                ContextoCarga.hilosBatch("generador"));
+        try {
+            List<Future<Long>> tareas = new ArrayList<>(bloques);
+            for (int b = 0; b < bloques; b++) {
+                int bloque = b;
+                int cantidad = Math.min(porBloque, props.getClientes() - b * porBloque);
+                long idInicial = primerId + (long) b * porBloque;
+                tareas.add(pool.submit(() -> cargarBloque(bloque, idInicial, cantidad)));
+            }
+            long cotizaciones = 0;
+            for (Future<Long> f : tareas) {
+                cotizaciones += f.get();
+            }
+            Resumen r = new Resumen(props.getClientes(), cotizaciones, (System.nanoTime() - inicio) / 1_000_000);
+            log.info("Generador: {} clientes, {} cotizaciones en {} ms ({} filas/min)",
+                    r.clientes(), r.cotizaciones(), r.millis(), r.filasPorMinuto());
+            return r;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la generación de datos", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long siguienteIdCliente() {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("select coalesce(max(id), 0) from cliente")) {
+            rs.next();
+            return rs.getLong(1) + 1;
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo leer el último id de cliente", e);
+        }
+    }
+
+    private long cargarBloque(int bloque, long idInicial, int cantidad) throws SQLException {
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement psCli = con.prepareStatement(SQL_CLIENTE);
+                 PreparedStatement psCot = con.prepareStatement(SQL_COTIZACION)) {
+                Lotes lotes = new Lotes(psCli, psCot, props.getTamanoLote());
+                long cotizaciones = filas.generarBloque(bloque, idInicial, cantidad, lotes);
+                lotes.vaciar();
+                con.commit();
+                return cotizaciones;
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Acumula filas en los dos {@code PreparedStatement}. Antes de enviar cotizaciones siempre
+     * se envían los clientes pendientes, para que la FK {@code cotizacion.cliente_id} se cumpla.
+     */
+    private static final class Lotes implements FilasSinteticas.Destino {
+        private final PreparedStatement psCli;
+        private final PreparedStatement psCot;
+        private final int tamano;
+        private int pendientesCli;
+        private int pendientesCot;
+
+        Lotes(PreparedStatement psCli, PreparedStatement psCot, int tamano) {
+            this.psCli = psCli;
+            this.psCot = psCot;
+            this.tamano = tamano;
+        }
+
+        @Override
+        public void cliente(long id, String nombres, String apellidos, String email, String telefono,
+                            String documento, LocalDateTime createdAt) {
+            try {
+                psCli.setLong(1, id);
+                psCli.setString(2, nombres);
+                psCli.setString(3, apellidos);
+                psCli.setString(4, email);
+                psCli.setString(5, telefono);
+                psCli.setString(6, documento);
+                psCli.setTimestamp(7, Timestamp.valueOf(createdAt));
+                psCli.addBatch();
+                if (++pendientesCli >= tamano) {
+                    enviarClientes();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void cotizacion(long clienteId, long totalCentavos, EstadoCotizacion estado, LocalDateTime createdAt) {
+            try {
+                psCot.setLong(1, clienteId);
+                psCot.setBigDecimal(2, BigDecimal.valueOf(totalCentavos, 2));
+                psCot.setString(3, estado.name());
+                psCot.setTimestamp(4, Timestamp.valueOf(createdAt));
+                psCot.addBatch();
+                if (++pendientesCot >= tamano) {
+                    enviarClientes();
+                    psCot.executeBatch();
+                    pendientesCot = 0;
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void vaciar() throws SQLException {
+            enviarClientes();
+            if (pendientesCot > 0) {
+                psCot.executeBatch();
+                pendientesCot = 0;
+            }
+        }
+
+        private void enviarClientes() throws SQLException {
+            if (pendientesCli > 0) {
+                psCli.executeBatch();
+                pendientesCli = 0;
+            }
+        }
+    }
+}
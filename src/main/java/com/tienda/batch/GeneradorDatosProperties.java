@@ -0,0 +1,47 @@
+package com.tienda.batch;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+
+/**
+ * Parámetros del generador de datos sintéticos ({@code tienda.generador.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tienda.generador")
+public class GeneradorDatosProperties {
+
+    /** Ejecuta el generador al arrancar la aplicación. */
+    private boolean enabled = false;
+
+    private int clientes = 100_000;
+
+    /** Media de cotizaciones por cliente; la distribución real es Pareto (pocos clientes con muchas). */
+    private double cotizacionesPorCliente = 10;
+
+    /** Exponente de Pareto (&gt; 1). Cuanto más cerca de 1, más sesgada la distribución. */
+    private double sesgo = 1.5;
+
+    /** Tope de cotizaciones para un solo cliente. */
+    private int maxCotizacionesPorCliente = 50_000;
+
+    private LocalDate desde = LocalDate.now().minusYears(1);
+
+    private LocalDate hasta = LocalDate.now();
+
+    /** Misma semilla y mismos parámetros producen exactamente los mismos datos. */
+    private long semilla = 42L;
+
+    /** Probabilidad de que un cliente repita documento y teléfono de otro (para probar deduplicación). */
+    private double probabilidadDuplicado = 0.01;
+
+    /** Clientes generados por unidad de trabajo; cada bloque usa su propia semilla derivada. */
+    private int clientesPorBloque = 5_000;
+
+    private int tamanoLote = 1_000;
+
+    private int hilos = Runtime.getRuntime().availableProcessors();
+}
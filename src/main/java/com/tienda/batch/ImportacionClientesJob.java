@@ -0,0 +1,509 @@
+package com.tienda.batch;
+
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.bloom.FiltroEmailsClientes;
+import com.tienda.carga.ContextoCarga;
+import com.tienda.dto.ImportacionClientesResponse;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Alta o actualización masiva de clientes desde un extracto de cuentas de Salesforce (CSV, opcionalmente
+ * {@code .gz}), sin pasar por {@code crearCliente} fila por fila.
+ * <p>
+ * El archivo se lee registro por registro y se procesa en lotes de {@code tienda.importacion.lote} filas.
+ * Cada lote se cruza con la base en dos consultas {@code IN}: por {@code salesforce_account_id} y por email
+ * normalizado (solo los que el filtro de Bloom no descarta). Las filas se reparten en altas y
+ * actualizaciones y cada grupo va en un insert o update por lotes, todo en una transacción por lote.
+ * <p>
+ * {@code hash_contenido} guarda el hash de los campos del extracto tal como quedaron; una fila con el mismo
+ * hash se salta sin escribir. Una fila cuyo email ya es de otro cliente (con otro Account Id) es un conflicto
+ * y no se aplica. Repetir la importación es inofensivo: lo ya aplicado no cambia su hash.
+ * <p>
+ * Las actualizaciones se publican en el bus de invalidación; las altas no, porque ninguna cache puede tener
+ * un cliente que no existía. Ambas quedan en el diario de auditoría.
+ */
+@Slf4j
+@Service
+public class ImportacionClientesJob {
+
+    private static final String SQL_POR_CUENTA =
+            "select id, email, salesforce_account_id, hash_contenido from cliente where salesforce_account_id in (%s)";
+    private static final String SQL_POR_EMAIL =
+            "select id, email, salesforce_account_id, hash_contenido from cliente where email in (%s)";
+    private static final String SQL_INSERTAR = "insert into cliente (nombres, apellidos, email, telefono, documento,"
+            + " salesforce_account_id, hash_contenido, created_at) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_ACTUALIZAR = "update cliente set nombres = ?, apellidos = ?, email = ?,"
+            + " salesforce_account_id = ?, hash_contenido = ?%s where id = ?";
+
+    /** Un lote que choca con un alta concurrente (uk_cliente_email) se vuelve a cruzar y aplicar una vez. */
+    private static final int INTENTOS = 2;
+    /** Filas inválidas que se detallan en el log; del resto solo queda la cuenta. */
+    private static final int MAX_AVISOS = 20;
+
+    /** Posición de cada columna en el extracto; {@code -1} si no viene. */
+    record Encabezado(int cuenta, int nombres, int apellidos, int email, int telefono, int documento) {
+
+        static Encabezado de(String[] columnas) {
+            Map<String, Integer> pos = new HashMap<>();
+            for (int i = 0; i < columnas.length; i++) {
+                pos.putIfAbsent(columnas[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            Encabezado e = new Encabezado(pos.getOrDefault("id", -1), pos.getOrDefault("firstname", -1),
+                    pos.getOrDefault("lastname", -1), pos.getOrDefault("personemail", pos.getOrDefault("email", -1)),
+                    pos.getOrDefault("phone", -1), pos.getOrDefault("documento__c", -1));
+            if (e.cuenta < 0 || e.nombres < 0 || e.apellidos < 0 || e.email < 0) {
+                throw new IllegalArgumentException("El extracto debe traer las columnas Id, FirstName, LastName"
+                        + " y PersonEmail (o Email); trae: " + String.join(",", columnas));
+            }
+            return e;
+        }
+    }
+
+    /** Una fila válida y normalizada del extracto. */
+    record Fila(long linea, String cuenta, String nombres, String apellidos, String email, String telefono,
+                String documento, long hash) {
+    }
+
+    private record Existente(long id, String email, String cuenta, Long hash) {
+    }
+
+    private record Actualizacion(long id, Fila fila) {
+    }
+
+    /** Cuentas de una corrida; solo las toca el hilo que importa. */
+    private static final class Conteo {
+        long leidas;
+        long insertados;
+        long actualizados;
+        long sinCambios;
+        long repetidas;
+        long invalidas;
+        long conflictos;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BusInvalidacion busInvalidacion;
+    private final DiarioAuditoria auditoria;
+    private final FiltroEmailsClientes filtroEmails;
+    private final Path directorio;
+    private final int lote;
+    private final ExecutorService ejecutor =
+            Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("importacion-clientes"));
+
+    private final AtomicBoolean corriendo = new AtomicBoolean();
+    private final AtomicReference<ImportacionClientesResponse> ultimo =
+            new AtomicReference<>(ImportacionClientesResponse.builder().estado("NUNCA_EJECUTADO").build());
+
+    public ImportacionClientesJob(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  BusInvalidacion busInvalidacion,
+                                  DiarioAuditoria auditoria,
+                                  FiltroEmailsClientes filtroEmails,
+                                  @Value("${tienda.importacion.directorio:${java.io.tmpdir}}") String directorio,
+                                  @Value("${tienda.importacion.lote:1000}") int lote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.busInvalidacion = busInvalidacion;
+        this.auditoria = auditoria;
+        this.filtroEmails = filtroEmails;
+        this.directorio = Path.of(directorio).toAbsolutePath().normalize();
+        this.lote = lote;
+    }
+
+    /**
+     * Lanza la importación de {@code archivo} (relativo a {@code tienda.importacion.directorio}) en segundo
+     * plano. Devuelve {@code false} si ya hay una en curso.
+     */
+    public boolean iniciar(String archivo) {
+        Path ruta = directorio.resolve(archivo).normalize();
+        if (!ruta.startsWith(directorio)) {
+            throw new IllegalArgumentException("El archivo debe estar dentro de " + directorio);
+        }
+        if (!Files.isRegularFile(ruta)) {
+            throw new IllegalArgumentException("No existe el archivo: " + archivo);
+        }
+        if (!corriendo.compareAndSet(false, true)) {
+            return false;
+        }
+        ultimo.set(ImportacionClientesResponse.builder()
+                .estado("EN_CURSO")
+                .archivo(ruta.toString())
+                .iniciado(LocalDateTime.now())
+                .build());
+        ejecutor.submit(() -> {
+            try {
+                importar(ruta);
+            } finally {
+                corriendo.set(false);
+            }
+        });
+        return true;
+    }
+
+    public ImportacionClientesResponse estado() {
+        return ultimo.get();
+    }
+
+    ImportacionClientesResponse importar(Path archivo) {
+        LocalDateTime inicio = LocalDateTime.now();
+        long t0 = System.nanoTime();
+        Conteo conteo = new Conteo();
+        String estado = "COMPLETADO";
+        String error = null;
+        try (LectorCsv lector = abrir(archivo)) {
+            String[] columnas = lector.siguiente();
+            if (columnas == null) {
+                throw new IllegalArgumentException("El extracto está vacío");
+            }
+            Encabezado encabezado = Encabezado.de(columnas);
+            String sqlActualizar = String.format(SQL_ACTUALIZAR,
+                    (encabezado.telefono() >= 0 ? ", telefono = ?" : "") + (encabezado.documento() >= 0 ? ", documento = ?" : ""));
+            List<Fila> filas = new ArrayList<>(lote);
+            String[] registro;
+            while ((registro = lector.siguiente()) != null) {
+                conteo.leidas++;
+                Fila fila = fila(registro, lector.linea(), encabezado, conteo);
+                if (fila != null) {
+                    filas.add(fila);
+                }
+                if (filas.size() == lote) {
+                    aplicarConReintento(filas, encabezado, sqlActualizar, conteo);
+                    filas.clear();
+                    avance(archivo, inicio, t0, conteo);
+                    if (Thread.currentThread().isInterrupted()) {
+                        estado = "INTERRUMPIDO"; // apagado: volver a lanzarla salta lo ya aplicado
+                        break;
+                    }
+                }
+            }
+            if (!filas.isEmpty() && !"INTERRUMPIDO".equals(estado)) {
+                aplicarConReintento(filas, encabezado, sqlActualizar, conteo);
+            }
+        } catch (IOException e) {
+            estado = "ERROR";
+            error = "No se pudo leer " + archivo.getFileName() + ": " + e.getMessage();
+            log.error("Importación de clientes: {}", error, e);
+        } catch (RuntimeException e) {
+            estado = "ERROR";
+            error = e.getMessage();
+            log.error("Falló la importación de clientes de {}", archivo, e);
+        }
+        ImportacionClientesResponse r = resumen(archivo, inicio, t0, conteo).toBuilder()
+                .estado(estado)
+                .finalizado(LocalDateTime.now())
+                .error(error)
+                .build();
+        ultimo.set(r);
+        log.info("Importación de clientes {}: {} filas en {} ms ({} filas/s): {} altas, {} actualizados,"
+                        + " {} sin cambios, {} repetidas, {} inválidas, {} conflictos",
+                estado, r.getFilasLeidas(), r.getDuracionMs(), r.getFilasPorSegundo(), r.getInsertados(),
+                r.getActualizados(), r.getSinCambios(), r.getRepetidas(), r.getInvalidas(), r.getConflictos());
+        return r;
+    }
+
+    private static LectorCsv abrir(Path archivo) throws IOException {
+        InputStream in = Files.newInputStream(archivo);
+        if (archivo.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new LectorCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /** Normaliza y valida un registro; {@code null} (y la cuenta en {@code conteo}) si no sirve. */
+    private static Fila fila(String[] registro, long linea, Encabezado e, Conteo conteo) {
+        String cuenta = campo(registro, e.cuenta());
+        String nombres = campo(registro, e.nombres());
+        String apellidos = campo(registro, e.apellidos());
+        String email = campo(registro, e.email());
+        String telefono = campo(registro, e.telefono());
+        String documento = campo(registro, e.documento());
+        if (email != null) {
+            email = email.toLowerCase(Locale.ROOT);
+        }
+        String motivo;
+        if (cuenta == null || cuenta.length() != 18) {
+            motivo = "Id debe ser el Account Id de 18 caracteres";
+        } else if (nombres == null || nombres.length() > 100) {
+            motivo = "FirstName vacío o de más de 100 caracteres";
+        } else if (apellidos == null || apellidos.length() > 100) {
+            motivo = "LastName vacío o de más de 100 caracteres";
+        } else if (email == null || email.length() > 150 || email.indexOf('@') <= 0 || email.indexOf(' ') >= 0) {
+            motivo = "email vacío, inválido o de más de 150 caracteres";
+        } else if (telefono != null && telefono.length() > 30) {
+            motivo = "Phone de más de 30 caracteres";
+        } else if (documento != null && documento.length() > 50) {
+            motivo = "Documento__c de más de 50 caracteres";
+        } else {
+            return new Fila(linea, cuenta, nombres, apellidos, email, telefono, documento,
+                    hash(cuenta, nombres, apellidos, email, telefono, documento));
+        }
+        if (conteo.invalidas++ < MAX_AVISOS) {
+            log.warn("Importación de clientes: línea {} descartada: {}", linea, motivo);
+        }
+        return null;
+    }
+
+    private static String campo(String[] registro, int i) {
+        if (i < 0 || i >= registro.length) {
+            return null;
+        }
+        String v = registro[i].trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private void aplicarConReintento(List<Fila> filas, Encabezado encabezado, String sqlActualizar, Conteo conteo) {
+        for (int intento = 1; ; intento++) {
+            Conteo parcial = new Conteo();
+            try {
+                transactionTemplate.executeWithoutResult(s -> aplicar(filas, encabezado, sqlActualizar, parcial));
+            } catch (DuplicateKeyException e) {
+                if (intento == INTENTOS) {
+                    throw e;
+                }
+                log.info("Importación de clientes: alta concurrente en el lote de la línea {}; se reintenta",
+                        filas.get(0).linea());
+                continue;
+            }
+            conteo.insertados += parcial.insertados;
+            conteo.actualizados += parcial.actualizados;
+            conteo.sinCambios += parcial.sinCambios;
+            conteo.repetidas += parcial.repetidas;
+            conteo.conflictos += parcial.conflictos;
+            return;
+        }
+    }
+
+    /** Cruza un lote con la base y lo aplica; corre dentro de la transacción del lote. */
+    private void aplicar(List<Fila> filas, Encabezado encabezado, String sqlActualizar, Conteo conteo) {
+        // 1) Dentro del lote gana la última fila de cada cuenta, y un email solo puede quedar en una cuenta
+        Map<String, Fila> porCuenta = new LinkedHashMap<>();
+        for (Fila f : filas) {
+            if (porCuenta.remove(clave(f.cuenta())) != null) {
+                conteo.repetidas++;
+            }
+            porCuenta.put(clave(f.cuenta()), f);
+        }
+        Map<String, Fila> porEmailLote = new HashMap<>();
+        List<Fila> candidatas = new ArrayList<>(porCuenta.size());
+        for (Fila f : porCuenta.values()) {
+            if (porEmailLote.putIfAbsent(f.email(), f) == null) {
+                candidatas.add(f);
+            } else {
+                conteo.conflictos++;
+            }
+        }
+
+        // 2) Cruce con la base: dos consultas por lote
+        Map<String, Existente> existentesPorCuenta = new HashMap<>();
+        Map<String, Existente> existentesPorEmail = new HashMap<>();
+        buscar(SQL_POR_CUENTA, candidatas.stream().map(Fila::cuenta).toList(), existentesPorCuenta, existentesPorEmail);
+        List<String> emails = new ArrayList<>();
+        for (Fila f : candidatas) {
+            Existente e = existentesPorCuenta.get(clave(f.cuenta()));
+            if ((e == null || !f.email().equals(e.email())) && filtroEmails.puedeExistir(f.email())) {
+                emails.add(f.email());
+            }
+        }
+        buscar(SQL_POR_EMAIL, emails, existentesPorCuenta, existentesPorEmail);
+        for (String email : emails) {
+            if (!existentesPorEmail.containsKey(email)) {
+                filtroEmails.falsoPositivo();
+            }
+        }
+
+        // 3) Altas, actualizaciones y filas sin cambios
+        List<Fila> altas = new ArrayList<>();
+        List<Actualizacion> cambios = new ArrayList<>();
+        for (Fila f : candidatas) {
+            Existente porCuentaExistente = existentesPorCuenta.get(clave(f.cuenta()));
+            Existente duenoEmail = existentesPorEmail.get(f.email());
+            Existente destino = porCuentaExistente != null ? porCuentaExistente : duenoEmail;
+            if (destino == null) {
+                altas.add(f);
+            } else if (duenoEmail != null && duenoEmail.id() != destino.id()
+                    || destino.cuenta() != null && !clave(destino.cuenta()).equals(clave(f.cuenta()))) {
+                conteo.conflictos++;
+            } else if (Objects.equals(destino.hash(), f.hash())) {
+                conteo.sinCambios++;
+            } else {
+                cambios.add(new Actualizacion(destino.id(), f));
+            }
+        }
+
+        // 4) Escritura por lotes
+        for (Fila f : altas) {
+            filtroEmails.agregar(f.email());
+        }
+        for (Actualizacion a : cambios) {
+            filtroEmails.agregar(a.fila().email());
+        }
+        List<Long> ids = insertar(altas);
+        actualizar(cambios, encabezado, sqlActualizar);
+        busInvalidacion.publicar(TipoEntidad.CLIENTE, cambios.stream().map(Actualizacion::id).toList());
+        for (long id : ids) {
+            auditoria.registrar(TipoEventoAuditoria.CLIENTE_CREADO, id, 0, null);
+        }
+        for (Actualizacion a : cambios) {
+            auditoria.registrar(TipoEventoAuditoria.CLIENTE_ACTUALIZADO, a.id(), 0, a.fila().cuenta());
+        }
+        conteo.insertados += altas.size();
+        conteo.actualizados += cambios.size();
+    }
+
+    private void buscar(String sql, List<String> valores, Map<String, Existente> porCuenta,
+                        Map<String, Existente> porEmail) {
+        if (valores.isEmpty()) {
+            return;
+        }
+        String marcas = String.join(",", Collections.nCopies(valores.size(), "?"));
+        jdbcTemplate.query(String.format(sql, marcas), rs -> {
+            Existente e = new Existente(rs.getLong(1), rs.getString(2).trim().toLowerCase(Locale.ROOT),
+                    rs.getString(3), rs.getObject(4, Long.class));
+            if (e.cuenta() != null) {
+                porCuenta.putIfAbsent(clave(e.cuenta()), e);
+            }
+            porEmail.put(e.email(), e);
+        }, valores.toArray());
+    }
+
+    private List<Long> insertar(List<Fila> altas) {
+        if (altas.isEmpty()) {
+            return List.of();
+        }
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(SQL_INSERTAR, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Fila f = altas.get(i);
+                        ps.setString(1, f.nombres());
+                        ps.setString(2, f.apellidos());
+                        ps.setString(3, f.email());
+                        ps.setString(4, f.telefono());
+                        ps.setString(5, f.documento());
+                        ps.setString(6, f.cuenta());
+                        ps.setLong(7, f.hash());
+                        ps.setTimestamp(8, ahora);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return altas.size();
+                    }
+                }, claves);
+        return claves.getKeyList().stream()
+                .map(m -> ((Number) m.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    private void actualizar(List<Actualizacion> cambios, Encabezado encabezado, String sql) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, cambios, cambios.size(), (ps, a) -> {
+            Fila f = a.fila();
+            int i = 1;
+            ps.setString(i++, f.nombres());
+            ps.setString(i++, f.apellidos());
+            ps.setString(i++, f.email());
+            ps.setString(i++, f.cuenta());
+            ps.setLong(i++, f.hash());
+            if (encabezado.telefono() >= 0) {
+                ps.setString(i++, f.telefono());
+            }
+            if (encabezado.documento() >= 0) {
+                ps.setString(i++, f.documento());
+            }
+            ps.setLong(i, a.id());
+        });
+    }
+
+    private void avance(Path archivo, LocalDateTime inicio, long t0, Conteo conteo) {
+        ultimo.set(resumen(archivo, inicio, t0, conteo).toBuilder().estado("EN_CURSO").build());
+    }
+
+    private static ImportacionClientesResponse resumen(Path archivo, LocalDateTime inicio, long t0, Conteo conteo) {
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        return ImportacionClientesResponse.builder()
+                .archivo(archivo.toString())
+                .iniciado(inicio)
+                .filasLeidas(conteo.leidas)
+                .insertados(conteo.insertados)
+                .actualizados(conteo.actualizados)
+                .sinCambios(conteo.sinCambios)
+                .repetidas(conteo.repetidas)
+                .invalidas(conteo.invalidas)
+                .conflictos(conteo.conflictos)
+                .duracionMs(ms)
+                .filasPorSegundo(ms == 0 ? conteo.leidas : conteo.leidas * 1_000 / ms)
+                .build();
+    }
+
+    /**
+     * Los Account Id de 18 caracteres no distinguen mayúsculas (la collation de la base tampoco), así que
+     * los mapas del cruce usan la versión en mayúsculas.
+     */
+    private static String clave(String cuenta) {
+        return cuenta.toUpperCase(Locale.ROOT);
+    }
+
+    /** FNV-1a de 64 bits sobre los campos, con un separador que distingue {@code null} de vacío. */
+    static long hash(String... campos) {
+        long h = 0xCBF29CE484222325L;
+        for (String c : campos) {
+            if (c != null) {
+                for (int i = 0; i < c.length(); i++) {
+                    h = (h ^ c.charAt(i)) * 0x100000001B3L;
+                }
+            }
+            h = (h ^ (c == null ? 0x1F : 0x1E)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+}
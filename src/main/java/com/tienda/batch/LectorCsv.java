@@ -0,0 +1,116 @@
+package com.tienda.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV (RFC 4180) registro por registro, sin cargar el archivo: campos entre comillas con
+ * comas, saltos de línea y comillas dobles ({@code ""}) adentro, fin de línea {@code \n} o {@code \r\n}.
+ * Ignora el BOM de UTF-8 que agregan las exportaciones de Salesforce y Excel.
+ */
+final class LectorCsv implements Closeable {
+
+    private final Reader entrada;
+    private final char[] buffer = new char[1 << 16];
+    private int posicion;
+    private int limite;
+    private long lineaActual = 1;
+    private long lineaRegistro;
+    private boolean inicio = true;
+    private final StringBuilder campo = new StringBuilder(64);
+
+    LectorCsv(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    /** Los campos del próximo registro, o {@code null} al terminar el archivo. */
+    String[] siguiente() throws IOException {
+        int c = leer();
+        if (inicio) {
+            inicio = false;
+            if (c == '﻿') {
+                c = leer();
+            }
+        }
+        // líneas en blanco entre registros
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                lineaActual++;
+            }
+            c = leer();
+        }
+        if (c < 0) {
+            return null;
+        }
+        lineaRegistro = lineaActual;
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean entreComillas = false;
+        while (true) {
+            if (entreComillas) {
+                if (c < 0) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + lineaRegistro);
+                }
+                if (c == '"') {
+                    c = leer();
+                    if (c == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineaActual++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    c = leer();
+                    if (c >= 0 && c != '\n') {
+                        posicion--; // un \r suelto también cierra el registro
+                    }
+                }
+                if (c == '\n') {
+                    lineaActual++;
+                }
+                campos.add(campo.toString());
+                return campos.toArray(new String[0]);
+            } else {
+                campo.append((char) c);
+            }
+            c = leer();
+        }
+    }
+
+    /** Línea del archivo (desde 1) donde empieza el último registro leído. */
+    long linea() {
+        return lineaRegistro;
+    }
+
+    private int leer() throws IOException {
+        if (posicion == limite) {
+            limite = entrada.read(buffer, 0, buffer.length);
+            posicion = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return buffer[posicion++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+}
@@ -0,0 +1,48 @@
+package com.tienda.batch;
+
+import java.util.Arrays;
+
+/** Lista creciente de {@code long} primitivos, sin boxing (para trabajos con millones de filas). */
+final class ListaLong {
+
+    private long[] datos;
+    private int tamano;
+
+    ListaLong(int capacidadInicial) {
+        datos = new long[Math.max(16, capacidadInicial)];
+    }
+
+    void agregar(long v) {
+        if (tamano == datos.length) {
+            datos = Arrays.copyOf(datos, datos.length + (datos.length >> 1));
+        }
+        datos[tamano++] = v;
+    }
+
+    long get(int i) {
+        return datos[i];
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    /** Ordena en paralelo y elimina duplicados consecutivos. */
+    void ordenarUnicos() {
+        Arrays.parallelSort(datos, 0, tamano);
+        if (tamano < 2) {
+            return;
+        }
+        int w = 1;
+        for (int r = 1; r < tamano; r++) {
+            if (datos[r] != datos[w - 1]) {
+                datos[w++] = datos[r];
+            }
+        }
+        tamano = w;
+    }
+
+    void ordenar() {
+        Arrays.parallelSort(datos, 0, tamano);
+    }
+}
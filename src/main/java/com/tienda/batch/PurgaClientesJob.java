@@ -0,0 +1,273 @@
+package com.tienda.batch;
+
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.carga.ContextoCarga;
+import com.tienda.dto.PurgaClienteResponse;
+import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import com.tienda.sharding.EnrutadorShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Purga de un cliente y todas sus cotizaciones (derecho de supresión) sin cargar nada en memoria ni
+ * sostener bloqueos largos.
+ * <p>
+ * Recorre las cotizaciones del cliente por keyset sobre {@code (cliente_id, created_at, id)}, el índice
+ * que ya usan los listados, y borra cada lote (líneas y cotizaciones) en una transacción corta, con una
+ * pausa entre lotes. Lo hace en la base principal y en cada shard. Al final borra el cliente, publica la
+ * invalidación (las caches de todas las instancias lo descartan) y deja constancia en el diario de auditoría.
+ * <p>
+ * Cada solicitud queda en {@code purga_cliente}. Al arrancar se retoman las que no terminaron; como cada
+ * paso borra lo que encuentra, repetirlo es inofensivo.
+ */
+@Slf4j
+@Service
+public class PurgaClientesJob implements ApplicationRunner {
+
+    static final String PENDIENTE = "PENDIENTE";
+    static final String EN_CURSO = "EN_CURSO";
+    static final String COMPLETADA = "COMPLETADA";
+    static final String ERROR = "ERROR";
+
+    private static final String SQL_PRIMER_LOTE =
+            "select id, created_at from cotizacion where cliente_id = ? order by created_at, id limit ?";
+    private static final String SQL_SIGUIENTE_LOTE = "select id, created_at from cotizacion where cliente_id = ?"
+            + " and (created_at > ? or (created_at = ? and id > ?)) order by created_at, id limit ?";
+    private static final String SQL_BORRAR_LINEAS = "delete from cotizacion_linea where cotizacion_id in (%s)";
+    private static final String SQL_BORRAR_COTIZACIONES = "delete from cotizacion where id in (%s)";
+
+    private static final String SQL_ESTADO = "select cliente_id, estado, solicitada, finalizada, cotizaciones_borradas,"
+            + " lineas_borradas, error from purga_cliente where cliente_id = ?";
+    private static final String SQL_SOLICITAR = "insert into purga_cliente (cliente_id, estado) values (?, ?)";
+    private static final String SQL_REINTENTAR =
+            "update purga_cliente set estado = ?, error = null where cliente_id = ? and estado = ?";
+    private static final String SQL_PENDIENTES = "select cliente_id from purga_cliente where estado in (?, ?)";
+    private static final String SQL_MARCAR = "update purga_cliente set estado = ?, error = ? where cliente_id = ?";
+    private static final String SQL_AVANCE = "update purga_cliente set cotizaciones_borradas = cotizaciones_borradas + ?,"
+            + " lineas_borradas = lineas_borradas + ? where cliente_id = ?";
+    private static final String SQL_COMPLETAR =
+            "update purga_cliente set estado = ?, finalizada = current_timestamp where cliente_id = ?";
+
+    /** Reintentos del borrado final si una cotización nueva del cliente se cuela entre el último lote y el borrado. */
+    private static final int INTENTOS = 3;
+
+    /** Una base con cotizaciones; {@code candado} es {@code null} en la principal. */
+    private record Destino(JdbcTemplate jdbc, TransactionTemplate tx, Lock candado) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BusInvalidacion busInvalidacion;
+    private final DiarioAuditoria auditoria;
+    private final ObjectProvider<EnrutadorShards> enrutador;
+    private final int lote;
+    private final long pausaMs;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("purga-clientes"));
+
+    public PurgaClientesJob(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            BusInvalidacion busInvalidacion,
+                            DiarioAuditoria auditoria,
+                            ObjectProvider<EnrutadorShards> enrutador,
+                            @Value("${tienda.purga.lote:500}") int lote,
+                            @Value("${tienda.purga.pausa-ms:50}") long pausaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.busInvalidacion = busInvalidacion;
+        this.auditoria = auditoria;
+        this.enrutador = enrutador;
+        this.lote = lote;
+        this.pausaMs = pausaMs;
+    }
+
+    /** Retoma las purgas que quedaron pendientes o a mitad en la corrida anterior. */
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> pendientes = jdbcTemplate.queryForList(SQL_PENDIENTES, Long.class, PENDIENTE, EN_CURSO);
+        if (!pendientes.isEmpty()) {
+            log.info("Purga: se retoman {} solicitudes pendientes", pendientes.size());
+        }
+        pendientes.forEach(id -> ejecutor.submit(() -> ejecutar(id)));
+    }
+
+    /**
+     * Encola la purga del cliente. Devuelve {@code false} si ya hay una solicitada, en curso o completada;
+     * una que terminó con error se vuelve a encolar.
+     */
+    public boolean solicitar(long clienteId) {
+        PurgaClienteResponse actual = buscar(clienteId);
+        if (actual == null) {
+            Integer existe = jdbcTemplate.queryForObject("select count(*) from cliente where id = ?", Integer.class, clienteId);
+            if (existe == null || existe == 0) {
+                throw new ResourceNotFoundException("Cliente no encontrado con id: " + clienteId);
+            }
+            try {
+                jdbcTemplate.update(SQL_SOLICITAR, clienteId, PENDIENTE);
+            } catch (DuplicateKeyException e) {
+                return false; // otra solicitud simultánea ganó
+            }
+        } else if (jdbcTemplate.update(SQL_REINTENTAR, PENDIENTE, clienteId, ERROR) == 0) {
+            return false;
+        }
+        ejecutor.submit(() -> ejecutar(clienteId));
+        return true;
+    }
+
+    public PurgaClienteResponse estado(long clienteId) {
+        PurgaClienteResponse r = buscar(clienteId);
+        if (r == null) {
+            throw new ResourceNotFoundException("No hay una purga solicitada para el cliente: " + clienteId);
+        }
+        return r;
+    }
+
+    private PurgaClienteResponse buscar(long clienteId) {
+        List<PurgaClienteResponse> filas = jdbcTemplate.query(SQL_ESTADO, (rs, i) -> PurgaClienteResponse.builder()
+                .clienteId(rs.getLong(1))
+                .estado(rs.getString(2))
+                .solicitada(rs.getObject(3, LocalDateTime.class))
+                .finalizada(rs.getObject(4, LocalDateTime.class))
+                .cotizacionesBorradas(rs.getLong(5))
+                .lineasBorradas(rs.getLong(6))
+                .error(rs.getString(7))
+                .build(), clienteId);
+        return filas.isEmpty() ? null : filas.get(0);
+    }
+
+    private void ejecutar(long clienteId) {
+        try {
+            purgar(clienteId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // apagado: queda EN_CURSO y se retoma al arrancar
+        } catch (RuntimeException e) {
+            log.error("Falló la purga del cliente {}", clienteId, e);
+            String mensaje = String.valueOf(e.getMessage());
+            jdbcTemplate.update(SQL_MARCAR, ERROR, mensaje.substring(0, Math.min(500, mensaje.length())), clienteId);
+        }
+    }
+
+    void purgar(long clienteId) throws InterruptedException {
+        long inicio = System.nanoTime();
+        jdbcTemplate.update(SQL_MARCAR, EN_CURSO, null, clienteId);
+        List<Destino> destinos = destinos(clienteId);
+        long cotizaciones = 0;
+        boolean borrado = false;
+        for (int intento = 1; ; intento++) {
+            for (Destino d : destinos) {
+                cotizaciones += borrarCotizaciones(d, clienteId);
+            }
+            try {
+                borrado = borrarCliente(clienteId, cotizaciones);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (intento == INTENTOS) {
+                    throw new IllegalStateException("Se siguen creando cotizaciones para el cliente " + clienteId, e);
+                }
+            }
+        }
+        // en los shards no hay FK: recoge lo que un request en vuelo haya guardado justo antes del borrado
+        for (Destino d : destinos.subList(1, destinos.size())) {
+            cotizaciones += borrarCotizaciones(d, clienteId);
+        }
+        jdbcTemplate.update(SQL_COMPLETAR, COMPLETADA, clienteId);
+        log.info("Purga del cliente {}: {} cotizaciones en {} ms{}", clienteId, cotizaciones,
+                (System.nanoTime() - inicio) / 1_000_000, borrado ? "" : " (el cliente ya no existía)");
+    }
+
+    /** Borra por lotes las cotizaciones del cliente en un destino; devuelve cuántas borró. */
+    private long borrarCotizaciones(Destino d, long clienteId) throws InterruptedException {
+        long total = 0;
+        Object[] cursor = null;
+        while (true) {
+            List<Object[]> filas = cursor == null
+                    ? d.jdbc().query(SQL_PRIMER_LOTE, (rs, i) -> new Object[]{rs.getLong(1), rs.getObject(2)},
+                            clienteId, lote)
+                    : d.jdbc().query(SQL_SIGUIENTE_LOTE, (rs, i) -> new Object[]{rs.getLong(1), rs.getObject(2)},
+                            clienteId, cursor[1], cursor[1], cursor[0], lote);
+            if (filas.isEmpty()) {
+                return total;
+            }
+            cursor = filas.get(filas.size() - 1);
+            Object[] ids = filas.stream().map(f -> f[0]).toArray();
+            String marcas = String.join(",", Collections.nCopies(ids.length, "?"));
+            int[] borradas = new int[2];
+            if (d.candado() != null) {
+                d.candado().lock();
+            }
+            try {
+                d.tx().executeWithoutResult(s -> {
+                    borradas[0] = d.jdbc().update(String.format(SQL_BORRAR_LINEAS, marcas), ids);
+                    borradas[1] = d.jdbc().update(String.format(SQL_BORRAR_COTIZACIONES, marcas), ids);
+                });
+            } finally {
+                if (d.candado() != null) {
+                    d.candado().unlock();
+                }
+            }
+            total += borradas[1];
+            jdbcTemplate.update(SQL_AVANCE, borradas[1], borradas[0], clienteId);
+            if (filas.size() < lote) {
+                return total;
+            }
+            if (pausaMs > 0) {
+                Thread.sleep(pausaMs);
+            }
+        }
+    }
+
+    /** Borra el cliente, publica la invalidación y audita, todo en una transacción; {@code false} si ya no estaba. */
+    private boolean borrarCliente(long clienteId, long cotizaciones) {
+        Boolean borrado = transactionTemplate.execute(s -> {
+            jdbcTemplate.update("delete from cliente_shard where cliente_id = ?", clienteId);
+            int filas = jdbcTemplate.update("delete from cliente where id = ?", clienteId);
+            busInvalidacion.publicar(TipoEntidad.CLIENTE, clienteId);
+            busInvalidacion.publicar(TipoEntidad.COTIZACION, clienteId);
+            if (filas > 0) {
+                auditoria.registrar(TipoEventoAuditoria.CLIENTE_PURGADO, clienteId, 0, "cotizaciones=" + cotizaciones);
+            }
+            return filas > 0;
+        });
+        return Boolean.TRUE.equals(borrado);
+    }
+
+    /** La base principal primero; después cada shard, bajo el candado de lectura del cliente como {@code guardar}. */
+    private List<Destino> destinos(long clienteId) {
+        List<Destino> destinos = new ArrayList<>();
+        destinos.add(new Destino(jdbcTemplate, transactionTemplate, null));
+        EnrutadorShards e = enrutador.getIfAvailable();
+        if (e != null) {
+            Lock candado = e.bloqueo(clienteId).readLock();
+            for (EnrutadorShards.Shard s : e.shards()) {
+                destinos.add(new Destino(s.jdbc(),
+                        new TransactionTemplate(new DataSourceTransactionManager(s.dataSource())), candado));
+            }
+        }
+        return destinos;
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package com.tienda.batch;
+
+import java.util.Locale;
+
+/**
+ * Puntaje de similitud entre dos clientes ya normalizados.
+ * El puntaje va de 0 a 1; los motivos explican qué señales coincidieron.
+ */
+public final class SimilitudClientes {
+
+    private static final double PESO_DOCUMENTO = 0.5;
+    private static final double PESO_TELEFONO = 0.25;
+    private static final double PESO_NOMBRE = 0.35;
+    private static final double PESO_EMAIL = 0.15;
+
+    private SimilitudClientes() {
+    }
+
+    /** Datos mínimos de un cliente para puntuar (no es la entidad JPA). */
+    public record Firma(long id, String nombre, String emailLocal, String telefono, String documento) {
+
+        public static Firma de(long id, String nombres, String apellidos, String email, String telefono, String documento) {
+            String local = null;
+            if (email != null) {
+                String e = email.trim().toLowerCase(Locale.ROOT);
+                int at = e.indexOf('@');
+                local = at > 0 ? e.substring(0, at) : e;
+                int mas = local.indexOf('+');
+                if (mas > 0) {
+                    local = local.substring(0, mas);
+                }
+                local = local.replace(".", "");
+            }
+            return new Firma(id,
+                    ClavesBloqueo.normalizarTexto((nombres != null ? nombres : "") + " " + (apellidos != null ? apellidos : "")),
+                    local,
+                    ClavesBloqueo.telefono(telefono),
+                    ClavesBloqueo.documento(documento));
+        }
+    }
+
+    public record Resultado(double puntaje, String motivos) {
+    }
+
+    public static Resultado puntuar(Firma a, Firma b) {
+        double puntaje = 0;
+        StringBuilder motivos = new StringBuilder();
+        if (a.documento() != null && a.documento().equals(b.documento())) {
+            puntaje += PESO_DOCUMENTO;
+            motivos.append("documento;");
+        }
+        if (a.telefono() != null && a.telefono().equals(b.telefono())) {
+            puntaje += PESO_TELEFONO;
+            motivos.append("telefono;");
+        }
+        double jw = jaroWinkler(a.nombre(), b.nombre());
+        if (jw >= 0.85) {
+            puntaje += PESO_NOMBRE * jw;
+            motivos.append("nombre=").append(Math.round(jw * 100)).append("%;");
+        }
+        if (a.emailLocal() != null && a.emailLocal().equals(b.emailLocal())) {
+            puntaje += PESO_EMAIL;
+            motivos.append("email;");
+        }
+        return new Resultado(Math.min(1.0, puntaje), motivos.toString());
+    }
+
+    /** Similitud Jaro-Winkler clásica (prefijo máximo 4, factor 0.1). */
+    static double jaroWinkler(String s1, String s2) {
+        if (s1.isEmpty() || s2.isEmpty()) {
+            return 0;
+        }
+        if (s1.equals(s2)) {
+            return 1;
+        }
+        int ventana = Math.max(0, Math.max(s1.length(), s2.length()) / 2 - 1);
+        boolean[] m1 = new boolean[s1.length()];
+        boolean[] m2 = new boolean[s2.length()];
+        int coincidencias = 0;
+        for (int i = 0; i < s1.length(); i++) {
+            int ini = Math.max(0, i - ventana);
+            int fin = Math.min(i + ventana + 1, s2.length());
+            for (int j = ini; j < fin; j++) {
+                if (!m2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    m1[i] = true;
+                    m2[j] = true;
+                    coincidencias++;
+                    break;
+                }
+            }
+        }
+        if (coincidencias == 0) {
+            return 0;
+        }
+        int transposiciones = 0;
+        int k = 0;
+        for (int i = 0; i < s1.length(); i++) {
+            if (!m1[i]) {
+                continue;
+            }
+            while (!m2[k]) {
+                k++;
+            }
+            if (s1.charAt(i) != s2.charAt(k)) {
+                transposiciones++;
+            }
+            k++;
+        }
+        double m = coincidencias;
+        double jaro = (m / s1.length() + m / s2.length() + (m - transposiciones / 2.0) / m) / 3.0;
+        int prefijo = 0;
+        for (int i = 0; i < Math.min(4, Math.min(s1.length(), s2.length())); i++) {
+            if (s1.charAt(i) != s2.charAt(i)) {
+                break;
+            }
+            prefijo++;
+        }
+        return jaro + prefijo * 0.1 * (1 - jaro);
+    }
+}
@@ -0,0 +1,87 @@
+package com.tienda.bloom;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas, seguro para lecturas y escrituras concurrentes.
+ * {@link #puedeContener} nunca da falso negativo para lo agregado; puede dar falso positivo con
+ * probabilidad cercana a la de diseño mientras no se supere la capacidad.
+ * Las {@code k} posiciones salen de dos hashes de 64 bits (h1 + i·h2, Kirsch–Mitzenmacher).
+ */
+public final class FiltroBloom {
+
+    private final AtomicLongArray palabras;
+    private final long bits;
+    private final int hashes;
+
+    public FiltroBloom(long capacidad, double probabilidadFalsoPositivo) {
+        if (capacidad <= 0 || probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Capacidad o probabilidad de falso positivo inválida");
+        }
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-capacidad * Math.log(probabilidadFalsoPositivo) / (ln2 * ln2));
+        long nPalabras = Math.max(1, (m + 63) / 64);
+        if (nPalabras > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filtro demasiado grande: " + m + " bits");
+        }
+        this.palabras = new AtomicLongArray((int) nPalabras);
+        this.bits = nPalabras * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacidad * ln2));
+    }
+
+    public void agregar(String valor) {
+        long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+        long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int p = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            if ((palabras.get(p) & mascara) == 0) {
+                palabras.getAndAccumulate(p, mascara, (a, b) -> a | b);
+            }
+        }
+    }
+
+    public boolean puedeContener(String valor) {
+        long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+        long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Probabilidad de falso positivo según la fracción de bits encendidos: {@code (encendidos/m)^k}. */
+    public double probabilidadEstimada() {
+        long encendidos = 0;
+        for (int i = 0; i < palabras.length(); i++) {
+            encendidos += Long.bitCount(palabras.get(i));
+        }
+        return Math.pow((double) encendidos / bits, hashes);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    private static long hash(String s, long semilla) {
+        long h = semilla ^ s.length();
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        // finalizador de murmur3 para repartir bien los bits bajos
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
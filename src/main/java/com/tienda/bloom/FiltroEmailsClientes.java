@@ -0,0 +1,216 @@
+package com.tienda.bloom;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.carga.TipoCarga;
+import com.tienda.dto.FiltroEmailsResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom de los emails (normalizados) de {@code cliente}, para que {@code crearCliente}
+ * se ahorre el {@code findByEmail} cuando el email seguro no existe. El respaldo sigue siendo
+ * {@code uk_cliente_email}: un alta concurrente en otra instancia que el filtro no vio termina
+ * en el {@code DataIntegrityViolationException} de siempre.
+ * <p>
+ * Se construye al arrancar (antes del calentamiento) recorriendo la tabla por keyset. Mientras
+ * no hay filtro, o mientras se reconstruye, {@link #puedeExistir} responde {@code true} o consulta
+ * el filtro anterior; las altas se agregan tanto al filtro vigente como al que se está armando.
+ */
+@Slf4j
+@Component
+@Order(10) // después del generador de datos sintéticos
+public class FiltroEmailsClientes implements ApplicationRunner, MeterBinder {
+
+    private static final String SQL_EMAILS = "select id, email from cliente where id > ? order by id limit ?";
+    private static final int LOTE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean habilitado;
+    private final double probabilidad;
+    private final long capacidadMinima;
+
+    private volatile FiltroBloom actual;
+    private volatile FiltroBloom enConstruccion;
+    private final AtomicLong elementos = new AtomicLong();
+
+    private final LongAdder evitadas = new LongAdder();
+    private final LongAdder consultadas = new LongAdder();
+    private final LongAdder falsosPositivos = new LongAdder();
+
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("filtro-emails"));
+    private final AtomicBoolean corriendo = new AtomicBoolean();
+    private final AtomicReference<FiltroEmailsResponse> ultimo =
+            new AtomicReference<>(FiltroEmailsResponse.builder().estado("NUNCA_EJECUTADO").build());
+
+    public FiltroEmailsClientes(JdbcTemplate jdbcTemplate,
+                                @Value("${tienda.bloom.emails.enabled:true}") boolean habilitado,
+                                @Value("${tienda.bloom.emails.probabilidad:0.01}") double probabilidad,
+                                @Value("${tienda.bloom.emails.capacidad-minima:100000}") long capacidadMinima) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.habilitado = habilitado;
+        this.probabilidad = probabilidad;
+        this.capacidadMinima = capacidadMinima;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (habilitado && corriendo.compareAndSet(false, true)) {
+            ContextoCarga.ejecutar(TipoCarga.BATCH, () -> ultimo.set(construir()));
+        }
+    }
+
+    /** {@code false} solo si el email seguro no está en {@code cliente}. */
+    public boolean puedeExistir(String email) {
+        FiltroBloom f = actual;
+        if (f == null || f.puedeContener(email)) {
+            consultadas.increment();
+            return true;
+        }
+        evitadas.increment();
+        return false;
+    }
+
+    /** El filtro dijo que podía existir y {@code findByEmail} no lo encontró. */
+    public void falsoPositivo() {
+        if (actual != null) {
+            falsosPositivos.increment();
+        }
+    }
+
+    /** Se llama antes de insertar: si la transacción se revierte solo queda un falso positivo. */
+    public void agregar(String email) {
+        FiltroBloom f = actual;
+        if (f != null) {
+            f.agregar(email);
+        }
+        FiltroBloom nuevo = enConstruccion;
+        if (nuevo != null) {
+            nuevo.agregar(email);
+        }
+        elementos.incrementAndGet();
+    }
+
+    /** Reconstruye en segundo plano; {@code false} si ya hay una construcción en curso. */
+    public boolean reconstruir() {
+        if (!habilitado || !corriendo.compareAndSet(false, true)) {
+            return false;
+        }
+        ultimo.set(ultimo.get().toBuilder().estado("EN_CURSO").build());
+        ejecutor.submit(() -> ultimo.set(construir()));
+        return true;
+    }
+
+    public FiltroEmailsResponse estado() {
+        FiltroEmailsResponse r = ultimo.get();
+        FiltroBloom f = actual;
+        long evit = evitadas.sum();
+        long fp = falsosPositivos.sum();
+        return r.toBuilder()
+                .elementos(elementos.get())
+                .bits(f != null ? f.bits() : 0)
+                .hashes(f != null ? f.hashes() : 0)
+                .probabilidadEstimada(f != null ? f.probabilidadEstimada() : 1.0)
+                .consultasEvitadas(evit)
+                .consultasRealizadas(consultadas.sum())
+                .falsosPositivos(fp)
+                .tasaFalsosPositivos(tasa(fp, evit))
+                .build();
+    }
+
+    private FiltroEmailsResponse construir() {
+        LocalDateTime inicio = LocalDateTime.now();
+        long t0 = System.nanoTime();
+        try {
+            Long total = jdbcTemplate.queryForObject("select count(*) from cliente", Long.class);
+            long n = total != null ? total : 0;
+            FiltroBloom nuevo = new FiltroBloom(Math.max(capacidadMinima, n * 2), probabilidad);
+            enConstruccion = nuevo;
+            long[] leidos = {0};
+            long desde = 0;
+            while (true) {
+                long[] ultimoId = {-1};
+                jdbcTemplate.query(SQL_EMAILS, rs -> {
+                    ultimoId[0] = rs.getLong(1);
+                    String email = rs.getString(2);
+                    if (email != null) {
+                        // la collation de uk_cliente_email no distingue mayúsculas
+                        nuevo.agregar(email.trim().toLowerCase());
+                    }
+                    leidos[0]++;
+                }, desde, LOTE);
+                if (ultimoId[0] < 0) {
+                    break;
+                }
+                desde = ultimoId[0];
+            }
+            actual = nuevo;
+            elementos.set(leidos[0]);
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            log.info("Filtro de emails: {} emails en {} ms ({} bits, {} hashes)", leidos[0], ms, nuevo.bits(), nuevo.hashes());
+            return FiltroEmailsResponse.builder()
+                    .estado("COMPLETADO")
+                    .construido(inicio)
+                    .duracionMs(ms)
+                    .build();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo construir el filtro de emails; crearCliente seguirá consultando la base", e);
+            return FiltroEmailsResponse.builder()
+                    .estado("ERROR")
+                    .construido(inicio)
+                    .duracionMs((System.nanoTime() - t0) / 1_000_000)
+                    .error(e.getMessage())
+                    .build();
+        } finally {
+            enConstruccion = null;
+            corriendo.set(false);
+        }
+    }
+
+    /** Falsos positivos sobre todos los emails nuevos consultados (los evitados son los negativos verdaderos). */
+    private static double tasa(long falsosPositivos, long evitadas) {
+        long negativos = falsosPositivos + evitadas;
+        return negativos == 0 ? 0 : (double) falsosPositivos / negativos;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tienda.bloom.emails.consultas", evitadas, LongAdder::sum)
+                .description("Chequeos de email duplicado en crearCliente")
+                .tag("resultado", "evitada")
+                .register(registry);
+        FunctionCounter.builder("tienda.bloom.emails.consultas", consultadas, LongAdder::sum)
+                .description("Chequeos de email duplicado en crearCliente")
+                .tag("resultado", "consultada")
+                .register(registry);
+        FunctionCounter.builder("tienda.bloom.emails.falsos.positivos", falsosPositivos, LongAdder::sum)
+                .description("Emails que el filtro dio como posibles y no existían")
+                .register(registry);
+        Gauge.builder("tienda.bloom.emails.tasa.falsos.positivos", this,
+                        f -> tasa(f.falsosPositivos.sum(), f.evitadas.sum()))
+                .description("Falsos positivos observados sobre emails nuevos")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void close() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,65 @@
+package com.tienda.carga;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tipo de carga del hilo actual, que {@link DataSourcePorCarga} consulta en cada {@code getConnection()}.
+ * Por defecto es {@link TipoCarga#INTERACTIVA}: solo lo que se marca explícitamente va al pool batch.
+ */
+public final class ContextoCarga {
+
+    private static final ThreadLocal<TipoCarga> ACTUAL = new ThreadLocal<>();
+
+    private ContextoCarga() {
+    }
+
+    public static TipoCarga actual() {
+        TipoCarga t = ACTUAL.get();
+        return t != null ? t : TipoCarga.INTERACTIVA;
+    }
+
+    /** Ejecuta {@code tarea} con el tipo de carga indicado y restaura el anterior al terminar. */
+    public static void ejecutar(TipoCarga tipo, Runnable tarea) {
+        TipoCarga anterior = cambiar(tipo);
+        try {
+            tarea.run();
+        } finally {
+            restaurar(anterior);
+        }
+    }
+
+    /** Hilo daemon que trabaja siempre como {@link TipoCarga#BATCH}, para el ejecutor de un job. */
+    public static ThreadFactory hiloBatch(String nombre) {
+        return r -> crear(r, nombre);
+    }
+
+    /** Como {@link #hiloBatch} para ejecutores de varios hilos: {@code prefijo-1}, {@code prefijo-2}... */
+    public static ThreadFactory hilosBatch(String prefijo) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> crear(r, prefijo + "-" + n.incrementAndGet());
+    }
+
+    private static Thread crear(Runnable r, String nombre) {
+        Thread t = new Thread(() -> {
+            ACTUAL.set(TipoCarga.BATCH);
+            r.run();
+        }, nombre);
+        t.setDaemon(true);
+        return t;
+    }
+
+    static TipoCarga cambiar(TipoCarga tipo) {
+        TipoCarga anterior = ACTUAL.get();
+        ACTUAL.set(tipo);
+        return anterior;
+    }
+
+    static void restaurar(TipoCarga anterior) {
+        if (anterior == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(anterior);
+        }
+    }
+}
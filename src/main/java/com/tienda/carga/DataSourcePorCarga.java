@@ -0,0 +1,28 @@
+package com.tienda.carga;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code DataSource} principal de la aplicación: entrega cada conexión desde el pool del
+ * {@link ContextoCarga} actual. Un job batch desbocado agota su propio pool y espera ahí; las requests
+ * interactivas siguen teniendo todas sus conexiones.
+ */
+public class DataSourcePorCarga extends AbstractRoutingDataSource {
+
+    public DataSourcePorCarga(Map<TipoCarga, ? extends DataSource> pools) {
+        Map<Object, Object> destinos = new HashMap<>(pools);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(pools.get(TipoCarga.INTERACTIVA));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ContextoCarga.actual();
+    }
+}
@@ -0,0 +1,44 @@
+package com.tienda.carga;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Un pool de conexiones por {@link TipoCarga} ({@code tienda.pools.*}), todos contra
+ * {@code spring.datasource.url}. La suma de {@code tamano} debe caber en {@code max_connections} de
+ * MySQL multiplicada por el número de instancias.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tienda.pools")
+public class PoolsProperties {
+
+    private boolean enabled = true;
+
+    /** Dimensionado para el p99 de la API: siempre abiertas y con espera corta (falla rápido). */
+    private Pool interactivo = new Pool(10, 10, 2_000);
+
+    /** Pocas conexiones, creadas a demanda; los jobs pueden esperar. */
+    private Pool batch = new Pool(3, 0, 60_000);
+
+    @Getter
+    @Setter
+    public static class Pool {
+        /** {@code maximumPoolSize} de Hikari. */
+        private int tamano;
+        /** {@code minimumIdle} de Hikari. */
+        private int minimoOcioso;
+        /** {@code connectionTimeout} de Hikari: cuánto espera un {@code getConnection()} en la cola. */
+        private long esperaMs;
+
+        public Pool() {
+        }
+
+        Pool(int tamano, int minimoOcioso, long esperaMs) {
+            this.tamano = tamano;
+            this.minimoOcioso = minimoOcioso;
+            this.esperaMs = esperaMs;
+        }
+    }
+}
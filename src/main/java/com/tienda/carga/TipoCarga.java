@@ -0,0 +1,9 @@
+package com.tienda.carga;
+
+/** Tipo de trabajo que pide una conexión; cada uno tiene su propio pool ({@code tienda.pools.*}). */
+public enum TipoCarga {
+    /** Requests de la API: pool grande, espera corta. */
+    INTERACTIVA,
+    /** Jobs, importaciones, exportaciones, sincronizaciones: pool chico, espera larga. */
+    BATCH
+}
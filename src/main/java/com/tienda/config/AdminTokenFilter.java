@@ -0,0 +1,56 @@
+package com.tienda.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Protege {@code /api/admin/**} y los endpoints de actuator con un token compartido en la cabecera
+ * {@code X-Admin-Token}. {@code /actuator/health} queda abierto para los probes del orquestador.
+ * Si {@code tienda.admin.token} no está configurado, los endpoints de administración quedan cerrados.
+ * Los prefijos se comparan contra la ruta normalizada ({@link RutaPeticion}).
+ */
+@Component
+public class AdminTokenFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Admin-Token";
+    private static final String PREFIJO = "/api/admin";
+    private static final String ACTUATOR = "/actuator";
+    private static final String HEALTH = "/actuator/health";
+
+    private final byte[] token;
+
+    public AdminTokenFilter(@Value("${tienda.admin.token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = RutaPeticion.de(request);
+        if (RutaPeticion.bajo(ruta, PREFIJO)) {
+            return false;
+        }
+        return RutaPeticion.bajo(ruta, HEALTH) || !RutaPeticion.bajo(ruta, ACTUATOR);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String recibido = request.getHeader(CABECERA);
+        if (token.length == 0 || recibido == null
+                || !MessageDigest.isEqual(token, recibido.getBytes(StandardCharsets.UTF_8))) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tienda.config;
+
+import com.tienda.batch.GeneradorDatos;
+import com.tienda.batch.GeneradorDatosProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import javax.sql.DataSource;
+
+/**
+ * Generador de datos sintéticos para entornos de rendimiento.
+ * Se ejecuta al arrancar solo con {@code tienda.generador.enabled=true}. Escribe las cotizaciones en la base
+ * principal, así que no se permite con {@code tienda.sharding.enabled=true} (la API no las vería).
+ */
+@Configuration
+@EnableConfigurationProperties(GeneradorDatosProperties.class)
+public class GeneradorDatosConfig {
+
+    @Bean
+    GeneradorDatos generadorDatos(DataSource dataSource, GeneradorDatosProperties props) {
+        return new GeneradorDatos(dataSource, props);
+    }
+
+    @Bean
+    @Order(0)
+    @ConditionalOnProperty(prefix = "tienda.generador", name = "enabled", havingValue = "true")
+    ApplicationRunner generadorDatosRunner(GeneradorDatos generador,
+                                           @Value("${tienda.sharding.enabled:false}") boolean sharding) {
+        if (sharding) {
+            throw new IllegalStateException("tienda.generador.enabled=true no se puede usar con"
+                    + " tienda.sharding.enabled=true: las cotizaciones generadas quedarían en la base principal");
+        }
+        return args -> generador.generar();
+    }
+}
@@ -0,0 +1,77 @@
+package com.tienda.config;
+
+import com.tienda.carga.DataSourcePorCarga;
+import com.tienda.carga.PoolsProperties;
+import com.tienda.carga.TipoCarga;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reemplaza el pool autoconfigurado por un pool por tipo de carga (bulkheads), detrás del mismo
+ * bean {@code dataSource}: JPA, Flyway, {@code JdbcTemplate} y las trazas no cambian.
+ * Cada pool publica sus métricas {@code hikaricp.connections.*{pool=interactivo|batch}}.
+ * {@code tienda.pools.enabled=false} vuelve al pool único de Spring Boot.
+ */
+@Configuration
+@EnableConfigurationProperties(PoolsProperties.class)
+@ConditionalOnProperty(prefix = "tienda.pools", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PoolsConfig {
+
+    /** Los pools como bean aparte: el {@code dataSource} queda envuelto por las trazas y no se cerraría. */
+    public static final class Pools implements AutoCloseable {
+        private final Map<TipoCarga, HikariDataSource> porTipo;
+
+        Pools(Map<TipoCarga, HikariDataSource> porTipo) {
+            this.porTipo = porTipo;
+        }
+
+        @Override
+        public void close() {
+            porTipo.values().forEach(HikariDataSource::close);
+        }
+    }
+
+    @Bean
+    Pools poolsPorCarga(PoolsProperties props,
+                        @Value("${spring.datasource.url}") String url,
+                        @Value("${spring.datasource.username:}") String usuario,
+                        @Value("${spring.datasource.password:}") String clave,
+                        ObjectProvider<MeterRegistry> registry) {
+        Map<TipoCarga, HikariDataSource> pools = new EnumMap<>(TipoCarga.class);
+        pools.put(TipoCarga.INTERACTIVA, pool("interactivo", props.getInteractivo(), url, usuario, clave, registry));
+        pools.put(TipoCarga.BATCH, pool("batch", props.getBatch(), url, usuario, clave, registry));
+        return new Pools(pools);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(Pools pools) {
+        return new DataSourcePorCarga(pools.porTipo);
+    }
+
+    private static HikariDataSource pool(String nombre, PoolsProperties.Pool p, String url, String usuario,
+                                         String clave, ObjectProvider<MeterRegistry> registry) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName(nombre);
+        ds.setJdbcUrl(url);
+        ds.setUsername(usuario);
+        ds.setPassword(clave);
+        ds.setMaximumPoolSize(p.getTamano());
+        ds.setMinimumIdle(Math.min(p.getMinimoOcioso(), p.getTamano()));
+        ds.setConnectionTimeout(p.getEsperaMs());
+        registry.ifAvailable(r -> ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(r)));
+        return ds;
+    }
+}
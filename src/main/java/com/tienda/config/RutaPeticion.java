@@ -0,0 +1,33 @@
+package com.tienda.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Ruta de la request tal como la enruta Spring MVC: decodificada, sin parámetros {@code ;...} de cada
+ * segmento y con {@code .} / {@code ..} resueltos. Los filtros de token deciden sobre esta ruta y no
+ * sobre {@code getRequestURI()}, que con {@code /api;x/admin} o {@code /%61pi/admin} no empieza por el prefijo
+ * protegido pero llega igual al controlador.
+ */
+final class RutaPeticion {
+
+    private static final UrlPathHelper RUTAS = new UrlPathHelper();
+
+    static {
+        RUTAS.setUrlDecode(true);
+        RUTAS.setRemoveSemicolonContent(true);
+    }
+
+    private RutaPeticion() {
+    }
+
+    static String de(HttpServletRequest request) {
+        return StringUtils.cleanPath(RUTAS.getPathWithinApplication(request));
+    }
+
+    /** {@code true} si la ruta es {@code prefijo} o cuelga de él ({@code /actuator} pero no {@code /actuatorx}). */
+    static boolean bajo(String ruta, String prefijo) {
+        return ruta.equals(prefijo) || ruta.startsWith(prefijo + "/");
+    }
+}
@@ -0,0 +1,28 @@
+package com.tienda.config;
+
+import com.tienda.salesforce.HttpSalesforceQuoteClient;
+import com.tienda.salesforce.SalesforceQuoteClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Cliente de Salesforce para la conciliación. Solo se crea si {@code tienda.salesforce.url} está
+ * definido; otra implementación de {@link SalesforceQuoteClient} (p. ej. en pruebas) lo reemplaza.
+ */
+@Configuration
+public class SalesforceConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tienda.salesforce", name = "url")
+    SalesforceQuoteClient salesforceQuoteClient(@Value("${tienda.salesforce.url}") String url,
+                                                @Value("${tienda.salesforce.version-api:v60.0}") String versionApi,
+                                                @Value("${tienda.salesforce.token:}") String token,
+                                                JsonMapper jsonMapper) {
+        return new HttpSalesforceQuoteClient(url, versionApi, token, jsonMapper);
+    }
+}
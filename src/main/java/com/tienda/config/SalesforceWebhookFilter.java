@@ -0,0 +1,50 @@
+package com.tienda.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Protege {@code /api/salesforce/webhook/**} con el token compartido que Salesforce envía en
+ * {@code X-Salesforce-Token}, antes de leer o validar el cuerpo. Como {@link AdminTokenFilter}:
+ * decide sobre la ruta normalizada ({@link RutaPeticion}) y sin {@code tienda.salesforce.webhook.token}
+ * el webhook queda cerrado.
+ */
+@Component
+public class SalesforceWebhookFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Salesforce-Token";
+    private static final String PREFIJO = "/api/salesforce/webhook";
+
+    private final byte[] token;
+
+    public SalesforceWebhookFilter(@Value("${tienda.salesforce.webhook.token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !RutaPeticion.bajo(RutaPeticion.de(request), PREFIJO);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String recibido = request.getHeader(CABECERA);
+        if (token.length == 0 || recibido == null
+                || !MessageDigest.isEqual(token, recibido.getBytes(StandardCharsets.UTF_8))) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,71 @@
+package com.tienda.config;
+
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.sharding.CotizacionShardRepository;
+import com.tienda.sharding.EnrutadorShards;
+import com.tienda.sharding.RebalanceadorShards;
+import com.tienda.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Particionado de cotizaciones, activo solo con {@code tienda.sharding.enabled=true}.
+ * Los pools de los shards no se registran como beans {@code DataSource}: así el {@code DataSource}
+ * principal (clientes, JPA, Flyway) sigue siendo el único que ve la autoconfiguración.
+ * No arranca si la base principal todavía tiene cotizaciones: con el sharding activo nadie las lee y el
+ * rebalanceo solo mueve clientes entre shards.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "tienda.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final String SQL_ALGUNA_COTIZACION = "select id from cotizacion limit 1";
+
+    @Bean
+    EnrutadorShards enrutadorShards(JdbcTemplate jdbcTemplate, ShardingProperties props, BusInvalidacion bus) {
+        if (props.getShards().isEmpty()) {
+            throw new IllegalStateException("tienda.sharding.enabled=true requiere al menos un tienda.sharding.shards");
+        }
+        verificarPrincipalSinCotizaciones(jdbcTemplate);
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        for (ShardingProperties.Shard s : props.getShards()) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("shard-" + s.getNombre());
+            ds.setJdbcUrl(s.getUrl());
+            ds.setUsername(s.getUsername());
+            ds.setPassword(s.getPassword());
+            ds.setMaximumPoolSize(s.getMaxPool());
+            pools.put(s.getNombre(), ds);
+        }
+        EnrutadorShards enrutador = new EnrutadorShards(jdbcTemplate, pools, props.getNodosVirtuales(),
+                props.getInstancia(), props.getAnilloAnterior(), bus);
+        enrutador.iniciar();
+        return enrutador;
+    }
+
+    static void verificarPrincipalSinCotizaciones(JdbcTemplate jdbcTemplate) {
+        if (!jdbcTemplate.queryForList(SQL_ALGUNA_COTIZACION, Long.class).isEmpty()) {
+            throw new IllegalStateException("La tabla cotizacion de la base principal tiene filas y con"
+                    + " tienda.sharding.enabled=true quedarían ocultas: hay que llevarlas a los shards antes de activarlo");
+        }
+    }
+
+    @Bean
+    CotizacionShardRepository cotizacionShardRepository(EnrutadorShards enrutador) {
+        return new CotizacionShardRepository(enrutador);
+    }
+
+    @Bean
+    RebalanceadorShards rebalanceadorShards(EnrutadorShards enrutador, ShardingProperties props) {
+        return new RebalanceadorShards(enrutador, props.getEsperaPropagacionMs());
+    }
+}
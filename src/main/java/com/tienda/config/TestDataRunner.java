@@ -1,5 +1,6 @@
 package com.tienda.config;
 
+import com.tienda.dinero.Dinero;
 import com.tienda.model.Cliente;
 import com.tienda.model.Cotizacion;
 import com.tienda.model.EstadoCotizacion;
@@ -11,7 +12,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
-import java.math.BigDecimal;
 
 @Configuration
 @Profile("dev")
@@ -32,7 +32,7 @@ public class TestDataRunner {
 
             Cotizacion q = Cotizacion.builder()
                     .cliente(c)
-                    .total(new BigDecimal("1500000.00"))
+                    .total(Dinero.parse("1500000.00"))
                     .estado(EstadoCotizacion.CREADA)
                     .build();
 
@@ -0,0 +1,44 @@
+package com.tienda.config;
+
+import com.tienda.sharding.EnrutadorShards;
+import com.tienda.volcado.VolcadoDatos;
+import com.tienda.volcado.VolcadoProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+/**
+ * Volcado lógico para refrescar staging o sembrar entornos de carga.
+ * Se ejecuta al arrancar solo con {@code tienda.volcado.modo=exportar|restaurar}.
+ */
+@Configuration
+@EnableConfigurationProperties(VolcadoProperties.class)
+public class VolcadoConfig {
+
+    @Bean
+    VolcadoDatos volcadoDatos(DataSource dataSource, VolcadoProperties props,
+                              ObjectProvider<EnrutadorShards> enrutador) {
+        // con sharding, las cotizaciones se vuelcan y restauran shard por shard
+        return new VolcadoDatos(dataSource, props, enrutador.getIfAvailable());
+    }
+
+    @Bean
+    @Order(0) // antes del filtro de Bloom y del calentamiento, que deben ver los datos restaurados
+    @ConditionalOnProperty(prefix = "tienda.volcado", name = "modo")
+    ApplicationRunner volcadoDatosRunner(VolcadoDatos volcado, VolcadoProperties props) {
+        return args -> {
+            Path directorio = Path.of(props.getDirectorio());
+            switch (props.getModo()) {
+                case EXPORTAR -> volcado.exportar(directorio);
+                case RESTAURAR -> volcado.restaurar(directorio);
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.tienda.controller;
+
+import com.tienda.analytics.AgregadorCotizaciones;
+import com.tienda.analytics.ColumnasCotizacion;
+import com.tienda.analytics.FiltroSnapshot;
+import com.tienda.analytics.SnapshotCotizacionService;
+import com.tienda.dto.ConteoDiarioResponse;
+import com.tienda.dto.HistogramaResponse;
+import com.tienda.dto.SnapshotInfoResponse;
+import com.tienda.model.EstadoCotizacion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoints de tablero: todas las consultas se resuelven sobre el snapshot columnar en memoria.
+ */
+@RestController
+@RequestMapping("/api/analitica/cotizaciones")
+@RequiredArgsConstructor
+public class AnaliticaController {
+
+    private static final int MAX_BUCKETS = 1000;
+    private static final int MAX_DIAS = 3660;
+
+    private final SnapshotCotizacionService snapshotService;
+
+    @GetMapping("/snapshot")
+    public ResponseEntity<SnapshotInfoResponse> snapshot() {
+        ColumnasCotizacion.Vista v = snapshotService.vista();
+        return ResponseEntity.ok(SnapshotInfoResponse.builder()
+                .filas(v.filas())
+                .watermark(v.watermark())
+                .bytes(v.bytesUsados())
+                .ultimaActualizacion(snapshotService.getUltimaActualizacion())
+                .build());
+    }
+
+    @GetMapping("/histograma")
+    public ResponseEntity<HistogramaResponse> histograma(
+            @RequestParam BigDecimal min,
+            @RequestParam BigDecimal max,
+            @RequestParam(defaultValue = "20") int buckets,
+            @RequestParam(required = false) EstadoCotizacion estado,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("El número de buckets no puede exceder " + MAX_BUCKETS);
+        }
+        long minC = aCentavos(min);
+        long maxC = aCentavos(max);
+        long[] conteos = snapshotService.histograma(FiltroSnapshot.de(estado, desde, hasta), minC, maxC, buckets);
+
+        List<HistogramaResponse.Bucket> lista = new ArrayList<>(buckets);
+        double ancho = (double) (maxC - minC) / buckets;
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            lista.add(HistogramaResponse.Bucket.builder()
+                    .desde(BigDecimal.valueOf(minC + Math.round(i * ancho), 2))
+                    .hasta(BigDecimal.valueOf(minC + Math.round((i + 1) * ancho), 2))
+                    .conteo(conteos[i])
+                    .build());
+            total += conteos[i];
+        }
+        return ResponseEntity.ok(HistogramaResponse.builder()
+                .min(min)
+                .max(max)
+                .buckets(lista)
+                .total(total)
+                .build());
+    }
+
+    @GetMapping("/percentiles")
+    public ResponseEntity<Map<String, BigDecimal>> percentiles(
+            @RequestParam(defaultValue = "50,90,95,99") List<Double> p,
+            @RequestParam(required = false) EstadoCotizacion estado,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        double[] ps = p.stream().mapToDouble(Double::doubleValue).toArray();
+        long[] valores = snapshotService.percentiles(FiltroSnapshot.de(estado, desde, hasta), ps);
+
+        Map<String, BigDecimal> resp = new LinkedHashMap<>();
+        for (int i = 0; i < valores.length; i++) {
+            resp.put("p" + p.get(i).toString().replaceAll("\\.0$", ""), BigDecimal.valueOf(valores[i], 2));
+        }
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/diario")
+    public ResponseEntity<List<ConteoDiarioResponse>> diario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) EstadoCotizacion estado
+    ) {
+        long dias = hasta.toEpochDay() - desde.toEpochDay() + 1;
+        if (dias <= 0 || dias > MAX_DIAS) {
+            throw new IllegalArgumentException("El rango de fechas debe estar entre 1 y " + MAX_DIAS + " días");
+        }
+        long[] matriz = snapshotService.conteoDiario(FiltroSnapshot.de(estado, null, null), desde, hasta);
+
+        EstadoCotizacion[] estados = EstadoCotizacion.values();
+        int n = AgregadorCotizaciones.estados();
+        List<ConteoDiarioResponse> resp = new ArrayList<>((int) dias);
+        for (int d = 0; d < dias; d++) {
+            Map<EstadoCotizacion, Long> conteos = new EnumMap<>(EstadoCotizacion.class);
+            for (int e = 0; e < n; e++) {
+                conteos.put(estados[e], matriz[d * n + e]);
+            }
+            resp.add(ConteoDiarioResponse.builder()
+                    .fecha(desde.plusDays(d))
+                    .conteos(conteos)
+                    .build());
+        }
+        return ResponseEntity.ok(resp);
+    }
+
+    private static long aCentavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
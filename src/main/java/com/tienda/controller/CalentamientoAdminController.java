@@ -0,0 +1,22 @@
+package com.tienda.controller;
+
+import com.tienda.dto.CalentamientoResponse;
+import com.tienda.warmup.CalentamientoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/warmup")
+@RequiredArgsConstructor
+public class CalentamientoAdminController {
+
+    private final CalentamientoService calentamientoService;
+
+    @GetMapping
+    public ResponseEntity<CalentamientoResponse> reporte() {
+        return ResponseEntity.ok(calentamientoService.reporte());
+    }
+}
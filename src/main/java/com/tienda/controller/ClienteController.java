@@ -4,6 +4,7 @@ import com.tienda.dto.ClienteCreateRequest;
 import com.tienda.dto.ClienteResponse;
 import com.tienda.dto.CotizacionResponse;
 import com.tienda.dto.PageResponse;
+import com.tienda.invalidacion.CachePaginasCotizaciones;
 import com.tienda.service.ClienteService;
 import com.tienda.service.CotizacionService;
 import jakarta.validation.Valid;
@@ -12,6 +13,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/clientes")
@@ -20,6 +24,8 @@ public class ClienteController {
 
     private final ClienteService clienteService;
     private final CotizacionService cotizacionService;
+    private final CachePaginasCotizaciones cachePaginas;
+    private final JsonMapper jsonMapper;
 
     // === NUEVO: POST /api/clientes ===
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
@@ -36,17 +42,44 @@ public class ClienteController {
         return ResponseEntity.ok(resp);
     }
 
+    // === GET /api/clientes/{id}?fields=id,email (solo los campos pedidos) ===
+    @GetMapping(value = "/{id}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> obtenerCampos(@PathVariable Long id,
+                                                             @RequestParam String fields) {
+        return ResponseEntity.ok(clienteService.obtenerClienteCampos(id, fields));
+    }
+
     // === EXISTENTE: GET /api/clientes/{id}/cotizaciones ===
-    @GetMapping("/{id}/cotizaciones")
-    public ResponseEntity<PageResponse<CotizacionResponse>> listarCotizacionesPorCliente(
+    // La página sale ya serializada de la cache; solo en un fallo se consulta y se serializa.
+    @GetMapping(value = "/{id}/cotizaciones", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> listarCotizacionesPorCliente(
+            @PathVariable Long id,
+            Pageable pageable
+    ) {
+        Pageable p = limitar(pageable);
+        var clave = new CachePaginasCotizaciones.Clave(id, p.getPageNumber(), p.getPageSize(), p.getSort().toString());
+        byte[] cuerpo = cachePaginas.obtener(clave, () -> {
+            PageResponse<CotizacionResponse> page = cotizacionService.listarPorClientePaginado(id, p);
+            return jsonMapper.writeValueAsBytes(page);
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    // === GET /api/clientes/{id}/cotizaciones?fields=id,estado,total ===
+    @GetMapping(value = "/{id}/cotizaciones", params = "fields")
+    public ResponseEntity<PageResponse<Map<String, Object>>> listarCamposCotizacionesPorCliente(
             @PathVariable Long id,
+            @RequestParam String fields,
             Pageable pageable
     ) {
+        return ResponseEntity.ok(cotizacionService.listarPorClienteCampos(id, fields, limitar(pageable)));
+    }
+
+    private static Pageable limitar(Pageable pageable) {
         int maxSize = 50;
         if (pageable.getPageSize() > maxSize) {
-            pageable = PageRequest.of(pageable.getPageNumber(), maxSize, pageable.getSort());
+            return PageRequest.of(pageable.getPageNumber(), maxSize, pageable.getSort());
         }
-        PageResponse<CotizacionResponse> page = cotizacionService.listarPorClientePaginado(id, pageable);
-        return ResponseEntity.ok(page);
+        return pageable;
     }
 }
\ No newline at end of file
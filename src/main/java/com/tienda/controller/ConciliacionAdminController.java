@@ -0,0 +1,27 @@
+package com.tienda.controller;
+
+import com.tienda.dto.ConciliacionResponse;
+import com.tienda.salesforce.ConciliacionSalesforceJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/conciliacion")
+@RequiredArgsConstructor
+public class ConciliacionAdminController {
+
+    private final ConciliacionSalesforceJob job;
+
+    @PostMapping
+    public ResponseEntity<ConciliacionResponse> iniciar() {
+        boolean iniciado = job.iniciar();
+        return ResponseEntity.status(iniciado ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(job.estado());
+    }
+
+    @GetMapping
+    public ResponseEntity<ConciliacionResponse> estado() {
+        return ResponseEntity.ok(job.estado());
+    }
+}
@@ -0,0 +1,27 @@
+package com.tienda.controller;
+
+import com.tienda.batch.DeteccionDuplicadosJob;
+import com.tienda.dto.DuplicadosResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/duplicados")
+@RequiredArgsConstructor
+public class DuplicadosAdminController {
+
+    private final DeteccionDuplicadosJob job;
+
+    @PostMapping
+    public ResponseEntity<DuplicadosResponse> iniciar() {
+        boolean iniciado = job.iniciar();
+        return ResponseEntity.status(iniciado ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(job.estado());
+    }
+
+    @GetMapping
+    public ResponseEntity<DuplicadosResponse> estado() {
+        return ResponseEntity.ok(job.estado());
+    }
+}
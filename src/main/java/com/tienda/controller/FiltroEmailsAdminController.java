@@ -0,0 +1,27 @@
+package com.tienda.controller;
+
+import com.tienda.bloom.FiltroEmailsClientes;
+import com.tienda.dto.FiltroEmailsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/filtro-emails")
+@RequiredArgsConstructor
+public class FiltroEmailsAdminController {
+
+    private final FiltroEmailsClientes filtro;
+
+    @PostMapping
+    public ResponseEntity<FiltroEmailsResponse> reconstruir() {
+        boolean iniciado = filtro.reconstruir();
+        return ResponseEntity.status(iniciado ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(filtro.estado());
+    }
+
+    @GetMapping
+    public ResponseEntity<FiltroEmailsResponse> estado() {
+        return ResponseEntity.ok(filtro.estado());
+    }
+}
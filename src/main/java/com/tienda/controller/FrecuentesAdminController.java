@@ -0,0 +1,20 @@
+package com.tienda.controller;
+
+import com.tienda.dto.FrecuentesResponse;
+import com.tienda.frecuentes.RegistroFrecuentes;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/frecuentes")
+@RequiredArgsConstructor
+public class FrecuentesAdminController {
+
+    private final RegistroFrecuentes registroFrecuentes;
+
+    @GetMapping
+    public ResponseEntity<FrecuentesResponse> resumen(@RequestParam(required = false) Integer segundos) {
+        return ResponseEntity.ok(registroFrecuentes.resumen(segundos));
+    }
+}
@@ -0,0 +1,27 @@
+package com.tienda.controller;
+
+import com.tienda.batch.ImportacionClientesJob;
+import com.tienda.dto.ImportacionClientesResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/importaciones/clientes")
+@RequiredArgsConstructor
+public class ImportacionAdminController {
+
+    private final ImportacionClientesJob job;
+
+    @PostMapping
+    public ResponseEntity<ImportacionClientesResponse> iniciar(@RequestParam String archivo) {
+        boolean iniciada = job.iniciar(archivo);
+        return ResponseEntity.status(iniciada ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(job.estado());
+    }
+
+    @GetMapping
+    public ResponseEntity<ImportacionClientesResponse> estado() {
+        return ResponseEntity.ok(job.estado());
+    }
+}
@@ -0,0 +1,48 @@
+package com.tienda.controller;
+
+import com.tienda.dto.PerfilJfrResponse;
+import com.tienda.profiling.PerfilJfrService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/admin/jfr")
+@RequiredArgsConstructor
+public class PerfilJfrAdminController {
+
+    private final PerfilJfrService perfilJfrService;
+
+    @PostMapping
+    public ResponseEntity<PerfilJfrResponse> iniciar(@RequestParam(defaultValue = "30") int segundos) {
+        boolean iniciado = perfilJfrService.iniciar(segundos);
+        return ResponseEntity.status(iniciado ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(perfilJfrService.estado());
+    }
+
+    @GetMapping
+    public ResponseEntity<PerfilJfrResponse> estado() {
+        return ResponseEntity.ok(perfilJfrService.estado());
+    }
+
+    @GetMapping("/archivo")
+    public ResponseEntity<Resource> archivo() {
+        Path archivo = perfilJfrService.archivo();
+        if (archivo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(archivo.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(archivo));
+    }
+}
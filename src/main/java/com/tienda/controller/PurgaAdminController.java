@@ -0,0 +1,27 @@
+package com.tienda.controller;
+
+import com.tienda.batch.PurgaClientesJob;
+import com.tienda.dto.PurgaClienteResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/purgas")
+@RequiredArgsConstructor
+public class PurgaAdminController {
+
+    private final PurgaClientesJob job;
+
+    @PostMapping("/{clienteId}")
+    public ResponseEntity<PurgaClienteResponse> solicitar(@PathVariable Long clienteId) {
+        boolean encolada = job.solicitar(clienteId);
+        return ResponseEntity.status(encolada ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(job.estado(clienteId));
+    }
+
+    @GetMapping("/{clienteId}")
+    public ResponseEntity<PurgaClienteResponse> estado(@PathVariable Long clienteId) {
+        return ResponseEntity.ok(job.estado(clienteId));
+    }
+}
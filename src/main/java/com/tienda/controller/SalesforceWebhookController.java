@@ -0,0 +1,31 @@
+package com.tienda.controller;
+
+import com.tienda.dto.EventosQuoteRequest;
+import com.tienda.dto.EventosQuoteResponse;
+import com.tienda.salesforce.IngestaEstadosQuote;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/** Webhook de Salesforce; el token lo valida {@link com.tienda.config.SalesforceWebhookFilter}. */
+@RestController
+@RequestMapping("/api/salesforce/webhook")
+@RequiredArgsConstructor
+public class SalesforceWebhookController {
+
+    private final IngestaEstadosQuote ingesta;
+
+    // 202: encolados; se aplican por lotes. 503 + Retry-After si la cola está llena.
+    @PostMapping(value = "/quotes", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<EventosQuoteResponse> recibir(@Valid @RequestBody EventosQuoteRequest request) {
+        int enCola = ingesta.encolar(request.getEventos());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(EventosQuoteResponse.builder()
+                .aceptados(request.getEventos().size())
+                .enCola(enCola)
+                .build());
+    }
+}
@@ -0,0 +1,35 @@
+package com.tienda.controller;
+
+import com.tienda.dto.MovimientoShardResponse;
+import com.tienda.dto.RebalanceoResponse;
+import com.tienda.sharding.RebalanceadorShards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "tienda.sharding", name = "enabled", havingValue = "true")
+public class ShardsAdminController {
+
+    private final RebalanceadorShards rebalanceador;
+
+    @PostMapping("/mover")
+    public ResponseEntity<MovimientoShardResponse> mover(@RequestParam Long clienteId, @RequestParam String destino) {
+        return ResponseEntity.ok(rebalanceador.moverCliente(clienteId, destino));
+    }
+
+    @PostMapping("/rebalanceo")
+    public ResponseEntity<RebalanceoResponse> rebalancear() {
+        boolean iniciado = rebalanceador.iniciar();
+        return ResponseEntity.status(iniciado ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(rebalanceador.estado());
+    }
+
+    @GetMapping("/rebalanceo")
+    public ResponseEntity<RebalanceoResponse> estado() {
+        return ResponseEntity.ok(rebalanceador.estado());
+    }
+}
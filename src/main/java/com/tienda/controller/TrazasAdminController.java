@@ -0,0 +1,22 @@
+package com.tienda.controller;
+
+import com.tienda.dto.TrazaResponse;
+import com.tienda.tracing.BufferTrazas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/trazas")
+@RequiredArgsConstructor
+public class TrazasAdminController {
+
+    private final BufferTrazas bufferTrazas;
+
+    @GetMapping
+    public ResponseEntity<List<TrazaResponse>> recientes(@RequestParam(defaultValue = "50") int limite) {
+        return ResponseEntity.ok(bufferTrazas.recientes(Math.max(1, limite)));
+    }
+}
@@ -0,0 +1,202 @@
+package com.tienda.dinero;
+
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Monto en pesos con dos decimales, guardado como {@code long} de centavos. Reemplaza a
+ * {@link BigDecimal} en los totales de cotización: comparar, sumar y (de)serializar no crean objetos
+ * intermedios, y las operaciones son exactas (lanzan {@link ArithmeticException} si se desbordan).
+ * <p>
+ * El rango es el de la columna {@code decimal(15,2)}: ±9.999.999.999.999,99.
+ */
+@JsonSerialize(using = DineroJson.Serializador.class)
+@JsonDeserialize(using = DineroJson.Deserializador.class)
+public final class Dinero implements Comparable<Dinero> {
+
+    public static final int ESCALA = 2;
+    public static final long MAX_CENTAVOS = 999_999_999_999_999L;
+    public static final Dinero CERO = new Dinero(0);
+
+    private final long centavos;
+
+    private Dinero(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinero deCentavos(long centavos) {
+        if (centavos > MAX_CENTAVOS || centavos < -MAX_CENTAVOS) {
+            throw new ArithmeticException("Monto fuera de rango para decimal(15,2): " + centavos + " centavos");
+        }
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    /** @throws ArithmeticException si tiene más de dos decimales significativos o está fuera de rango */
+    public static Dinero de(BigDecimal valor) {
+        try {
+            return deCentavos(valor.setScale(ESCALA, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Monto inválido (máximo 2 decimales y 13 enteros): " + valor);
+        }
+    }
+
+    /**
+     * Interpreta {@code "1500"}, {@code "259900.5"}, {@code "259900.00"} o {@code "-3.25"} sin crear objetos
+     * intermedios.
+     *
+     * @throws NumberFormatException si el texto no es un monto con hasta dos decimales
+     */
+    public static Dinero parse(CharSequence texto) {
+        return deCentavos(parseCentavos(texto, 0, texto.length()));
+    }
+
+    static long parseCentavos(CharSequence s, int desde, int hasta) {
+        return parseCentavos(s, null, desde, hasta);
+    }
+
+    /** Variante sobre el buffer del parser JSON, para no materializar el texto del número. */
+    static long parseCentavos(char[] s, int desde, int hasta) {
+        return parseCentavos(null, s, desde, hasta);
+    }
+
+    private static long parseCentavos(CharSequence cs, char[] arr, int desde, int hasta) {
+        int i = desde;
+        boolean negativo = false;
+        if (i < hasta) {
+            char c = cs != null ? cs.charAt(i) : arr[i];
+            if (c == '-' || c == '+') {
+                negativo = c == '-';
+                i++;
+            }
+        }
+        long enteros = 0;
+        int digitosEnteros = 0;
+        while (i < hasta) {
+            char c = cs != null ? cs.charAt(i) : arr[i];
+            if (c < '0' || c > '9') {
+                break;
+            }
+            enteros = enteros * 10 + (c - '0');
+            if (++digitosEnteros > 13 && enteros > MAX_CENTAVOS / 100) {
+                throw new NumberFormatException("Monto fuera de rango: " + texto(cs, arr, desde, hasta));
+            }
+            i++;
+        }
+        long fraccion = 0;
+        int decimales = 0;
+        if (i < hasta && (cs != null ? cs.charAt(i) : arr[i]) == '.') {
+            i++;
+            while (i < hasta) {
+                char c = cs != null ? cs.charAt(i) : arr[i];
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (decimales < ESCALA) {
+                    fraccion = fraccion * 10 + (c - '0');
+                    decimales++;
+                } else if (c != '0') {
+                    throw new NumberFormatException("El monto admite máximo 2 decimales: " + texto(cs, arr, desde, hasta));
+                }
+                i++;
+            }
+        }
+        if (i != hasta || digitosEnteros + decimales == 0) {
+            throw new NumberFormatException("Monto inválido: " + texto(cs, arr, desde, hasta));
+        }
+        for (; decimales < ESCALA; decimales++) {
+            fraccion *= 10;
+        }
+        long centavos = enteros * 100 + fraccion;
+        if (centavos > MAX_CENTAVOS) {
+            throw new NumberFormatException("Monto fuera de rango: " + texto(cs, arr, desde, hasta));
+        }
+        return negativo ? -centavos : centavos;
+    }
+
+    private static String texto(CharSequence cs, char[] arr, int desde, int hasta) {
+        return cs != null ? cs.subSequence(desde, hasta).toString() : new String(arr, desde, hasta - desde);
+    }
+
+    public long centavos() {
+        return centavos;
+    }
+
+    public Dinero mas(Dinero otro) {
+        return deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero menos(Dinero otro) {
+        return deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero por(long factor) {
+        return deCentavos(Math.multiplyExact(centavos, factor));
+    }
+
+    /** Suma exacta de montos en centavos; lanza {@link ArithmeticException} si se sale del rango. */
+    public static Dinero sumar(long[] centavos, int desde, int hasta) {
+        long s = 0;
+        for (int i = desde; i < hasta; i++) {
+            s = Math.addExact(s, centavos[i]);
+        }
+        return deCentavos(s);
+    }
+
+    public boolean esPositivo() {
+        return centavos > 0;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    /**
+     * Escribe el monto con exactamente dos decimales ({@code 259900.00}) en {@code buf} desde la posición 0
+     * y devuelve la cantidad de caracteres. {@code buf} necesita al menos 20 posiciones.
+     */
+    public int escribir(char[] buf) {
+        // dígitos en orden inverso al final del buffer; luego se corren al inicio
+        long v = Math.abs(centavos);
+        int p = buf.length;
+        buf[--p] = (char) ('0' + v % 10);
+        v /= 10;
+        buf[--p] = (char) ('0' + v % 10);
+        v /= 10;
+        buf[--p] = '.';
+        do {
+            buf[--p] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        int n = 0;
+        if (centavos < 0) {
+            buf[n++] = '-';
+        }
+        int largo = buf.length - p;
+        System.arraycopy(buf, p, buf, n, largo);
+        return n + largo;
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Dinero d && d.centavos == centavos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    @Override
+    public String toString() {
+        char[] buf = new char[20];
+        return new String(buf, 0, escribir(buf));
+    }
+}
@@ -0,0 +1,21 @@
+package com.tienda.dinero;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/** Mapea {@link Dinero} a columnas {@code decimal(15,2)}; se aplica a todo atributo de tipo {@code Dinero}. */
+@Converter(autoApply = true)
+public class DineroConverter implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero valor) {
+        return valor != null ? valor.aBigDecimal() : null;
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal columna) {
+        return columna != null ? Dinero.de(columna) : null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tienda.dinero;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * (De)serialización de {@link Dinero} directo sobre el stream: se escribe como número JSON con dos
+ * decimales ({@code 259900.00}, igual que el {@code BigDecimal} de antes) y se lee desde el buffer del
+ * parser sin pasar por {@code BigDecimal}. También acepta el monto como string ({@code "259900.00"}).
+ */
+public final class DineroJson {
+
+    private DineroJson() {
+    }
+
+    public static final class Serializador extends ValueSerializer<Dinero> {
+        @Override
+        public void serialize(Dinero valor, JsonGenerator gen, SerializationContext ctxt) {
+            char[] buf = new char[20];
+            gen.writeNumber(buf, 0, valor.escribir(buf));
+        }
+    }
+
+    public static final class Deserializador extends ValueDeserializer<Dinero> {
+        @Override
+        public Dinero deserialize(JsonParser p, DeserializationContext ctxt) {
+            JsonToken t = p.currentToken();
+            if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT || t == JsonToken.VALUE_STRING) {
+                try {
+                    int desde = p.getStringOffset();
+                    return Dinero.deCentavos(
+                            Dinero.parseCentavos(p.getStringCharacters(), desde, desde + p.getStringLength()));
+                } catch (NumberFormatException | ArithmeticException e) {
+                    return (Dinero) ctxt.handleWeirdStringValue(Dinero.class, p.getString(), e.getMessage());
+                }
+            }
+            return (Dinero) ctxt.handleUnexpectedToken(Dinero.class, p);
+        }
+    }
+}
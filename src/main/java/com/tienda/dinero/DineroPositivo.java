@@ -0,0 +1,25 @@
+package com.tienda.dinero;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.*;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/** Equivalente a {@code @DecimalMin(value = "0.0", inclusive = false)} para {@link Dinero}; {@code null} es válido. */
+@Documented
+@Constraint(validatedBy = DineroPositivoValidator.class)
+@Target({FIELD, METHOD, PARAMETER, ANNOTATION_TYPE, TYPE_USE})
+@Retention(RUNTIME)
+public @interface DineroPositivo {
+
+    String message() default "El monto debe ser mayor a 0";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
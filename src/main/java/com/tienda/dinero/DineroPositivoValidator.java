@@ -0,0 +1,12 @@
+package com.tienda.dinero;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class DineroPositivoValidator implements ConstraintValidator<DineroPositivo, Dinero> {
+
+    @Override
+    public boolean isValid(Dinero valor, ConstraintValidatorContext context) {
+        return valor == null || valor.esPositivo();
+    }
+}
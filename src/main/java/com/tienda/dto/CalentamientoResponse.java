@@ -0,0 +1,25 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CalentamientoResponse {
+    private String estado;
+    private LocalDateTime iniciado;
+    private long duracionMs;
+    private int iteraciones;
+    /** Duración de cada paso, en milisegundos, en el orden en que se ejecutaron. */
+    private Map<String, Long> pasosMs;
+    /** Latencia de la primera iteración de los caminos calientes (servicio + JSON). */
+    private long primeraIteracionMicros;
+    /** Mediana de la latencia en el último 10% de iteraciones. */
+    private long ultimasIteracionesMicros;
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ConciliacionResponse {
+    private String estado;
+    private LocalDateTime iniciado;
+    private LocalDateTime finalizado;
+    private long locales;
+    private long remotas;
+    private long coincidencias;
+    private Map<String, Long> diferencias;
+    private String archivo;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.tienda.dto;
+
+import com.tienda.model.EstadoCotizacion;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConteoDiarioResponse {
+    private LocalDate fecha;
+    private Map<EstadoCotizacion, Long> conteos;
+}
@@ -1,10 +1,13 @@
 package com.tienda.dto;
 
-import jakarta.validation.constraints.DecimalMin;
+import com.tienda.dinero.Dinero;
+import com.tienda.dinero.DineroPositivo;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 @Getter
 @Setter
@@ -16,7 +19,14 @@ public class CotizacionCreateRequest {
     @NotNull(message = "El clienteId es obligatorio")
     private Long clienteId;
 
-    @NotNull(message = "El total es obligatorio")
-    @DecimalMin(value = "0.0", inclusive = false, message = "El total debe ser mayor a 0")
-    private BigDecimal total;
+    /**
+     * Obligatorio solo si no hay líneas. Con líneas, el total se calcula en el servidor y, si se envía,
+     * debe coincidir con la suma de los subtotales.
+     */
+    @DineroPositivo(message = "El total debe ser mayor a 0")
+    private Dinero total;
+
+    @Valid
+    @Size(max = 1000, message = "Una cotización admite máximo 1000 líneas")
+    private List<LineaCotizacionRequest> lineas;
 }
\ No newline at end of file
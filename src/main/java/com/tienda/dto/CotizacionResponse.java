@@ -1,10 +1,11 @@
 package com.tienda.dto;
 
+import com.tienda.dinero.Dinero;
 import com.tienda.model.EstadoCotizacion;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -15,10 +16,11 @@ public class CotizacionResponse {
 
     private Long id;
     private Long clienteId;
-    private BigDecimal total;
+    private Dinero total;
     private EstadoCotizacion estado;
     private String salesforceQuoteId;
     private LocalDateTime createdAt;
     private String clienteNombre;
     private String clienteEmail;
+    private List<LineaCotizacionResponse> lineas;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class DuplicadosResponse {
+    private String estado;
+    private LocalDateTime iniciado;
+    private LocalDateTime finalizado;
+    private long clientesLeidos;
+    private long bloquesDescartados;
+    private long paresEvaluados;
+    private long candidatos;
+    private String archivo;
+    private String error;
+}
@@ -0,0 +1,47 @@
+package com.tienda.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/** Cuerpo del webhook de Salesforce: uno o más cambios de estado de Quotes. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventosQuoteRequest {
+
+    @NotEmpty(message = "Debe incluir al menos un evento")
+    @Size(max = 1000, message = "Un envío admite máximo 1000 eventos")
+    @Valid
+    private List<Evento> eventos;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Evento {
+
+        @NotBlank(message = "El quoteId es obligatorio")
+        @Size(min = 15, max = 18, message = "El quoteId debe ser un id de Salesforce de 15 o 18 caracteres")
+        private String quoteId;
+
+        /** {@code Status} del Quote: {@code Accepted} acepta; {@code Denied} o {@code Rejected} rechaza. */
+        @NotNull(message = "El estado es obligatorio")
+        @Pattern(regexp = "Accepted|Denied|Rejected", message = "El estado debe ser Accepted, Denied o Rejected")
+        private String estado;
+
+        /** Momento del cambio en Salesforce; ordena eventos repetidos o desordenados del mismo Quote. */
+        @NotNull(message = "La fecha del evento es obligatoria")
+        private OffsetDateTime ocurrido;
+    }
+}
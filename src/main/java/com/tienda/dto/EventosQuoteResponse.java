@@ -0,0 +1,14 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventosQuoteResponse {
+    private int aceptados;
+    /** Eventos esperando en la cola después de este envío. */
+    private int enCola;
+}
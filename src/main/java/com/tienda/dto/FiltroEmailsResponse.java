@@ -0,0 +1,27 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class FiltroEmailsResponse {
+    private String estado;
+    private LocalDateTime construido;
+    private long duracionMs;
+    private long elementos;
+    private long bits;
+    private int hashes;
+    /** Según la fracción de bits encendidos; crece si los emails superan la capacidad. */
+    private double probabilidadEstimada;
+    /** {@code findByEmail} que el filtro evitó. */
+    private long consultasEvitadas;
+    private long consultasRealizadas;
+    private long falsosPositivos;
+    private double tasaFalsosPositivos;
+    private String error;
+}
@@ -0,0 +1,31 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FrecuentesResponse {
+    private long ventanaSegundos;
+    private long solicitudes;
+    /** Cota (con alta probabilidad) de cuánto puede sobreestimar cada conteo de clientes. */
+    private long errorMaximoClientes;
+    private long errorMaximoEndpoints;
+    private boolean fijadosEnCache;
+    private List<Entrada> clientes;
+    private List<Entrada> endpoints;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Entrada {
+        private String clave;
+        private long estimado;
+    }
+}
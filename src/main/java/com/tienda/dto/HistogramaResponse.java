@@ -0,0 +1,29 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HistogramaResponse {
+    private BigDecimal min;
+    private BigDecimal max;
+    private List<Bucket> buckets;
+    private long total;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Bucket {
+        private BigDecimal desde;
+        private BigDecimal hasta;
+        private long conteo;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ImportacionClientesResponse {
+    private String estado;
+    private String archivo;
+    private LocalDateTime iniciado;
+    private LocalDateTime finalizado;
+    private long filasLeidas;
+    private long insertados;
+    private long actualizados;
+    private long sinCambios;
+    /** Filas que otra posterior del mismo lote reemplazó (mismo Account Id). */
+    private long repetidas;
+    private long invalidas;
+    /** Filas cuyo email ya es de otro cliente; se reintentan en la próxima corrida. */
+    private long conflictos;
+    private long duracionMs;
+    private long filasPorSegundo;
+    private String error;
+}
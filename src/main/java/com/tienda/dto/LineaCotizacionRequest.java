@@ -0,0 +1,31 @@
+package com.tienda.dto;
+
+import com.tienda.dinero.Dinero;
+import com.tienda.dinero.DineroPositivo;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LineaCotizacionRequest {
+
+    @NotBlank(message = "El producto es obligatorio")
+    @Size(max = 120, message = "El producto admite máximo 120 caracteres")
+    private String producto;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Positive(message = "La cantidad debe ser mayor a 0")
+    @Max(value = 1_000_000, message = "La cantidad máxima por línea es 1000000")
+    private Integer cantidad;
+
+    @NotNull(message = "El precio unitario es obligatorio")
+    @DineroPositivo(message = "El precio unitario debe ser mayor a 0")
+    private Dinero precioUnitario;
+}
@@ -0,0 +1,16 @@
+package com.tienda.dto;
+
+import com.tienda.dinero.Dinero;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LineaCotizacionResponse {
+    private String producto;
+    private int cantidad;
+    private Dinero precioUnitario;
+    private Dinero subtotal;
+}
@@ -0,0 +1,17 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovimientoShardResponse {
+    private Long clienteId;
+    private String origen;
+    private String destino;
+    private long filas;
+    /** Tiempo durante el que las requests de este cliente esperaron el cambio final. */
+    private long bloqueoMs;
+}
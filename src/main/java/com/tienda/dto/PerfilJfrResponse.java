@@ -0,0 +1,49 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PerfilJfrResponse {
+    private String estado;
+    private LocalDateTime iniciado;
+    private LocalDateTime finalizado;
+    private int segundos;
+    private long muestrasCpu;
+    private List<Entrada> topCpu;
+    private List<Entrada> topCpuAplicacion;
+    private List<Entrada> topAsignaciones;
+    private List<Entrada> contencion;
+    private Gc gc;
+    private String descarga;
+    private String error;
+
+    /** Método o sitio con su peso: muestras, bytes o milisegundos bloqueados según la lista. */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Entrada {
+        private String nombre;
+        private long valor;
+        private double porcentaje;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Gc {
+        private long colecciones;
+        private double pausaTotalMs;
+        private double pausaMaximaMs;
+    }
+}
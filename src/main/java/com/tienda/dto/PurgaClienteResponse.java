@@ -0,0 +1,20 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PurgaClienteResponse {
+    private long clienteId;
+    private String estado;
+    private LocalDateTime solicitada;
+    private LocalDateTime finalizada;
+    private long cotizacionesBorradas;
+    private long lineasBorradas;
+    private String error;
+}
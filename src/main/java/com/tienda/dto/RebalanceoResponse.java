@@ -0,0 +1,22 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class RebalanceoResponse {
+    private String estado;
+    private LocalDateTime iniciado;
+    private LocalDateTime finalizado;
+    private long clientesRevisados;
+    private long clientesMovidos;
+    private long filasMovidas;
+    private long restosEliminados;
+    private long maxBloqueoMs;
+    private String error;
+}
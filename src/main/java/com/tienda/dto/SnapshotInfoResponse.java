@@ -0,0 +1,17 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SnapshotInfoResponse {
+    private int filas;
+    private long watermark;
+    private long bytes;
+    private LocalDateTime ultimaActualizacion;
+}
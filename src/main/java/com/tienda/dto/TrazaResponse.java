@@ -0,0 +1,34 @@
+package com.tienda.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrazaResponse {
+    private Instant inicio;
+    private String metodo;
+    private String uri;
+    private int status;
+    private double totalMs;
+    private int spansDescartados;
+    private List<Span> spans;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Span {
+        private String nombre;
+        private String categoria;
+        private int profundidad;
+        private double inicioMs;
+        private double duracionMs;
+    }
+}
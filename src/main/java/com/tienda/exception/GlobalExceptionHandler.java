@@ -1,40 +1,149 @@
 package com.tienda.exception;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
-import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Único manejador de errores de la API. Responde {@code application/problem+json}:
+ * <pre>
+ * {"type":"about:blank","title":"Not Found","status":404,"codigo":"NO_ENCONTRADO",
+ *  "detail":"Cliente no encontrado con id: 9","instance":"/api/clientes/9"}
+ * </pre>
+ * El cuerpo se arma sobre un prefijo precalculado por {@link TipoError} y se escribe
+ * directamente como bytes, sin mapas intermedios ni serialización reflexiva: los 404/409
+ * de scanners y clientes mal configurados son frecuentes y deben costar poco.
+ * <p>
+ * Expone el contador {@code tienda.errores{tipo=...}} cuando hay un {@code MeterRegistry}.
+ */
 @RestControllerAdvice
-public class GlobalExceptionHandler {
+public class GlobalExceptionHandler implements MeterBinder {
+
+    private static final String SUFIJO_DETALLE = "\",\"instance\":\"";
+
+    private final LongAdder[] conteos = new LongAdder[TipoError.values().length];
+
+    public GlobalExceptionHandler() {
+        for (int i = 0; i < conteos.length; i++) {
+            conteos[i] = new LongAdder();
+        }
+    }
 
     @ExceptionHandler(ResourceNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleNotFound(ResourceNotFoundException ex,
-                                                              HttpServletRequest req) {
-        return build(HttpStatus.NOT_FOUND, ex.getMessage(), req);
+    public ResponseEntity<byte[]> handleNotFound(ResourceNotFoundException ex, HttpServletRequest req) {
+        return build(TipoError.NO_ENCONTRADO, ex.getMessage(), req, null);
+    }
+
+    @ExceptionHandler(RecursoDuplicadoException.class)
+    public ResponseEntity<byte[]> handleConflict(RecursoDuplicadoException ex, HttpServletRequest req) {
+        return build(TipoError.CONFLICTO, ex.getMessage(), req, null);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
-    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex,
-                                                                HttpServletRequest req) {
-        return build(HttpStatus.BAD_REQUEST, ex.getMessage(), req);
-    }
-
-    // (Opcional) validaciones @Valid del body (MethodArgumentNotValidException), etc.
-    // Agrega más @ExceptionHandler si lo necesitas.
-
-    private ResponseEntity<Map<String, Object>> build(HttpStatus status,
-                                                      String message,
-                                                      HttpServletRequest req) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now().toString());
-        body.put("status", status.value());
-        body.put("error", status.getReasonPhrase());
-        body.put("message", message != null ? message : "");
-        body.put("path", req.getRequestURI());
-        return ResponseEntity.status(status).body(body);
-    }
-}
\ No newline at end of file
+    public ResponseEntity<byte[]> handleBadRequest(IllegalArgumentException ex, HttpServletRequest req) {
+        return build(TipoError.SOLICITUD_INVALIDA, ex.getMessage(), req, null);
+    }
+
+    @ExceptionHandler({MethodArgumentTypeMismatchException.class, MissingServletRequestParameterException.class})
+    public ResponseEntity<byte[]> handleParametro(Exception ex, HttpServletRequest req) {
+        return build(TipoError.SOLICITUD_INVALIDA, ex.getMessage(), req, null);
+    }
+
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<byte[]> handleSaturado(ServicioSaturadoException ex, HttpServletRequest req) {
+        ResponseEntity<byte[]> r = build(TipoError.SATURADO, ex.getMessage(), req, null);
+        return ResponseEntity.status(r.getStatusCode())
+                .headers(r.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarSegundos()))
+                .body(r.getBody());
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<byte[]> handleValidation(MethodArgumentNotValidException ex, HttpServletRequest req) {
+        return build(TipoError.VALIDACION, "La solicitud tiene errores de validación", req,
+                ex.getBindingResult().getFieldErrors());
+    }
+
+    private ResponseEntity<byte[]> build(TipoError tipo, String detalle, HttpServletRequest req,
+                                         List<FieldError> errores) {
+        conteos[tipo.ordinal()].increment();
+
+        String path = req.getRequestURI();
+        StringBuilder sb = new StringBuilder(tipo.prefijo().length() + 64
+                + (detalle != null ? detalle.length() : 0) + path.length());
+        sb.append(tipo.prefijo());
+        escapar(detalle != null ? detalle : "", sb);
+        sb.append(SUFIJO_DETALLE);
+        escapar(path, sb);
+        sb.append('"');
+        if (errores != null && !errores.isEmpty()) {
+            sb.append(",\"errors\":{");
+            for (int i = 0; i < errores.size(); i++) {
+                FieldError fe = errores.get(i);
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append('"');
+                escapar(fe.getField(), sb);
+                sb.append("\":\"");
+                escapar(fe.getDefaultMessage() != null ? fe.getDefaultMessage() : "", sb);
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append('}');
+
+        return ResponseEntity.status(tipo.status())
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Escapa una cadena para un literal JSON (comillas, barra invertida y controles). */
+    static void escapar(CharSequence s, StringBuilder sb) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    public long conteo(TipoError tipo) {
+        return conteos[tipo.ordinal()].sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (TipoError tipo : TipoError.values()) {
+            FunctionCounter.builder("tienda.errores", conteos[tipo.ordinal()], LongAdder::sum)
+                    .description("Respuestas de error de la API por tipo")
+                    .tag("tipo", tipo.name())
+                    .tag("status", String.valueOf(tipo.status().value()))
+                    .register(registry);
+        }
+    }
+}
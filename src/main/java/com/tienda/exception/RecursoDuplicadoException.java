@@ -0,0 +1,11 @@
+package com.tienda.exception;
+
+/**
+ * El recurso ya existe (409), p. ej. un email de cliente repetido.
+ * Como {@link ResourceNotFoundException}, no captura stack trace.
+ */
+public class RecursoDuplicadoException extends RuntimeException {
+    public RecursoDuplicadoException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,7 +1,11 @@
 package com.tienda.exception;
 
+/**
+ * Recurso inexistente (404). Es una condición esperada del negocio, no un fallo:
+ * no captura stack trace, que es la parte cara de crear una excepción.
+ */
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+}
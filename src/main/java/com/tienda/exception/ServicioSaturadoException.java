@@ -0,0 +1,19 @@
+package com.tienda.exception;
+
+/**
+ * No hay lugar para aceptar el trabajo ahora (503 con {@code Retry-After}); el llamador debe reintentar.
+ * Es parte del flujo normal bajo carga, así que no captura stack trace.
+ */
+public class ServicioSaturadoException extends RuntimeException {
+
+    private final int reintentarSegundos;
+
+    public ServicioSaturadoException(String message, int reintentarSegundos) {
+        super(message, null, false, false);
+        this.reintentarSegundos = reintentarSegundos;
+    }
+
+    public int getReintentarSegundos() {
+        return reintentarSegundos;
+    }
+}
@@ -0,0 +1,33 @@
+package com.tienda.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Categorías de error de la API. Cada una tiene su status y un prefijo JSON
+ * (problem details, RFC 9457) precalculado una sola vez.
+ */
+public enum TipoError {
+    NO_ENCONTRADO(HttpStatus.NOT_FOUND),
+    CONFLICTO(HttpStatus.CONFLICT),
+    VALIDACION(HttpStatus.BAD_REQUEST),
+    SOLICITUD_INVALIDA(HttpStatus.BAD_REQUEST),
+    SATURADO(HttpStatus.SERVICE_UNAVAILABLE);
+
+    private final HttpStatus status;
+    private final String prefijo;
+
+    TipoError(HttpStatus status) {
+        this.status = status;
+        this.prefijo = "{\"type\":\"about:blank\",\"title\":\"" + status.getReasonPhrase()
+                + "\",\"status\":" + status.value()
+                + ",\"codigo\":\"" + name() + "\",\"detail\":\"";
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+
+    String prefijo() {
+        return prefijo;
+    }
+}
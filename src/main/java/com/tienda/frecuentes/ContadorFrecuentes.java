@@ -0,0 +1,197 @@
+package com.tienda.frecuentes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Claves más frecuentes de un flujo sobre una ventana deslizante, sin bloqueos en {@link #registrar}.
+ * <p>
+ * La ventana es un anillo de segmentos; cada uno es un Count-Min de {@code profundidad × ancho} contadores.
+ * La estimación de una clave suma, fila por fila, los contadores de los segmentos pedidos y se queda con
+ * el mínimo: nunca subestima y, con probabilidad {@code 1 - e^-profundidad}, sobreestima a lo sumo
+ * {@code e·N/ancho} ({@link #errorMaximo}). {@link #rotar} descarta el segmento más viejo.
+ * <p>
+ * Las candidatas al top-K viven en una tabla de {@code 8·k} posiciones; cada clave tiene dos posibles
+ * y desplaza con un CAS a la de menor estimación. Al rotar se reestiman y se vacían las que salieron
+ * de la ventana. Un incremento que coincide con la rotación puede caer en el segmento recién vaciado:
+ * para métricas de tráfico esa pérdida no importa.
+ */
+public final class ContadorFrecuentes<K> {
+
+    /** Una clave con su estimación. */
+    public record Frecuencia<K>(K clave, long estimado) {
+    }
+
+    private final ToLongFunction<K> hash;
+    private final int ancho;
+    private final int profundidad;
+    private final int k;
+    private final AtomicLongArray[] segmentos;
+    private final LongAdder[] totales;
+    private final AtomicReferenceArray<Frecuencia<K>> candidatas;
+    private volatile int actual;
+
+    public ContadorFrecuentes(ToLongFunction<K> hash, int ancho, int profundidad, int segmentos, int k) {
+        if (ancho <= 0 || profundidad <= 0 || segmentos <= 0 || k <= 0) {
+            throw new IllegalArgumentException("Ancho, profundidad, segmentos y k deben ser positivos");
+        }
+        this.hash = hash;
+        this.ancho = ancho;
+        this.profundidad = profundidad;
+        this.k = k;
+        this.segmentos = new AtomicLongArray[segmentos];
+        this.totales = new LongAdder[segmentos];
+        for (int s = 0; s < segmentos; s++) {
+            this.segmentos[s] = new AtomicLongArray(ancho * profundidad);
+            this.totales[s] = new LongAdder();
+        }
+        this.candidatas = new AtomicReferenceArray<>(8 * k);
+    }
+
+    public void registrar(K clave) {
+        long h = hash.applyAsLong(clave);
+        int s = actual;
+        AtomicLongArray contadores = segmentos[s];
+        for (int i = 0; i < profundidad; i++) {
+            contadores.getAndIncrement(posicion(h, i));
+        }
+        totales[s].increment();
+        proponer(clave, estimar(h, segmentos.length), h);
+    }
+
+    /** Estimación de {@code clave} en los últimos {@code n} segmentos (el actual incluido). */
+    public long estimar(K clave, int n) {
+        return estimar(hash.applyAsLong(clave), n);
+    }
+
+    /** Hasta {@code k} claves más frecuentes en los últimos {@code n} segmentos, de mayor a menor. */
+    public List<Frecuencia<K>> masFrecuentes(int n) {
+        Set<K> vistas = new HashSet<>();
+        List<Frecuencia<K>> r = new ArrayList<>();
+        for (int i = 0; i < candidatas.length(); i++) {
+            Frecuencia<K> c = candidatas.get(i);
+            if (c != null && vistas.add(c.clave())) {
+                long e = estimar(c.clave(), n);
+                if (e > 0) {
+                    r.add(new Frecuencia<>(c.clave(), e));
+                }
+            }
+        }
+        r.sort(Comparator.comparingLong((Frecuencia<K> f) -> f.estimado()).reversed());
+        return r.size() > k ? List.copyOf(r.subList(0, k)) : r;
+    }
+
+    /** Registros en los últimos {@code n} segmentos. */
+    public long total(int n) {
+        long total = 0;
+        int s = actual;
+        for (int i = 0; i < limitar(n); i++) {
+            total += totales[Math.floorMod(s - i, segmentos.length)].sum();
+        }
+        return total;
+    }
+
+    /** Cota de la sobreestimación en los últimos {@code n} segmentos: {@code ⌈e·N/ancho⌉}. */
+    public long errorMaximo(int n) {
+        return (long) Math.ceil(Math.E * total(n) / ancho);
+    }
+
+    public int segmentos() {
+        return segmentos.length;
+    }
+
+    /**
+     * Abre un segmento nuevo en lugar del más viejo y reestima las candidatas. Debe llamarlo un solo hilo
+     * (el {@code @Scheduled}); {@link #registrar} puede seguir corriendo en paralelo.
+     */
+    public void rotar() {
+        int siguiente = (actual + 1) % segmentos.length;
+        AtomicLongArray viejo = segmentos[siguiente];
+        for (int i = 0; i < viejo.length(); i++) {
+            viejo.set(i, 0);
+        }
+        totales[siguiente].reset();
+        actual = siguiente;
+        for (int i = 0; i < candidatas.length(); i++) {
+            Frecuencia<K> c = candidatas.get(i);
+            if (c != null) {
+                long e = estimar(c.clave(), segmentos.length);
+                candidatas.compareAndSet(i, c, e > 0 ? new Frecuencia<>(c.clave(), e) : null);
+            }
+        }
+    }
+
+    private void proponer(K clave, long estimado, long h) {
+        int a = (int) Long.remainderUnsigned(h, candidatas.length());
+        int b = (int) Long.remainderUnsigned(mezclar(h ^ 0xC2B2AE3D27D4EB4FL), candidatas.length());
+        Frecuencia<K> ca = candidatas.get(a);
+        Frecuencia<K> cb = candidatas.get(b);
+        if (ca != null && ca.clave().equals(clave)) {
+            candidatas.compareAndSet(a, ca, new Frecuencia<>(clave, estimado));
+        } else if (cb != null && cb.clave().equals(clave)) {
+            candidatas.compareAndSet(b, cb, new Frecuencia<>(clave, estimado));
+        } else {
+            long ea = ca == null ? 0 : ca.estimado();
+            long eb = cb == null ? 0 : cb.estimado();
+            int p = ea <= eb ? a : b;
+            Frecuencia<K> menor = ea <= eb ? ca : cb;
+            if (Math.min(ea, eb) < estimado) {
+                candidatas.compareAndSet(p, menor, new Frecuencia<>(clave, estimado));
+            }
+        }
+    }
+
+    private long estimar(long h, int n) {
+        int segs = limitar(n);
+        int s = actual;
+        long minimo = Long.MAX_VALUE;
+        for (int i = 0; i < profundidad; i++) {
+            int p = posicion(h, i);
+            long suma = 0;
+            for (int j = 0; j < segs; j++) {
+                suma += segmentos[Math.floorMod(s - j, segmentos.length)].get(p);
+            }
+            minimo = Math.min(minimo, suma);
+        }
+        return minimo;
+    }
+
+    /**
+     * Cada fila mezcla el hash con su propia semilla: con {@code h1 + i·h2}, como en el filtro de Bloom,
+     * dos claves que coinciden en las dos primeras filas coinciden en todas y una clave fría hereda el
+     * conteo de una caliente.
+     */
+    private int posicion(long h, int fila) {
+        return fila * ancho + (int) Long.remainderUnsigned(mezclar(h + (fila + 1) * 0x9E3779B97F4A7C15L), ancho);
+    }
+
+    private int limitar(int n) {
+        return Math.max(1, Math.min(n, segmentos.length));
+    }
+
+    /** Hash de un id numérico: el finalizador de murmur3. */
+    public static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Hash de una cadena: FNV-1a de 64 bits más el finalizador, como en el filtro de Bloom. */
+    public static long hash(String s) {
+        long h = 0xCBF29CE484222325L ^ s.length();
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return mezclar(h);
+    }
+}
@@ -0,0 +1,21 @@
+package com.tienda.frecuentes;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/** Cuenta cada request a {@code /api/**} salvo las de administración. */
+@Configuration
+@RequiredArgsConstructor
+public class FrecuentesWebConfig implements WebMvcConfigurer {
+
+    private final RegistroFrecuentes registroFrecuentes;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(registroFrecuentes)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/admin/**");
+    }
+}
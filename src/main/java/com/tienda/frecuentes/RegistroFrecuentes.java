@@ -0,0 +1,129 @@
+package com.tienda.frecuentes;
+
+import com.tienda.dto.FrecuentesResponse;
+import com.tienda.invalidacion.CacheClientes;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Clientes y endpoints más pedidos en {@code /api/**}, sobre una ventana deslizante de
+ * {@code tienda.frecuentes.segmentos} × {@code tienda.frecuentes.segmento-ms} (por defecto 6 × 10 s).
+ * <p>
+ * El cliente sale de la variable {@code {id}} de {@code /api/clientes/{id}/**}; el endpoint es el método, el
+ * patrón de la ruta y los nombres de los parámetros (sin sus valores). Con
+ * {@code tienda.frecuentes.fijar-en-cache=true}, en cada rotación los clientes del top-K quedan fijados
+ * en {@link CacheClientes}, que no los desaloja por capacidad.
+ */
+@Component
+public class RegistroFrecuentes implements HandlerInterceptor {
+
+    private static final String PREFIJO_CLIENTES = "/api/clientes/{id}";
+
+    private final ObjectProvider<CacheClientes> cacheClientes;
+    private final boolean habilitado;
+    private final boolean fijarEnCache;
+    private final long segmentoMs;
+    private final ContadorFrecuentes<Long> clientes;
+    private final ContadorFrecuentes<String> endpoints;
+
+    public RegistroFrecuentes(ObjectProvider<CacheClientes> cacheClientes,
+                              @Value("${tienda.frecuentes.enabled:true}") boolean habilitado,
+                              @Value("${tienda.frecuentes.fijar-en-cache:false}") boolean fijarEnCache,
+                              @Value("${tienda.frecuentes.segmentos:6}") int segmentos,
+                              @Value("${tienda.frecuentes.segmento-ms:10000}") long segmentoMs,
+                              @Value("${tienda.frecuentes.ancho:2048}") int ancho,
+                              @Value("${tienda.frecuentes.profundidad:4}") int profundidad,
+                              @Value("${tienda.frecuentes.k:20}") int k) {
+        this.cacheClientes = cacheClientes;
+        this.habilitado = habilitado;
+        this.fijarEnCache = fijarEnCache;
+        this.segmentoMs = segmentoMs;
+        this.clientes = new ContadorFrecuentes<>(ContadorFrecuentes::mezclar, ancho, profundidad, segmentos, k);
+        this.endpoints = new ContadorFrecuentes<>(ContadorFrecuentes::hash, ancho, profundidad, segmentos, k);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!habilitado) {
+            return true;
+        }
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (patron == null) {
+            return true;
+        }
+        String ruta = patron.toString();
+        if (ruta.startsWith(PREFIJO_CLIENTES) && request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE)
+                instanceof Map<?, ?> variables && variables.get("id") instanceof String id) {
+            Long clienteId = aLong(id);
+            if (clienteId != null) {
+                clientes.registrar(clienteId);
+            }
+        }
+        endpoints.registrar(endpoint(request.getMethod(), ruta, request.getParameterMap().keySet()));
+        return true;
+    }
+
+    @Scheduled(fixedRateString = "${tienda.frecuentes.segmento-ms:10000}",
+            initialDelayString = "${tienda.frecuentes.segmento-ms:10000}")
+    public void rotar() {
+        if (!habilitado) {
+            return;
+        }
+        clientes.rotar();
+        endpoints.rotar();
+        CacheClientes cache = cacheClientes.getIfAvailable();
+        if (fijarEnCache && cache != null) {
+            cache.fijar(clientes.masFrecuentes(clientes.segmentos()).stream()
+                    .map(ContadorFrecuentes.Frecuencia::clave)
+                    .collect(Collectors.toUnmodifiableSet()));
+        }
+    }
+
+    /** Top-K de los últimos {@code segundos} (redondeado a segmentos; sin valor, la ventana completa). */
+    public FrecuentesResponse resumen(Integer segundos) {
+        int n = segundos == null
+                ? clientes.segmentos()
+                : (int) Math.max(1, Math.min(clientes.segmentos(), Math.ceilDiv(segundos * 1000L, segmentoMs)));
+        return FrecuentesResponse.builder()
+                .ventanaSegundos(n * segmentoMs / 1000)
+                .solicitudes(endpoints.total(n))
+                .errorMaximoClientes(clientes.errorMaximo(n))
+                .errorMaximoEndpoints(endpoints.errorMaximo(n))
+                .fijadosEnCache(fijarEnCache)
+                .clientes(entradas(clientes.masFrecuentes(n)))
+                .endpoints(entradas(endpoints.masFrecuentes(n)))
+                .build();
+    }
+
+    static String endpoint(String metodo, String ruta, Set<String> parametros) {
+        return parametros.isEmpty()
+                ? metodo + " " + ruta
+                : metodo + " " + ruta + "?" + String.join(",", new TreeSet<>(parametros));
+    }
+
+    private static List<FrecuentesResponse.Entrada> entradas(List<? extends ContadorFrecuentes.Frecuencia<?>> top) {
+        return top.stream()
+                .map(f -> FrecuentesResponse.Entrada.builder().clave(String.valueOf(f.clave())).estimado(f.estimado()).build())
+                .toList();
+    }
+
+    private static Long aLong(String s) {
+        try {
+            return Long.valueOf(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
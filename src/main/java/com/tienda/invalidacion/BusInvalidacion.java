@@ -0,0 +1,338 @@
+package com.tienda.invalidacion;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.carga.TipoCarga;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Invalidación de caches locales entre instancias sin broker: quien modifica una entidad escribe
+ * una fila en {@code cambio_entidad} dentro de su misma transacción, y cada instancia lee la tabla
+ * por encima de su marca de agua y avisa a sus caches.
+ * <p>
+ * Los ids {@code AUTO_INCREMENT} se asignan al insertar pero se hacen visibles al confirmar, así que
+ * un id menor puede aparecer después de uno mayor. La marca no avanza sobre un hueco hasta que pasan
+ * {@code tienda.invalidacion.gracia-ms} (transacción revertida); las filas posteriores al hueco se
+ * notifican igual y se recuerdan para no repetirlas. Una transacción más larga que la gracia confirma
+ * detrás de la marca: los huecos ya pasados se vuelven a leer durante {@code tienda.invalidacion.relectura-ms},
+ * y lo que confirme más tarde lo cubre la edad máxima de cada cache.
+ * <p>
+ * Si el sondeo falla durante más de {@code tienda.invalidacion.max-desfase-ms}, {@link #sincronizado()}
+ * pasa a {@code false} (las caches dejan de responder) y al recuperarse se vacían por completo.
+ */
+@Slf4j
+@Service
+public class BusInvalidacion implements MeterBinder {
+
+    private static final String SQL_INSERTAR =
+            "insert into cambio_entidad (entidad, entidad_id, version, nodo) values (?, ?, ?, ?)";
+    private static final String SQL_LEER =
+            "select id, entidad, entidad_id, version, nodo from cambio_entidad where id > ? order by id limit ?";
+    private static final String SQL_LEER_HUECO =
+            "select id, entidad, entidad_id, version, nodo from cambio_entidad where id between ? and ?";
+    private static final String SQL_MAX = "select coalesce(max(id), 0) from cambio_entidad";
+    private static final String SQL_PURGA_HASTA = "select max(id) from cambio_entidad where version < ?";
+    private static final String SQL_PURGAR = "delete from cambio_entidad where id <= ? limit ?";
+    private static final int LOTE_PURGA = 5_000;
+    /** Tope de huecos vencidos en relectura: cada uno es una consulta por sondeo. */
+    private static final int MAX_HUECOS_VENCIDOS = 64;
+
+    private static final RowMapper<CambioEntidad> MAPPER = (rs, i) -> new CambioEntidad(
+            rs.getLong(1), tipo(rs.getString(2)), rs.getLong(3), rs.getLong(4), rs.getInt(5));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxDesfaseMs;
+    private final long graciaMs;
+    private final int lote;
+    private final long retencionMs;
+    private final long relecturaMs;
+    /** Identifica las filas propias, que ya se notificaron localmente al confirmar. */
+    private final int nodo = ThreadLocalRandom.current().nextInt();
+
+    private final Map<TipoEntidad, List<LongConsumer>> oyentes = new EnumMap<>(TipoEntidad.class);
+    private final List<Runnable> alResincronizar = new CopyOnWriteArrayList<>();
+
+    // Estado del sondeo: solo lo modifica sondear(), que es synchronized.
+    private long marca = -1;
+    private final Set<Long> procesados = new HashSet<>();
+    private final Map<Long, Long> huecos = new HashMap<>();
+    private final Deque<HuecoVencido> vencidos = new ArrayDeque<>();
+    private volatile long ultimoSondeoOk;
+
+    private final LongAdder eventosLocales = new LongAdder();
+    private final LongAdder eventosRemotos = new LongAdder();
+    private volatile Timer propagacion;
+
+    public BusInvalidacion(JdbcTemplate jdbcTemplate,
+                           @Value("${tienda.invalidacion.max-desfase-ms:5000}") long maxDesfaseMs,
+                           @Value("${tienda.invalidacion.gracia-ms:2000}") long graciaMs,
+                           @Value("${tienda.invalidacion.lote:1000}") int lote,
+                           @Value("${tienda.invalidacion.retencion-min:60}") long retencionMin,
+                           @Value("${tienda.invalidacion.relectura-ms:60000}") long relecturaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxDesfaseMs = maxDesfaseMs;
+        this.graciaMs = graciaMs;
+        this.lote = lote;
+        this.retencionMs = TimeUnit.MINUTES.toMillis(retencionMin);
+        this.relecturaMs = relecturaMs;
+        for (TipoEntidad t : TipoEntidad.values()) {
+            oyentes.put(t, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    /** Registra un oyente que recibe el id de cada entidad modificada, local o en otra instancia. */
+    public void suscribir(TipoEntidad entidad, LongConsumer oyente) {
+        oyentes.get(entidad).add(oyente);
+    }
+
+    /** Se ejecuta al recuperar la sincronía: los eventos intermedios pudieron perderse. */
+    public void alResincronizar(Runnable accion) {
+        alResincronizar.add(accion);
+    }
+
+    /**
+     * Anota el cambio en {@code cambio_entidad}. Dentro de una transacción la fila se confirma o revierte
+     * con ella y los oyentes locales se avisan después del commit; fuera de una, se avisan enseguida.
+     */
+    public void publicar(TipoEntidad entidad, long entidadId) {
+        jdbcTemplate.update(SQL_INSERTAR, entidad.name(), entidadId, System.currentTimeMillis(), nodo);
+        eventosLocales.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notificar(entidad, entidadId);
+                }
+            });
+        } else {
+            notificar(entidad, entidadId);
+        }
+    }
+
+    /** Como {@link #publicar(TipoEntidad, long)} para muchos ids, con un solo insert por lotes. */
+    public void publicar(TipoEntidad entidad, Collection<Long> entidadIds) {
+        if (entidadIds.isEmpty()) {
+            return;
+        }
+        long version = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, entidadIds, entidadIds.size(),
+                (ps, id) -> {
+                    ps.setString(1, entidad.name());
+                    ps.setLong(2, id);
+                    ps.setLong(3, version);
+                    ps.setInt(4, nodo);
+                });
+        eventosLocales.add(entidadIds.size());
+        List<Long> ids = List.copyOf(entidadIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(id -> notificar(entidad, id));
+                }
+            });
+        } else {
+            ids.forEach(id -> notificar(entidad, id));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tienda.invalidacion.intervalo-ms:250}")
+    public synchronized void sondear() {
+        long ahora = System.currentTimeMillis();
+        boolean estabaSincronizado = sincronizado();
+        try {
+            if (marca < 0) {
+                // Al arrancar las caches están vacías: no hay nada anterior que invalidar.
+                marca = jdbcTemplate.queryForObject(SQL_MAX, Long.class);
+            } else {
+                procesar(jdbcTemplate.query(SQL_LEER, MAPPER, marca, lote), ahora);
+                releerVencidos(ahora);
+            }
+        } catch (DataAccessException e) {
+            if (estabaSincronizado && ahora - ultimoSondeoOk > maxDesfaseMs / 2) {
+                log.warn("Invalidación: no se pudo leer cambio_entidad: {}", e.getMessage());
+            }
+            return;
+        }
+        if (!estabaSincronizado) {
+            if (ultimoSondeoOk > 0) {
+                log.info("Invalidación: sincronía recuperada tras {} ms; se vacían las caches locales",
+                        ahora - ultimoSondeoOk);
+            }
+            alResincronizar.forEach(Runnable::run);
+        }
+        ultimoSondeoOk = ahora;
+    }
+
+    void procesar(List<CambioEntidad> cambios, long ahora) {
+        long nuevaMarca = marca;
+        boolean detenida = false;
+        for (CambioEntidad c : cambios) {
+            boolean visto = procesados.contains(c.id());
+            if (!visto) {
+                recibir(c, ahora);
+            }
+            if (!detenida && huecoVencido(nuevaMarca + 1, c.id(), ahora)) {
+                if (c.id() > nuevaMarca + 1 && relecturaMs > 0) {
+                    if (vencidos.size() == MAX_HUECOS_VENCIDOS) {
+                        vencidos.removeFirst();
+                    }
+                    vencidos.addLast(new HuecoVencido(nuevaMarca + 1, c.id() - 1, ahora + relecturaMs, new HashSet<>()));
+                }
+                nuevaMarca = c.id();
+                procesados.remove(c.id());
+            } else {
+                detenida = true;
+                procesados.add(c.id());
+            }
+        }
+        long m = nuevaMarca;
+        huecos.keySet().removeIf(id -> id <= m);
+        marca = nuevaMarca;
+    }
+
+    /** Ids en {@code [desde, hasta)} que todavía no aparecieron; vence {@code graciaMs} después de notarlo. */
+    private boolean huecoVencido(long desde, long hasta, long ahora) {
+        if (desde >= hasta) {
+            return true;
+        }
+        long desdeCuando = huecos.computeIfAbsent(desde, k -> ahora);
+        return ahora - desdeCuando >= graciaMs;
+    }
+
+    /** Ids {@code [desde, hasta]} que la marca pasó sin verlos; se releen hasta {@code releerHasta}. */
+    private record HuecoVencido(long desde, long hasta, long releerHasta, Set<Long> vistos) {
+    }
+
+    /** Notifica las filas que confirmaron dentro de un hueco después de que la marca lo pasó. */
+    private void releerVencidos(long ahora) {
+        vencidos.removeIf(h -> ahora >= h.releerHasta());
+        for (HuecoVencido h : vencidos) {
+            for (CambioEntidad c : jdbcTemplate.query(SQL_LEER_HUECO, MAPPER, h.desde(), h.hasta())) {
+                if (h.vistos().add(c.id())) {
+                    recibir(c, ahora);
+                }
+            }
+        }
+    }
+
+    private void recibir(CambioEntidad c, long ahora) {
+        if (c.nodo() == nodo || c.entidad() == null) {
+            return;
+        }
+        eventosRemotos.increment();
+        Timer t = propagacion;
+        if (t != null) {
+            t.record(Math.max(0, ahora - c.version()), TimeUnit.MILLISECONDS);
+        }
+        notificar(c.entidad(), c.entidadId());
+    }
+
+    private void notificar(TipoEntidad entidad, long entidadId) {
+        for (LongConsumer oyente : oyentes.get(entidad)) {
+            try {
+                oyente.accept(entidadId);
+            } catch (RuntimeException e) {
+                log.warn("Invalidación: falló un oyente de {} {}", entidad, entidadId, e);
+            }
+        }
+    }
+
+    /** Borra por lotes las filas más viejas que la retención; cualquier instancia puede hacerlo. */
+    @Scheduled(fixedDelayString = "${tienda.invalidacion.purga-ms:60000}",
+            initialDelayString = "${tienda.invalidacion.purga-ms:60000}")
+    public void purgar() {
+        ContextoCarga.ejecutar(TipoCarga.BATCH, this::purgarLotes);
+    }
+
+    private void purgarLotes() {
+        try {
+            Long hasta = jdbcTemplate.queryForObject(SQL_PURGA_HASTA, Long.class,
+                    System.currentTimeMillis() - retencionMs);
+            if (hasta == null) {
+                return;
+            }
+            int borradas;
+            do {
+                borradas = jdbcTemplate.update(SQL_PURGAR, hasta, LOTE_PURGA);
+            } while (borradas == LOTE_PURGA);
+        } catch (DataAccessException e) {
+            log.warn("Invalidación: no se pudo purgar cambio_entidad: {}", e.getMessage());
+        }
+    }
+
+    /** {@code true} si el último sondeo exitoso fue hace menos de {@code max-desfase-ms}. */
+    public boolean sincronizado() {
+        return System.currentTimeMillis() - ultimoSondeoOk <= maxDesfaseMs;
+    }
+
+    public long atrasoMs() {
+        return ultimoSondeoOk == 0 ? -1 : System.currentTimeMillis() - ultimoSondeoOk;
+    }
+
+    public synchronized long marca() {
+        return marca;
+    }
+
+    public long eventosLocales() {
+        return eventosLocales.sum();
+    }
+
+    public long eventosRemotos() {
+        return eventosRemotos.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tienda.invalidacion.eventos", eventosLocales, LongAdder::sum)
+                .description("Cambios publicados o recibidos por el bus de invalidación")
+                .tag("origen", "local")
+                .register(registry);
+        FunctionCounter.builder("tienda.invalidacion.eventos", eventosRemotos, LongAdder::sum)
+                .description("Cambios publicados o recibidos por el bus de invalidación")
+                .tag("origen", "remoto")
+                .register(registry);
+        TimeGauge.builder("tienda.invalidacion.atraso", this, TimeUnit.MILLISECONDS, BusInvalidacion::atrasoMs)
+                .description("Tiempo desde el último sondeo exitoso de cambio_entidad")
+                .register(registry);
+        propagacion = Timer.builder("tienda.invalidacion.propagacion")
+                .description("Desde que otra instancia escribió el cambio hasta que esta lo aplicó")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private static TipoEntidad tipo(String nombre) {
+        try {
+            return TipoEntidad.valueOf(nombre);
+        } catch (IllegalArgumentException e) {
+            return null; // tipo de una versión más nueva de la app durante un despliegue gradual
+        }
+    }
+}
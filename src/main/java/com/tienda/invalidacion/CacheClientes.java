@@ -0,0 +1,131 @@
+package com.tienda.invalidacion;
+
+import com.tienda.dto.ClienteResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache local de {@link ClienteResponse} por id, invalidada por {@link BusInvalidacion}.
+ * <p>
+ * Para no guardar un valor leído antes de una invalidación concurrente, el lector toma
+ * {@link #generacion()} antes de ir a la base y {@link #guardar} descarta la entrada si entre tanto
+ * hubo alguna invalidación. Mientras el bus no está sincronizado la cache no responde.
+ * <p>
+ * Ninguna entrada se sirve pasados {@code tienda.cache.clientes.max-edad-ms}: acota el desfase de un
+ * cambio cuyo evento el bus no llegó a ver (una transacción que confirmó después de la relectura).
+ * <p>
+ * Los ids {@link #fijar fijados} (los clientes más pedidos) no se desalojan por capacidad; una
+ * invalidación los descarta igual que a los demás.
+ */
+@Component
+public class CacheClientes implements MeterBinder {
+
+    private record Entrada(ClienteResponse valor, long guardada) {
+    }
+
+    private final BusInvalidacion bus;
+    private final int capacidad;
+    private final long maxEdadMs;
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile Set<Long> fijados = Set.of();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    public CacheClientes(BusInvalidacion bus, @Value("${tienda.cache.clientes.capacidad:10000}") int capacidad,
+                         @Value("${tienda.cache.clientes.max-edad-ms:300000}") long maxEdadMs) {
+        this.bus = bus;
+        this.capacidad = capacidad;
+        this.maxEdadMs = maxEdadMs;
+        bus.suscribir(TipoEntidad.CLIENTE, this::invalidar);
+        bus.alResincronizar(this::limpiar);
+    }
+
+    /**
+     * Devuelve la entrada o {@code null} si no está, es más vieja que {@code max-edad-ms}, la cache está
+     * desactivada o el bus perdió la sincronía.
+     */
+    public ClienteResponse buscar(long id) {
+        if (capacidad <= 0 || !bus.sincronizado()) {
+            return null;
+        }
+        Entrada e = entradas.get(id);
+        if (e != null && System.currentTimeMillis() - e.guardada() >= maxEdadMs) {
+            entradas.remove(id, e);
+            e = null;
+        }
+        (e != null ? aciertos : fallos).increment();
+        return e != null ? e.valor() : null;
+    }
+
+    public long generacion() {
+        return generacion.get();
+    }
+
+    public void guardar(long id, ClienteResponse valor, long generacionLeida) {
+        if (capacidad <= 0 || !bus.sincronizado()) {
+            return;
+        }
+        if (entradas.size() >= capacidad) {
+            desalojarUna();
+        }
+        Entrada e = new Entrada(valor, System.currentTimeMillis());
+        entradas.put(id, e);
+        if (generacion.get() != generacionLeida) {
+            entradas.remove(id, e);
+        }
+    }
+
+    /** Reemplaza el conjunto de ids que no se desalojan por capacidad. */
+    public void fijar(Set<Long> ids) {
+        fijados = Set.copyOf(ids);
+    }
+
+    /** Quita la primera entrada no fijada; como mucho recorre tantas como fijados haya. */
+    private void desalojarUna() {
+        Set<Long> f = fijados;
+        Iterator<Long> it = entradas.keySet().iterator();
+        while (it.hasNext()) {
+            if (!f.contains(it.next())) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    void invalidar(long id) {
+        generacion.incrementAndGet();
+        entradas.remove(id);
+    }
+
+    void limpiar() {
+        generacion.incrementAndGet();
+        entradas.clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tienda.cache.clientes", aciertos, LongAdder::sum)
+                .description("Búsquedas en la cache local de clientes")
+                .tag("resultado", "acierto")
+                .register(registry);
+        FunctionCounter.builder("tienda.cache.clientes", fallos, LongAdder::sum)
+                .description("Búsquedas en la cache local de clientes")
+                .tag("resultado", "fallo")
+                .register(registry);
+        Gauge.builder("tienda.cache.clientes.entradas", entradas, Map::size)
+                .description("Entradas en la cache local de clientes")
+                .register(registry);
+    }
+}
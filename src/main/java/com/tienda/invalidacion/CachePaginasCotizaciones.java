@@ -0,0 +1,209 @@
+package com.tienda.invalidacion;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cache local de páginas del listado de cotizaciones de un cliente, ya serializadas a JSON: un acierto
+ * responde sin consultar la base ni serializar.
+ * <p>
+ * Cada entrada guarda la versión de su cliente al momento de leer de la base. Un cambio en las cotizaciones
+ * o en el cliente (que va en cada elemento: nombre y email) sube esa versión vía {@link BusInvalidacion} y
+ * las páginas viejas dejan de servirse sin tener que encontrarlas. Las versiones viven en un arreglo de
+ * ranuras por hash del id: dos clientes que comparten ranura se invalidan juntos, lo que solo cuesta un fallo.
+ * Como en {@link CacheClientes}, una página no se sirve pasados {@code tienda.cache.paginas.max-edad-ms}.
+ * <p>
+ * El tamaño se mide en bytes ({@code tienda.cache.paginas.max-bytes}); al pasarse se desaloja con segunda
+ * oportunidad (reloj): las entradas leídas desde la última pasada sobreviven una vuelta más.
+ */
+@Component
+public class CachePaginasCotizaciones implements MeterBinder {
+
+    /** Lo que identifica una página: {@code orden} es el {@code Sort} tal como lo imprime Spring. */
+    public record Clave(long clienteId, int pagina, int tamano, String orden) {
+    }
+
+    /** Overhead aproximado por entrada (clave, entrada, nodo del mapa, cabecera del arreglo). */
+    private static final int OVERHEAD = 160;
+
+    private static final class Entrada {
+        final byte[] cuerpo;
+        final long version;
+        final long guardada = System.currentTimeMillis();
+        volatile boolean usada;
+
+        Entrada(byte[] cuerpo, long version) {
+            this.cuerpo = cuerpo;
+            this.version = version;
+        }
+
+        long peso() {
+            return cuerpo.length + OVERHEAD;
+        }
+    }
+
+    private final BusInvalidacion bus;
+    private final long maxBytes;
+    private final long maxEdadMs;
+    private final AtomicLongArray versiones;
+    private final Map<Clave, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final ReentrantLock desalojo = new ReentrantLock();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojadas = new LongAdder();
+
+    public CachePaginasCotizaciones(BusInvalidacion bus,
+                                    @Value("${tienda.cache.paginas.max-bytes:67108864}") long maxBytes,
+                                    @Value("${tienda.cache.paginas.ranuras:16384}") int ranuras,
+                                    @Value("${tienda.cache.paginas.max-edad-ms:300000}") long maxEdadMs) {
+        this.bus = bus;
+        this.maxBytes = maxBytes;
+        this.maxEdadMs = maxEdadMs;
+        this.versiones = new AtomicLongArray(Integer.highestOneBit(Math.max(1, ranuras - 1)) << 1);
+        bus.suscribir(TipoEntidad.COTIZACION, this::invalidar);
+        bus.suscribir(TipoEntidad.CLIENTE, this::invalidar);
+        bus.alResincronizar(this::limpiar);
+    }
+
+    /**
+     * Devuelve la página de la cache o la carga con {@code cargar} y la guarda. La versión se lee antes de
+     * cargar: si el cliente cambia mientras tanto, lo cargado se devuelve pero no queda en la cache.
+     */
+    public byte[] obtener(Clave clave, Supplier<byte[]> cargar) {
+        byte[] cuerpo = buscar(clave);
+        if (cuerpo != null) {
+            return cuerpo;
+        }
+        long version = version(clave.clienteId());
+        cuerpo = cargar.get();
+        guardar(clave, cuerpo, version);
+        return cuerpo;
+    }
+
+    /** La página o {@code null} si no está, quedó vieja, la cache está desactivada o el bus perdió la sincronía. */
+    public byte[] buscar(Clave clave) {
+        if (maxBytes <= 0 || !bus.sincronizado()) {
+            return null;
+        }
+        Entrada e = entradas.get(clave);
+        if (e != null && (e.version != version(clave.clienteId())
+                || System.currentTimeMillis() - e.guardada >= maxEdadMs)) {
+            quitar(clave, e);
+            e = null;
+        }
+        if (e == null) {
+            fallos.increment();
+            return null;
+        }
+        e.usada = true;
+        aciertos.increment();
+        return e.cuerpo;
+    }
+
+    public long version(long clienteId) {
+        return versiones.get(ranura(clienteId));
+    }
+
+    public void guardar(Clave clave, byte[] cuerpo, long versionLeida) {
+        if (maxBytes <= 0 || !bus.sincronizado() || cuerpo.length + OVERHEAD > maxBytes / 16) {
+            return;
+        }
+        Entrada e = new Entrada(cuerpo, versionLeida);
+        Entrada anterior = entradas.put(clave, e);
+        bytes.addAndGet(e.peso() - (anterior != null ? anterior.peso() : 0));
+        if (version(clave.clienteId()) != versionLeida) {
+            quitar(clave, e);
+        }
+        if (bytes.get() > maxBytes) {
+            desalojar();
+        }
+    }
+
+    public long bytes() {
+        return bytes.get();
+    }
+
+    void invalidar(long clienteId) {
+        versiones.incrementAndGet(ranura(clienteId));
+    }
+
+    void limpiar() {
+        for (int i = 0; i < versiones.length(); i++) {
+            versiones.incrementAndGet(i);
+        }
+        entradas.forEach(this::quitar);
+    }
+
+    /** Lo hace un hilo por vez; los demás siguen de largo en vez de esperar. */
+    private void desalojar() {
+        if (!desalojo.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Map.Entry<Clave, Entrada>> it = entradas.entrySet().iterator();
+            while (bytes.get() > maxBytes) {
+                if (!it.hasNext()) {
+                    it = entradas.entrySet().iterator();
+                    if (!it.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<Clave, Entrada> par = it.next();
+                Entrada e = par.getValue();
+                if (e.usada) {
+                    e.usada = false;
+                } else if (quitar(par.getKey(), e)) {
+                    desalojadas.increment();
+                }
+            }
+        } finally {
+            desalojo.unlock();
+        }
+    }
+
+    private boolean quitar(Clave clave, Entrada e) {
+        if (entradas.remove(clave, e)) {
+            bytes.addAndGet(-e.peso());
+            return true;
+        }
+        return false;
+    }
+
+    private int ranura(long clienteId) {
+        long h = clienteId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (versiones.length() - 1);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tienda.cache.paginas", aciertos, LongAdder::sum)
+                .description("Búsquedas en la cache de páginas de cotizaciones")
+                .tag("resultado", "acierto")
+                .register(registry);
+        FunctionCounter.builder("tienda.cache.paginas", fallos, LongAdder::sum)
+                .description("Búsquedas en la cache de páginas de cotizaciones")
+                .tag("resultado", "fallo")
+                .register(registry);
+        FunctionCounter.builder("tienda.cache.paginas.desalojadas", desalojadas, LongAdder::sum)
+                .description("Páginas desalojadas por falta de espacio")
+                .register(registry);
+        Gauge.builder("tienda.cache.paginas.bytes", bytes, AtomicLong::get)
+                .description("Bytes ocupados por la cache de páginas de cotizaciones")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,8 @@
+package com.tienda.invalidacion;
+
+/**
+ * Fila de {@code cambio_entidad}. {@code version} es el instante (epoch ms) en que la instancia
+ * que escribió registró el cambio; sirve para ordenar y para medir el desfase de propagación.
+ */
+public record CambioEntidad(long id, TipoEntidad entidad, long entidadId, long version, int nodo) {
+}
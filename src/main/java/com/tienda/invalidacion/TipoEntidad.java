@@ -0,0 +1,11 @@
+package com.tienda.invalidacion;
+
+/** Qué cache local invalida un {@link CambioEntidad}. */
+public enum TipoEntidad {
+    /** {@code entidadId} es el id del cliente. */
+    CLIENTE,
+    /** Cotizaciones de un cliente: {@code entidadId} es el id del cliente, no el de la cotización. */
+    COTIZACION,
+    /** Fila de {@code cliente_shard} de un cliente: {@code entidadId} es el id del cliente. */
+    UBICACION_SHARD
+}
@@ -1,12 +1,15 @@
 package com.tienda.model;
 
+import com.tienda.dinero.Dinero;
+import com.tienda.dinero.DineroPositivo;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "cotizacion")
@@ -31,9 +34,9 @@ public class Cotizacion {
     private Cliente cliente;
 
     @NotNull(message = "El total es obligatorio")
-    @DecimalMin(value = "0.0", inclusive = false, message = "El total debe ser mayor a 0")
-    @Column(name = "total", nullable = false, precision = 15, scale = 2)
-    private BigDecimal total;
+    @DineroPositivo(message = "El total debe ser mayor a 0")
+    @Column(name = "total", nullable = false, precision = 15, scale = 2) // DineroConverter
+    private Dinero total;
 
     /**
      * Se recomienda persistir el enum como STRING para evitar problemas
@@ -53,6 +56,18 @@ public class Cotizacion {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Líneas en orden. Se cargan por lotes: al recorrer las líneas de una cotización de una página,
+     * Hibernate trae las de hasta 50 cotizaciones del contexto en un solo {@code in (...)}, nunca una
+     * consulta por cotización. Al insertar, las filas van en lote ({@code hibernate.jdbc.batch_size}).
+     */
+    @ElementCollection
+    @CollectionTable(name = "cotizacion_linea", joinColumns = @JoinColumn(name = "cotizacion_id"))
+    @OrderColumn(name = "linea")
+    @BatchSize(size = 50)
+    @Builder.Default
+    private List<LineaCotizacion> lineas = new ArrayList<>();
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) {
@@ -3,5 +3,9 @@ package com.tienda.model;
 public enum EstadoCotizacion {
     CREADA,
     ENVIADA_SF,
-    ERROR
+    ERROR,
+    /** El cliente aceptó el Quote en Salesforce (webhook). */
+    ACEPTADA,
+    /** El Quote fue rechazado en Salesforce (webhook). */
+    RECHAZADA
 }
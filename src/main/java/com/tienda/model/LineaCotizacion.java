@@ -0,0 +1,30 @@
+package com.tienda.model;
+
+import com.tienda.dinero.Dinero;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/** Línea de una cotización (tabla {@code cotizacion_linea}); su posición es la columna {@code linea}. */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LineaCotizacion {
+
+    @Column(name = "producto", nullable = false, length = 120)
+    private String producto;
+
+    @Column(name = "cantidad", nullable = false)
+    private int cantidad;
+
+    @Column(name = "precio_unitario", nullable = false, precision = 15, scale = 2) // DineroConverter
+    private Dinero precioUnitario;
+
+    /** @throws ArithmeticException si el producto se sale del rango de {@code decimal(15,2)} */
+    public Dinero subtotal() {
+        return precioUnitario.por(cantidad);
+    }
+}
@@ -0,0 +1,121 @@
+package com.tienda.profiling;
+
+import com.tienda.dto.PerfilJfrResponse;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Grabaciones JFR bajo demanda, una a la vez y de duración acotada. Usa la configuración
+ * {@code default} de JFR (la pensada para producción, ~1% de sobrecosto) y al terminar
+ * resume el archivo con {@link ResumenJfr}. Solo se conserva el último {@code .jfr}.
+ */
+@Slf4j
+@Service
+public class PerfilJfrService {
+
+    private static final DateTimeFormatter NOMBRE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final int maxSegundos;
+    private final int top;
+    private final Path directorio;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "jfr-perfil");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicBoolean corriendo = new AtomicBoolean();
+    private final AtomicReference<PerfilJfrResponse> ultimo =
+            new AtomicReference<>(PerfilJfrResponse.builder().estado("NUNCA_EJECUTADO").build());
+    private volatile Path archivo;
+
+    public PerfilJfrService(@Value("${tienda.jfr.max-segundos:120}") int maxSegundos,
+                            @Value("${tienda.jfr.top:15}") int top,
+                            @Value("${tienda.jfr.directorio:${java.io.tmpdir}}") String directorio) {
+        this.maxSegundos = maxSegundos;
+        this.top = top;
+        this.directorio = Path.of(directorio);
+    }
+
+    /**
+     * Lanza una grabación de {@code segundos} en segundo plano. Devuelve {@code false} si ya hay una en curso.
+     *
+     * @throws IllegalArgumentException si la duración está fuera de {@code 1..tienda.jfr.max-segundos}
+     */
+    public boolean iniciar(int segundos) {
+        if (segundos < 1 || segundos > maxSegundos) {
+            throw new IllegalArgumentException("segundos debe estar entre 1 y " + maxSegundos);
+        }
+        if (!corriendo.compareAndSet(false, true)) {
+            return false;
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+        ultimo.set(PerfilJfrResponse.builder().estado("GRABANDO").iniciado(inicio).segundos(segundos).build());
+        ejecutor.submit(() -> {
+            try {
+                ultimo.set(grabar(inicio, segundos));
+            } catch (Exception e) {
+                log.error("Falló la grabación JFR", e);
+                ultimo.set(ultimo.get().toBuilder()
+                        .estado("ERROR")
+                        .finalizado(LocalDateTime.now())
+                        .error(e.getMessage())
+                        .build());
+            } finally {
+                corriendo.set(false);
+            }
+        });
+        return true;
+    }
+
+    public PerfilJfrResponse estado() {
+        return ultimo.get();
+    }
+
+    /** Último {@code .jfr} completo, o {@code null} si no hay. */
+    public Path archivo() {
+        Path a = archivo;
+        return a != null && !corriendo.get() && Files.exists(a) ? a : null;
+    }
+
+    private PerfilJfrResponse grabar(LocalDateTime inicio, int segundos)
+            throws IOException, ParseException, InterruptedException {
+        Path destino = directorio.resolve("perfil-" + NOMBRE.format(inicio) + ".jfr");
+        try (Recording rec = new Recording(Configuration.getConfiguration("default"))) {
+            rec.setName("tienda-perfil");
+            rec.setToDisk(true);
+            rec.start();
+            Thread.sleep(segundos * 1000L);
+            rec.stop();
+            rec.dump(destino);
+        }
+        Path anterior = archivo;
+        archivo = destino;
+        if (anterior != null && !anterior.equals(destino)) {
+            Files.deleteIfExists(anterior);
+        }
+
+        PerfilJfrResponse resumen = ResumenJfr.leer(destino, top);
+        return resumen.toBuilder()
+                .estado("COMPLETADO")
+                .iniciado(inicio)
+                .finalizado(LocalDateTime.now())
+                .segundos(segundos)
+                .descarga("/api/admin/jfr/archivo")
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.tienda.profiling;
+
+import com.tienda.dto.PerfilJfrResponse;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resume un archivo {@code .jfr} leyéndolo evento por evento con {@link RecordingFile}:
+ * <ul>
+ *   <li>CPU: {@code jdk.ExecutionSample} por método en la cima de la pila, y por el primer
+ *   método de {@code com.tienda} (así se ve, p. ej., cuánto pesa {@code toResponse}).</li>
+ *   <li>Asignaciones: {@code jdk.ObjectAllocationSample} por sitio, ponderado en bytes.</li>
+ *   <li>Contención: {@code jdk.JavaMonitorEnter} y {@code jdk.ThreadPark} por clase del monitor
+ *   (las esperas de Hikari aparecen como {@code ConcurrentBag}/{@code SynchronousQueue}).</li>
+ *   <li>GC: {@code jdk.GarbageCollection}.</li>
+ * </ul>
+ */
+public final class ResumenJfr {
+
+    static final String PAQUETE_APP = "com.tienda.";
+
+    private final Map<String, Long> cpu = new HashMap<>();
+    private final Map<String, Long> cpuApp = new HashMap<>();
+    private final Map<String, Long> asignaciones = new HashMap<>();
+    private final Map<String, Long> contencionNanos = new HashMap<>();
+    private long muestrasCpu;
+    private long bytesAsignados;
+    private long nanosContencion;
+    private long colecciones;
+    private long pausaTotalNanos;
+    private long pausaMaximaNanos;
+
+    private ResumenJfr() {
+    }
+
+    public static PerfilJfrResponse leer(Path archivo, int top) throws IOException {
+        ResumenJfr r = new ResumenJfr();
+        try (RecordingFile rf = new RecordingFile(archivo)) {
+            while (rf.hasMoreEvents()) {
+                r.agregar(rf.readEvent());
+            }
+        }
+        return r.resultado(top);
+    }
+
+    private void agregar(RecordedEvent e) {
+        switch (e.getEventType().getName()) {
+            case "jdk.ExecutionSample" -> {
+                muestrasCpu++;
+                RecordedStackTrace st = e.getStackTrace();
+                String cima = cima(st);
+                if (cima != null) {
+                    cpu.merge(cima, 1L, Long::sum);
+                }
+                String app = primeroDeApp(st);
+                if (app != null) {
+                    cpuApp.merge(app, 1L, Long::sum);
+                }
+            }
+            case "jdk.ObjectAllocationSample" -> {
+                long peso = e.getLong("weight");
+                bytesAsignados += peso;
+                RecordedClass clase = e.getClass("objectClass");
+                String sitio = cima(e.getStackTrace());
+                asignaciones.merge((clase != null ? clase.getName() : "?") + " @ " + (sitio != null ? sitio : "?"),
+                        peso, Long::sum);
+            }
+            case "jdk.JavaMonitorEnter" -> contencion(e, e.getClass("monitorClass"));
+            case "jdk.ThreadPark" -> contencion(e, e.getClass("parkedClass"));
+            case "jdk.GarbageCollection" -> {
+                colecciones++;
+                long pausa = e.getDuration("sumOfPauses").toNanos();
+                pausaTotalNanos += pausa;
+                pausaMaximaNanos = Math.max(pausaMaximaNanos, e.getDuration("longestPause").toNanos());
+            }
+            default -> {
+                // otros eventos de la configuración por defecto no entran en el resumen
+            }
+        }
+    }
+
+    private void contencion(RecordedEvent e, RecordedClass clase) {
+        long nanos = e.getDuration().toNanos();
+        nanosContencion += nanos;
+        String sitio = primeroDeApp(e.getStackTrace());
+        contencionNanos.merge((clase != null ? clase.getName() : "?") + (sitio != null ? " @ " + sitio : ""),
+                nanos, Long::sum);
+    }
+
+    private PerfilJfrResponse resultado(int top) {
+        return PerfilJfrResponse.builder()
+                .muestrasCpu(muestrasCpu)
+                .topCpu(top(cpu, muestrasCpu, top, 1))
+                .topCpuAplicacion(top(cpuApp, muestrasCpu, top, 1))
+                .topAsignaciones(top(asignaciones, bytesAsignados, top, 1))
+                .contencion(top(contencionNanos, nanosContencion, top, 1_000_000))
+                .gc(PerfilJfrResponse.Gc.builder()
+                        .colecciones(colecciones)
+                        .pausaTotalMs(pausaTotalNanos / 1e6)
+                        .pausaMaximaMs(pausaMaximaNanos / 1e6)
+                        .build())
+                .build();
+    }
+
+    /** Las {@code n} entradas de mayor peso; {@code divisor} pasa nanos a ms en la contención. */
+    static List<PerfilJfrResponse.Entrada> top(Map<String, Long> conteos, long total, int n, long divisor) {
+        List<Map.Entry<String, Long>> entradas = new ArrayList<>(conteos.entrySet());
+        entradas.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        List<PerfilJfrResponse.Entrada> out = new ArrayList<>(Math.min(n, entradas.size()));
+        for (int i = 0; i < entradas.size() && i < n; i++) {
+            Map.Entry<String, Long> en = entradas.get(i);
+            out.add(PerfilJfrResponse.Entrada.builder()
+                    .nombre(en.getKey())
+                    .valor(en.getValue() / divisor)
+                    .porcentaje(total == 0 ? 0 : Math.round(en.getValue() * 1000.0 / total) / 10.0)
+                    .build());
+        }
+        return out;
+    }
+
+    private static String cima(RecordedStackTrace st) {
+        if (st == null || st.getFrames().isEmpty()) {
+            return null;
+        }
+        return nombre(st.getFrames().get(0).getMethod());
+    }
+
+    private static String primeroDeApp(RecordedStackTrace st) {
+        if (st == null) {
+            return null;
+        }
+        for (RecordedFrame f : st.getFrames()) {
+            RecordedMethod m = f.getMethod();
+            if (m != null && m.getType() != null && m.getType().getName().startsWith(PAQUETE_APP)) {
+                return nombre(m);
+            }
+        }
+        return null;
+    }
+
+    private static String nombre(RecordedMethod m) {
+        if (m == null) {
+            return "?";
+        }
+        String tipo = m.getType() != null ? m.getType().getName() : "?";
+        return tipo + "." + m.getName();
+    }
+}
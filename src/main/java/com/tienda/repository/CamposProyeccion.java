@@ -0,0 +1,126 @@
+package com.tienda.repository;
+
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Campos que un cliente de la API puede pedir con {@code ?fields=} y su expresión JPQL
+ * (la entidad raíz usa el alias {@code c} y el cliente unido, {@code cl}).
+ * Solo los campos pedidos llegan al {@code select}; si ninguno es del cliente, la consulta
+ * de cotizaciones no hace join con cliente.
+ */
+public final class CamposProyeccion {
+
+    public static final CamposProyeccion CLIENTE = new CamposProyeccion(ordenado(
+            "id", "c.id",
+            "nombres", "c.nombres",
+            "apellidos", "c.apellidos",
+            "email", "c.email",
+            "telefono", "c.telefono",
+            "documento", "c.documento",
+            "salesforceAccountId", "c.salesforceAccountId",
+            "createdAt", "c.createdAt"
+    ), Set.of());
+
+    public static final CamposProyeccion COTIZACION = new CamposProyeccion(ordenado(
+            "id", "c.id",
+            "clienteId", "c.cliente.id",
+            "total", "c.total",
+            "estado", "c.estado",
+            "salesforceQuoteId", "c.salesforceQuoteId",
+            "createdAt", "c.createdAt",
+            "clienteNombre", "concat(cl.nombres, ' ', cl.apellidos)",
+            "clienteEmail", "cl.email"
+    ), Set.of("clienteNombre", "clienteEmail"));
+
+    private final Map<String, String> expresiones;
+    private final Set<String> requierenCliente;
+
+    private CamposProyeccion(Map<String, String> expresiones, Set<String> requierenCliente) {
+        this.expresiones = Collections.unmodifiableMap(expresiones);
+        this.requierenCliente = requierenCliente;
+    }
+
+    /**
+     * Interpreta {@code "id,estado,total"} conservando el orden pedido.
+     *
+     * @throws IllegalArgumentException si está vacío o contiene campos desconocidos
+     */
+    public Set<String> parsear(String fields) {
+        Set<String> campos = new LinkedHashSet<>();
+        if (fields != null) {
+            for (String f : fields.split(",")) {
+                String campo = f.trim();
+                if (campo.isEmpty()) {
+                    continue;
+                }
+                if (!expresiones.containsKey(campo)) {
+                    throw new IllegalArgumentException("Campo no soportado en fields: " + campo
+                            + ". Permitidos: " + String.join(",", expresiones.keySet()));
+                }
+                campos.add(campo);
+            }
+        }
+        if (campos.isEmpty()) {
+            throw new IllegalArgumentException("El parámetro fields no puede estar vacío");
+        }
+        return campos;
+    }
+
+    public boolean requiereJoinCliente(Set<String> campos) {
+        for (String c : campos) {
+            if (requierenCliente.contains(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String select(Set<String> campos) {
+        StringJoiner sj = new StringJoiner(", ");
+        for (String c : campos) {
+            sj.add(expresiones.get(c));
+        }
+        return sj.toString();
+    }
+
+    /** Traduce el {@link Sort} a {@code order by}, aceptando solo campos conocidos. */
+    String orderBy(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return "";
+        }
+        StringJoiner sj = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order o : sort) {
+            String expr = expresiones.get(o.getProperty());
+            if (expr == null || requierenCliente.contains(o.getProperty())) {
+                throw new IllegalArgumentException("No se puede ordenar por: " + o.getProperty());
+            }
+            sj.add(expr + (o.isAscending() ? " asc" : " desc"));
+        }
+        return sj.toString();
+    }
+
+    static Map<String, Object> aMapa(Tuple t, Set<String> campos) {
+        Map<String, Object> fila = new LinkedHashMap<>(campos.size() * 2);
+        int i = 0;
+        for (String c : campos) {
+            fila.put(c, t.get(i++));
+        }
+        return fila;
+    }
+
+    private static Map<String, String> ordenado(String... pares) {
+        Map<String, String> m = new LinkedHashMap<>();
+        for (int i = 0; i < pares.length; i += 2) {
+            m.put(pares[i], pares[i + 1]);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,11 @@
+package com.tienda.repository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface ClienteRepositoryCustom {
+
+    /** Lee solo las columnas de los campos pedidos (ver {@link CamposProyeccion#CLIENTE}). */
+    Optional<Map<String, Object>> findCamposById(Long id, Set<String> campos);
+}
@@ -0,0 +1,25 @@
+package com.tienda.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+class ClienteRepositoryImpl implements ClienteRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Optional<Map<String, Object>> findCamposById(Long id, Set<String> campos) {
+        String jpql = "select " + CamposProyeccion.CLIENTE.select(campos) + " from Cliente c where c.id = :id";
+        List<Tuple> filas = em.createQuery(jpql, Tuple.class)
+                .setParameter("id", id)
+                .getResultList();
+        return filas.stream().findFirst().map(t -> CamposProyeccion.aMapa(t, campos));
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface CotizacionRepository extends JpaRepository<Cotizacion, Long> {
+public interface CotizacionRepository extends JpaRepository<Cotizacion, Long>, CotizacionRepositoryCustom {
 
     @Query(
             value = "select c from Cotizacion c join fetch c.cliente where c.cliente.id = :clienteId",
@@ -0,0 +1,16 @@
+package com.tienda.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface CotizacionRepositoryCustom {
+
+    /**
+     * Página de cotizaciones del cliente con solo los campos pedidos
+     * (ver {@link CamposProyeccion#COTIZACION}). Sin campos del cliente no hay join.
+     */
+    Page<Map<String, Object>> findCamposByClienteId(Long clienteId, Set<String> campos, Pageable pageable);
+}
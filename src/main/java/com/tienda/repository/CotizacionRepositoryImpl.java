@@ -0,0 +1,41 @@
+package com.tienda.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class CotizacionRepositoryImpl implements CotizacionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<Map<String, Object>> findCamposByClienteId(Long clienteId, Set<String> campos, Pageable pageable) {
+        CamposProyeccion p = CamposProyeccion.COTIZACION;
+        String jpql = "select " + p.select(campos) + " from Cotizacion c"
+                + (p.requiereJoinCliente(campos) ? " join c.cliente cl" : "")
+                + " where c.cliente.id = :clienteId"
+                + p.orderBy(pageable.getSort());
+
+        var query = em.createQuery(jpql, Tuple.class).setParameter("clienteId", clienteId);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> contenido = query.getResultList().stream()
+                .map(t -> CamposProyeccion.aMapa(t, campos))
+                .toList();
+
+        long total = em.createQuery(
+                        "select count(c) from Cotizacion c where c.cliente.id = :clienteId", Long.class)
+                .setParameter("clienteId", clienteId)
+                .getSingleResult();
+        return new PageImpl<>(contenido, pageable, total);
+    }
+}
@@ -0,0 +1,181 @@
+package com.tienda.salesforce;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.dto.ConciliacionResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Conciliación nocturna de cotizaciones contra los Quotes de Salesforce.
+ * Ambos lados se leen paginados y ordenados por id de Quote y se cruzan con {@link ConciliadorQuotes};
+ * las diferencias van directo a un CSV, así que la memoria es la de una página por lado.
+ * Localmente se pagina por keyset sobre {@code (salesforce_quote_id, id)}, cubierto por
+ * {@code idx_cotizacion_sf_quote}.
+ */
+@Slf4j
+@Service
+public class ConciliacionSalesforceJob {
+
+    private static final String SQL_PRIMERA = """
+            select c.id, c.salesforce_quote_id, cl.salesforce_account_id, c.total
+            from cotizacion c join cliente cl on cl.id = c.cliente_id
+            where c.salesforce_quote_id is not null
+            order by c.salesforce_quote_id, c.id limit ?""";
+    private static final String SQL_SIGUIENTE = """
+            select c.id, c.salesforce_quote_id, cl.salesforce_account_id, c.total
+            from cotizacion c join cliente cl on cl.id = c.cliente_id
+            where c.salesforce_quote_id > ? or (c.salesforce_quote_id = ? and c.id > ?)
+            order by c.salesforce_quote_id, c.id limit ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<SalesforceQuoteClient> cliente;
+    private final int tamanoPagina;
+    private final Path directorio;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("conciliacion-sf"));
+
+    private final AtomicBoolean corriendo = new AtomicBoolean();
+    private final AtomicReference<ConciliacionResponse> ultimo =
+            new AtomicReference<>(ConciliacionResponse.builder().estado("NUNCA_EJECUTADO").build());
+
+    public ConciliacionSalesforceJob(JdbcTemplate jdbcTemplate,
+                                     ObjectProvider<SalesforceQuoteClient> cliente,
+                                     @Value("${tienda.salesforce.conciliacion.tamano-pagina:2000}") int tamanoPagina,
+                                     @Value("${tienda.salesforce.conciliacion.directorio:${java.io.tmpdir}}") String directorio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cliente = cliente;
+        this.tamanoPagina = tamanoPagina;
+        this.directorio = Path.of(directorio);
+    }
+
+    /**
+     * Lanza la conciliación en segundo plano. Devuelve {@code false} si ya hay una en curso.
+     *
+     * @throws IllegalArgumentException si no hay cliente de Salesforce configurado
+     */
+    public boolean iniciar() {
+        SalesforceQuoteClient sf = cliente.getIfAvailable();
+        if (sf == null) {
+            throw new IllegalArgumentException("Salesforce no está configurado (tienda.salesforce.url)");
+        }
+        if (!corriendo.compareAndSet(false, true)) {
+            return false;
+        }
+        ultimo.set(ConciliacionResponse.builder().estado("EN_CURSO").iniciado(LocalDateTime.now()).build());
+        ejecutor.submit(() -> {
+            try {
+                ultimo.set(ejecutar(sf));
+            } catch (RuntimeException e) {
+                log.error("Falló la conciliación con Salesforce", e);
+                ultimo.set(ultimo.get().toBuilder()
+                        .estado("ERROR")
+                        .finalizado(LocalDateTime.now())
+                        .error(e.getMessage())
+                        .build());
+            } finally {
+                corriendo.set(false);
+            }
+        });
+        return true;
+    }
+
+    /** Deshabilitada por defecto ({@code -}); p. ej. {@code tienda.salesforce.conciliacion.cron=0 30 2 * * *}. */
+    @Scheduled(cron = "${tienda.salesforce.conciliacion.cron:-}")
+    public void programada() {
+        if (!iniciar()) {
+            log.warn("Conciliación programada omitida: ya hay una en curso");
+        }
+    }
+
+    public ConciliacionResponse estado() {
+        return ultimo.get();
+    }
+
+    ConciliacionResponse ejecutar(SalesforceQuoteClient sf) {
+        LocalDateTime inicio = LocalDateTime.now();
+        FlujoPaginado<QuoteLocal> locales = new FlujoPaginado<>(tamanoPagina, this::paginaLocal);
+        FlujoPaginado<QuoteRemota> remotas = new FlujoPaginado<>(tamanoPagina,
+                (ultima, n) -> sf.pagina(ultima != null ? ultima.id() : null, n));
+
+        Path archivo = directorio.resolve("conciliacion-sf-"
+                + inicio.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        ConciliadorQuotes.Resultado r;
+        try {
+            Files.createDirectories(directorio);
+            try (BufferedWriter w = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+                w.write("tipo,salesforce_quote_id,cotizacion_id,local,salesforce");
+                w.newLine();
+                r = ConciliadorQuotes.conciliar(locales, remotas, d -> escribir(w, d));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el reporte de conciliación", e);
+        }
+
+        Map<String, Long> diferencias = new LinkedHashMap<>();
+        r.diferencias().forEach((tipo, n) -> diferencias.put(tipo.name(), n));
+        log.info("Conciliación Salesforce: {} locales ({} páginas), {} remotas ({} páginas), {} coincidencias, {} -> {}",
+                r.locales(), locales.paginas(), r.remotas(), remotas.paginas(), r.coincidencias(), diferencias, archivo);
+        return ConciliacionResponse.builder()
+                .estado("COMPLETADO")
+                .iniciado(inicio)
+                .finalizado(LocalDateTime.now())
+                .locales(r.locales())
+                .remotas(r.remotas())
+                .coincidencias(r.coincidencias())
+                .diferencias(diferencias)
+                .archivo(archivo.toString())
+                .build();
+    }
+
+    private List<QuoteLocal> paginaLocal(QuoteLocal ultima, int n) {
+        if (ultima == null) {
+            return jdbcTemplate.query(SQL_PRIMERA, (rs, i) -> new QuoteLocal(
+                    rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBigDecimal(4)), n);
+        }
+        return jdbcTemplate.query(SQL_SIGUIENTE, (rs, i) -> new QuoteLocal(
+                        rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBigDecimal(4)),
+                ultima.salesforceQuoteId(), ultima.salesforceQuoteId(), ultima.cotizacionId(), n);
+    }
+
+    private static void escribir(BufferedWriter w, Diferencia d) {
+        try {
+            w.write(d.tipo().name());
+            w.write(',');
+            w.write(d.salesforceQuoteId());
+            w.write(',');
+            w.write(d.cotizacionId() != null ? d.cotizacionId().toString() : "");
+            w.write(',');
+            w.write(d.local() != null ? d.local() : "");
+            w.write(',');
+            w.write(d.remoto() != null ? d.remoto() : "");
+            w.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+}
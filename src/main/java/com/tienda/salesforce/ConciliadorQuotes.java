@@ -0,0 +1,117 @@
+package com.tienda.salesforce;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Merge-join de dos flujos ordenados por id de Quote: en cada paso se compara la cabeza de cada
+ * flujo y se avanza el menor, así que la memoria no depende del volumen. Si alguno de los flujos
+ * llega desordenado se aborta, porque el resultado dejaría de ser confiable.
+ */
+public final class ConciliadorQuotes {
+
+    /** Orden de los ids de 18 caracteres; coincide con la colación {@code utf8mb4_general_ci} de MySQL. */
+    public static final Comparator<String> ORDEN_IDS = String.CASE_INSENSITIVE_ORDER;
+
+    public record Resultado(long locales, long remotas, long coincidencias, Map<TipoDiferencia, Long> diferencias) {
+    }
+
+    private ConciliadorQuotes() {
+    }
+
+    public static Resultado conciliar(Iterator<QuoteLocal> locales, Iterator<QuoteRemota> remotas,
+                                      Consumer<Diferencia> salida) {
+        Map<TipoDiferencia, Long> conteos = new EnumMap<>(TipoDiferencia.class);
+        Consumer<Diferencia> emitir = d -> {
+            conteos.merge(d.tipo(), 1L, Long::sum);
+            salida.accept(d);
+        };
+        long nLocales = 0;
+        long nRemotas = 0;
+        long coincidencias = 0;
+
+        QuoteLocal l = siguiente(locales, null, QuoteLocal::salesforceQuoteId, "local");
+        QuoteRemota r = siguiente(remotas, null, QuoteRemota::id, "Salesforce");
+        String ultimoLocal = null;
+        while (l != null || r != null) {
+            if (l != null && ultimoLocal != null && ORDEN_IDS.compare(ultimoLocal, l.salesforceQuoteId()) == 0) {
+                nLocales++;
+                emitir.accept(new Diferencia(TipoDiferencia.DUPLICADA_LOCAL, l.salesforceQuoteId(),
+                        l.cotizacionId(), null, null));
+                l = siguiente(locales, l, QuoteLocal::salesforceQuoteId, "local");
+                continue;
+            }
+            int cmp = l == null ? 1 : r == null ? -1 : ORDEN_IDS.compare(l.salesforceQuoteId(), r.id());
+            if (cmp < 0) {
+                nLocales++;
+                emitir.accept(new Diferencia(TipoDiferencia.FALTA_EN_SALESFORCE, l.salesforceQuoteId(),
+                        l.cotizacionId(), texto(l.total()), null));
+            } else if (cmp > 0) {
+                nRemotas++;
+                emitir.accept(new Diferencia(TipoDiferencia.HUERFANA_EN_SALESFORCE, r.id(), null,
+                        null, texto(r.total())));
+            } else {
+                nLocales++;
+                nRemotas++;
+                boolean igual = true;
+                if (!mismoTotal(l.total(), r.total())) {
+                    igual = false;
+                    emitir.accept(new Diferencia(TipoDiferencia.TOTAL_DISTINTO, r.id(), l.cotizacionId(),
+                            texto(l.total()), texto(r.total())));
+                }
+                if (!mismaCuenta(l.accountId(), r.accountId())) {
+                    igual = false;
+                    emitir.accept(new Diferencia(TipoDiferencia.CUENTA_DISTINTA, r.id(), l.cotizacionId(),
+                            l.accountId(), r.accountId()));
+                }
+                if (igual) {
+                    coincidencias++;
+                }
+            }
+            if (cmp <= 0) {
+                ultimoLocal = l.salesforceQuoteId();
+                l = siguiente(locales, l, QuoteLocal::salesforceQuoteId, "local");
+            }
+            if (cmp >= 0) {
+                r = siguiente(remotas, r, QuoteRemota::id, "Salesforce");
+            }
+        }
+        return new Resultado(nLocales, nRemotas, coincidencias, conteos);
+    }
+
+    private static <T> T siguiente(Iterator<T> it, T anterior, Function<T, String> id, String origen) {
+        if (!it.hasNext()) {
+            return null;
+        }
+        T t = it.next();
+        if (anterior != null && ORDEN_IDS.compare(id.apply(anterior), id.apply(t)) > 0) {
+            throw new IllegalStateException("El flujo " + origen + " no está ordenado: "
+                    + id.apply(anterior) + " antes de " + id.apply(t));
+        }
+        return t;
+    }
+
+    private static boolean mismoTotal(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /** Un id de 15 caracteres (sensible a mayúsculas) equivale al de 18 que lo extiende. */
+    static boolean mismaCuenta(String a, String b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.length() == b.length()) {
+            return a.length() == 15 ? a.equals(b) : a.equalsIgnoreCase(b);
+        }
+        return a.length() >= 15 && b.length() >= 15 && a.regionMatches(0, b, 0, 15);
+    }
+
+    private static String texto(BigDecimal v) {
+        return v == null ? null : v.toPlainString();
+    }
+}
@@ -0,0 +1,4 @@
+package com.tienda.salesforce;
+
+public record Diferencia(TipoDiferencia tipo, String salesforceQuoteId, Long cotizacionId, String local, String remoto) {
+}
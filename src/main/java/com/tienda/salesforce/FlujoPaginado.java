@@ -0,0 +1,55 @@
+package com.tienda.salesforce;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Iterador que pide páginas de a una: solo la página actual está en memoria.
+ * {@code paginador} recibe el último elemento leído ({@code null} al inicio) y el tamaño,
+ * y una página incompleta marca el final.
+ */
+final class FlujoPaginado<T> implements Iterator<T> {
+
+    private final BiFunction<T, Integer, List<T>> paginador;
+    private final int tamano;
+    private List<T> pagina = List.of();
+    private int pos;
+    private T ultimo;
+    private boolean agotado;
+    private long paginas;
+
+    FlujoPaginado(int tamano, BiFunction<T, Integer, List<T>> paginador) {
+        this.tamano = tamano;
+        this.paginador = paginador;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pos < pagina.size()) {
+            return true;
+        }
+        if (agotado) {
+            return false;
+        }
+        pagina = paginador.apply(ultimo, tamano);
+        paginas++;
+        pos = 0;
+        agotado = pagina.size() < tamano;
+        return !pagina.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ultimo = pagina.get(pos++);
+        return ultimo;
+    }
+
+    long paginas() {
+        return paginas;
+    }
+}
@@ -0,0 +1,98 @@
+package com.tienda.salesforce;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * {@link SalesforceQuoteClient} sobre la REST API de Salesforce con el {@link HttpClient} del JDK.
+ * Pagina por keyset ({@code WHERE Id > :ultimo ORDER BY Id LIMIT n}) en lugar de {@code nextRecordsUrl},
+ * para que cada página sea una consulta independiente y el recorrido se pueda retomar desde cualquier id.
+ * Reintenta con espera creciente ante {@code 429} y {@code 503}.
+ */
+@Slf4j
+public class HttpSalesforceQuoteClient implements SalesforceQuoteClient {
+
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9]{15,18}");
+    private static final int MAX_INTENTOS = 4;
+
+    private final HttpClient http;
+    private final JsonMapper jsonMapper;
+    private final String urlConsulta;
+    private final String token;
+
+    public HttpSalesforceQuoteClient(String url, String versionApi, String token, JsonMapper jsonMapper) {
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        this.jsonMapper = jsonMapper;
+        this.urlConsulta = (url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                + "/services/data/" + versionApi + "/query?q=";
+        this.token = token;
+    }
+
+    @Override
+    public List<QuoteRemota> pagina(String despuesDe, int tamano) {
+        if (despuesDe != null && !ID.matcher(despuesDe).matches()) {
+            throw new IllegalArgumentException("Id de Salesforce inválido: " + despuesDe);
+        }
+        String soql = "SELECT Id, AccountId, GrandTotal FROM Quote"
+                + (despuesDe != null ? " WHERE Id > '" + despuesDe + "'" : "")
+                + " ORDER BY Id LIMIT " + tamano;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urlConsulta + URLEncoder.encode(soql, StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        JsonNode raiz = jsonMapper.readTree(enviar(request));
+        List<QuoteRemota> quotes = new ArrayList<>(tamano);
+        for (JsonNode q : raiz.path("records")) {
+            JsonNode total = q.path("GrandTotal");
+            quotes.add(new QuoteRemota(
+                    q.path("Id").asString(),
+                    q.hasNonNull("AccountId") ? q.get("AccountId").asString() : null,
+                    total.isNumber() ? total.decimalValue() : null));
+        }
+        return quotes;
+    }
+
+    private String enviar(HttpRequest request) {
+        long espera = 1_000;
+        for (int intento = 1; ; intento++) {
+            try {
+                HttpResponse<String> resp = http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+                int status = resp.statusCode();
+                if (status == 200) {
+                    return resp.body();
+                }
+                if ((status == 429 || status == 503) && intento < MAX_INTENTOS) {
+                    log.warn("Salesforce respondió {}; reintento {} en {} ms", status, intento, espera);
+                    Thread.sleep(espera);
+                    espera *= 2;
+                    continue;
+                }
+                throw new IllegalStateException("Salesforce respondió " + status + ": " + resp.body());
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo consultar Salesforce", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Consulta a Salesforce interrumpida", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.tienda.salesforce;
+
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.carga.ContextoCarga;
+import com.tienda.dto.EventosQuoteRequest;
+import com.tienda.exception.ServicioSaturadoException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import com.tienda.model.EstadoCotizacion;
+import com.tienda.sharding.EnrutadorShards;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cambios de estado de Quotes que avisa Salesforce por webhook. El request solo valida y encola
+ * ({@link #encolar}); un hilo del pool batch los aplica por lotes.
+ * <p>
+ * La cola es acotada ({@code tienda.salesforce.webhook.cola}): si un envío no entra completo se rechaza
+ * con 503 y {@code Retry-After}, y Salesforce lo reintenta. Cada lote se queda con el evento más reciente
+ * de cada Quote y lo aplica con un UPDATE por cotización en una sola transacción; el UPDATE exige que el
+ * evento sea posterior a {@code salesforce_estado_at}, así un reintento o un evento desordenado que llega
+ * en otro lote (o a otra instancia) no pisa un estado más nuevo.
+ * <p>
+ * Los eventos aceptados viven en memoria hasta aplicarse: al detenerse se vacía la cola antes de cerrar,
+ * pero una caída pierde lo que estaba en ella.
+ */
+@Slf4j
+@Component
+public class IngestaEstadosQuote implements SmartLifecycle, MeterBinder {
+
+    /** Un evento ya validado; {@code ocurrido} en UTC. */
+    record EventoEstado(String quoteId, EstadoCotizacion estado, LocalDateTime ocurrido) {
+    }
+
+    private record Fila(long id, long clienteId, String estado, String quoteId, LocalDateTime estadoAt) {
+    }
+
+    private static final String SQL_BUSCAR = "select id, cliente_id, estado, salesforce_quote_id, salesforce_estado_at"
+            + " from cotizacion where salesforce_quote_id in (%s)";
+    private static final String SQL_CLIENTES =
+            "select cliente_id, salesforce_quote_id from cotizacion where salesforce_quote_id in (%s)";
+    private static final String SQL_ACTUALIZAR = "update cotizacion set estado = ?, salesforce_estado_at = ?"
+            + " where id = ? and (salesforce_estado_at is null or salesforce_estado_at < ?)";
+    private static final int MAX_IN = 500;
+    private static final int INTENTOS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<EnrutadorShards> enrutador;
+    private final BusInvalidacion busInvalidacion;
+    private final DiarioAuditoria auditoria;
+    private final BlockingQueue<EventoEstado> cola;
+    private final int tamanoLote;
+    private final long esperaNanos;
+    private final Thread trabajador;
+    private volatile boolean corriendo;
+    private volatile boolean detenido;
+
+    private final LongAdder recibidos = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final LongAdder aplicados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder perdidos = new LongAdder();
+
+    public IngestaEstadosQuote(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ObjectProvider<EnrutadorShards> enrutador,
+                               BusInvalidacion busInvalidacion,
+                               DiarioAuditoria auditoria,
+                               @Value("${tienda.salesforce.webhook.cola:50000}") int capacidad,
+                               @Value("${tienda.salesforce.webhook.lote:1000}") int tamanoLote,
+                               @Value("${tienda.salesforce.webhook.espera-ms:200}") long esperaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enrutador = enrutador;
+        this.busInvalidacion = busInvalidacion;
+        this.auditoria = auditoria;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        this.trabajador = ContextoCarga.hiloBatch("webhook-salesforce").newThread(this::trabajar);
+    }
+
+    /**
+     * Encola todos los eventos o ninguno. Devuelve cuántos quedan en la cola.
+     *
+     * @throws ServicioSaturadoException si no entran o la aplicación se está deteniendo
+     */
+    public int encolar(List<EventosQuoteRequest.Evento> eventos) {
+        List<EventoEstado> validados = new ArrayList<>(eventos.size());
+        for (EventosQuoteRequest.Evento e : eventos) {
+            validados.add(new EventoEstado(e.getQuoteId(), estadoDe(e.getEstado()),
+                    e.getOcurrido().withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime()));
+        }
+        synchronized (this) { // el trabajador solo saca: la capacidad libre no baja entre el chequeo y el alta
+            if (detenido || cola.remainingCapacity() < validados.size()) {
+                rechazados.add(validados.size());
+                throw new ServicioSaturadoException("La cola de eventos de Salesforce está llena", 1);
+            }
+            cola.addAll(validados);
+        }
+        recibidos.add(validados.size());
+        return cola.size();
+    }
+
+    static EstadoCotizacion estadoDe(String estadoSalesforce) {
+        return switch (estadoSalesforce) {
+            case "Accepted" -> EstadoCotizacion.ACEPTADA;
+            case "Denied", "Rejected" -> EstadoCotizacion.RECHAZADA;
+            default -> throw new IllegalArgumentException("Estado de Quote no soportado: " + estadoSalesforce);
+        };
+    }
+
+    private void trabajar() {
+        List<EventoEstado> lote = new ArrayList<>(tamanoLote);
+        while (corriendo || !cola.isEmpty()) {
+            try {
+                EventoEstado primero = cola.poll(250, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                juntar(lote);
+                aplicarConReintentos(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    /** Espera hasta {@code espera-ms} a que se llene el lote: en una ráfaga, menos transacciones más grandes. */
+    private void juntar(List<EventoEstado> lote) throws InterruptedException {
+        long limite = System.nanoTime() + esperaNanos;
+        while (lote.size() < tamanoLote) {
+            cola.drainTo(lote, tamanoLote - lote.size());
+            long resta = limite - System.nanoTime();
+            if (lote.size() >= tamanoLote || resta <= 0) {
+                return;
+            }
+            EventoEstado siguiente = cola.poll(resta, TimeUnit.NANOSECONDS);
+            if (siguiente == null) {
+                return;
+            }
+            lote.add(siguiente);
+        }
+    }
+
+    private void aplicarConReintentos(List<EventoEstado> lote) throws InterruptedException {
+        for (int intento = 1; ; intento++) {
+            try {
+                aplicar(lote);
+                return;
+            } catch (RuntimeException e) {
+                if (intento == INTENTOS) {
+                    perdidos.add(lote.size());
+                    log.error("Webhook Salesforce: se descartan {} eventos tras {} intentos", lote.size(), INTENTOS, e);
+                    return;
+                }
+                log.warn("Webhook Salesforce: falló un lote de {} eventos (intento {}): {}", lote.size(), intento,
+                        e.getMessage());
+                Thread.sleep(1_000L * intento);
+            }
+        }
+    }
+
+    /**
+     * Aplica un lote en la base principal y, con sharding, en el shard de cada cliente; devuelve cuántas
+     * cotizaciones cambiaron.
+     */
+    int aplicar(List<EventoEstado> lote) {
+        Map<String, EventoEstado> ultimos = new HashMap<>();
+        for (EventoEstado e : lote) {
+            ultimos.merge(e.quoteId(), e, (a, b) -> b.ocurrido().isBefore(a.ocurrido()) ? a : b);
+        }
+        descartados.add(lote.size() - ultimos.size());
+        List<String> quotes = new ArrayList<>(ultimos.keySet());
+        int cambiadas = 0;
+        for (int i = 0; i < quotes.size(); i += MAX_IN) {
+            List<String> tramo = quotes.subList(i, Math.min(quotes.size(), i + MAX_IN));
+            Integer n = transactionTemplate.execute(s -> aplicar(jdbcTemplate, tramo, ultimos));
+            cambiadas += n != null ? n : 0;
+        }
+        EnrutadorShards e = enrutador.getIfAvailable();
+        if (e != null) {
+            cambiadas += aplicarEnShards(e, quotes, ultimos);
+        }
+        aplicados.add(cambiadas);
+        return cambiadas;
+    }
+
+    /**
+     * Busca las Quotes en todos los shards para saber de qué cliente son, y aplica las de cada cliente en su
+     * shard actual con {@link EnrutadorShards#conCliente}, como {@code guardar}: un movimiento en curso no
+     * copia una fila entre la lectura y la actualización, y una fila que quedó como resto en otro shard no
+     * recibe el cambio en lugar de la copia vigente.
+     */
+    private int aplicarEnShards(EnrutadorShards e, List<String> quotes, Map<String, EventoEstado> ultimos) {
+        Map<Long, Set<String>> porCliente = new HashMap<>();
+        for (EnrutadorShards.Shard s : e.shards()) {
+            for (int i = 0; i < quotes.size(); i += MAX_IN) {
+                List<String> tramo = quotes.subList(i, Math.min(quotes.size(), i + MAX_IN));
+                s.jdbc().query(String.format(SQL_CLIENTES, marcas(tramo.size())), rs -> {
+                    porCliente.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getString(2));
+                }, tramo.toArray());
+            }
+        }
+        int cambiadas = 0;
+        for (Map.Entry<Long, Set<String>> c : porCliente.entrySet()) {
+            List<String> delCliente = new ArrayList<>(c.getValue());
+            Integer n = e.conCliente(c.getKey(), shard -> new TransactionTemplate(
+                    new DataSourceTransactionManager(shard.dataSource()))
+                    .execute(s -> aplicar(shard.jdbc(), delCliente, ultimos)));
+            cambiadas += n != null ? n : 0;
+        }
+        return cambiadas;
+    }
+
+    private int aplicar(JdbcTemplate jdbc, List<String> quotes, Map<String, EventoEstado> ultimos) {
+        List<Fila> filas = jdbc.query(String.format(SQL_BUSCAR, marcas(quotes.size())), (rs, i) -> new Fila(rs.getLong(1),
+                rs.getLong(2), rs.getString(3), rs.getString(4), rs.getObject(5, LocalDateTime.class)), quotes.toArray());
+        List<Fila> candidatas = new ArrayList<>(filas.size());
+        List<Object[]> args = new ArrayList<>(filas.size());
+        for (Fila f : filas) {
+            EventoEstado e = ultimos.get(f.quoteId());
+            if (f.estadoAt() == null || f.estadoAt().isBefore(e.ocurrido())) {
+                candidatas.add(f);
+                args.add(new Object[]{e.estado().name(), e.ocurrido(), f.id(), e.ocurrido()});
+            }
+        }
+        if (args.isEmpty()) {
+            return 0;
+        }
+        int[] resultados = jdbc.batchUpdate(SQL_ACTUALIZAR, args);
+        Set<Long> clientes = new HashSet<>();
+        int cambiadas = 0;
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == 0) {
+                continue; // otra instancia aplicó antes un evento más nuevo
+            }
+            Fila f = candidatas.get(i);
+            String nuevo = ultimos.get(f.quoteId()).estado().name();
+            if (!nuevo.equals(f.estado())) {
+                cambiadas++;
+                clientes.add(f.clienteId());
+                auditoria.registrar(TipoEventoAuditoria.COTIZACION_ESTADO, f.id(), f.clienteId(), f.estado() + ">" + nuevo);
+            }
+        }
+        clientes.forEach(c -> busInvalidacion.publicar(TipoEntidad.COTIZACION, c));
+        return cambiadas;
+    }
+
+    private static String marcas(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    public int enCola() {
+        return cola.size();
+    }
+
+    @Override
+    public void start() {
+        corriendo = true;
+        trabajador.start();
+    }
+
+    /** Deja de aceptar eventos y espera a que se apliquen los que ya estaban en la cola. */
+    @Override
+    public void stop() {
+        detenido = true;
+        corriendo = false;
+        try {
+            trabajador.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!cola.isEmpty()) {
+            log.warn("Webhook Salesforce: quedaron {} eventos sin aplicar al detenerse", cola.size());
+        }
+    }
+
+    /** Se detiene después del servidor web (ya no llegan eventos) y antes que la auditoría. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return corriendo;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        contador(registry, recibidos, "recibido");
+        contador(registry, rechazados, "rechazado");
+        contador(registry, descartados, "repetido");
+        contador(registry, perdidos, "perdido");
+        FunctionCounter.builder("tienda.salesforce.webhook.aplicados", aplicados, LongAdder::sum)
+                .description("Cotizaciones que cambiaron de estado por el webhook")
+                .register(registry);
+        Gauge.builder("tienda.salesforce.webhook.cola", cola, BlockingQueue::size)
+                .description("Eventos del webhook esperando a aplicarse")
+                .register(registry);
+    }
+
+    private static void contador(MeterRegistry registry, LongAdder valor, String resultado) {
+        FunctionCounter.builder("tienda.salesforce.webhook.eventos", valor, LongAdder::sum)
+                .description("Eventos recibidos por el webhook de Salesforce")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
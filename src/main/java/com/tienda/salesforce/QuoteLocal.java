@@ -0,0 +1,7 @@
+package com.tienda.salesforce;
+
+import java.math.BigDecimal;
+
+/** Cotización local con su id de Quote y el Account de su cliente. */
+public record QuoteLocal(long cotizacionId, String salesforceQuoteId, String accountId, BigDecimal total) {
+}
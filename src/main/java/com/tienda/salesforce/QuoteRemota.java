@@ -0,0 +1,7 @@
+package com.tienda.salesforce;
+
+import java.math.BigDecimal;
+
+/** Quote tal como lo devuelve Salesforce. */
+public record QuoteRemota(String id, String accountId, BigDecimal total) {
+}
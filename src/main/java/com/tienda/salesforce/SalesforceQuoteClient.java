@@ -0,0 +1,16 @@
+package com.tienda.salesforce;
+
+import java.util.List;
+
+/**
+ * Lectura paginada de Quotes en Salesforce, ordenados por {@code Id} sin distinguir mayúsculas
+ * (el orden de los ids de 18 caracteres).
+ */
+public interface SalesforceQuoteClient {
+
+    /**
+     * Hasta {@code tamano} quotes con {@code Id} mayor que {@code despuesDe} ({@code null} = desde el inicio).
+     * Una lista con menos de {@code tamano} elementos indica la última página.
+     */
+    List<QuoteRemota> pagina(String despuesDe, int tamano);
+}
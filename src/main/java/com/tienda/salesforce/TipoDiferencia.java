@@ -0,0 +1,12 @@
+package com.tienda.salesforce;
+
+public enum TipoDiferencia {
+    /** La cotización local apunta a un Quote que Salesforce no tiene. */
+    FALTA_EN_SALESFORCE,
+    /** Salesforce tiene un Quote que ninguna cotización local referencia. */
+    HUERFANA_EN_SALESFORCE,
+    TOTAL_DISTINTO,
+    CUENTA_DISTINTA,
+    /** Más de una cotización local con el mismo Quote. */
+    DUPLICADA_LOCAL
+}
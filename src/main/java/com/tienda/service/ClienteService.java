@@ -1,9 +1,17 @@
 package com.tienda.service;
 
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.bloom.FiltroEmailsClientes;
 import com.tienda.dto.ClienteCreateRequest;
 import com.tienda.dto.ClienteResponse;
+import com.tienda.exception.RecursoDuplicadoException;
 import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.CacheClientes;
+import com.tienda.invalidacion.TipoEntidad;
 import com.tienda.model.Cliente;
+import com.tienda.repository.CamposProyeccion;
 import com.tienda.repository.ClienteRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -13,11 +21,18 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class ClienteService {
 
     private final ClienteRepository clienteRepository;
+    private final BusInvalidacion busInvalidacion;
+    private final CacheClientes cacheClientes;
+    private final FiltroEmailsClientes filtroEmails;
+    private final DiarioAuditoria auditoria;
 
 
     @Transactional
@@ -25,10 +40,13 @@ public class ClienteService {
         // 1) Normalizar email (muy útil)
         String emailNormalizado = request.getEmail().trim().toLowerCase();
 
-        // 2) Validar duplicado por email (mejor UX que esperar error de DB)
-        clienteRepository.findByEmail(emailNormalizado).ifPresent(c -> {
-            throw new IllegalArgumentException("Ya existe un cliente con el email: " + emailNormalizado);
-        });
+        // 2) Validar duplicado por email (mejor UX que esperar error de DB).
+        //    Si el filtro de Bloom asegura que no existe, se omite la consulta: el respaldo es uk_cliente_email.
+        if (filtroEmails.puedeExistir(emailNormalizado)) {
+            clienteRepository.findByEmail(emailNormalizado).ifPresentOrElse(c -> {
+                throw new RecursoDuplicadoException("Ya existe un cliente con el email: " + emailNormalizado);
+            }, filtroEmails::falsoPositivo);
+        }
 
         // 3) Mapear DTO -> Entity
         Cliente cliente = Cliente.builder()
@@ -40,12 +58,15 @@ public class ClienteService {
                 .build();
 
         // 4) Guardar
+        filtroEmails.agregar(emailNormalizado);
         try {
             Cliente guardado = clienteRepository.save(cliente);
+            busInvalidacion.publicar(TipoEntidad.CLIENTE, guardado.getId());
+            auditoria.registrar(TipoEventoAuditoria.CLIENTE_CREADO, guardado.getId(), 0, null);
             return toResponse(guardado);
         } catch (DataIntegrityViolationException e) {
             // por si se cuela el duplicado (race condition)
-            throw new IllegalArgumentException("No se pudo crear el cliente. Verifica que el email sea único.");
+            throw new RecursoDuplicadoException("No se pudo crear el cliente. Verifica que el email sea único.");
         }
     }
 
@@ -64,8 +85,26 @@ public class ClienteService {
 
     @Transactional(readOnly = true)
     public ClienteResponse obtenerClientePorId(Long id) {
+        ClienteResponse enCache = cacheClientes.buscar(id);
+        if (enCache != null) {
+            return enCache;
+        }
+        long generacion = cacheClientes.generacion();
         Cliente cliente = clienteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con id: " + id));
-        return toResponse(cliente);
+        ClienteResponse res = toResponse(cliente);
+        cacheClientes.guardar(id, res, generacion);
+        return res;
+    }
+
+    /**
+     * Variante de {@link #obtenerClientePorId(Long)} para {@code ?fields=}: solo se leen
+     * de la base las columnas pedidas.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerClienteCampos(Long id, String fields) {
+        Set<String> campos = CamposProyeccion.CLIENTE.parsear(fields);
+        return clienteRepository.findCamposById(id, campos)
+                .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con id: " + id));
     }
 }
\ No newline at end of file
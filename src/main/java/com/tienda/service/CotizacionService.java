@@ -1,21 +1,35 @@
 package com.tienda.service;
 
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.dinero.Dinero;
 import com.tienda.dto.CotizacionCreateRequest;
 import com.tienda.dto.CotizacionResponse;
+import com.tienda.dto.LineaCotizacionRequest;
+import com.tienda.dto.LineaCotizacionResponse;
 import com.tienda.dto.PageResponse;
 import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
 import com.tienda.model.Cliente;
 import com.tienda.model.Cotizacion;
 import com.tienda.model.EstadoCotizacion;
+import com.tienda.model.LineaCotizacion;
+import com.tienda.repository.CamposProyeccion;
 import com.tienda.repository.ClienteRepository;
 import com.tienda.repository.CotizacionRepository;
+import com.tienda.sharding.CotizacionShardRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +38,10 @@ public class CotizacionService {
 
     private final CotizacionRepository cotizacionRepository;
     private final ClienteRepository clienteRepository;
+    /** Presente solo con {@code tienda.sharding.enabled=true}; si no, las cotizaciones van por JPA. */
+    private final ObjectProvider<CotizacionShardRepository> cotizacionShardRepository;
+    private final BusInvalidacion busInvalidacion;
+    private final DiarioAuditoria auditoria;
 
     @Transactional
     public CotizacionResponse crearCotizacion(CotizacionCreateRequest request) {
@@ -33,17 +51,64 @@ public class CotizacionService {
                         "Cliente no encontrado con id: " + request.getClienteId()
                 ));
 
+        List<LineaCotizacion> lineas = toLineas(request.getLineas());
         Cotizacion cotizacion = Cotizacion.builder()
                 .cliente(cliente)
-                .total(request.getTotal())
+                .total(totalDe(request.getTotal(), lineas))
                 .estado(EstadoCotizacion.CREADA)
+                .lineas(lineas)
                 .build();
 
-        Cotizacion guardada = cotizacionRepository.save(cotizacion);
+        CotizacionShardRepository shards = cotizacionShardRepository.getIfAvailable();
+        Cotizacion guardada = shards != null ? shards.guardar(cotizacion) : cotizacionRepository.save(cotizacion);
+        busInvalidacion.publicar(TipoEntidad.COTIZACION, cliente.getId());
+        auditoria.registrar(TipoEventoAuditoria.COTIZACION_CREADA, guardada.getId(), cliente.getId(),
+                "total=" + guardada.getTotal() + " lineas=" + guardada.getLineas().size());
 
         return toResponse(guardada);
     }
 
+    private static List<LineaCotizacion> toLineas(List<LineaCotizacionRequest> lineas) {
+        List<LineaCotizacion> resultado = new ArrayList<>(lineas != null ? lineas.size() : 0);
+        if (lineas != null) {
+            for (LineaCotizacionRequest l : lineas) {
+                resultado.add(LineaCotizacion.builder()
+                        .producto(l.getProducto().trim())
+                        .cantidad(l.getCantidad())
+                        .precioUnitario(l.getPrecioUnitario())
+                        .build());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Sin líneas, el total es el enviado. Con líneas, es la suma exacta de los subtotales y un total
+     * enviado que no coincide es un error del cliente.
+     */
+    static Dinero totalDe(Dinero enviado, List<LineaCotizacion> lineas) {
+        if (lineas.isEmpty()) {
+            if (enviado == null) {
+                throw new IllegalArgumentException("La cotización necesita líneas o un total");
+            }
+            return enviado;
+        }
+        long centavos = 0;
+        try {
+            for (LineaCotizacion l : lineas) {
+                centavos = Math.addExact(centavos, Math.multiplyExact(l.getPrecioUnitario().centavos(), l.getCantidad()));
+            }
+            Dinero total = Dinero.deCentavos(centavos);
+            if (enviado != null && !enviado.equals(total)) {
+                throw new IllegalArgumentException("El total enviado (" + enviado
+                        + ") no coincide con la suma de las líneas (" + total + ")");
+            }
+            return total;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("El total de la cotización excede el máximo permitido");
+        }
+    }
+
     private CotizacionResponse toResponse(Cotizacion c) {
         return CotizacionResponse.builder()
                 .id(c.getId())
@@ -54,14 +119,28 @@ public class CotizacionService {
                 .estado(c.getEstado())
                 .salesforceQuoteId(c.getSalesforceQuoteId())
                 .createdAt(c.getCreatedAt())
+                .lineas(toLineasResponse(c.getLineas()))
                 .build();
     }
 
+    private static List<LineaCotizacionResponse> toLineasResponse(List<LineaCotizacion> lineas) {
+        List<LineaCotizacionResponse> resultado = new ArrayList<>(lineas.size());
+        for (LineaCotizacion l : lineas) {
+            resultado.add(LineaCotizacionResponse.builder()
+                    .producto(l.getProducto())
+                    .cantidad(l.getCantidad())
+                    .precioUnitario(l.getPrecioUnitario())
+                    .subtotal(l.subtotal())
+                    .build());
+        }
+        return resultado;
+    }
+
     @Transactional(readOnly = true)
     public PageResponse<CotizacionResponse> listarPorClientePaginado(Long clienteId, Pageable pageable) {
 
         // 1) Validar que el cliente exista para retornar 404 si no existe
-        clienteRepository.findById(clienteId)
+        Cliente cliente = clienteRepository.findById(clienteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con id: " + clienteId));
 
         // 2) Obtener Page desde repository
@@ -69,11 +148,43 @@ public class CotizacionService {
         // Page<Cotizacion> page = cotizacionRepository.findByClienteId(clienteId, pageable);
 
         // Si implementaste Opción B (recomendada con Bonus):
-        Page<Cotizacion> page = cotizacionRepository.findByClienteIdWithCliente(clienteId, pageable);
+        CotizacionShardRepository shards = cotizacionShardRepository.getIfAvailable();
+        Page<Cotizacion> page = shards != null
+                ? shards.buscarPorCliente(cliente, pageable)
+                : cotizacionRepository.findByClienteIdWithCliente(clienteId, pageable);
 
         // 3) Mapear a DTO
-        return PageResponse.<CotizacionResponse>builder()
-                .content(page.getContent().stream().map(this::toResponse).toList())
+        return toPageResponse(page, page.getContent().stream().map(this::toResponse).toList());
+    }
+
+    /**
+     * Variante de {@link #listarPorClientePaginado(Long, Pageable)} para {@code ?fields=}:
+     * la consulta selecciona solo las columnas pedidas y omite el join con cliente
+     * cuando no se piden {@code clienteNombre} ni {@code clienteEmail}.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<Map<String, Object>> listarPorClienteCampos(Long clienteId, String fields, Pageable pageable) {
+        Set<String> campos = CamposProyeccion.COTIZACION.parsear(fields);
+
+        CotizacionShardRepository shards = cotizacionShardRepository.getIfAvailable();
+        if (shards != null) {
+            Cliente cliente = clienteRepository.findById(clienteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con id: " + clienteId));
+            Page<Map<String, Object>> page = shards.buscarCamposPorCliente(cliente, campos, pageable);
+            return toPageResponse(page, page.getContent());
+        }
+
+        if (!clienteRepository.existsById(clienteId)) {
+            throw new ResourceNotFoundException("Cliente no encontrado con id: " + clienteId);
+        }
+
+        Page<Map<String, Object>> page = cotizacionRepository.findCamposByClienteId(clienteId, campos, pageable);
+        return toPageResponse(page, page.getContent());
+    }
+
+    private static <T> PageResponse<T> toPageResponse(Page<?> page, List<T> content) {
+        return PageResponse.<T>builder()
+                .content(content)
                 .page(page.getNumber())
                 .size(page.getSize())
                 .totalElements(page.getTotalElements())
@@ -0,0 +1,77 @@
+package com.tienda.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash consistente con nodos virtuales: cada shard ocupa {@code virtuales} puntos de un anillo de
+ * 64 bits y una clave pertenece al primer punto a partir de su hash. Agregar un shard solo mueve
+ * las claves que caen en sus puntos (≈ 1/N del total).
+ */
+public final class AnilloConsistente {
+
+    private final long[] puntos;
+    private final String[] duenos;
+
+    public AnilloConsistente(List<String> shards, int virtuales) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("El anillo necesita al menos un shard");
+        }
+        int n = shards.size() * virtuales;
+        long[] hashes = new long[n];
+        String[] nombres = new String[n];
+        int k = 0;
+        for (String shard : shards) {
+            for (int v = 0; v < virtuales; v++) {
+                hashes[k] = mezclar(fnv(shard + "#" + v));
+                nombres[k++] = shard;
+            }
+        }
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Long.compareUnsigned(hashes[a], hashes[b]));
+        this.puntos = new long[n];
+        this.duenos = new String[n];
+        for (int i = 0; i < n; i++) {
+            puntos[i] = hashes[orden[i]];
+            duenos[i] = nombres[orden[i]];
+        }
+    }
+
+    public String shardDe(long clave) {
+        long h = mezclar(clave);
+        int lo = 0;
+        int hi = puntos.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(puntos[mid], h) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return duenos[lo == puntos.length ? 0 : lo];
+    }
+
+    /** Finalizador de MurmurHash3: dispersa ids consecutivos por todo el anillo. */
+    static long mezclar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    private static long fnv(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,211 @@
+package com.tienda.sharding;
+
+import com.tienda.dinero.Dinero;
+import com.tienda.model.Cliente;
+import com.tienda.model.Cotizacion;
+import com.tienda.model.EstadoCotizacion;
+import com.tienda.model.LineaCotizacion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Acceso a {@code cotizacion} cuando está particionada: cada operación va al shard del cliente
+ * que indica {@link EnrutadorShards}. Las cotizaciones se devuelven con el {@link Cliente} que
+ * recibió el método (leído de la base principal), así el servicio las mapea igual que con JPA.
+ */
+public class CotizacionShardRepository {
+
+    /** {@code salesforce_estado_at} no está en la entidad: solo la usa el webhook, pero viaja con la fila al moverla. */
+    static final String COLUMNAS = "id, cliente_id, total, estado, salesforce_quote_id, created_at, salesforce_estado_at";
+    static final String SQL_INSERT = "insert into cotizacion (" + COLUMNAS + ") values (?, ?, ?, ?, ?, ?, ?)";
+    static final String COLUMNAS_LINEA = "cotizacion_id, linea, producto, cantidad, precio_unitario";
+    static final String SQL_INSERT_LINEA =
+            "insert into cotizacion_linea (" + COLUMNAS_LINEA + ") values (?, ?, ?, ?, ?)";
+
+    /**
+     * Propiedades con columna en el shard: por ellas se puede ordenar y son las que {@code ?fields=} lee.
+     * {@code clienteId}, {@code clienteNombre} y {@code clienteEmail} salen del {@link Cliente} recibido.
+     */
+    private static final Map<String, String> COLUMNAS_CAMPO = Map.of(
+            "id", "id",
+            "total", "total",
+            "estado", "estado",
+            "salesforceQuoteId", "salesforce_quote_id",
+            "createdAt", "created_at");
+
+    private final EnrutadorShards enrutador;
+
+    public CotizacionShardRepository(EnrutadorShards enrutador) {
+        this.enrutador = enrutador;
+    }
+
+    /**
+     * Inserta la cotización con un id generado para el shard del cliente, y sus líneas en un solo lote,
+     * dentro de una transacción local del shard.
+     */
+    public Cotizacion guardar(Cotizacion c) {
+        long clienteId = c.getCliente().getId();
+        return enrutador.conCliente(clienteId, shard -> {
+            c.prePersist();
+            c.setId(shard.ids().siguiente());
+            shard.jdbc().execute((ConnectionCallback<Void>) con -> {
+                boolean autoCommit = con.getAutoCommit();
+                con.setAutoCommit(false);
+                try (PreparedStatement ps = con.prepareStatement(SQL_INSERT);
+                     PreparedStatement psLinea = con.prepareStatement(SQL_INSERT_LINEA)) {
+                    ps.setLong(1, c.getId());
+                    ps.setLong(2, clienteId);
+                    ps.setBigDecimal(3, c.getTotal().aBigDecimal());
+                    ps.setString(4, c.getEstado().name());
+                    ps.setString(5, c.getSalesforceQuoteId());
+                    ps.setTimestamp(6, Timestamp.valueOf(c.getCreatedAt()));
+                    ps.setNull(7, Types.TIMESTAMP);
+                    ps.executeUpdate();
+                    List<LineaCotizacion> lineas = c.getLineas();
+                    for (int i = 0; i < lineas.size(); i++) {
+                        LineaCotizacion l = lineas.get(i);
+                        psLinea.setLong(1, c.getId());
+                        psLinea.setInt(2, i);
+                        psLinea.setString(3, l.getProducto());
+                        psLinea.setInt(4, l.getCantidad());
+                        psLinea.setBigDecimal(5, l.getPrecioUnitario().aBigDecimal());
+                        psLinea.addBatch();
+                    }
+                    if (!lineas.isEmpty()) {
+                        psLinea.executeBatch();
+                    }
+                    con.commit();
+                } catch (SQLException | RuntimeException e) {
+                    con.rollback();
+                    throw e;
+                } finally {
+                    con.setAutoCommit(autoCommit);
+                }
+                return null;
+            });
+            return c;
+        });
+    }
+
+    public Page<Cotizacion> buscarPorCliente(Cliente cliente, Pageable pageable) {
+        return enrutador.conCliente(cliente.getId(), shard -> {
+            Page<Cotizacion> page = buscar(shard, cliente, COLUMNAS, mapper(cliente), pageable);
+            if (page.hasContent()) {
+                cargarLineas(shard, page.getContent());
+            }
+            return page;
+        });
+    }
+
+    /**
+     * Variante para {@code ?fields=}, como la consulta JPA: el {@code select} lleva solo las columnas de los
+     * campos pedidos. Los campos ya vienen validados por {@code CamposProyeccion.COTIZACION}.
+     */
+    public Page<Map<String, Object>> buscarCamposPorCliente(Cliente cliente, Set<String> campos, Pageable pageable) {
+        StringJoiner columnas = new StringJoiner(", ");
+        for (String campo : campos) {
+            String columna = COLUMNAS_CAMPO.get(campo);
+            if (columna != null) {
+                columnas.add(columna);
+            }
+        }
+        if (columnas.length() == 0) {
+            columnas.add("id"); // solo campos del cliente: una fila por cotización igual
+        }
+        RowMapper<Map<String, Object>> mapper = (rs, i) -> {
+            Map<String, Object> fila = new LinkedHashMap<>(campos.size() * 2);
+            int col = 1;
+            for (String campo : campos) {
+                fila.put(campo, switch (campo) {
+                    case "id" -> rs.getLong(col++);
+                    case "total" -> Dinero.de(rs.getBigDecimal(col++));
+                    case "estado" -> EstadoCotizacion.valueOf(rs.getString(col++));
+                    case "salesforceQuoteId" -> rs.getString(col++);
+                    case "createdAt" -> rs.getObject(col++, LocalDateTime.class);
+                    case "clienteId" -> cliente.getId();
+                    case "clienteNombre" -> cliente.getNombreCompleto();
+                    case "clienteEmail" -> cliente.getEmail();
+                    default -> throw new IllegalArgumentException("Campo no soportado en fields: " + campo);
+                });
+            }
+            return fila;
+        };
+        return enrutador.conCliente(cliente.getId(),
+                shard -> buscar(shard, cliente, columnas.toString(), mapper, pageable));
+    }
+
+    private static <T> Page<T> buscar(EnrutadorShards.Shard shard, Cliente cliente, String columnas,
+                                      RowMapper<T> mapper, Pageable pageable) {
+        String sql = "select " + columnas + " from cotizacion where cliente_id = ?" + orderBy(pageable.getSort());
+        List<T> contenido;
+        if (pageable.isPaged()) {
+            contenido = shard.jdbc().query(sql + " limit ? offset ?", mapper,
+                    cliente.getId(), pageable.getPageSize(), pageable.getOffset());
+        } else {
+            contenido = shard.jdbc().query(sql, mapper, cliente.getId());
+        }
+        Long total = shard.jdbc().queryForObject(
+                "select count(*) from cotizacion where cliente_id = ?", Long.class, cliente.getId());
+        return new PageImpl<>(contenido, pageable, total != null ? total : 0);
+    }
+
+    /** Las líneas de toda la página en una consulta, ordenadas por la PK {@code (cotizacion_id, linea)}. */
+    private static void cargarLineas(EnrutadorShards.Shard shard, List<Cotizacion> cotizaciones) {
+        Map<Long, Cotizacion> porId = new HashMap<>(cotizaciones.size() * 2);
+        StringJoiner in = new StringJoiner(", ", "(", ")");
+        for (Cotizacion c : cotizaciones) {
+            porId.put(c.getId(), c);
+            in.add("?");
+        }
+        shard.jdbc().query("select " + COLUMNAS_LINEA + " from cotizacion_linea where cotizacion_id in " + in
+                + " order by cotizacion_id, linea", rs -> {
+            porId.get(rs.getLong(1)).getLineas().add(LineaCotizacion.builder()
+                    .producto(rs.getString(3))
+                    .cantidad(rs.getInt(4))
+                    .precioUnitario(Dinero.de(rs.getBigDecimal(5)))
+                    .build());
+        }, porId.keySet().toArray());
+    }
+
+    static String orderBy(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return " order by id";
+        }
+        StringJoiner sj = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order o : sort) {
+            String columna = COLUMNAS_CAMPO.get(o.getProperty());
+            if (columna == null) {
+                throw new IllegalArgumentException("No se puede ordenar por: " + o.getProperty());
+            }
+            sj.add(columna + (o.isAscending() ? " asc" : " desc"));
+        }
+        return sj.toString();
+    }
+
+    static RowMapper<Cotizacion> mapper(Cliente cliente) {
+        return (rs, i) -> Cotizacion.builder()
+                .id(rs.getLong(1))
+                .cliente(cliente)
+                .total(Dinero.de(rs.getBigDecimal(3)))
+                .estado(EstadoCotizacion.valueOf(rs.getString(4)))
+                .salesforceQuoteId(rs.getString(5))
+                .createdAt(rs.getObject(6, LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,337 @@
+package com.tienda.sharding;
+
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Decide en qué shard viven las cotizaciones de un cliente:
+ * <ol>
+ *   <li>ubicación explícita en {@code cliente_shard} (clientes movidos por el rebalanceo);</li>
+ *   <li>si hay un anillo anterior configurado (transición), el shard que ese anillo asignaba;</li>
+ *   <li>el shard que asigna el anillo actual.</li>
+ * </ol>
+ * Cada réplica guarda en memoria las ubicaciones explícitas y las actualiza con los eventos
+ * {@link TipoEntidad#UBICACION_SHARD} del {@link BusInvalidacion}. Un movimiento primero marca al cliente
+ * ({@code cliente_shard.destino}); mientras está marcado, o si el bus perdió la sincronía, cada operación
+ * toma el candado {@code GET_LOCK} del cliente en la base principal y lee su fila en vez de usar la memoria.
+ * El cambio final de ubicación toma ese mismo candado, así que ninguna réplica escribe en el origen
+ * mientras se resincroniza y se borra. Sin MySQL/MariaDB (pruebas con H2) el candado es solo local.
+ */
+@Slf4j
+public class EnrutadorShards implements AutoCloseable {
+
+    private static final int FRANJAS = 256;
+    private static final String SQL_UBICACIONES = "select cliente_id, shard, destino from cliente_shard";
+    private static final String SQL_UBICACION = "select shard, destino from cliente_shard where cliente_id = ?";
+    private static final String CANDADO = "tienda.shard.";
+    private static final int ESPERA_CANDADO_S = 10;
+
+    public record Shard(String nombre, int indice, DataSource dataSource, JdbcTemplate jdbc, GeneradorIdShard ids) {
+    }
+
+    /** Ubicación registrada de un cliente; {@code destino} no es nulo mientras se está moviendo. */
+    record Ubicacion(String shard, String destino) {
+    }
+
+    private final JdbcTemplate principal;
+    private final BusInvalidacion bus;
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+    private final AnilloConsistente anillo;
+    private final AnilloConsistente anterior;
+    private final Map<Long, String> ubicaciones = new ConcurrentHashMap<>();
+    /** Clientes con un movimiento en curso: se resuelven contra la base principal. */
+    private final Set<Long> enMovimiento = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock[] franjas = new ReadWriteLock[FRANJAS];
+    private boolean candadoGlobal;
+
+    public EnrutadorShards(JdbcTemplate principal, Map<String, DataSource> dataSources, int nodosVirtuales,
+                           int instancia, List<String> anilloAnterior) {
+        this(principal, dataSources, nodosVirtuales, instancia, anilloAnterior, null);
+    }
+
+    public EnrutadorShards(JdbcTemplate principal, Map<String, DataSource> dataSources, int nodosVirtuales,
+                           int instancia, List<String> anilloAnterior, BusInvalidacion bus) {
+        if (dataSources.size() > GeneradorIdShard.MAX_SHARDS) {
+            throw new IllegalArgumentException("Máximo " + GeneradorIdShard.MAX_SHARDS + " shards");
+        }
+        this.principal = principal;
+        this.bus = bus;
+        int i = 0;
+        for (Map.Entry<String, DataSource> e : dataSources.entrySet()) {
+            shards.put(e.getKey(), new Shard(e.getKey(), i, e.getValue(), new JdbcTemplate(e.getValue()),
+                    new GeneradorIdShard(instancia, i)));
+            i++;
+        }
+        this.anillo = new AnilloConsistente(new ArrayList<>(shards.keySet()), nodosVirtuales);
+        for (String s : anilloAnterior) {
+            shard(s);
+        }
+        this.anterior = anilloAnterior.isEmpty() ? null : new AnilloConsistente(anilloAnterior, nodosVirtuales);
+        for (int f = 0; f < FRANJAS; f++) {
+            franjas[f] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /** Aplica {@code db/shard} en cada shard, carga las ubicaciones explícitas y se suscribe a sus cambios. */
+    public void iniciar() {
+        for (Shard s : shards.values()) {
+            Flyway.configure()
+                    .dataSource(s.dataSource())
+                    .locations("classpath:db/shard")
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+        }
+        String motor = principal.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        candadoGlobal = motor != null && (motor.contains("MySQL") || motor.contains("MariaDB"));
+        recargar();
+        if (bus != null) {
+            bus.suscribir(TipoEntidad.UBICACION_SHARD, this::recargar);
+            bus.alResincronizar(this::recargar);
+        }
+        log.info("Sharding: {} shards {}, {} clientes con ubicación explícita{}{}", shards.size(), shards.keySet(),
+                ubicaciones.size(), anterior != null ? ", en transición desde el anillo anterior" : "",
+                candadoGlobal ? "" : "; sin GET_LOCK en " + motor + ", los movimientos solo se coordinan en esta instancia");
+    }
+
+    /** Vuelve a leer {@code cliente_shard} después de reemplazarla por fuera, como al restaurar un volcado. */
+    public void recargarUbicaciones() {
+        recargar();
+    }
+
+    /** Vuelve a leer toda la tabla (al arrancar y cuando el bus recupera la sincronía). */
+    private void recargar() {
+        Map<Long, String> leidas = new HashMap<>();
+        Set<Long> moviendo = new HashSet<>();
+        principal.query(SQL_UBICACIONES, rs -> {
+            leidas.put(rs.getLong(1), rs.getString(2));
+            if (rs.getString(3) != null) {
+                moviendo.add(rs.getLong(1));
+            }
+        });
+        ubicaciones.keySet().retainAll(leidas.keySet());
+        ubicaciones.putAll(leidas);
+        enMovimiento.retainAll(moviendo);
+        enMovimiento.addAll(moviendo);
+    }
+
+    /** Oyente de {@link TipoEntidad#UBICACION_SHARD}: relee la fila del cliente. */
+    private void recargar(long clienteId) {
+        try {
+            principal.query(SQL_UBICACION, (ResultSetExtractor<Void>) rs -> {
+                recordar(clienteId, rs.next() ? new Ubicacion(rs.getString(1), rs.getString(2)) : null);
+                return null;
+            }, clienteId);
+        } catch (DataAccessException e) {
+            // sin la fila no se sabe dónde está: que las operaciones la lean bajo el candado
+            enMovimiento.add(clienteId);
+            log.warn("Sharding: no se pudo releer la ubicación del cliente {}: {}", clienteId, e.getMessage());
+        }
+    }
+
+    private void recordar(long clienteId, Ubicacion fila) {
+        if (fila == null) {
+            ubicaciones.remove(clienteId);
+            enMovimiento.remove(clienteId);
+            return;
+        }
+        ubicaciones.put(clienteId, fila.shard());
+        if (fila.destino() != null) {
+            enMovimiento.add(clienteId);
+        } else {
+            enMovimiento.remove(clienteId);
+        }
+    }
+
+    /**
+     * Ejecuta una operación sobre el shard del cliente con su candado de lectura. Si el cliente se está
+     * moviendo o el bus no está sincronizado, la ubicación se lee de {@code cliente_shard} con el candado
+     * {@code GET_LOCK} del cliente tomado durante toda la operación.
+     */
+    public <T> T conCliente(long clienteId, Function<Shard, T> operacion) {
+        Lock lock = bloqueo(clienteId).readLock();
+        lock.lock();
+        try {
+            if (!enMovimiento.contains(clienteId) && (bus == null || bus.sincronizado())) {
+                return operacion.apply(shardDe(clienteId));
+            }
+            return conCandadoGlobal(clienteId, u -> operacion.apply(shard(u.shard())));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Con el candado de escritura local y el {@code GET_LOCK} del cliente: excluye toda operación sobre él. */
+    <T> T conClienteExclusivo(long clienteId, Function<Ubicacion, T> accion) {
+        Lock lock = bloqueo(clienteId).writeLock();
+        lock.lock();
+        try {
+            return conCandadoGlobal(clienteId, accion);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Toma {@code GET_LOCK} en una conexión de la base principal y lee la fila del cliente en esa misma conexión. */
+    private <T> T conCandadoGlobal(long clienteId, Function<Ubicacion, T> accion) {
+        return principal.execute((ConnectionCallback<T>) con -> {
+            String nombre = CANDADO + clienteId;
+            if (candadoGlobal) {
+                try (PreparedStatement ps = con.prepareStatement("select get_lock(?, ?)")) {
+                    ps.setString(1, nombre);
+                    ps.setInt(2, ESPERA_CANDADO_S);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next() || rs.getInt(1) != 1) {
+                            throw new IllegalStateException("No se obtuvo el candado del cliente " + clienteId
+                                    + " en " + ESPERA_CANDADO_S + " s");
+                        }
+                    }
+                }
+            }
+            try {
+                Ubicacion fila = null;
+                try (PreparedStatement ps = con.prepareStatement(SQL_UBICACION)) {
+                    ps.setLong(1, clienteId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            fila = new Ubicacion(rs.getString(1), rs.getString(2));
+                        }
+                    }
+                }
+                recordar(clienteId, fila);
+                return accion.apply(fila != null ? fila : new Ubicacion(porAnillo(clienteId), null));
+            } finally {
+                if (candadoGlobal) {
+                    try (PreparedStatement ps = con.prepareStatement("select release_lock(?)")) {
+                        ps.setString(1, nombre);
+                        ps.execute();
+                    }
+                }
+            }
+        });
+    }
+
+    public Shard shardDe(long clienteId) {
+        return shards.get(ubicacion(clienteId));
+    }
+
+    public String ubicacion(long clienteId) {
+        String explicita = ubicaciones.get(clienteId);
+        return explicita != null ? explicita : porAnillo(clienteId);
+    }
+
+    private String porAnillo(long clienteId) {
+        return anterior != null ? anterior.shardDe(clienteId) : anillo.shardDe(clienteId);
+    }
+
+    /** Shard que el anillo actual asigna al cliente (a donde lo lleva el rebalanceo). */
+    public String destino(long clienteId) {
+        return anillo.shardDe(clienteId);
+    }
+
+    public boolean enTransicion() {
+        return anterior != null;
+    }
+
+    /**
+     * Marca el inicio de un movimiento hacia {@code destino} y lo publica. Devuelve el shard de origen
+     * registrado; falla si el cliente ya se está moviendo.
+     */
+    String marcarMovimiento(long clienteId, String destino) {
+        shard(destino);
+        Ubicacion actual = principal.query(SQL_UBICACION, (ResultSetExtractor<Ubicacion>) rs -> rs.next()
+                ? new Ubicacion(rs.getString(1), rs.getString(2)) : null, clienteId);
+        String origen;
+        if (actual == null) {
+            origen = porAnillo(clienteId);
+            principal.update("insert into cliente_shard (cliente_id, shard, destino) values (?, ?, ?)",
+                    clienteId, origen, destino);
+        } else {
+            origen = actual.shard();
+            if (actual.destino() != null || principal.update("update cliente_shard set destino = ?,"
+                    + " actualizado = current_timestamp where cliente_id = ? and destino is null", destino, clienteId) == 0) {
+                throw new IllegalStateException("El cliente " + clienteId + " ya se está moviendo a "
+                        + (actual.destino() != null ? actual.destino() : "otro shard"));
+            }
+        }
+        ubicaciones.put(clienteId, origen);
+        enMovimiento.add(clienteId);
+        publicar(clienteId);
+        return origen;
+    }
+
+    /** Deshace la marca de un movimiento que falló antes de cambiar la ubicación: el cliente sigue en el origen. */
+    void cancelarMovimiento(long clienteId, String destino) {
+        if (principal.update("update cliente_shard set destino = null, actualizado = current_timestamp"
+                + " where cliente_id = ? and destino = ?", clienteId, destino) > 0) {
+            enMovimiento.remove(clienteId);
+            publicar(clienteId);
+        }
+    }
+
+    /** Registra dónde quedaron las cotizaciones del cliente (en la base principal y en memoria) y lo publica. */
+    void fijarUbicacion(long clienteId, String shard) {
+        if (principal.update("update cliente_shard set shard = ?, destino = null, actualizado = current_timestamp"
+                + " where cliente_id = ?", shard, clienteId) == 0) {
+            principal.update("insert into cliente_shard (cliente_id, shard) values (?, ?)", clienteId, shard);
+        }
+        ubicaciones.put(clienteId, shard);
+        enMovimiento.remove(clienteId);
+        publicar(clienteId);
+    }
+
+    private void publicar(long clienteId) {
+        if (bus != null) {
+            bus.publicar(TipoEntidad.UBICACION_SHARD, clienteId);
+        }
+    }
+
+    public Shard shard(String nombre) {
+        Shard s = shards.get(nombre);
+        if (s == null) {
+            throw new IllegalArgumentException("Shard desconocido: " + nombre + ". Disponibles: " + shards.keySet());
+        }
+        return s;
+    }
+
+    public Collection<Shard> shards() {
+        return shards.values();
+    }
+
+    public ReadWriteLock bloqueo(long clienteId) {
+        return franjas[(int) (AnilloConsistente.mezclar(clienteId) & (FRANJAS - 1))];
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Shard s : shards.values()) {
+            if (s.dataSource() instanceof AutoCloseable c) {
+                c.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tienda.sharding;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids de 63 bits al estilo Snowflake, únicos entre shards e instancias sin coordinación:
+ * <pre>
+ * | 41 bits: ms desde 2024-01-01 | 5 bits: instancia | 5 bits: shard | 12 bits: secuencia |
+ * </pre>
+ * Crecen con el tiempo (los índices por id siguen insertando al final) y el shard de origen
+ * se puede leer del id, aunque después el cliente se mueva a otro shard.
+ */
+public final class GeneradorIdShard {
+
+    static final long EPOCA = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    private static final int BITS_SECUENCIA = 12;
+    private static final int BITS_SHARD = 5;
+    private static final int BITS_INSTANCIA = 5;
+    private static final long MAX_SECUENCIA = (1L << BITS_SECUENCIA) - 1;
+    public static final int MAX_SHARDS = 1 << BITS_SHARD;
+    public static final int MAX_INSTANCIAS = 1 << BITS_INSTANCIA;
+
+    private final long nodo;
+    /** {@code ms << 12 | secuencia} del último id emitido. */
+    private final AtomicLong ultimo = new AtomicLong();
+
+    public GeneradorIdShard(int instancia, int shard) {
+        if (instancia < 0 || instancia >= MAX_INSTANCIAS) {
+            throw new IllegalArgumentException("instancia debe estar entre 0 y " + (MAX_INSTANCIAS - 1));
+        }
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("shard debe estar entre 0 y " + (MAX_SHARDS - 1));
+        }
+        this.nodo = ((long) instancia << BITS_SHARD) | shard;
+    }
+
+    public long siguiente() {
+        while (true) {
+            long previo = ultimo.get();
+            long ms = System.currentTimeMillis() - EPOCA;
+            long msPrevio = previo >>> BITS_SECUENCIA;
+            long nuevo;
+            if (ms > msPrevio) {
+                nuevo = ms << BITS_SECUENCIA;
+            } else if ((previo & MAX_SECUENCIA) < MAX_SECUENCIA) {
+                // mismo ms (o reloj atrasado): se sigue la secuencia del último ms emitido
+                nuevo = previo + 1;
+            } else {
+                // secuencia agotada: se toma prestado el ms siguiente
+                nuevo = (msPrevio + 1) << BITS_SECUENCIA;
+            }
+            if (ultimo.compareAndSet(previo, nuevo)) {
+                long msId = nuevo >>> BITS_SECUENCIA;
+                return (msId << (BITS_SECUENCIA + BITS_SHARD + BITS_INSTANCIA))
+                        | (nodo << BITS_SECUENCIA)
+                        | (nuevo & MAX_SECUENCIA);
+            }
+        }
+    }
+
+    public static int shardDe(long id) {
+        return (int) ((id >>> BITS_SECUENCIA) & (MAX_SHARDS - 1));
+    }
+
+    public static int instanciaDe(long id) {
+        return (int) ((id >>> (BITS_SECUENCIA + BITS_SHARD)) & (MAX_INSTANCIAS - 1));
+    }
+}
@@ -0,0 +1,298 @@
+package com.tienda.sharding;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.dto.MovimientoShardResponse;
+import com.tienda.dto.RebalanceoResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mueve las cotizaciones de un cliente entre shards sin detener el tráfico:
+ * <ol>
+ *   <li>marca el movimiento en {@code cliente_shard} y espera {@code espera-propagacion-ms} a que todas las
+ *   réplicas lo vean; desde ahí cada operación sobre el cliente toma su candado {@code GET_LOCK};</li>
+ *   <li>borra en el destino restos de un intento anterior (el destino todavía no es la ubicación válida);</li>
+ *   <li>copia las filas por lotes mientras el cliente sigue leyendo y escribiendo en el origen;</li>
+ *   <li>con el candado exclusivo del cliente: copia lo insertado desde el paso 3, reaplica los campos
+ *   modificables de lo ya copiado, registra la nueva ubicación y borra el origen.</li>
+ * </ol>
+ * Solo el paso 4 bloquea al cliente y su costo es una pasada sobre sus propias filas. Si algo falla antes
+ * de registrar la ubicación, se quita la marca y el cliente sigue en el origen.
+ * {@link #iniciar()} recorre todos los shards y lleva cada cliente al shard que le asigna el anillo actual.
+ */
+@Slf4j
+public class RebalanceadorShards implements AutoCloseable {
+
+    private static final int LOTE = 1000;
+    private static final int LOTE_LINEAS = 5000;
+    private static final String SQL_FILAS = "select " + CotizacionShardRepository.COLUMNAS
+            + " from cotizacion where cliente_id = ? and id > ? order by id limit ?";
+    private static final String SQL_ACTUALIZAR =
+            "update cotizacion set total = ?, estado = ?, salesforce_quote_id = ?, salesforce_estado_at = ? where id = ?";
+    private static final String SQL_LINEAS = "select l.cotizacion_id, l.linea, l.producto, l.cantidad,"
+            + " l.precio_unitario from cotizacion_linea l join cotizacion c on c.id = l.cotizacion_id"
+            + " where c.cliente_id = ? and c.id between ? and ? order by l.cotizacion_id, l.linea";
+    /** Las líneas se borran en cascada ({@code fk_linea_cotizacion}). */
+    private static final String SQL_BORRAR = "delete from cotizacion where cliente_id = ?";
+    private static final String SQL_CLIENTES =
+            "select distinct cliente_id from cotizacion where cliente_id > ? order by cliente_id limit ?";
+
+    private final EnrutadorShards enrutador;
+    private final long esperaPropagacionMs;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("rebalanceo-shards"));
+    private final AtomicBoolean corriendo = new AtomicBoolean();
+    private final AtomicReference<RebalanceoResponse> ultimo =
+            new AtomicReference<>(RebalanceoResponse.builder().estado("NUNCA_EJECUTADO").build());
+
+    /** Con una sola instancia: no hay otras réplicas a las que esperar. */
+    public RebalanceadorShards(EnrutadorShards enrutador) {
+        this(enrutador, 0);
+    }
+
+    public RebalanceadorShards(EnrutadorShards enrutador, long esperaPropagacionMs) {
+        this.enrutador = enrutador;
+        this.esperaPropagacionMs = esperaPropagacionMs;
+    }
+
+    public MovimientoShardResponse moverCliente(long clienteId, String destino) {
+        EnrutadorShards.Shard dest = enrutador.shard(destino);
+        if (enrutador.shardDe(clienteId) == dest) {
+            return MovimientoShardResponse.builder()
+                    .clienteId(clienteId).origen(destino).destino(destino).build();
+        }
+        EnrutadorShards.Shard origen = enrutador.shard(enrutador.marcarMovimiento(clienteId, destino));
+        esperarPropagacion();
+        return mover(clienteId, origen, dest);
+    }
+
+    /** Mueve un cliente ya marcado con {@link EnrutadorShards#marcarMovimiento} cuya marca ya se propagó. */
+    private MovimientoShardResponse mover(long clienteId, EnrutadorShards.Shard origen, EnrutadorShards.Shard dest) {
+        long filas;
+        long bloqueoMs;
+        try {
+            if (origen == dest) {
+                filas = 0;
+                bloqueoMs = 0;
+                enrutador.fijarUbicacion(clienteId, dest.nombre());
+            } else {
+                dest.jdbc().update(SQL_BORRAR, clienteId);
+                long maxCopiado = copiar(origen, dest, clienteId, Long.MIN_VALUE, Long.MIN_VALUE)[1];
+
+                long[] bloqueo = new long[2];
+                enrutador.conClienteExclusivo(clienteId, u -> {
+                    long t0 = System.nanoTime();
+                    if (!origen.nombre().equals(u.shard()) || !dest.nombre().equals(u.destino())) {
+                        throw new IllegalStateException("El cliente " + clienteId
+                                + " cambió de shard durante el movimiento");
+                    }
+                    bloqueo[0] = copiar(origen, dest, clienteId, Long.MIN_VALUE, maxCopiado)[0];
+                    enrutador.fijarUbicacion(clienteId, dest.nombre());
+                    origen.jdbc().update(SQL_BORRAR, clienteId);
+                    bloqueo[1] = (System.nanoTime() - t0) / 1_000_000;
+                    return null;
+                });
+                filas = bloqueo[0];
+                bloqueoMs = bloqueo[1];
+            }
+        } catch (RuntimeException e) {
+            enrutador.cancelarMovimiento(clienteId, dest.nombre());
+            throw e;
+        }
+        log.info("Cliente {} movido de {} a {}: {} cotizaciones, {} ms bloqueado",
+                clienteId, origen.nombre(), dest.nombre(), filas, bloqueoMs);
+        return MovimientoShardResponse.builder()
+                .clienteId(clienteId)
+                .origen(origen.nombre())
+                .destino(dest.nombre())
+                .filas(filas)
+                .bloqueoMs(bloqueoMs)
+                .build();
+    }
+
+    /** Las réplicas que no vieron la marca todavía usan la ubicación en memoria, sin el candado del cliente. */
+    private void esperarPropagacion() {
+        if (esperaPropagacionMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(esperaPropagacionMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Movimiento interrumpido mientras se propagaba la marca", e);
+        }
+    }
+
+    /**
+     * Recorre las filas del cliente en el origen con id mayor a {@code desde}. Las de id hasta
+     * {@code yaCopiado} se actualizan en el destino y las demás se insertan.
+     * Devuelve {@code {filas leídas, mayor id leído}}.
+     */
+    private static long[] copiar(EnrutadorShards.Shard origen, EnrutadorShards.Shard dest, long clienteId,
+                                 long desde, long yaCopiado) {
+        long filas = 0;
+        long ultimoId = desde;
+        while (true) {
+            List<Object[]> inserts = new ArrayList<>(LOTE);
+            List<Object[]> updates = new ArrayList<>();
+            origen.jdbc().query(SQL_FILAS, rs -> {
+                long id = rs.getLong(1);
+                if (id <= yaCopiado) {
+                    updates.add(new Object[]{rs.getBigDecimal(3), rs.getString(4), rs.getString(5),
+                            rs.getTimestamp(7), id});
+                } else {
+                    inserts.add(new Object[]{id, rs.getLong(2), rs.getBigDecimal(3), rs.getString(4),
+                            rs.getString(5), rs.getTimestamp(6), rs.getTimestamp(7)});
+                }
+            }, clienteId, ultimoId, LOTE);
+            int leidas = inserts.size() + updates.size();
+            if (leidas == 0) {
+                break;
+            }
+            if (!inserts.isEmpty()) {
+                dest.jdbc().batchUpdate(CotizacionShardRepository.SQL_INSERT, inserts);
+                long ultimoInsertado = (long) inserts.get(inserts.size() - 1)[0];
+                copiarLineas(origen, dest, clienteId, (long) inserts.get(0)[0], ultimoInsertado);
+                ultimoId = Math.max(ultimoId, ultimoInsertado);
+            }
+            if (!updates.isEmpty()) {
+                dest.jdbc().batchUpdate(SQL_ACTUALIZAR, updates);
+                ultimoId = Math.max(ultimoId, (long) updates.get(updates.size() - 1)[4]);
+            }
+            filas += leidas;
+            if (leidas < LOTE) {
+                break;
+            }
+        }
+        return new long[]{filas, ultimoId};
+    }
+
+    /**
+     * Copia las líneas de las cotizaciones del cliente con id en {@code [desde, hasta]}, que se acaban de
+     * insertar en el destino. Las líneas no cambian después de creadas, así que las cotizaciones que solo
+     * se actualizan no necesitan recopiarlas.
+     */
+    private static void copiarLineas(EnrutadorShards.Shard origen, EnrutadorShards.Shard dest, long clienteId,
+                                     long desde, long hasta) {
+        List<Object[]> lote = new ArrayList<>(LOTE_LINEAS);
+        origen.jdbc().query(SQL_LINEAS, rs -> {
+            lote.add(new Object[]{rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getInt(4), rs.getBigDecimal(5)});
+            if (lote.size() == LOTE_LINEAS) {
+                dest.jdbc().batchUpdate(CotizacionShardRepository.SQL_INSERT_LINEA, lote);
+                lote.clear();
+            }
+        }, clienteId, desde, hasta);
+        if (!lote.isEmpty()) {
+            dest.jdbc().batchUpdate(CotizacionShardRepository.SQL_INSERT_LINEA, lote);
+        }
+    }
+
+    /** Lanza el rebalanceo completo en segundo plano. Devuelve {@code false} si ya hay uno en curso. */
+    public boolean iniciar() {
+        if (!corriendo.compareAndSet(false, true)) {
+            return false;
+        }
+        ultimo.set(RebalanceoResponse.builder().estado("EN_CURSO").iniciado(LocalDateTime.now()).build());
+        ejecutor.submit(() -> {
+            try {
+                ultimo.set(rebalancear());
+            } catch (RuntimeException e) {
+                log.error("Falló el rebalanceo de shards", e);
+                ultimo.set(ultimo.get().toBuilder()
+                        .estado("ERROR")
+                        .finalizado(LocalDateTime.now())
+                        .error(e.getMessage())
+                        .build());
+            } finally {
+                corriendo.set(false);
+            }
+        });
+        return true;
+    }
+
+    public RebalanceoResponse estado() {
+        return ultimo.get();
+    }
+
+    RebalanceoResponse rebalancear() {
+        RebalanceoResponse.RebalanceoResponseBuilder r = ultimo.get().toBuilder();
+        long revisados = 0;
+        long movidos = 0;
+        long filas = 0;
+        long restos = 0;
+        long maxBloqueo = 0;
+        for (EnrutadorShards.Shard shard : enrutador.shards()) {
+            long desde = Long.MIN_VALUE;
+            while (true) {
+                List<Long> clientes = shard.jdbc().queryForList(SQL_CLIENTES, Long.class, desde, LOTE);
+                // se marca toda la página y se espera una sola vez la propagación
+                Map<Long, EnrutadorShards.Shard> marcados = new LinkedHashMap<>();
+                for (long clienteId : clientes) {
+                    revisados++;
+                    if (!shard.nombre().equals(enrutador.ubicacion(clienteId))) {
+                        restos += borrarRestos(shard, clienteId);
+                    } else if (!shard.nombre().equals(enrutador.destino(clienteId))) {
+                        try {
+                            marcados.put(clienteId, enrutador.shard(
+                                    enrutador.marcarMovimiento(clienteId, enrutador.destino(clienteId))));
+                        } catch (IllegalStateException e) {
+                            log.warn("Rebalanceo: se salta el cliente {}: {}", clienteId, e.getMessage());
+                        }
+                    }
+                }
+                if (!marcados.isEmpty()) {
+                    esperarPropagacion();
+                }
+                for (Map.Entry<Long, EnrutadorShards.Shard> m : marcados.entrySet()) {
+                    long clienteId = m.getKey();
+                    MovimientoShardResponse mov = mover(clienteId, m.getValue(),
+                            enrutador.shard(enrutador.destino(clienteId)));
+                    movidos++;
+                    filas += mov.getFilas();
+                    maxBloqueo = Math.max(maxBloqueo, mov.getBloqueoMs());
+                }
+                if (clientes.size() < LOTE) {
+                    break;
+                }
+                desde = clientes.get(clientes.size() - 1);
+            }
+        }
+        log.info("Rebalanceo: {} clientes revisados, {} movidos ({} filas), {} restos eliminados",
+                revisados, movidos, filas, restos);
+        return r.estado("COMPLETADO")
+                .finalizado(LocalDateTime.now())
+                .clientesRevisados(revisados)
+                .clientesMovidos(movidos)
+                .filasMovidas(filas)
+                .restosEliminados(restos)
+                .maxBloqueoMs(maxBloqueo)
+                .build();
+    }
+
+    /**
+     * Filas de un cliente en un shard que no es su ubicación: quedaron de un movimiento interrumpido.
+     * La ubicación se vuelve a leer de {@code cliente_shard} con el candado exclusivo: la memoria de esta
+     * réplica puede estar atrasada, y las filas de un movimiento en curso (de otra réplica) no son restos.
+     */
+    private long borrarRestos(EnrutadorShards.Shard shard, long clienteId) {
+        return enrutador.conClienteExclusivo(clienteId, u -> {
+            if (shard.nombre().equals(u.shard()) || u.destino() != null) {
+                return 0L;
+            }
+            return (long) shard.jdbc().update(SQL_BORRAR, clienteId);
+        });
+    }
+
+    @Override
+    public void close() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,50 @@
+package com.tienda.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Particionado de {@code cotizacion} por {@code cliente_id} ({@code tienda.sharding.*}).
+ * El orden de {@link #shards} fija el índice de cada shard en los ids generados: solo se agregan al final.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tienda.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    /** Número de esta instancia de la aplicación (0-31); dos instancias nunca deben compartirlo. */
+    private int instancia = 0;
+
+    /** Puntos por shard en el anillo; más puntos, reparto más parejo. */
+    private int nodosVirtuales = 160;
+
+    /**
+     * Cuánto espera un movimiento entre marcar al cliente y empezar a copiar, para que todas las réplicas
+     * lean la marca por el bus de invalidación. Debe superar {@code tienda.invalidacion.max-desfase-ms}.
+     */
+    private long esperaPropagacionMs = 6000;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * Shards del anillo antes de agregar o quitar uno. Mientras esté definido, los clientes que el
+     * rebalanceo todavía no movió se siguen buscando donde estaban.
+     */
+    private List<String> anilloAnterior = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String nombre;
+        private String url;
+        private String username;
+        private String password;
+        private int maxPool = 10;
+    }
+}
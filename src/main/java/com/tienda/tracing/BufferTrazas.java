@@ -0,0 +1,55 @@
+package com.tienda.tracing;
+
+import com.tienda.dto.TrazaResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Anillo de las últimas trazas lentas. Escribir es un {@code getAndIncrement} y un {@code set};
+ * cuando se llena, las más viejas se sobrescriben.
+ */
+@Component
+public class BufferTrazas {
+
+    private final AtomicReferenceArray<TrazaResponse> anillo;
+    private final AtomicLong escritas = new AtomicLong();
+    private final long umbralNanos;
+
+    public BufferTrazas(@Value("${tienda.trazas.capacidad:200}") int capacidad,
+                        @Value("${tienda.trazas.umbral-ms:500}") long umbralMs) {
+        this.anillo = new AtomicReferenceArray<>(Math.max(1, capacidad));
+        this.umbralNanos = umbralMs * 1_000_000;
+    }
+
+    public boolean esLenta(long totalNanos) {
+        return totalNanos >= umbralNanos;
+    }
+
+    public void agregar(TrazaResponse traza) {
+        long n = escritas.getAndIncrement();
+        anillo.set((int) (n % anillo.length()), traza);
+    }
+
+    /** Trazas guardadas, de la más reciente a la más antigua. */
+    public List<TrazaResponse> recientes(int limite) {
+        long n = escritas.get();
+        int disponibles = (int) Math.min(n, anillo.length());
+        List<TrazaResponse> out = new ArrayList<>(Math.min(limite, disponibles));
+        for (long i = n - 1; i >= n - disponibles && out.size() < limite; i--) {
+            TrazaResponse t = anillo.get((int) (i % anillo.length()));
+            if (t != null) {
+                out.add(t);
+            }
+        }
+        return out;
+    }
+
+    public long totalRegistradas() {
+        return escritas.get();
+    }
+}
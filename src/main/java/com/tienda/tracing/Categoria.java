@@ -0,0 +1,20 @@
+package com.tienda.tracing;
+
+/** Capas de una traza; {@link #clave} es el nombre de la métrica en {@code Server-Timing}. */
+public enum Categoria {
+    CONTROLADOR("ctrl"),
+    SERVICIO("svc"),
+    REPOSITORIO("repo"),
+    CONEXION("db-conn"),
+    JSON("json");
+
+    private final String clave;
+
+    Categoria(String clave) {
+        this.clave = clave;
+    }
+
+    public String clave() {
+        return clave;
+    }
+}
@@ -0,0 +1,36 @@
+package com.tienda.tracing;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Último punto antes de serializar el cuerpo: cierra el span del controlador, escribe
+ * {@code Server-Timing} (las cabeceras ya no se pueden cambiar una vez que empieza el cuerpo)
+ * y abre el span de serialización, que {@link TrazaFilter} cierra al terminar la request.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        Traza traza = Traza.actual();
+        if (traza != null) {
+            traza.cerrarUltimo(Categoria.CONTROLADOR);
+            response.getHeaders().set(TrazaFilter.CABECERA, traza.serverTiming());
+            traza.abrir(Categoria.JSON, selectedConverterType.getSimpleName());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,159 @@
+package com.tienda.tracing;
+
+import com.tienda.dto.TrazaResponse;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spans de una sola request, guardados en arreglos paralelos preasignados: abrir y cerrar un span
+ * son dos {@code System.nanoTime()} y unas escrituras en arreglos, sin asignar objetos.
+ * La etiqueta se guarda tal cual ({@link Method}, {@link String}) y solo se convierte a texto si la
+ * traza termina en el buffer de trazas lentas.
+ * <p>
+ * No es thread-safe: vive en un {@link ThreadLocal} mientras dura la request.
+ */
+public final class Traza {
+
+    private static final ThreadLocal<Traza> ACTUAL = new ThreadLocal<>();
+    static final int MAX_SPANS = 128;
+
+    private final long inicio = System.nanoTime();
+    private final Instant inicioReloj = Instant.now();
+    private final Object[] etiquetas = new Object[MAX_SPANS];
+    private final byte[] categorias = new byte[MAX_SPANS];
+    private final byte[] profundidades = new byte[MAX_SPANS];
+    private final long[] inicios = new long[MAX_SPANS];
+    private final long[] duraciones = new long[MAX_SPANS];
+    private final int[] abiertosPorCategoria = new int[Categoria.values().length];
+    private final long[] totalPorCategoria = new long[Categoria.values().length];
+    private final int[] conteoPorCategoria = new int[Categoria.values().length];
+    private int spans;
+    private int profundidad;
+    private int descartados;
+
+    public static Traza iniciar() {
+        Traza t = new Traza();
+        ACTUAL.set(t);
+        return t;
+    }
+
+    /** Traza de la request en curso, o {@code null} si el hilo no está trazando. */
+    public static Traza actual() {
+        return ACTUAL.get();
+    }
+
+    public static void terminar() {
+        ACTUAL.remove();
+    }
+
+    /** Abre un span y devuelve su índice, o {@code -1} si se agotó el espacio. */
+    public int abrir(Categoria categoria, Object etiqueta) {
+        int c = categoria.ordinal();
+        abiertosPorCategoria[c]++;
+        profundidad++;
+        if (spans == MAX_SPANS) {
+            descartados++;
+            return -1 - c;
+        }
+        int i = spans++;
+        etiquetas[i] = etiqueta;
+        categorias[i] = (byte) c;
+        profundidades[i] = (byte) Math.min(profundidad - 1, Byte.MAX_VALUE);
+        duraciones[i] = -1;
+        inicios[i] = System.nanoTime();
+        return i;
+    }
+
+    public void cerrar(int span) {
+        long fin = System.nanoTime();
+        profundidad--;
+        if (span < 0) {
+            // sin espacio para el span: igual se descuenta la categoría abierta
+            abiertosPorCategoria[-1 - span]--;
+            return;
+        }
+        long d = fin - inicios[span];
+        duraciones[span] = d;
+        int c = categorias[span];
+        // solo el span más externo de cada categoría suma, para no contar dos veces llamadas anidadas
+        if (--abiertosPorCategoria[c] == 0) {
+            totalPorCategoria[c] += d;
+        }
+        conteoPorCategoria[c]++;
+    }
+
+    /** Cierra el último span abierto de la categoría, si lo hay. */
+    public void cerrarUltimo(Categoria categoria) {
+        for (int i = spans - 1; i >= 0; i--) {
+            if (categorias[i] == categoria.ordinal() && duraciones[i] < 0) {
+                cerrar(i);
+                return;
+            }
+        }
+    }
+
+    public long transcurridoNanos() {
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Valor de la cabecera {@code Server-Timing}, p. ej.
+     * {@code ctrl;dur=12.4, svc;dur=11.9, repo;dur=8.1;desc="3", db-conn;dur=0.2, app;dur=12.6}.
+     */
+    public String serverTiming() {
+        StringBuilder sb = new StringBuilder(128);
+        for (Categoria cat : Categoria.values()) {
+            int c = cat.ordinal();
+            if (conteoPorCategoria[c] == 0) {
+                continue;
+            }
+            sb.append(cat.clave()).append(";dur=");
+            ms(totalPorCategoria[c], sb);
+            if (conteoPorCategoria[c] > 1) {
+                sb.append(";desc=\"").append(conteoPorCategoria[c]).append('"');
+            }
+            sb.append(", ");
+        }
+        sb.append("app;dur=");
+        ms(transcurridoNanos(), sb);
+        return sb.toString();
+    }
+
+    TrazaResponse aRespuesta(String metodo, String uri, int status, long totalNanos) {
+        List<TrazaResponse.Span> lista = new ArrayList<>(spans);
+        Categoria[] cats = Categoria.values();
+        for (int i = 0; i < spans; i++) {
+            lista.add(TrazaResponse.Span.builder()
+                    .nombre(nombre(etiquetas[i]))
+                    .categoria(cats[categorias[i]].clave())
+                    .profundidad(profundidades[i])
+                    .inicioMs((inicios[i] - inicio) / 1e6)
+                    .duracionMs(duraciones[i] < 0 ? -1 : duraciones[i] / 1e6)
+                    .build());
+        }
+        return TrazaResponse.builder()
+                .inicio(inicioReloj)
+                .metodo(metodo)
+                .uri(uri)
+                .status(status)
+                .totalMs(totalNanos / 1e6)
+                .spansDescartados(descartados)
+                .spans(lista)
+                .build();
+    }
+
+    private static String nombre(Object etiqueta) {
+        if (etiqueta instanceof Method m) {
+            return m.getDeclaringClass().getSimpleName() + "." + m.getName();
+        }
+        return String.valueOf(etiqueta);
+    }
+
+    private static void ms(long nanos, StringBuilder sb) {
+        long decimas = (nanos + 50_000) / 100_000;
+        sb.append(decimas / 10).append('.').append(decimas % 10);
+    }
+}
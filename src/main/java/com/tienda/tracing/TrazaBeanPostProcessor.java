@@ -0,0 +1,77 @@
+package com.tienda.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+
+/**
+ * Agrega spans a los beans de la aplicación sin tocar su código:
+ * <ul>
+ *   <li>métodos públicos de los {@code @Service} de {@code com.tienda} y de todos los repositorios
+ *   de Spring Data, con un {@link MethodInterceptor} que se pone por delante de los advisors
+ *   existentes (el span del servicio incluye el commit de {@code @Transactional});</li>
+ *   <li>{@code getConnection()} del {@code DataSource} principal, envolviéndolo en {@link TrazaDataSource}.</li>
+ * </ul>
+ * Fuera de una request trazada el interceptor solo consulta el {@code ThreadLocal} y sigue.
+ */
+@Component
+public class TrazaBeanPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    static final String DATA_SOURCE_PRINCIPAL = "dataSource";
+    private static final String PAQUETE_APP = "com.tienda.";
+
+    public TrazaBeanPostProcessor() {
+        ClassFilter servicios = clazz -> clazz.getName().startsWith(PAQUETE_APP)
+                && AnnotatedElementUtils.hasAnnotation(clazz, Service.class);
+        ClassFilter repositorios = new RootClassFilter(Repository.class);
+        MethodMatcher propios = new StaticMethodMatcher() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return method.getDeclaringClass() != Object.class;
+            }
+        };
+        this.advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(servicios, propios).union(new ComposablePointcut(repositorios, propios)),
+                interceptor());
+        setBeforeExistingAdvisors(true);
+        // como Spring Boot: un proxy de interfaz no sirve para inyectar por clase ni para los @Scheduled
+        setProxyTargetClass(true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && DATA_SOURCE_PRINCIPAL.equals(beanName) && !(bean instanceof TrazaDataSource)) {
+            return new TrazaDataSource(ds);
+        }
+        return super.postProcessAfterInitialization(bean, beanName);
+    }
+
+    private static MethodInterceptor interceptor() {
+        return invocation -> {
+            Traza traza = Traza.actual();
+            if (traza == null) {
+                return invocation.proceed();
+            }
+            Categoria categoria = invocation.getThis() instanceof Repository<?, ?>
+                    ? Categoria.REPOSITORIO : Categoria.SERVICIO;
+            int span = traza.abrir(categoria, invocation.getMethod());
+            try {
+                return invocation.proceed();
+            } finally {
+                traza.cerrar(span);
+            }
+        };
+    }
+}
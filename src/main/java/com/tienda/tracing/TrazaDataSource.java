@@ -0,0 +1,45 @@
+package com.tienda.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/** Mide cuánto espera cada {@code getConnection()} por el pool (span {@code db-conn}). */
+public class TrazaDataSource extends DelegatingDataSource {
+
+    private static final String ETIQUETA = "getConnection";
+
+    public TrazaDataSource(DataSource destino) {
+        super(destino);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Traza traza = Traza.actual();
+        if (traza == null) {
+            return obtainTargetDataSource().getConnection();
+        }
+        int span = traza.abrir(Categoria.CONEXION, ETIQUETA);
+        try {
+            return obtainTargetDataSource().getConnection();
+        } finally {
+            traza.cerrar(span);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Traza traza = Traza.actual();
+        if (traza == null) {
+            return obtainTargetDataSource().getConnection(username, password);
+        }
+        int span = traza.abrir(Categoria.CONEXION, ETIQUETA);
+        try {
+            return obtainTargetDataSource().getConnection(username, password);
+        } finally {
+            traza.cerrar(span);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.tienda.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Abre la {@link Traza} de cada request a {@code /api/**} y la cierra al final.
+ * La cabecera {@code Server-Timing} la escribe {@link ServerTimingAdvice} antes de serializar el cuerpo;
+ * aquí solo se agrega si la respuesta no tuvo cuerpo y todavía no se envió.
+ * Si la request superó el umbral, la traza completa (incluida la serialización) va a {@link BufferTrazas}.
+ */
+@Component
+public class TrazaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "Server-Timing";
+
+    private final ObjectProvider<BufferTrazas> buffer;
+    private final boolean habilitado;
+
+    public TrazaFilter(ObjectProvider<BufferTrazas> buffer,
+                       @Value("${tienda.trazas.enabled:true}") boolean habilitado) {
+        this.buffer = buffer;
+        this.habilitado = habilitado;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Traza traza = Traza.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            traza.cerrarUltimo(Categoria.JSON);
+            traza.cerrarUltimo(Categoria.CONTROLADOR);
+            if (!response.isCommitted() && !response.containsHeader(CABECERA)) {
+                response.setHeader(CABECERA, traza.serverTiming());
+            }
+            long total = traza.transcurridoNanos();
+            BufferTrazas b = buffer.getIfAvailable();
+            if (b != null && b.esLenta(total)) {
+                b.agregar(traza.aRespuesta(request.getMethod(), request.getRequestURI(), response.getStatus(), total));
+            }
+            Traza.terminar();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tienda.tracing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/** Abre el span del método del controlador; lo cierra {@link ServerTimingAdvice} o {@link TrazaFilter}. */
+@Configuration
+public class TrazaWebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Traza traza = Traza.actual();
+                if (traza != null && handler instanceof HandlerMethod hm) {
+                    traza.abrir(Categoria.CONTROLADOR, hm.getMethod());
+                }
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
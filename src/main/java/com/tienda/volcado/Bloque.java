@@ -0,0 +1,40 @@
+package com.tienda.volcado;
+
+import java.util.List;
+
+/**
+ * Hasta {@code capacidad} filas de una tabla guardadas por columna: los números en {@code long[]} y los
+ * textos en {@code String[]}; las columnas numéricas opcionales marcan sus {@code null} en {@code nulos}.
+ * Se reutiliza bloque tras bloque, tanto al exportar como al restaurar.
+ */
+final class Bloque {
+
+    final List<TablaVolcado.Columna> columnas;
+    final long[][] numeros;
+    final String[][] textos;
+    final boolean[][] nulos;
+    final int capacidad;
+    int filas;
+
+    Bloque(List<TablaVolcado.Columna> columnas, int capacidad) {
+        this.columnas = columnas;
+        this.capacidad = capacidad;
+        this.numeros = new long[columnas.size()][];
+        this.textos = new String[columnas.size()][];
+        this.nulos = new boolean[columnas.size()][];
+        for (int c = 0; c < columnas.size(); c++) {
+            if (columnas.get(c).tipo() == TipoColumna.TEXTO) {
+                textos[c] = new String[capacidad];
+            } else {
+                numeros[c] = new long[capacidad];
+            }
+            if (columnas.get(c).tipo().opcional()) {
+                nulos[c] = new boolean[capacidad];
+            }
+        }
+    }
+
+    boolean lleno() {
+        return filas == capacidad;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tienda.volcado;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/** Escribe un archivo de volcado (ver {@link FormatoVolcado}); {@link #terminar()} lo deja completo y en disco. */
+final class EscritorVolcado implements Closeable {
+
+    private final FileChannel canal;
+    private final DataOutputStream out;
+    private final Deflater deflater;
+    private final CRC32C crc = new CRC32C();
+    private final FormatoVolcado.Salida datos = new FormatoVolcado.Salida();
+    private byte[] comprimido = new byte[1 << 16];
+    private long filas;
+
+    EscritorVolcado(Path archivo, TablaVolcado tabla, long desde, long hasta, int nivelCompresion) throws IOException {
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16));
+        deflater = new Deflater(nivelCompresion);
+        out.writeLong(FormatoVolcado.MAGIA);
+        out.writeInt(FormatoVolcado.VERSION);
+        out.writeUTF(tabla.nombre());
+        out.writeLong(desde);
+        out.writeLong(hasta);
+        out.writeInt(tabla.columnas().size());
+        for (TablaVolcado.Columna c : tabla.columnas()) {
+            out.writeUTF(c.nombre());
+            out.writeByte(c.tipo().ordinal());
+        }
+    }
+
+    void escribir(Bloque b) throws IOException {
+        if (b.filas == 0) {
+            return;
+        }
+        FormatoVolcado.codificar(b, datos);
+        crc.reset();
+        crc.update(datos.buf, 0, datos.largo);
+
+        deflater.reset();
+        deflater.setInput(datos.buf, 0, datos.largo);
+        deflater.finish();
+        int largoComprimido = 0;
+        while (!deflater.finished()) {
+            if (largoComprimido == comprimido.length) {
+                comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+            }
+            largoComprimido += deflater.deflate(comprimido, largoComprimido, comprimido.length - largoComprimido);
+        }
+
+        out.writeInt(b.filas);
+        out.writeInt(datos.largo);
+        out.writeInt(largoComprimido);
+        out.writeInt((int) crc.getValue());
+        out.write(comprimido, 0, largoComprimido);
+        filas += b.filas;
+    }
+
+    /** Escribe el cierre y fuerza el archivo a disco; después basta con renombrarlo. */
+    long terminar() throws IOException {
+        out.writeInt(0);
+        out.writeLong(filas);
+        out.flush();
+        canal.force(true);
+        return filas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+}
@@ -0,0 +1,187 @@
+package com.tienda.volcado;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Formato de los archivos de volcado, uno por tabla y rango de ids ({@code cliente-000000050000.vol}).
+ * <pre>
+ * encabezado: long MAGIA, int VERSION, UTF tabla, long desde, long hasta,
+ *             int columnas, {UTF nombre, byte tipo} por columna
+ * bloques:    int filas (&gt; 0), int largo, int largo comprimido, int CRC32C del bloque sin comprimir,
+ *             datos comprimidos (Deflate)
+ * cierre:     int 0, long filas del archivo
+ * </pre>
+ * Dentro de un bloque los valores van por columna: todos los de la primera, luego los de la segunda...
+ * Los enteros y las fechas se guardan como diferencia con la fila anterior en varint con zigzag (ids y
+ * fechas consecutivas ocupan uno o dos bytes), los centavos en zigzag y los textos como largo + 1
+ * (0 = {@code null}) seguido de los bytes UTF-8. En las columnas numéricas opcionales cada valor va
+ * precedido de una marca (0 = {@code null}, sin valor; 1 = valor), y la diferencia se toma con el último
+ * valor no nulo. Columnas homogéneas comprimen mucho mejor que filas.
+ */
+final class FormatoVolcado {
+
+    static final long MAGIA = 0x5449454E4441564FL; // "TIENDAVO"
+    static final int VERSION = 1;
+    static final String EXTENSION = ".vol";
+    static final int CIERRE = 12;
+
+    private FormatoVolcado() {
+    }
+
+    static String nombre(TablaVolcado tabla, long desde) {
+        return String.format("%s-%012d%s", tabla.nombre(), desde, EXTENSION);
+    }
+
+    static void codificar(Bloque b, Salida out) {
+        out.largo = 0;
+        for (int c = 0; c < b.columnas.size(); c++) {
+            TipoColumna tipo = b.columnas.get(c).tipo();
+            if (tipo == TipoColumna.TEXTO) {
+                String[] v = b.textos[c];
+                for (int i = 0; i < b.filas; i++) {
+                    if (v[i] == null) {
+                        out.varint(0);
+                    } else {
+                        byte[] bytes = v[i].getBytes(StandardCharsets.UTF_8);
+                        out.varint(bytes.length + 1L);
+                        out.bytes(bytes);
+                    }
+                }
+            } else {
+                long[] v = b.numeros[c];
+                boolean[] nulos = b.nulos[c];
+                boolean delta = tipo != TipoColumna.CENTAVOS;
+                long anterior = 0;
+                for (int i = 0; i < b.filas; i++) {
+                    if (nulos != null) {
+                        out.varint(nulos[i] ? 0 : 1);
+                        if (nulos[i]) {
+                            continue;
+                        }
+                    }
+                    out.varint(zigzag(v[i] - anterior));
+                    if (delta) {
+                        anterior = v[i];
+                    }
+                }
+            }
+        }
+    }
+
+    static void decodificar(Entrada in, int filas, Bloque b) {
+        if (filas > b.capacidad) {
+            throw new IllegalStateException("Bloque de " + filas + " filas; el máximo es " + b.capacidad);
+        }
+        for (int c = 0; c < b.columnas.size(); c++) {
+            TipoColumna tipo = b.columnas.get(c).tipo();
+            if (tipo == TipoColumna.TEXTO) {
+                String[] v = b.textos[c];
+                for (int i = 0; i < filas; i++) {
+                    long largo = in.varint();
+                    v[i] = largo == 0 ? null : in.texto((int) (largo - 1));
+                }
+            } else {
+                long[] v = b.numeros[c];
+                boolean[] nulos = b.nulos[c];
+                boolean delta = tipo != TipoColumna.CENTAVOS;
+                long anterior = 0;
+                for (int i = 0; i < filas; i++) {
+                    if (nulos != null) {
+                        long marca = in.varint();
+                        if (marca > 1) {
+                            throw new IllegalStateException("Marca de null inválida: " + marca);
+                        }
+                        nulos[i] = marca == 0;
+                        if (nulos[i]) {
+                            v[i] = 0;
+                            continue;
+                        }
+                    }
+                    v[i] = anterior + unzigzag(in.varint());
+                    if (delta) {
+                        anterior = v[i];
+                    }
+                }
+            }
+        }
+        if (in.pos != in.largo) {
+            throw new IllegalStateException("El bloque tiene " + (in.largo - in.pos) + " bytes de más");
+        }
+        b.filas = filas;
+    }
+
+    static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Buffer de escritura que crece a demanda. */
+    static final class Salida {
+        byte[] buf = new byte[1 << 16];
+        int largo;
+
+        void varint(long v) {
+            asegurar(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[largo++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[largo++] = (byte) v;
+        }
+
+        void bytes(byte[] b) {
+            asegurar(b.length);
+            System.arraycopy(b, 0, buf, largo, b.length);
+            largo += b.length;
+        }
+
+        private void asegurar(int n) {
+            if (largo + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, largo + n));
+            }
+        }
+    }
+
+    /** Lectura de un bloque ya descomprimido; cualquier desborde es un archivo dañado. */
+    static final class Entrada {
+        byte[] buf = new byte[1 << 16];
+        int pos;
+        int largo;
+
+        void reiniciar(int largo) {
+            if (buf.length < largo) {
+                buf = new byte[largo];
+            }
+            this.largo = largo;
+            this.pos = 0;
+        }
+
+        long varint() {
+            long v = 0;
+            for (int corrimiento = 0; corrimiento < 64; corrimiento += 7) {
+                if (pos >= largo) {
+                    throw new IllegalStateException("Varint truncado");
+                }
+                byte b = buf[pos++];
+                v |= (long) (b & 0x7F) << corrimiento;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IllegalStateException("Varint demasiado largo");
+        }
+
+        String texto(int n) {
+            if (n < 0 || pos + n > largo) {
+                throw new IllegalStateException("Texto fuera del bloque");
+            }
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
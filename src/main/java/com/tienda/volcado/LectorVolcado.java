@@ -0,0 +1,137 @@
+package com.tienda.volcado;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Lee un archivo de volcado bloque a bloque, verificando el CRC de cada uno. Antes de leer nada valida
+ * el cierre (un archivo truncado no se restaura a medias) y que las columnas coincidan con la tabla.
+ */
+final class LectorVolcado implements Closeable {
+
+    final Path archivo;
+    final long desde;
+    final long hasta;
+    final long filas;
+
+    private final FileChannel canal;
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private final CRC32C crc = new CRC32C();
+    private final FormatoVolcado.Entrada datos = new FormatoVolcado.Entrada();
+    private byte[] comprimido = new byte[1 << 16];
+    private long leidas;
+
+    LectorVolcado(Path archivo, TablaVolcado tabla) throws IOException {
+        this.archivo = archivo;
+        canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            ByteBuffer cierre = ByteBuffer.allocate(FormatoVolcado.CIERRE);
+            long tamano = canal.size();
+            if (tamano < FormatoVolcado.CIERRE) {
+                throw danado("archivo truncado");
+            }
+            while (cierre.hasRemaining() && canal.read(cierre, tamano - FormatoVolcado.CIERRE + cierre.position()) > 0) {
+                // lee el cierre completo
+            }
+            if (cierre.getInt(0) != 0) {
+                throw danado("archivo incompleto");
+            }
+            filas = cierre.getLong(4);
+
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal), 1 << 16));
+            if (in.readLong() != FormatoVolcado.MAGIA || in.readInt() != FormatoVolcado.VERSION) {
+                throw danado("no es un volcado de esta versión");
+            }
+            String nombre = in.readUTF();
+            desde = in.readLong();
+            hasta = in.readLong();
+            int columnas = in.readInt();
+            boolean coincide = nombre.equals(tabla.nombre()) && columnas == tabla.columnas().size();
+            for (int c = 0; c < columnas && coincide; c++) {
+                TablaVolcado.Columna esperada = tabla.columnas().get(c);
+                coincide = in.readUTF().equals(esperada.nombre()) && in.readByte() == esperada.tipo().ordinal();
+            }
+            if (!coincide) {
+                throw new IllegalStateException("El volcado " + archivo.getFileName()
+                        + " no coincide con las columnas de " + tabla.nombre());
+            }
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /** Llena {@code b} con el siguiente bloque; {@code false} al llegar al cierre. */
+    boolean leer(Bloque b) throws IOException {
+        try {
+            return leerBloque(b);
+        } catch (EOFException e) {
+            throw danado("archivo truncado");
+        }
+    }
+
+    private boolean leerBloque(Bloque b) throws IOException {
+        int n = in.readInt();
+        if (n == 0) {
+            if (leidas != filas) {
+                throw danado("se leyeron " + leidas + " filas de " + filas);
+            }
+            return false;
+        }
+        int largo = in.readInt();
+        int largoComprimido = in.readInt();
+        int esperado = in.readInt();
+        if (n < 0 || largo < 0 || largoComprimido < 0 || largoComprimido > canal.size()) {
+            throw danado("encabezado de bloque inválido");
+        }
+        if (comprimido.length < largoComprimido) {
+            comprimido = new byte[largoComprimido];
+        }
+        in.readFully(comprimido, 0, largoComprimido);
+
+        datos.reiniciar(largo);
+        inflater.reset();
+        inflater.setInput(comprimido, 0, largoComprimido);
+        try {
+            if (inflater.inflate(datos.buf, 0, largo) != largo || !inflater.finished()) {
+                throw danado("bloque con largo inesperado");
+            }
+        } catch (DataFormatException e) {
+            throw danado("bloque ilegible (" + e.getMessage() + ")");
+        }
+        crc.reset();
+        crc.update(datos.buf, 0, largo);
+        if ((int) crc.getValue() != esperado) {
+            throw danado("CRC de bloque inválido");
+        }
+        try {
+            FormatoVolcado.decodificar(datos, n, b);
+        } catch (IllegalStateException e) {
+            throw danado(e.getMessage());
+        }
+        leidas += n;
+        return true;
+    }
+
+    private IllegalStateException danado(String motivo) {
+        return new IllegalStateException("Volcado dañado: " + archivo.getFileName() + ": " + motivo);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        canal.close();
+    }
+}
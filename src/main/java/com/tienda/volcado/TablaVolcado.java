@@ -0,0 +1,111 @@
+package com.tienda.volcado;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Una tabla del volcado: sus columnas, la columna por la que se parte en rangos y los índices
+ * secundarios que la restauración crea al final, con la tabla ya cargada.
+ *
+ * @param origenRango tabla de la que salen el mínimo y el máximo de los rangos (las líneas se parten
+ *                    por {@code cotizacion_id}, igual que sus cotizaciones)
+ */
+public record TablaVolcado(String nombre, String columnaRango, String origenRango, String orden,
+                           List<Columna> columnas, List<IndiceDiferido> indices) {
+
+    public record Columna(String nombre, TipoColumna tipo) {
+    }
+
+    public record IndiceDiferido(String nombre, String ddl) {
+    }
+
+    public static final TablaVolcado CLIENTE = new TablaVolcado("cliente", "id", "cliente", "id",
+            List.of(new Columna("id", TipoColumna.ENTERO),
+                    new Columna("nombres", TipoColumna.TEXTO),
+                    new Columna("apellidos", TipoColumna.TEXTO),
+                    new Columna("email", TipoColumna.TEXTO),
+                    new Columna("telefono", TipoColumna.TEXTO),
+                    new Columna("documento", TipoColumna.TEXTO),
+                    new Columna("salesforce_account_id", TipoColumna.TEXTO),
+                    new Columna("created_at", TipoColumna.FECHA),
+                    new Columna("hash_contenido", TipoColumna.ENTERO_OPCIONAL)),
+            List.of(new IndiceDiferido("uk_cliente_email", "create unique index uk_cliente_email on cliente (email)"),
+                    new IndiceDiferido("idx_cliente_sf_account",
+                            "create index idx_cliente_sf_account on cliente (salesforce_account_id)")));
+
+    // idx_cotizacion_cliente_created no se difiere: sostiene la FK a cliente y MySQL no deja borrarlo.
+    public static final TablaVolcado COTIZACION = new TablaVolcado("cotizacion", "id", "cotizacion", "id",
+            List.of(new Columna("id", TipoColumna.ENTERO),
+                    new Columna("cliente_id", TipoColumna.ENTERO),
+                    new Columna("total", TipoColumna.CENTAVOS),
+                    new Columna("estado", TipoColumna.TEXTO),
+                    new Columna("salesforce_quote_id", TipoColumna.TEXTO),
+                    new Columna("created_at", TipoColumna.FECHA),
+                    new Columna("salesforce_estado_at", TipoColumna.FECHA_OPCIONAL)),
+            List.of(new IndiceDiferido("idx_cotizacion_estado", "create index idx_cotizacion_estado on cotizacion (estado)"),
+                    new IndiceDiferido("idx_cotizacion_sf_quote",
+                            "create index idx_cotizacion_sf_quote on cotizacion (salesforce_quote_id)")));
+
+    public static final TablaVolcado COTIZACION_LINEA = new TablaVolcado("cotizacion_linea", "cotizacion_id",
+            "cotizacion", "cotizacion_id, linea",
+            List.of(new Columna("cotizacion_id", TipoColumna.ENTERO),
+                    new Columna("linea", TipoColumna.ENTERO),
+                    new Columna("producto", TipoColumna.TEXTO),
+                    new Columna("cantidad", TipoColumna.ENTERO),
+                    new Columna("precio_unitario", TipoColumna.CENTAVOS)),
+            List.of());
+
+    /** Ubicaciones explícitas de los clientes movidos entre shards; se parte por los ids de cliente. */
+    public static final TablaVolcado CLIENTE_SHARD = new TablaVolcado("cliente_shard", "cliente_id", "cliente",
+            "cliente_id",
+            List.of(new Columna("cliente_id", TipoColumna.ENTERO),
+                    new Columna("shard", TipoColumna.TEXTO),
+                    new Columna("actualizado", TipoColumna.FECHA),
+                    new Columna("destino", TipoColumna.TEXTO)),
+            List.of());
+
+    /** Cotizaciones de un shard ({@code db/shard}): mismas columnas, sin FK a cliente ni índice por estado. */
+    public static final TablaVolcado COTIZACION_SHARD = new TablaVolcado("cotizacion", "id", "cotizacion", "id",
+            COTIZACION.columnas(),
+            List.of(new IndiceDiferido("idx_cotizacion_sf_quote",
+                    "create index idx_cotizacion_sf_quote on cotizacion (salesforce_quote_id)")));
+
+    /** En orden de restauración: cada tabla después de aquellas a las que apuntan sus FKs. */
+    public static final List<TablaVolcado> TODAS = List.of(CLIENTE, COTIZACION, COTIZACION_LINEA);
+
+    /** Base principal con sharding activo: las cotizaciones viven en los shards. */
+    public static final List<TablaVolcado> PRINCIPAL_CON_SHARDS = List.of(CLIENTE, CLIENTE_SHARD);
+
+    public static final List<TablaVolcado> SHARD = List.of(COTIZACION_SHARD, COTIZACION_LINEA);
+
+    String sqlLeer() {
+        return "select " + listaColumnas() + " from " + nombre + " where " + columnaRango
+                + " between ? and ? order by " + orden;
+    }
+
+    String sqlInsertar() {
+        String marcas = columnas.stream().map(c -> "?").collect(Collectors.joining(", "));
+        return "insert into " + nombre + " (" + listaColumnas() + ") values (" + marcas + ")";
+    }
+
+    String sqlContar() {
+        return "select count(*) from " + nombre + " where " + columnaRango + " between ? and ?";
+    }
+
+    String sqlBorrar() {
+        return "delete from " + nombre + " where " + columnaRango + " between ? and ?";
+    }
+
+    String sqlExtremos() {
+        return "select min(id), max(id) from " + origenRango;
+    }
+
+    /** Último id de los {@code ?} siguientes desde {@code ?}: corta rangos por cantidad de filas. */
+    String sqlCorte() {
+        return "select max(id) from (select id from " + origenRango + " where id >= ? order by id limit ?) t";
+    }
+
+    private String listaColumnas() {
+        return columnas.stream().map(Columna::nombre).collect(Collectors.joining(", "));
+    }
+}
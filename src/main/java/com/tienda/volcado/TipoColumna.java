@@ -0,0 +1,25 @@
+package com.tienda.volcado;
+
+/**
+ * Cómo se guarda cada columna en el archivo de volcado. El ordinal va en el encabezado: los tipos nuevos
+ * se agregan al final.
+ */
+public enum TipoColumna {
+    /** {@code BIGINT}/{@code INT} no nulo; se codifica como diferencia con la fila anterior del bloque. */
+    ENTERO,
+    /** {@code DECIMAL(15,2)} no nulo, como centavos. */
+    CENTAVOS,
+    /** {@code DATETIME} no nulo, como milisegundos (UTC, sin zona) y diferencia con la fila anterior. */
+    FECHA,
+    /** {@code VARCHAR}, admite {@code null}. */
+    TEXTO,
+    /** Como {@link #FECHA} pero admite {@code null}; conserva los milisegundos de un {@code TIMESTAMP(3)}. */
+    FECHA_OPCIONAL,
+    /** Como {@link #ENTERO} pero admite {@code null} (p. ej. {@code cliente.hash_contenido}). */
+    ENTERO_OPCIONAL;
+
+    /** Columnas numéricas que admiten {@code null}: cada valor lleva antes una marca 0 ({@code null}) o 1. */
+    boolean opcional() {
+        return this == FECHA_OPCIONAL || this == ENTERO_OPCIONAL;
+    }
+}
@@ -0,0 +1,489 @@
+package com.tienda.volcado;
+
+import com.tienda.carga.ContextoCarga;
+import com.tienda.sharding.EnrutadorShards;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Volcado lógico de clientes, cotizaciones y líneas en paralelo, sobre cualquier {@link DataSource}.
+ * <p>
+ * Cada tabla se parte en rangos fijos de ids ({@code idsPorRango}); cada rango es un archivo comprimido
+ * por columnas y con CRC por bloque ({@link FormatoVolcado}). Exportar escribe a un temporal y renombra,
+ * así que un rango cuyo archivo existe está completo y se salta al repetir la corrida.
+ * <p>
+ * Restaurar borra los índices secundarios diferibles, carga los rangos en paralelo (tabla por tabla,
+ * respetando las FKs) con inserts por lotes y una transacción por rango, y recrea los índices al final.
+ * Un rango que ya tiene en la base exactamente las filas del archivo se salta; uno a medias se borra y se
+ * vuelve a cargar. Con MySQL conviene {@code rewriteBatchedStatements=true} en la URL.
+ * <p>
+ * Con sharding activo, la base principal aporta los clientes y {@code cliente_shard}, y cada shard sus
+ * cotizaciones y líneas en el subdirectorio {@code shard-<nombre>}; restaurar las devuelve al shard del
+ * mismo nombre. Los ids de los shards son dispersos ({@link com.tienda.sharding.GeneradorIdShard}), así que
+ * ahí cada rango toma los {@code idsPorRango} ids siguientes en vez de un ancho fijo.
+ * <p>
+ * Cada rango se lee en su propia transacción: para un volcado consistente, exportar desde una réplica
+ * detenida o sin escrituras.
+ */
+@Slf4j
+public class VolcadoDatos {
+
+    private static final String PREFIJO_SHARD = "shard-";
+
+    private final DataSource dataSource;
+    private final VolcadoProperties props;
+    private final EnrutadorShards enrutador;
+
+    public record Resumen(long filas, long bytes, int rangos, int omitidos, long millis) {
+        public long filasPorSegundo() {
+            return millis == 0 ? 0 : filas * 1_000 / millis;
+        }
+
+        public double mbPorSegundo() {
+            return millis == 0 ? 0 : bytes * 1_000.0 / millis / (1 << 20);
+        }
+    }
+
+    private record Parcial(long filas, long bytes, boolean omitido) {
+    }
+
+    /** Una base del volcado y el directorio de sus archivos; {@code idsDensos} si sus ids son AUTO_INCREMENT. */
+    private record Base(DataSource dataSource, Path directorio, List<TablaVolcado> tablas, boolean idsDensos) {
+    }
+
+    public VolcadoDatos(DataSource dataSource, VolcadoProperties props) {
+        this(dataSource, props, null);
+    }
+
+    /** @param enrutador {@code null} sin sharding */
+    public VolcadoDatos(DataSource dataSource, VolcadoProperties props, EnrutadorShards enrutador) {
+        this.dataSource = dataSource;
+        this.props = props;
+        this.enrutador = enrutador;
+    }
+
+    public Resumen exportar(Path directorio) {
+        long inicio = System.nanoTime();
+        long ancho = Math.max(1, props.getIdsPorRango());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, props.getHilos()),
+                ContextoCarga.hilosBatch("volcado"));
+        try {
+            List<Future<Parcial>> tareas = new ArrayList<>();
+            for (Base base : bases(directorio)) {
+                try {
+                    Files.createDirectories(base.directorio());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo crear " + base.directorio(), e);
+                }
+                for (TablaVolcado tabla : base.tablas()) {
+                    for (long[] rango : rangos(base, tabla, ancho)) {
+                        tareas.add(pool.submit(() -> exportarRango(base, tabla, rango[0], rango[1])));
+                    }
+                }
+            }
+            Resumen r = resumir(esperar(tareas), inicio);
+            log.info("Volcado: {} filas, {} rangos ({} ya exportados) en {} ms ({} filas/s, {} MB/s comprimidos)",
+                    r.filas(), r.rangos(), r.omitidos(), r.millis(), r.filasPorSegundo(),
+                    String.format("%.1f", r.mbPorSegundo()));
+            return r;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public Resumen restaurar(Path directorio) {
+        long inicio = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, props.getHilos()),
+                ContextoCarga.hilosBatch("restauracion"));
+        try {
+            verificarShards(directorio);
+            List<Base> bases = bases(directorio);
+            bases.forEach(this::diferirIndices);
+            List<Parcial> parciales = new ArrayList<>();
+            for (Base base : bases) {
+                for (TablaVolcado tabla : base.tablas()) {
+                    List<Future<Parcial>> tareas = new ArrayList<>();
+                    for (Path archivo : archivos(base.directorio(), tabla)) {
+                        tareas.add(pool.submit(() -> restaurarRango(base, tabla, archivo)));
+                    }
+                    // una tabla completa antes de la siguiente, que la referencia por FK
+                    parciales.addAll(esperar(tareas));
+                }
+            }
+            long t = System.nanoTime();
+            List<Future<Parcial>> indices = new ArrayList<>();
+            for (Base base : bases) {
+                for (TablaVolcado tabla : base.tablas()) {
+                    for (TablaVolcado.IndiceDiferido indice : tabla.indices()) {
+                        indices.add(pool.submit(() -> crearIndice(base, tabla, indice)));
+                    }
+                }
+            }
+            esperar(indices);
+            if (enrutador != null) {
+                enrutador.recargarUbicaciones();
+            }
+            Resumen r = resumir(parciales, inicio);
+            log.info("Restauración: {} filas, {} rangos ({} ya cargados) en {} ms ({} filas/s), índices en {} ms",
+                    r.filas(), r.rangos(), r.omitidos(), r.millis(), r.filasPorSegundo(),
+                    (System.nanoTime() - t) / 1_000_000);
+            return r;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Parcial exportarRango(Base base, TablaVolcado tabla, long desde, long hasta)
+            throws SQLException, IOException {
+        Path destino = base.directorio().resolve(FormatoVolcado.nombre(tabla, desde));
+        if (Files.exists(destino)) {
+            return new Parcial(0, 0, true);
+        }
+        Path temporal = base.directorio().resolve(destino.getFileName() + ".tmp");
+        Bloque b = new Bloque(tabla.columnas(), props.getFilasPorBloque());
+        long filas;
+        try (Connection con = base.dataSource().getConnection();
+             PreparedStatement ps = con.prepareStatement(tabla.sqlLeer())) {
+            ps.setFetchSize(props.getTamanoLote());
+            ps.setLong(1, desde);
+            ps.setLong(2, hasta);
+            try (ResultSet rs = ps.executeQuery();
+                 EscritorVolcado escritor = new EscritorVolcado(temporal, tabla, desde, hasta, props.getNivelCompresion())) {
+                while (rs.next()) {
+                    leerFila(rs, b);
+                    if (b.lleno()) {
+                        escritor.escribir(b);
+                        b.filas = 0;
+                    }
+                }
+                escritor.escribir(b);
+                filas = escritor.terminar();
+            }
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        return new Parcial(filas, Files.size(destino), false);
+    }
+
+    private Parcial restaurarRango(Base base, TablaVolcado tabla, Path archivo) throws SQLException, IOException {
+        try (LectorVolcado lector = new LectorVolcado(archivo, tabla);
+             Connection con = base.dataSource().getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                long existentes = ejecutarRango(con, tabla.sqlContar(), lector.desde, lector.hasta);
+                if (existentes == lector.filas && existentes > 0) {
+                    con.commit();
+                    return new Parcial(0, 0, true);
+                }
+                if (existentes > 0) {
+                    // quedó de otra corrida o de otra base: el rango del volcado reemplaza lo que haya
+                    ejecutarRango(con, tabla.sqlBorrar(), lector.desde, lector.hasta);
+                }
+                try (PreparedStatement ps = con.prepareStatement(tabla.sqlInsertar())) {
+                    Bloque b = new Bloque(tabla.columnas(), props.getFilasPorBloque());
+                    int pendientes = 0;
+                    while (lector.leer(b)) {
+                        for (int i = 0; i < b.filas; i++) {
+                            escribirFila(ps, b, i);
+                            ps.addBatch();
+                            if (++pendientes >= props.getTamanoLote()) {
+                                ps.executeBatch();
+                                pendientes = 0;
+                            }
+                        }
+                    }
+                    if (pendientes > 0) {
+                        ps.executeBatch();
+                    }
+                }
+                con.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            }
+            return new Parcial(lector.filas, Files.size(archivo), false);
+        }
+    }
+
+    private static void leerFila(ResultSet rs, Bloque b) throws SQLException {
+        int i = b.filas;
+        for (int c = 0; c < b.columnas.size(); c++) {
+            switch (b.columnas.get(c).tipo()) {
+                case ENTERO -> b.numeros[c][i] = rs.getLong(c + 1);
+                case CENTAVOS -> b.numeros[c][i] = rs.getBigDecimal(c + 1).movePointRight(2).longValueExact();
+                case FECHA -> b.numeros[c][i] = rs.getObject(c + 1, LocalDateTime.class)
+                        .toInstant(ZoneOffset.UTC).toEpochMilli();
+                case TEXTO -> b.textos[c][i] = rs.getString(c + 1);
+                case ENTERO_OPCIONAL -> {
+                    b.numeros[c][i] = rs.getLong(c + 1);
+                    b.nulos[c][i] = rs.wasNull();
+                }
+                case FECHA_OPCIONAL -> {
+                    LocalDateTime fecha = rs.getObject(c + 1, LocalDateTime.class);
+                    b.nulos[c][i] = fecha == null;
+                    b.numeros[c][i] = fecha == null ? 0 : fecha.toInstant(ZoneOffset.UTC).toEpochMilli();
+                }
+            }
+        }
+        b.filas++;
+    }
+
+    private static void escribirFila(PreparedStatement ps, Bloque b, int i) throws SQLException {
+        for (int c = 0; c < b.columnas.size(); c++) {
+            switch (b.columnas.get(c).tipo()) {
+                case ENTERO -> ps.setLong(c + 1, b.numeros[c][i]);
+                case CENTAVOS -> ps.setBigDecimal(c + 1, BigDecimal.valueOf(b.numeros[c][i], 2));
+                case FECHA -> ps.setObject(c + 1, fecha(b.numeros[c][i]));
+                case TEXTO -> {
+                    if (b.textos[c][i] == null) {
+                        ps.setNull(c + 1, Types.VARCHAR);
+                    } else {
+                        ps.setString(c + 1, b.textos[c][i]);
+                    }
+                }
+                case ENTERO_OPCIONAL -> {
+                    if (b.nulos[c][i]) {
+                        ps.setNull(c + 1, Types.BIGINT);
+                    } else {
+                        ps.setLong(c + 1, b.numeros[c][i]);
+                    }
+                }
+                case FECHA_OPCIONAL -> {
+                    if (b.nulos[c][i]) {
+                        ps.setNull(c + 1, Types.TIMESTAMP);
+                    } else {
+                        ps.setObject(c + 1, fecha(b.numeros[c][i]));
+                    }
+                }
+            }
+        }
+    }
+
+    private static LocalDateTime fecha(long ms) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(ms, 1_000), (int) Math.floorMod(ms, 1_000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    private static long ejecutarRango(Connection con, String sql, long desde, long hasta) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setLong(1, desde);
+            ps.setLong(2, hasta);
+            if (!ps.execute()) {
+                return ps.getUpdateCount();
+            }
+            try (ResultSet rs = ps.getResultSet()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /** La base principal y, con sharding activo, cada shard en su subdirectorio. */
+    private List<Base> bases(Path directorio) {
+        if (enrutador == null) {
+            return List.of(new Base(dataSource, directorio, TablaVolcado.TODAS, true));
+        }
+        List<Base> bases = new ArrayList<>();
+        bases.add(new Base(dataSource, directorio, TablaVolcado.PRINCIPAL_CON_SHARDS, true));
+        for (EnrutadorShards.Shard shard : enrutador.shards()) {
+            bases.add(new Base(shard.dataSource(), directorio.resolve(PREFIJO_SHARD + shard.nombre()),
+                    TablaVolcado.SHARD, false));
+        }
+        return bases;
+    }
+
+    /** Rangos {@code [desde, hasta]} en que se parte la tabla; vacío si su tabla de origen no tiene filas. */
+    private List<long[]> rangos(Base base, TablaVolcado tabla, long ancho) {
+        List<long[]> rangos = new ArrayList<>();
+        long[] extremos = extremos(base, tabla);
+        if (extremos == null) {
+            return rangos;
+        }
+        if (base.idsDensos()) {
+            // rangos alineados a múltiplos del ancho: los mismos en cada corrida aunque cambien min y max
+            for (long desde = Math.floorDiv(extremos[0], ancho) * ancho; desde <= extremos[1]; desde += ancho) {
+                rangos.add(new long[]{desde, desde + ancho - 1});
+            }
+            return rangos;
+        }
+        // ids de shard (ms << 22): un ancho fijo daría millones de rangos vacíos. Como crecen con el tiempo,
+        // los cortes ya hechos no cambian al agregar cotizaciones y la corrida se puede repetir igual.
+        try (Connection con = base.dataSource().getConnection();
+             PreparedStatement ps = con.prepareStatement(tabla.sqlCorte())) {
+            for (long desde = extremos[0]; desde <= extremos[1]; ) {
+                ps.setLong(1, desde);
+                ps.setLong(2, ancho);
+                long hasta;
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    hasta = rs.getLong(1);
+                }
+                rangos.add(new long[]{desde, hasta});
+                desde = hasta + 1;
+            }
+            return rangos;
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudieron cortar los rangos de " + tabla.origenRango(), e);
+        }
+    }
+
+    /** {@code [min, max]} del id que define los rangos, o {@code null} si la tabla de origen está vacía. */
+    private long[] extremos(Base base, TablaVolcado tabla) {
+        try (Connection con = base.dataSource().getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(tabla.sqlExtremos())) {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo leer el rango de ids de " + tabla.origenRango(), e);
+        }
+    }
+
+    private static List<Path> archivos(Path directorio, TablaVolcado tabla) {
+        List<Path> lista = new ArrayList<>();
+        if (Files.notExists(directorio)) {
+            // un shard que no existía al exportar; verificarShards ya validó el directorio raíz
+            return lista;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio,
+                tabla.nombre() + "-*" + FormatoVolcado.EXTENSION)) {
+            ds.forEach(lista::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo listar " + directorio, e);
+        }
+        lista.sort(null);
+        return lista;
+    }
+
+    /**
+     * Un volcado con subdirectorios de shards solo se restaura con sharding activo y sobre shards del mismo
+     * nombre; uno sin ellos, solo sin sharding. Si no, sus cotizaciones quedarían fuera sin avisar.
+     */
+    private void verificarShards(Path directorio) {
+        Set<String> enVolcado = new TreeSet<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, PREFIJO_SHARD + "*")) {
+            for (Path p : ds) {
+                if (Files.isDirectory(p)) {
+                    enVolcado.add(p.getFileName().toString().substring(PREFIJO_SHARD.length()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo listar " + directorio, e);
+        }
+        if (enrutador == null) {
+            if (!enVolcado.isEmpty()) {
+                throw new IllegalStateException("El volcado trae cotizaciones de los shards " + enVolcado
+                        + " y tienda.sharding.enabled no está activo");
+            }
+            return;
+        }
+        if (!archivos(directorio, TablaVolcado.COTIZACION).isEmpty()) {
+            throw new IllegalStateException("El volcado trae cotizaciones de la base principal y el sharding está"
+                    + " activo: se exportó sin sharding");
+        }
+        for (EnrutadorShards.Shard shard : enrutador.shards()) {
+            enVolcado.remove(shard.nombre());
+        }
+        if (!enVolcado.isEmpty()) {
+            throw new IllegalStateException("El volcado trae los shards " + enVolcado + ", que no están configurados");
+        }
+    }
+
+    /** Borra los índices diferibles que existan; si una corrida anterior ya los borró, no hace nada. */
+    private void diferirIndices(Base base) {
+        try (Connection con = base.dataSource().getConnection(); Statement st = con.createStatement()) {
+            String producto = con.getMetaData().getDatabaseProductName();
+            boolean mysql = "MySQL".equalsIgnoreCase(producto) || "MariaDB".equalsIgnoreCase(producto);
+            for (TablaVolcado tabla : base.tablas()) {
+                for (TablaVolcado.IndiceDiferido indice : tabla.indices()) {
+                    if (existeIndice(con, tabla.nombre(), indice.nombre())) {
+                        st.execute("drop index " + indice.nombre() + (mysql ? " on " + tabla.nombre() : ""));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudieron diferir los índices", e);
+        }
+    }
+
+    private Parcial crearIndice(Base base, TablaVolcado tabla, TablaVolcado.IndiceDiferido indice)
+            throws SQLException {
+        try (Connection con = base.dataSource().getConnection(); Statement st = con.createStatement()) {
+            if (!existeIndice(con, tabla.nombre(), indice.nombre())) {
+                st.execute(indice.ddl());
+            }
+            return new Parcial(0, 0, false);
+        }
+    }
+
+    private static boolean existeIndice(Connection con, String tabla, String indice) throws SQLException {
+        DatabaseMetaData md = con.getMetaData();
+        // MySQL guarda los nombres tal cual; H2 y otros, en mayúsculas
+        for (String t : List.of(tabla, tabla.toUpperCase())) {
+            try (ResultSet rs = md.getIndexInfo(con.getCatalog(), con.getSchema(), t, false, false)) {
+                while (rs.next()) {
+                    if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static <T> List<T> esperar(List<Future<T>> tareas) {
+        List<T> resultados = new ArrayList<>(tareas.size());
+        try {
+            for (Future<T> f : tareas) {
+                resultados.add(f.get());
+            }
+            return resultados;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Volcado interrumpido", e);
+        } catch (ExecutionException e) {
+            tareas.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Falló el volcado: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static Resumen resumir(List<Parcial> parciales, long inicioNanos) {
+        long filas = 0;
+        long bytes = 0;
+        int omitidos = 0;
+        for (Parcial p : parciales) {
+            filas += p.filas();
+            bytes += p.bytes();
+            omitidos += p.omitido() ? 1 : 0;
+        }
+        return new Resumen(filas, bytes, parciales.size(), omitidos, (System.nanoTime() - inicioNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,37 @@
+package com.tienda.volcado;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.zip.Deflater;
+
+/**
+ * Parámetros del volcado lógico ({@code tienda.volcado.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tienda.volcado")
+public class VolcadoProperties {
+
+    public enum Modo { EXPORTAR, RESTAURAR }
+
+    /** Al arrancar, exporta a {@link #directorio} o restaura desde él; sin valor no hace nada. */
+    private Modo modo;
+
+    private String directorio = "volcado";
+
+    /** Ancho de cada rango de ids: una unidad de trabajo, un archivo y, al restaurar, una transacción. */
+    private long idsPorRango = 50_000;
+
+    /** Filas por bloque comprimido; cada bloque lleva su propio CRC. */
+    private int filasPorBloque = 4_096;
+
+    /** Nivel de Deflate (1-9): el 1 ya aprovecha casi todo lo que da el formato por columnas. */
+    private int nivelCompresion = Deflater.BEST_SPEED;
+
+    private int tamanoLote = 1_000;
+
+    /** Rangos en paralelo; cada hilo usa una conexión del pool batch ({@code tienda.pools.batch.tamano}). */
+    private int hilos = 4;
+}
@@ -0,0 +1,222 @@
+package com.tienda.warmup;
+
+import com.tienda.dinero.Dinero;
+import com.tienda.dto.CalentamientoResponse;
+import com.tienda.dto.ClienteResponse;
+import com.tienda.dto.CotizacionCreateRequest;
+import com.tienda.dto.CotizacionResponse;
+import com.tienda.dto.PageResponse;
+import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.service.ClienteService;
+import com.tienda.service.CotizacionService;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calentamiento previo a recibir tráfico: abre las conexiones del pool, ejercita los caminos
+ * calientes de los servicios (planes de consulta de Hibernate, JIT) y serializa las respuestas
+ * con el mismo {@link JsonMapper} que usa Spring MVC (descubrimiento de serializadores).
+ * <p>
+ * Corre como {@link ApplicationRunner}; Spring Boot publica {@code ReadinessState.ACCEPTING_TRAFFIC}
+ * solo cuando terminan todos los runners, así que el probe {@code /actuator/health/readiness}
+ * no queda en verde hasta que el calentamiento acaba.
+ * Por defecto solo lee datos; {@code tienda.warmup.escrituras=true} agrega {@code crearCotizacion}
+ * dentro de una transacción que siempre se revierte. Con sharding la cotización se confirma en la
+ * transacción propia del shard, fuera de esa reversión, así que la combinación se rechaza al arrancar.
+ */
+@Slf4j
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE) // después de los demás runners, p. ej. el generador de datos
+public class CalentamientoService implements ApplicationRunner {
+
+    private static final String FIELDS_LISTADO = "id,estado,total";
+
+    private final ClienteService clienteService;
+    private final CotizacionService cotizacionService;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+
+    private final boolean habilitado;
+    private final int iteraciones;
+    private final int conexiones;
+    private final boolean escrituras;
+
+    private volatile CalentamientoResponse reporte = CalentamientoResponse.builder().estado("PENDIENTE").build();
+
+    public CalentamientoService(ClienteService clienteService,
+                                CotizacionService cotizacionService,
+                                DataSource dataSource,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                JsonMapper jsonMapper,
+                                @Value("${tienda.warmup.enabled:true}") boolean habilitado,
+                                @Value("${tienda.warmup.iteraciones:300}") int iteraciones,
+                                @Value("${tienda.warmup.conexiones:0}") int conexiones,
+                                @Value("${tienda.warmup.escrituras:false}") boolean escrituras,
+                                @Value("${tienda.sharding.enabled:false}") boolean sharding) {
+        if (habilitado && escrituras && sharding) {
+            throw new IllegalStateException("tienda.warmup.escrituras=true no se puede usar con"
+                    + " tienda.sharding.enabled=true: las cotizaciones de calentamiento quedarían en los shards");
+        }
+        this.clienteService = clienteService;
+        this.cotizacionService = cotizacionService;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.habilitado = habilitado;
+        this.iteraciones = iteraciones;
+        this.conexiones = conexiones;
+        this.escrituras = escrituras;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado) {
+            reporte = CalentamientoResponse.builder().estado("DESHABILITADO").build();
+            return;
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+        long t0 = System.nanoTime();
+        Map<String, Long> pasos = new LinkedHashMap<>();
+        try {
+            long t = System.nanoTime();
+            int abiertas = abrirConexiones();
+            pasos.put("pool(" + abiertas + ")", ms(t));
+
+            t = System.nanoTime();
+            Long clienteId = jdbcTemplate.queryForObject("select min(id) from cliente", Long.class);
+            pasos.put("muestra", ms(t));
+
+            t = System.nanoTime();
+            long[] latencias = ejercitar(clienteId);
+            pasos.put("caminos-calientes", ms(t));
+
+            int cola = Math.min(latencias.length, Math.max(1, latencias.length / 10));
+            long[] ultimas = Arrays.copyOfRange(latencias, latencias.length - cola, latencias.length);
+            Arrays.sort(ultimas);
+            reporte = CalentamientoResponse.builder()
+                    .estado("COMPLETADO")
+                    .iniciado(inicio)
+                    .duracionMs(ms(t0))
+                    .iteraciones(latencias.length)
+                    .pasosMs(pasos)
+                    .primeraIteracionMicros(latencias.length > 0 ? latencias[0] : 0)
+                    .ultimasIteracionesMicros(ultimas.length > 0 ? ultimas[ultimas.length / 2] : 0)
+                    .build();
+            log.info("Calentamiento completado en {} ms (primera iteración {} µs, estable {} µs): {}",
+                    reporte.getDuracionMs(), reporte.getPrimeraIteracionMicros(),
+                    reporte.getUltimasIteracionesMicros(), pasos);
+        } catch (RuntimeException e) {
+            // Un calentamiento fallido no debe impedir el arranque: la app funciona, solo más lenta al inicio.
+            log.warn("El calentamiento no pudo completarse", e);
+            reporte = CalentamientoResponse.builder()
+                    .estado("ERROR")
+                    .iniciado(inicio)
+                    .duracionMs(ms(t0))
+                    .pasosMs(pasos)
+                    .error(e.getMessage())
+                    .build();
+        }
+    }
+
+    public CalentamientoResponse reporte() {
+        return reporte;
+    }
+
+    /** Pide hasta {@code n} conexiones a la vez para que el pool las cree antes del primer request. */
+    private int abrirConexiones() {
+        int n = conexiones;
+        try {
+            if (n <= 0 && dataSource.isWrapperFor(HikariDataSource.class)) {
+                n = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            n = 0;
+        }
+        n = Math.max(1, n);
+        List<Connection> abiertas = new ArrayList<>(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                Connection c = dataSource.getConnection();
+                abiertas.add(c);
+                c.isValid(1);
+            }
+        } catch (SQLException e) {
+            log.warn("Calentamiento: solo se abrieron {} conexiones: {}", abiertas.size(), e.getMessage());
+        } finally {
+            for (Connection c : abiertas) {
+                try {
+                    c.close();
+                } catch (SQLException ignored) {
+                    // la conexión vuelve al pool o se descarta; no afecta al calentamiento
+                }
+            }
+        }
+        return abiertas.size();
+    }
+
+    /** Devuelve la latencia (µs) de cada iteración, en orden. */
+    private long[] ejercitar(Long clienteId) {
+        Pageable pagina = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+        long[] latencias = new long[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            long t = System.nanoTime();
+            if (clienteId != null) {
+                ClienteResponse cliente = clienteService.obtenerClientePorId(clienteId);
+                jsonMapper.writeValueAsBytes(cliente);
+
+                PageResponse<CotizacionResponse> cotizaciones = cotizacionService.listarPorClientePaginado(clienteId, pagina);
+                jsonMapper.writeValueAsBytes(cotizaciones);
+
+                jsonMapper.writeValueAsBytes(cotizacionService.listarPorClienteCampos(clienteId, FIELDS_LISTADO, pagina));
+
+                if (escrituras) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        status.setRollbackOnly();
+                        jsonMapper.writeValueAsBytes(cotizacionService.crearCotizacion(
+                                CotizacionCreateRequest.builder()
+                                        .clienteId(clienteId)
+                                        .total(Dinero.deCentavos(100))
+                                        .build()));
+                    });
+                }
+            }
+            try {
+                clienteService.obtenerClientePorId(-1L);
+            } catch (ResourceNotFoundException esperado) {
+                // camino de error (404) también en caliente
+            }
+            latencias[i] = (System.nanoTime() - t) / 1_000;
+        }
+        return latencias;
+    }
+
+    private static long ms(long desdeNanos) {
+        return (System.nanoTime() - desdeNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,81 @@
+package com.tienda.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de {@code /api/**} en el primer y el segundo minuto después de
+ * {@link ApplicationReadyEvent} ({@code tienda.http.arranque{ventana=primer-minuto|segundo-minuto}}).
+ * Comparando el p99 de ambas ventanas, con y sin {@code tienda.warmup.enabled}, se ve cuánto
+ * aporta el calentamiento. Pasados dos minutos el filtro no hace nada.
+ */
+@Component
+public class PrimerMinutoFilter extends OncePerRequestFilter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final long MINUTO_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private volatile long listoNanos;
+    private volatile boolean terminado;
+    private Timer primerMinuto;
+    private Timer segundoMinuto;
+
+    public PrimerMinutoFilter(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        MeterRegistry r = registry.getIfAvailable();
+        if (r == null) {
+            terminado = true;
+            return;
+        }
+        primerMinuto = timer(r, "primer-minuto");
+        segundoMinuto = timer(r, "segundo-minuto");
+        listoNanos = System.nanoTime();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return terminado || listoNanos == 0 || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long transcurrido = inicio - listoNanos;
+            if (transcurrido < MINUTO_NANOS) {
+                primerMinuto.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            } else if (transcurrido < 2 * MINUTO_NANOS) {
+                segundoMinuto.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            } else {
+                terminado = true;
+            }
+        }
+    }
+
+    private static Timer timer(MeterRegistry r, String ventana) {
+        return Timer.builder("tienda.http.arranque")
+                .description("Latencia de la API en los primeros minutos tras quedar lista")
+                .tag("ventana", ventana)
+                .publishPercentiles(0.5, 0.99)
+                .register(r);
+    }
+}
@@ -0,0 +1,3 @@
+-- Movimiento en curso: mientras destino no sea NULL, cada réplica resuelve la ubicación del cliente leyendo
+-- esta fila bajo el candado GET_LOCK del cliente, en vez de usar la copia en memoria.
+ALTER TABLE cliente_shard ADD COLUMN destino VARCHAR(50) DEFAULT NULL;
@@ -0,0 +1,28 @@
+-- Esquema base (antes en docker/init/tienda.sql).
+-- Las bases que ya tenían estas tablas se registran como versión 1 (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE cliente (
+  id                    BIGINT       NOT NULL AUTO_INCREMENT,
+  nombres               VARCHAR(100) NOT NULL,
+  apellidos             VARCHAR(100) NOT NULL,
+  email                 VARCHAR(150) NOT NULL,
+  telefono              VARCHAR(30)  DEFAULT NULL,
+  documento             VARCHAR(50)  DEFAULT NULL,
+  salesforce_account_id VARCHAR(18)  DEFAULT NULL,
+  created_at            DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_cliente_email (email)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+CREATE TABLE cotizacion (
+  id                  BIGINT        NOT NULL AUTO_INCREMENT,
+  cliente_id          BIGINT        NOT NULL,
+  total               DECIMAL(15,2) NOT NULL,
+  estado              VARCHAR(30)   NOT NULL DEFAULT 'CREADA',
+  salesforce_quote_id VARCHAR(18)   DEFAULT NULL,
+  created_at          DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id),
+  KEY idx_cotizacion_cliente (cliente_id),
+  KEY idx_cotizacion_estado (estado),
+  CONSTRAINT fk_cotizacion_cliente FOREIGN KEY (cliente_id) REFERENCES cliente (id) ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -0,0 +1,43 @@
+-- Índices para las consultas de los repositorios.
+-- Las bases creadas con ddl-auto=update no tienen los mismos índices que V1, así que cada
+-- cambio se aplica solo si hace falta (MySQL no tiene CREATE/DROP INDEX IF [NOT] EXISTS).
+
+-- findByClienteIdWithCliente / listados: WHERE cliente_id = ? ORDER BY created_at DESC
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_cotizacion_cliente_created ON cotizacion (cliente_id, created_at)',
+    'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'cotizacion' AND index_name = 'idx_cotizacion_cliente_created');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- El índice compuesto ya sirve a la FK; el de una sola columna queda redundante.
+SET @ddl = (SELECT IF(COUNT(*) > 0,
+    'DROP INDEX idx_cotizacion_cliente ON cotizacion',
+    'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'cotizacion' AND index_name = 'idx_cotizacion_cliente');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Conteos y filtros por estado (analítica, conciliación)
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_cotizacion_estado ON cotizacion (estado)',
+    'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'cotizacion' AND index_name = 'idx_cotizacion_estado');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- findByEmail / existsByEmail
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+    'CREATE UNIQUE INDEX uk_cliente_email ON cliente (email)',
+    'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'cliente' AND column_name = 'email' AND non_unique = 0);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
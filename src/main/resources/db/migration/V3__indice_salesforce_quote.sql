@@ -0,0 +1,3 @@
+-- Conciliación con Salesforce: recorrido ordenado por (salesforce_quote_id, id).
+-- InnoDB agrega la PK al final de cada índice secundario, así que el keyset queda cubierto.
+CREATE INDEX idx_cotizacion_sf_quote ON cotizacion (salesforce_quote_id);
@@ -0,0 +1,7 @@
+-- Ubicación explícita de los clientes que el rebalanceo movió fuera del shard que les asigna el anillo.
+CREATE TABLE cliente_shard (
+  cliente_id  BIGINT      NOT NULL,
+  shard       VARCHAR(50) NOT NULL,
+  actualizado DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (cliente_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -0,0 +1,11 @@
+-- Bitácora de cambios para invalidar caches locales entre instancias (BusInvalidacion).
+-- Filas de vida corta: cada instancia purga las que superan la retención.
+CREATE TABLE cambio_entidad (
+  id         BIGINT      NOT NULL AUTO_INCREMENT,
+  entidad    VARCHAR(20) NOT NULL,
+  entidad_id BIGINT      NOT NULL,
+  version    BIGINT      NOT NULL,
+  nodo       INT         NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_cambio_entidad_version (version)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -0,0 +1,11 @@
+-- Líneas de cotización. La PK (cotizacion_id, linea) agrupa físicamente las líneas de cada cotización:
+-- cargar las de una página es un único "where cotizacion_id in (...)" resuelto con rangos de la PK.
+CREATE TABLE cotizacion_linea (
+  cotizacion_id   BIGINT        NOT NULL,
+  linea           INT           NOT NULL,
+  producto        VARCHAR(120)  NOT NULL,
+  cantidad        INT           NOT NULL,
+  precio_unitario DECIMAL(15,2) NOT NULL,
+  PRIMARY KEY (cotizacion_id, linea),
+  CONSTRAINT fk_linea_cotizacion FOREIGN KEY (cotizacion_id) REFERENCES cotizacion (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -0,0 +1,13 @@
+-- Solicitudes de borrado de clientes (derecho de supresión). La fila sobrevive al cliente: es la constancia
+-- de que se borró y permite retomar una purga que se cortó a mitad (reinicio o caída de la instancia).
+CREATE TABLE purga_cliente (
+  cliente_id            BIGINT       NOT NULL,
+  estado                VARCHAR(20)  NOT NULL,
+  solicitada            DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  finalizada            DATETIME     DEFAULT NULL,
+  cotizaciones_borradas BIGINT       NOT NULL DEFAULT 0,
+  lineas_borradas       BIGINT       NOT NULL DEFAULT 0,
+  error                 VARCHAR(500) DEFAULT NULL,
+  PRIMARY KEY (cliente_id),
+  KEY idx_purga_cliente_estado (estado)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -0,0 +1,4 @@
+-- Webhook de Salesforce: momento del último cambio de estado aplicado a cada cotización. Un evento con
+-- fecha igual o anterior llega tarde (reintento o desorden) y se descarta en el UPDATE.
+-- La búsqueda por salesforce_quote_id usa idx_cotizacion_sf_quote (V3).
+ALTER TABLE cotizacion ADD COLUMN salesforce_estado_at DATETIME(3) DEFAULT NULL;
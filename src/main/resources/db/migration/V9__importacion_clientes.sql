@@ -0,0 +1,7 @@
+-- Importación de extractos de cuentas de Salesforce.
+-- El cruce por lotes busca por salesforce_account_id (WHERE ... IN); hash_contenido es el hash de los campos
+-- que vienen en el extracto tal como se guardaron la última vez, para saltar las filas que no cambiaron.
+-- Los clientes creados por la API quedan con NULL y se actualizan una vez en la primera importación.
+ALTER TABLE cliente ADD COLUMN hash_contenido BIGINT DEFAULT NULL;
+
+CREATE INDEX idx_cliente_sf_account ON cliente (salesforce_account_id);
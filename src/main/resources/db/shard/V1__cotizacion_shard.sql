@@ -0,0 +1,13 @@
+-- Esquema de cada shard de cotizaciones. Sin FK a cliente: los clientes viven en la base principal.
+-- Los ids los asigna GeneradorIdShard, no AUTO_INCREMENT.
+CREATE TABLE cotizacion (
+  id                  BIGINT        NOT NULL,
+  cliente_id          BIGINT        NOT NULL,
+  total               DECIMAL(15,2) NOT NULL,
+  estado              VARCHAR(30)   NOT NULL,
+  salesforce_quote_id VARCHAR(18),
+  created_at          TIMESTAMP     NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_cotizacion_cliente_created ON cotizacion (cliente_id, created_at);
@@ -0,0 +1,10 @@
+-- Líneas de cotización en cada shard; viven siempre en el mismo shard que su cotización.
+CREATE TABLE cotizacion_linea (
+  cotizacion_id   BIGINT        NOT NULL,
+  linea           INT           NOT NULL,
+  producto        VARCHAR(120)  NOT NULL,
+  cantidad        INT           NOT NULL,
+  precio_unitario DECIMAL(15,2) NOT NULL,
+  PRIMARY KEY (cotizacion_id, linea),
+  CONSTRAINT fk_linea_cotizacion FOREIGN KEY (cotizacion_id) REFERENCES cotizacion (id) ON DELETE CASCADE
+);
@@ -0,0 +1,5 @@
+-- Webhook de Salesforce en cada shard: los eventos llegan por salesforce_quote_id, sin el cliente, así que
+-- cada lote se busca en todos los shards y necesita el mismo índice que la base principal.
+ALTER TABLE cotizacion ADD COLUMN salesforce_estado_at TIMESTAMP(3) NULL;
+
+CREATE INDEX idx_cotizacion_sf_quote ON cotizacion (salesforce_quote_id);
@@ -1,15 +1,51 @@
 package com.tienda;
 
-import org.junit.jupiter.api.Disabled;
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.batch.PurgaClientesJob;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.warmup.CalentamientoService;
 import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 
-@SpringBootTest
-@Disabled("Deshabilitado temporalmente: no se requiere levantar el contexto completo para estas pruebas")
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Arranque del contexto completo sobre H2, como el entrenamiento CDS del Dockerfile: detecta beans que no
+ * se pueden inyectar o proxies que pierden métodos {@code @Scheduled}. Las tablas de las entidades las
+ * genera Hibernate y las de los servicios JDBC, {@code esquema-jdbc-h2.sql}.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:contexto;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.defer-datasource-initialization=true",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:esquema-jdbc-h2.sql",
+		"tienda.auditoria.enabled=false",
+		"tienda.warmup.iteraciones=3"
+})
 class TiendaApplicationTests {
 
+	@Autowired
+	private ApplicationContext contexto;
+
 	@Test
-	void contextLoads() {
+	void contextLoads_losServiciosTrazadosSeInyectanPorClase() {
+		List<Class<?>> conInterfaz = List.of(CalentamientoService.class, BusInvalidacion.class,
+				DiarioAuditoria.class, PurgaClientesJob.class);
+
+		for (Class<?> tipo : conInterfaz) {
+			Object bean = contexto.getBean(tipo);
+			assertThat(AopUtils.isCglibProxy(bean)).as(tipo.getSimpleName()).isTrue();
+		}
 	}
 
 }
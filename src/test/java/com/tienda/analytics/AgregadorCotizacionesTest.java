@@ -0,0 +1,87 @@
+package com.tienda.analytics;
+
+import com.tienda.model.EstadoCotizacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AgregadorCotizacionesTest {
+
+    private static final int DIA_BASE = (int) LocalDate.parse("2026-02-01").toEpochDay();
+
+    private ForkJoinPool pool;
+    private AgregadorCotizaciones agregador;
+    private ColumnasCotizacion columnas;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        agregador = new AgregadorCotizaciones(pool);
+
+        // Más filas que el umbral para forzar la división en subtareas
+        columnas = new ColumnasCotizacion(16);
+        int n = AgregadorCotizaciones.UMBRAL * 3 + 7;
+        for (int i = 1; i <= n; i++) {
+            EstadoCotizacion estado = i % 3 == 0 ? EstadoCotizacion.ENVIADA_SF : EstadoCotizacion.CREADA;
+            columnas.agregar(i, i % 10, i * 100L, DIA_BASE + (i % 5), estado);
+        }
+        columnas.publicar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void vista_noExponeFilasSinPublicar() {
+        columnas.agregar(999_999, 1, 100, DIA_BASE, EstadoCotizacion.CREADA);
+
+        ColumnasCotizacion.Vista v = columnas.vista();
+        assertThat(v.filas()).isEqualTo(AgregadorCotizaciones.UMBRAL * 3 + 7);
+        assertThat(v.watermark()).isEqualTo(v.filas());
+    }
+
+    @Test
+    void histograma_deberiaContarTodasLasFilas() {
+        ColumnasCotizacion.Vista v = columnas.vista();
+
+        long[] conteos = agregador.histograma(v, FiltroSnapshot.TODO, 0, v.filas() * 100L + 100, 10);
+
+        assertThat(conteos).hasSize(10);
+        assertThat(Arrays.stream(conteos).sum()).isEqualTo(v.filas());
+    }
+
+    @Test
+    void percentiles_deberiaUsarNearestRank() {
+        ColumnasCotizacion.Vista v = columnas.vista();
+
+        long[] p = agregador.percentiles(v, FiltroSnapshot.TODO, 50, 100);
+
+        // Los totales son 100, 200, ..., n*100
+        assertThat(p[0]).isEqualTo((long) Math.ceil(v.filas() / 2.0) * 100);
+        assertThat(p[1]).isEqualTo(v.filas() * 100L);
+    }
+
+    @Test
+    void conteoDiario_deberiaSepararPorEstadoYRespetarFiltro() {
+        ColumnasCotizacion.Vista v = columnas.vista();
+        FiltroSnapshot soloEnviadas = FiltroSnapshot.de(EstadoCotizacion.ENVIADA_SF, null, null);
+
+        long[] matriz = agregador.conteoDiario(v, soloEnviadas, DIA_BASE, DIA_BASE + 4);
+
+        int n = AgregadorCotizaciones.estados();
+        long enviadas = 0;
+        for (int d = 0; d < 5; d++) {
+            assertThat(matriz[d * n + EstadoCotizacion.CREADA.ordinal()]).isZero();
+            enviadas += matriz[d * n + EstadoCotizacion.ENVIADA_SF.ordinal()];
+        }
+        assertThat(enviadas).isEqualTo(v.filas() / 3);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tienda.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Refresco incremental sobre H2, con ids que aparecen fuera de orden como al confirmar tarde. */
+class SnapshotCotizacionServiceTest {
+
+    private JdbcTemplate jdbc;
+    private SnapshotCotizacionService servicio;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:snapshot-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbc.execute("create table cotizacion (id bigint primary key, cliente_id bigint not null,"
+                + " total decimal(15,2) not null, estado varchar(30) not null, created_at timestamp not null)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (servicio != null) {
+            servicio.cerrar();
+        }
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void refrescar_recogeLosIdsQueSeConfirmanTardeSinDuplicar() {
+        servicio = new SnapshotCotizacionService(jdbc, 3, 1, 60_000);
+        insertar(1, 2, 5, 6, 7);
+
+        servicio.refrescar();
+        assertThat(ids()).containsExactlyInAnyOrder(1L, 2L, 5L, 6L, 7L);
+
+        // 3 y 4 tenían el id asignado pero se confirmaron después del refresco
+        insertar(3, 4, 8);
+        servicio.refrescar();
+        servicio.refrescar();
+
+        assertThat(ids()).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+        assertThat(servicio.vista().watermark()).isEqualTo(8);
+    }
+
+    @Test
+    void refrescar_conLaGraciaVencidaAvanzaSobreElHueco() {
+        servicio = new SnapshotCotizacionService(jdbc, 100, 1, 0);
+        insertar(1, 2, 5);
+        servicio.refrescar();
+
+        // el hueco 3-4 ya venció: un id que aparezca ahí se pierde hasta la reconstrucción
+        insertar(3, 6);
+        servicio.refrescar();
+        assertThat(ids()).containsExactlyInAnyOrder(1L, 2L, 5L, 6L);
+
+        servicio.reconstruir();
+        assertThat(ids()).containsExactlyInAnyOrder(1L, 2L, 3L, 5L, 6L);
+    }
+
+    private void insertar(long... ids) {
+        for (long id : ids) {
+            jdbc.update("insert into cotizacion (id, cliente_id, total, estado, created_at)"
+                    + " values (?, 1, 10.00, 'CREADA', current_timestamp)", id);
+        }
+    }
+
+    private List<Long> ids() {
+        ColumnasCotizacion.Vista v = servicio.vista();
+        return Arrays.stream(Arrays.copyOf(v.ids(), v.filas())).boxed().toList();
+    }
+}
@@ -0,0 +1,170 @@
+package com.tienda.auditoria;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DiarioAuditoriaTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void variosProductores_rotanSegmentosSinPerderNiRepetirRegistros() throws Exception {
+        int hilos = 8;
+        int porHilo = 20_000;
+        DiarioAuditoria diario = diario(1);
+        diario.start();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                long hilo = h;
+                tareas.add(pool.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < porHilo; i++) {
+                        diario.registrar(TipoEventoAuditoria.COTIZACION_CREADA, i, hilo, "total=" + i + ".00");
+                        if (hilo == 0 && i % 2_000 == 0) { // como el @Scheduled, desde un solo hilo
+                            diario.forzar();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> t : tareas) {
+                t.get();
+            }
+        } finally {
+            pool.shutdownNow();
+            diario.stop();
+        }
+
+        assertThat(FormatoAuditoria.segmentos(dir)).hasSizeGreaterThan(5);
+        long[] siguiente = new long[hilos];
+        long n = new LectorAuditoria(dir).recorrer(FiltroAuditoria.todo(), 0, r -> {
+            int hilo = (int) r.relacionadoId();
+            // cada hilo escribe en orden, así que sus registros aparecen en ese orden
+            assertThat(r.entidadId()).isEqualTo(siguiente[hilo]++);
+            assertThat(r.detalle()).isEqualTo("total=" + r.entidadId() + ".00");
+        });
+        assertThat(n).isEqualTo((long) hilos * porHilo);
+        assertThat(siguiente).containsOnly(porHilo);
+    }
+
+    @Test
+    void lector_filtraPorEntidadTipoYRango() throws Exception {
+        DiarioAuditoria diario = diario(1);
+        diario.start();
+        for (int i = 1; i <= 1_000; i++) {
+            diario.registrar(TipoEventoAuditoria.CLIENTE_CREADO, i, 0, null);
+            diario.registrar(TipoEventoAuditoria.COTIZACION_CREADA, 10_000 + i, i, "total=1.00");
+        }
+        long corte = System.currentTimeMillis();
+        Thread.sleep(5);
+        diario.registrar(TipoEventoAuditoria.COTIZACION_ESTADO, 10_042, 42, "CREADA>ENVIADA_SF");
+        diario.stop();
+
+        LectorAuditoria lector = new LectorAuditoria(dir);
+        List<RegistroAuditoria> delCliente = new ArrayList<>();
+        lector.recorrer(new FiltroAuditoria(null, 42L, Long.MIN_VALUE, Long.MAX_VALUE), 0, delCliente::add);
+        assertThat(delCliente).extracting(RegistroAuditoria::tipo).containsExactly(
+                TipoEventoAuditoria.CLIENTE_CREADO, TipoEventoAuditoria.COTIZACION_CREADA,
+                TipoEventoAuditoria.COTIZACION_ESTADO);
+
+        List<RegistroAuditoria> recientes = new ArrayList<>();
+        lector.recorrer(new FiltroAuditoria(null, null, corte + 1, Long.MAX_VALUE), 0, recientes::add);
+        assertThat(recientes).singleElement().satisfies(r -> {
+            assertThat(r.detalle()).isEqualTo("CREADA>ENVIADA_SF");
+            assertThat(r.entidadId()).isEqualTo(10_042);
+        });
+
+        assertThat(lector.recorrer(new FiltroAuditoria(TipoEventoAuditoria.CLIENTE_CREADO, null,
+                Long.MIN_VALUE, Long.MAX_VALUE), 0, r -> { })).isEqualTo(1_000);
+        assertThat(lector.recorrer(FiltroAuditoria.todo(), 10, r -> { })).isEqualTo(10);
+    }
+
+    @Test
+    void lector_saltaUnRegistroReservadoQueNuncaSePublico() throws Exception {
+        DiarioAuditoria diario = diario(1);
+        diario.start();
+        for (int i = 0; i < 100; i++) {
+            diario.registrar(TipoEventoAuditoria.CLIENTE_CREADO, i, 0, "x".repeat(i % 7));
+        }
+        diario.stop();
+        Path segmento = FormatoAuditoria.segmentos(dir).get(0).archivo();
+        // se borra el registro 50 (como si el proceso muriera entre la reserva y la publicación)
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int pos = FormatoAuditoria.ENCABEZADO_SEGMENTO;
+            for (int i = 0; i < 50; i++) {
+                pos += FormatoAuditoria.alinear(FormatoAuditoria.ENCABEZADO + i % 7);
+            }
+            canal.write(ByteBuffer.allocate(FormatoAuditoria.ENCABEZADO + 1), pos);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        new LectorAuditoria(dir).recorrer(FiltroAuditoria.todo(), 0, r -> ids.add(r.entidadId()));
+
+        assertThat(ids).hasSize(99).doesNotContain(50L).contains(49L, 51L, 99L);
+    }
+
+    @Test
+    void registrar_enTransaccion_escribeSoloAlConfirmar() throws Exception {
+        DiarioAuditoria diario = diario(1);
+        diario.start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            diario.registrar(TipoEventoAuditoria.CLIENTE_CREADO, 1, 0, null);
+            assertThat(leer()).isZero();
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        diario.stop();
+
+        assertThat(leer()).isEqualTo(1);
+    }
+
+    @Test
+    void reinicio_abreUnSegmentoNuevoYConservaLosAnteriores() throws Exception {
+        DiarioAuditoria primero = diario(1);
+        primero.start();
+        primero.registrar(TipoEventoAuditoria.CLIENTE_CREADO, 1, 0, null);
+        primero.forzar(); // deja preasignado el siguiente segmento
+        primero.stop();
+
+        DiarioAuditoria segundo = diario(1);
+        segundo.start();
+        segundo.registrar(TipoEventoAuditoria.CLIENTE_CREADO, 2, 0, null);
+        segundo.stop();
+
+        assertThat(FormatoAuditoria.segmentos(dir)).hasSize(2)
+                .allSatisfy(s -> assertThat(s.activadoMs()).isPositive());
+        assertThat(leer()).isEqualTo(2);
+    }
+
+    private long leer() throws Exception {
+        return new LectorAuditoria(dir).recorrer(FiltroAuditoria.todo(), 0, r -> { });
+    }
+
+    private DiarioAuditoria diario(int segmentoMb) {
+        return new DiarioAuditoria(true, dir.toString(), segmentoMb, 365);
+    }
+}
@@ -0,0 +1,51 @@
+package com.tienda.batch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ClavesBloqueoTest {
+
+    @Test
+    void documento_deberiaIgnorarPrefijosYSeparadores() {
+        assertThat(ClavesBloqueo.documento("CC 1.234.567.890")).isEqualTo("1234567890");
+        assertThat(ClavesBloqueo.documento("001234567890")).isEqualTo("1234567890");
+        assertThat(ClavesBloqueo.documento("ab-12")).isEqualTo("AB12");
+        assertThat(ClavesBloqueo.documento("  ")).isNull();
+    }
+
+    @Test
+    void telefono_deberiaConservarUltimosDiezDigitos() {
+        assertThat(ClavesBloqueo.telefono("+57 (300) 123-4567")).isEqualTo("3001234567");
+        assertThat(ClavesBloqueo.telefono("300 123 4567")).isEqualTo("3001234567");
+        assertThat(ClavesBloqueo.telefono("123")).isNull();
+    }
+
+    @Test
+    void nombreFonetico_deberiaUnificarVariantesOrtograficas() {
+        assertThat(ClavesBloqueo.nombreFonetico("Cristian Andrés", "Vásquez"))
+                .isEqualTo(ClavesBloqueo.nombreFonetico("Kristian", "Bazquez"));
+        assertThat(ClavesBloqueo.nombreFonetico("Guillermo", "Hernández"))
+                .isEqualTo(ClavesBloqueo.nombreFonetico("Guiyermo", "Ernandes"));
+        assertThat(ClavesBloqueo.nombreFonetico("Juan", null)).isNull();
+    }
+
+    @Test
+    void puntuar_deberiaSuperarUmbralConDocumentoYNombreIguales() {
+        var a = SimilitudClientes.Firma.de(1, "Juan", "Pérez", "juan.perez@example.com", "3001234567", "CC123456789");
+        var b = SimilitudClientes.Firma.de(2, "Juan", "Perez", "jperez@otro.com", "+57 300 123 4567", "123456789");
+
+        SimilitudClientes.Resultado r = SimilitudClientes.puntuar(a, b);
+
+        assertThat(r.puntaje()).isGreaterThan(0.9);
+        assertThat(r.motivos()).contains("documento").contains("telefono").contains("nombre");
+    }
+
+    @Test
+    void puntuar_deberiaSerBajoParaClientesDistintos() {
+        var a = SimilitudClientes.Firma.de(1, "Ana", "Ramírez", "ana@example.com", "3111111111", "111111");
+        var b = SimilitudClientes.Firma.de(2, "Pedro", "Gómez", "pedro@example.com", "3222222222", "222222");
+
+        assertThat(SimilitudClientes.puntuar(a, b).puntaje()).isLessThan(0.2);
+    }
+}
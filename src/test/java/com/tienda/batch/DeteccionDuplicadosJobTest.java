@@ -0,0 +1,129 @@
+package com.tienda.batch;
+
+import com.tienda.dto.DuplicadosResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Detección sobre H2 con lotes de 3 filas: un par duplicado claro, un par que solo comparte documento y un
+ * teléfono genérico cuyo bloque supera {@code max-bloque}.
+ */
+class DeteccionDuplicadosJobTest {
+
+    @TempDir
+    Path directorio;
+
+    private JdbcTemplate jdbc;
+    private DeteccionDuplicadosJob job;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:duplicados-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbc.execute("create table cliente (id bigint primary key, nombres varchar(100) not null,"
+                + " apellidos varchar(100) not null, email varchar(150) not null, telefono varchar(30),"
+                + " documento varchar(50))");
+        cliente(1, "Ana", "Pérez", "ana.perez@tienda.local", "300 111 2222", "CC 1.234.567");
+        cliente(2, "Ana", "Perez", "anaperez+promo@otro.local", "+57 3001112222", "1234567");
+        cliente(3, "Luis", "Gómez", "luis@tienda.local", null, "DNI 9876543");
+        cliente(4, "Marta", "Ríos", "marta@tienda.local", null, "9876543");
+        cliente(5, "Pedro", "Alba", "pedro@tienda.local", "555-000-0000", null);
+        cliente(6, "Sofía", "Cano", "sofia@tienda.local", "555-000-0000", null);
+        cliente(7, "Tomás", "Duarte", "tomas@tienda.local", "555-000-0000", null);
+        cliente(8, "Elena", "Fuentes", "elena@tienda.local", "555-000-0000", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (job != null) {
+            job.cerrar();
+        }
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void ejecutar_emiteLosParesDeCadaBloqueYReportaLosQueSuperanElUmbral() throws Exception {
+        job = job(0.6);
+
+        DuplicadosResponse r = job.ejecutar();
+
+        assertThat(r.getEstado()).isEqualTo("COMPLETADO");
+        assertThat(r.getClientesLeidos()).isEqualTo(8);
+        // el teléfono 555-000-0000 forma un bloque de 4 con max-bloque 3
+        assertThat(r.getBloquesDescartados()).isEqualTo(1);
+        // (1,2) coincide en documento, teléfono y nombre pero se evalúa una sola vez; (3,4) solo en documento
+        assertThat(r.getParesEvaluados()).isEqualTo(2);
+        assertThat(r.getCandidatos()).isEqualTo(1);
+        assertThat(Files.readAllLines(Path.of(r.getArchivo()), StandardCharsets.UTF_8)).containsExactly(
+                "cliente_a,cliente_b,puntaje,motivos",
+                "1,2,1.000,documento;telefono;nombre=100%;email;");
+    }
+
+    @Test
+    void ejecutar_elUmbralEsInclusivo() throws Exception {
+        job = job(0.5);
+
+        DuplicadosResponse r = job.ejecutar();
+
+        assertThat(r.getCandidatos()).isEqualTo(2);
+        assertThat(Files.readAllLines(Path.of(r.getArchivo()), StandardCharsets.UTF_8)).containsExactly(
+                "cliente_a,cliente_b,puntaje,motivos",
+                "1,2,1.000,documento;telefono;nombre=100%;email;",
+                "3,4,0.500,documento;");
+    }
+
+    @Test
+    void iniciar_publicaElEstadoAlTerminarOConError() throws Exception {
+        job = job(0.6);
+        assertThat(job.estado().getEstado()).isEqualTo("NUNCA_EJECUTADO");
+
+        assertThat(job.iniciar()).isTrue();
+        DuplicadosResponse r = esperar();
+        assertThat(r.getEstado()).isEqualTo("COMPLETADO");
+        assertThat(r.getIniciado()).isNotNull();
+        assertThat(r.getFinalizado()).isAfterOrEqualTo(r.getIniciado());
+        assertThat(r.getCandidatos()).isEqualTo(1);
+
+        // corriendo se libera después de publicar el estado: la corrida fallida va en otra instancia
+        job.cerrar();
+        job = job(0.6);
+        jdbc.execute("drop table cliente");
+        assertThat(job.iniciar()).isTrue();
+        DuplicadosResponse fallida = esperar();
+        assertThat(fallida.getEstado()).isEqualTo("ERROR");
+        assertThat(fallida.getError()).isNotBlank();
+        assertThat(fallida.getFinalizado()).isNotNull();
+    }
+
+    private DeteccionDuplicadosJob job(double umbral) {
+        return new DeteccionDuplicadosJob(jdbc, 3, 3, umbral, directorio.toString(), 2);
+    }
+
+    private DuplicadosResponse esperar() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < limite) {
+            DuplicadosResponse r = job.estado();
+            if (!"EN_CURSO".equals(r.getEstado())) {
+                return r;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("La detección de duplicados no terminó");
+    }
+
+    private void cliente(long id, String nombres, String apellidos, String email, String telefono, String documento) {
+        jdbc.update("insert into cliente (id, nombres, apellidos, email, telefono, documento) values (?, ?, ?, ?, ?, ?)",
+                id, nombres, apellidos, email, telefono, documento);
+    }
+}
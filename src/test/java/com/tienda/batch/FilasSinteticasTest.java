@@ -0,0 +1,107 @@
+package com.tienda.batch;
+
+import com.tienda.model.EstadoCotizacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FilasSinteticasTest {
+
+    private GeneradorDatosProperties props;
+
+    @BeforeEach
+    void setUp() {
+        props = new GeneradorDatosProperties();
+        props.setSemilla(7L);
+        props.setDesde(LocalDate.parse("2026-01-01"));
+        props.setHasta(LocalDate.parse("2026-01-31"));
+        props.setCotizacionesPorCliente(10);
+        props.setSesgo(1.5);
+    }
+
+    @Test
+    void generarBloque_mismaSemillaProduceMismasFilas() {
+        List<String> a = capturar(new FilasSinteticas(props), 3);
+        List<String> b = capturar(new FilasSinteticas(props), 3);
+
+        assertThat(a).isNotEmpty().isEqualTo(b);
+    }
+
+    @Test
+    void generarBloque_bloquesDistintosProducenFilasDistintas() {
+        FilasSinteticas filas = new FilasSinteticas(props);
+
+        assertThat(capturar(filas, 0)).isNotEqualTo(capturar(filas, 1));
+    }
+
+    @Test
+    void generarBloque_fechasDentroDelRangoYCotizacionesDespuesDelAlta() {
+        Map<Long, LocalDateTime> altas = new HashMap<>();
+        List<LocalDateTime> fechas = new ArrayList<>();
+        new FilasSinteticas(props).generarBloque(0, 1, 200, new FilasSinteticas.Destino() {
+            @Override
+            public void cliente(long id, String n, String a, String e, String t, String d, LocalDateTime c) {
+                altas.put(id, c);
+            }
+
+            @Override
+            public void cotizacion(long clienteId, long total, EstadoCotizacion estado, LocalDateTime createdAt) {
+                assertThat(createdAt).isAfterOrEqualTo(altas.get(clienteId));
+                fechas.add(createdAt);
+            }
+        });
+
+        fechas.addAll(altas.values());
+        assertThat(fechas).isNotEmpty().allSatisfy(f -> assertThat(f.toLocalDate())
+                .isBetween(LocalDate.parse("2026-01-01"), LocalDate.parse("2026-01-31")));
+        assertThat(altas.values().stream().map(LocalDateTime::toLocalDate).distinct().count())
+                .as("altas repartidas en el rango").isGreaterThan(20);
+    }
+
+    @Test
+    void cotizacionesDe_deberiaSerSesgadaConMediaCercanaALaConfigurada() {
+        FilasSinteticas filas = new FilasSinteticas(props);
+        SplittableRandom rnd = new SplittableRandom(1);
+        int n = 200_000;
+        long suma = 0;
+        int max = 0;
+        int pocas = 0;
+        for (int i = 0; i < n; i++) {
+            int c = filas.cotizacionesDe(rnd);
+            suma += c;
+            max = Math.max(max, c);
+            if (c < 10) {
+                pocas++;
+            }
+        }
+
+        assertThat((double) suma / n).isBetween(7.0, 12.0);
+        assertThat(max).isGreaterThan(500);        // cola larga
+        assertThat(pocas).isGreaterThan(n * 7 / 10); // la mayoría tiene pocas
+    }
+
+    private static List<String> capturar(FilasSinteticas filas, int bloque) {
+        List<String> out = new ArrayList<>();
+        filas.generarBloque(bloque, 1000L * bloque + 1, 50, new FilasSinteticas.Destino() {
+            @Override
+            public void cliente(long id, String n, String a, String e, String t, String d, LocalDateTime c) {
+                out.add(id + n + a + e + t + d + c);
+            }
+
+            @Override
+            public void cotizacion(long clienteId, long total, EstadoCotizacion estado, LocalDateTime createdAt) {
+                out.add(clienteId + ":" + total + estado + createdAt);
+            }
+        });
+        return out;
+    }
+}
@@ -0,0 +1,191 @@
+package com.tienda.batch;
+
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.bloom.FiltroEmailsClientes;
+import com.tienda.dto.ImportacionClientesResponse;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** Importación sobre una base H2 con la tabla de clientes y la del bus de invalidación. */
+class ImportacionClientesJobTest {
+
+    @TempDir
+    Path directorio;
+
+    private JdbcTemplate jdbc;
+    private BusInvalidacion bus;
+    private DiarioAuditoria auditoria;
+    private ImportacionClientesJob job;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:importacion-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbc.execute("create table cliente (id bigint auto_increment primary key, nombres varchar(100) not null,"
+                + " apellidos varchar(100) not null, email varchar(150) not null, telefono varchar(30),"
+                + " documento varchar(50), salesforce_account_id varchar(18), hash_contenido bigint,"
+                + " created_at timestamp default current_timestamp not null, constraint uk_cliente_email unique (email))");
+        jdbc.execute("create index idx_cliente_sf_account on cliente (salesforce_account_id)");
+        jdbc.execute("create table cambio_entidad (id bigint auto_increment primary key, entidad varchar(20) not null,"
+                + " entidad_id bigint not null, version bigint not null, nodo int not null)");
+        bus = new BusInvalidacion(jdbc, 5_000, 2_000, 100, 60, 60_000);
+        auditoria = mock(DiarioAuditoria.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (job != null) {
+            job.cerrar();
+        }
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void importar_altasActualizacionesConflictosYFilasSinCambios() throws Exception {
+        jdbc.update("insert into cliente (id, nombres, apellidos, email, telefono, documento, salesforce_account_id)"
+                + " values (1, 'Ana', 'Pérez', 'ana@tienda.local', '111', 'DNI-1', ?)", cuenta(1));
+        jdbc.update("insert into cliente (id, nombres, apellidos, email) values (2, 'Beto', 'Ruiz', 'beto@tienda.local')");
+        jdbc.update("insert into cliente (id, nombres, apellidos, email, salesforce_account_id)"
+                + " values (3, 'Ceci', 'Gómez', 'ceci@tienda.local', ?)", cuenta(3));
+        jdbc.execute("alter table cliente alter column id restart with 100");
+        List<Long> invalidados = new CopyOnWriteArrayList<>();
+        bus.suscribir(TipoEntidad.CLIENTE, invalidados::add);
+        Path extracto = escribir("cuentas.csv", List.of(
+                "Id,FirstName,LastName,PersonEmail,Phone,Documento__c",
+                cuenta(1) + ",Ana María,Pérez,ANA@tienda.local,111,DNI-1",          // cambia el nombre
+                cuenta(2) + ",Beto,Ruiz,beto@tienda.local,,",                       // se vincula por email
+                cuenta(4) + ",Dani,Sosa,dani@tienda.local,222,",                    // alta, reemplazada abajo
+                cuenta(5) + ",Eva,Luna,ceci@tienda.local,,",                        // email de otra cuenta
+                cuenta(6) + ",Fede,,fede@tienda.local,,",                           // sin apellido
+                cuenta(7) + ",\"Gabi, \"\"la G\"\"\",Díaz,gabi@tienda.local,,",     // comillas y coma
+                cuenta(4) + ",Daniela,Sosa,dani@tienda.local,222,"));
+        job = job(100);
+
+        ImportacionClientesResponse r = job.importar(extracto);
+
+        assertThat(r.getEstado()).isEqualTo("COMPLETADO");
+        assertThat(r.getFilasLeidas()).isEqualTo(7);
+        assertThat(r.getInsertados()).isEqualTo(2);
+        assertThat(r.getActualizados()).isEqualTo(2);
+        assertThat(r.getRepetidas()).isEqualTo(1);
+        assertThat(r.getInvalidas()).isEqualTo(1);
+        assertThat(r.getConflictos()).isEqualTo(1);
+        assertThat(r.getSinCambios()).isZero();
+        assertThat(jdbc.queryForObject("select nombres from cliente where id = 1", String.class)).isEqualTo("Ana María");
+        assertThat(jdbc.queryForObject("select salesforce_account_id from cliente where id = 2", String.class))
+                .isEqualTo(cuenta(2));
+        assertThat(jdbc.queryForObject("select nombres from cliente where email = 'dani@tienda.local'", String.class))
+                .isEqualTo("Daniela");
+        assertThat(jdbc.queryForObject("select nombres from cliente where email = 'gabi@tienda.local'", String.class))
+                .isEqualTo("Gabi, \"la G\"");
+        assertThat(jdbc.queryForObject("select count(*) from cliente where salesforce_account_id = ?", Long.class,
+                cuenta(5))).isZero();
+        assertThat(invalidados).containsExactlyInAnyOrder(1L, 2L);
+        verify(auditoria).registrar(TipoEventoAuditoria.CLIENTE_ACTUALIZADO, 1, 0, cuenta(1));
+        verify(auditoria).registrar(TipoEventoAuditoria.CLIENTE_ACTUALIZADO, 2, 0, cuenta(2));
+        verify(auditoria, times(2)).registrar(eq(TipoEventoAuditoria.CLIENTE_CREADO), longThat(id -> id >= 100),
+                eq(0L), isNull());
+
+        // la misma corrida otra vez no escribe nada
+        ImportacionClientesResponse repetida = job.importar(extracto);
+        assertThat(repetida.getSinCambios()).isEqualTo(4);
+        assertThat(repetida.getInsertados()).isZero();
+        assertThat(repetida.getActualizados()).isZero();
+        assertThat(repetida.getConflictos()).isEqualTo(1);
+        assertThat(invalidados).hasSize(2);
+    }
+
+    @Test
+    void importar_gzPorLotesYSoloLoQueCambio() throws Exception {
+        List<String> lineas = new ArrayList<>();
+        lineas.add("Id,FirstName,LastName,Email,Phone");
+        for (int i = 1; i <= 2_500; i++) {
+            lineas.add(cuenta(i) + ",Nombre" + i + ",Apellido" + i + ",c" + i + "@tienda.local," + i);
+        }
+        job = job(100);
+
+        ImportacionClientesResponse r = job.importar(escribirGz("cuentas.csv.gz", lineas));
+
+        assertThat(r.getInsertados()).isEqualTo(2_500);
+        assertThat(r.getFilasPorSegundo()).isPositive();
+        assertThat(jdbc.queryForObject("select count(*) from cliente", Long.class)).isEqualTo(2_500);
+        assertThat(jdbc.queryForObject("select count(*) from cliente where hash_contenido is null", Long.class)).isZero();
+
+        for (int i = 1; i <= 10; i++) {
+            lineas.set(i * 200, cuenta(i * 200) + ",Nombre" + (i * 200) + ",Apellido,c" + (i * 200) + "@tienda.local,0");
+        }
+        ImportacionClientesResponse segunda = job.importar(escribirGz("cuentas-2.csv.gz", lineas));
+
+        assertThat(segunda.getActualizados()).isEqualTo(10);
+        assertThat(segunda.getSinCambios()).isEqualTo(2_490);
+        assertThat(jdbc.queryForObject("select count(*) from cambio_entidad", Long.class)).isEqualTo(10);
+        assertThat(jdbc.queryForObject("select telefono from cliente where email = 'c400@tienda.local'", String.class))
+                .isEqualTo("0");
+    }
+
+    @Test
+    void iniciar_validaElArchivoYElEncabezado() throws Exception {
+        job = job(100);
+
+        assertThatThrownBy(() -> job.iniciar("../fuera.csv")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> job.iniciar("no-existe.csv")).isInstanceOf(IllegalArgumentException.class);
+
+        ImportacionClientesResponse r = job.importar(escribir("sin-email.csv", List.of("Id,FirstName,LastName",
+                cuenta(1) + ",Ana,Pérez")));
+        assertThat(r.getEstado()).isEqualTo("ERROR");
+        assertThat(r.getError()).contains("PersonEmail");
+        assertThat(jdbc.queryForObject("select count(*) from cliente", Long.class)).isZero();
+    }
+
+    private ImportacionClientesJob job(int lote) {
+        FiltroEmailsClientes filtro = new FiltroEmailsClientes(jdbc, true, 0.01, 1_000);
+        filtro.run(null);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+        return new ImportacionClientesJob(jdbc, tx, bus, auditoria, filtro, directorio.toString(), lote);
+    }
+
+    private Path escribir(String nombre, List<String> lineas) throws IOException {
+        return Files.write(directorio.resolve(nombre), lineas, StandardCharsets.UTF_8);
+    }
+
+    private Path escribirGz(String nombre, List<String> lineas) throws IOException {
+        Path archivo = directorio.resolve(nombre);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archivo));
+             Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (String linea : lineas) {
+                w.write(linea);
+                w.write("\r\n");
+            }
+        }
+        return archivo;
+    }
+
+    private static String cuenta(long n) {
+        return String.format("001%015d", n);
+    }
+}
@@ -0,0 +1,219 @@
+package com.tienda.batch;
+
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.dto.PurgaClienteResponse;
+import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import com.tienda.sharding.EnrutadorShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** Purga sobre una base H2 con las tablas que toca, más dos shards cuando hace falta. */
+class PurgaClientesJobTest {
+
+    private String prueba;
+    private JdbcTemplate jdbc;
+    private BusInvalidacion bus;
+    private DiarioAuditoria auditoria;
+    private final List<DataSource> shards = new ArrayList<>();
+    private PurgaClientesJob job;
+
+    @BeforeEach
+    void setUp() {
+        prueba = UUID.randomUUID().toString().substring(0, 8);
+        DataSource ds = h2("purga-" + prueba);
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("create table cliente (id bigint primary key, email varchar(150) not null)");
+        jdbc.execute("create table cotizacion (id bigint primary key, cliente_id bigint not null,"
+                + " total decimal(15,2) not null, estado varchar(30) not null, created_at timestamp not null,"
+                + " foreign key (cliente_id) references cliente (id))");
+        jdbc.execute("create index idx_cotizacion_cliente_created on cotizacion (cliente_id, created_at, id)");
+        jdbc.execute("create table cotizacion_linea (cotizacion_id bigint not null, linea int not null,"
+                + " producto varchar(120) not null, cantidad int not null, precio_unitario decimal(15,2) not null,"
+                + " primary key (cotizacion_id, linea), foreign key (cotizacion_id) references cotizacion (id))");
+        jdbc.execute("create table cliente_shard (cliente_id bigint primary key, shard varchar(50) not null, destino varchar(50),"
+                + " actualizado timestamp default current_timestamp not null)");
+        jdbc.execute("create table cambio_entidad (id bigint auto_increment primary key, entidad varchar(20) not null,"
+                + " entidad_id bigint not null, version bigint not null, nodo int not null)");
+        jdbc.execute("create table purga_cliente (cliente_id bigint primary key, estado varchar(20) not null,"
+                + " solicitada timestamp default current_timestamp not null, finalizada timestamp,"
+                + " cotizaciones_borradas bigint default 0 not null, lineas_borradas bigint default 0 not null,"
+                + " error varchar(500))");
+        bus = new BusInvalidacion(jdbc, 5_000, 2_000, 100, 60, 60_000);
+        auditoria = mock(DiarioAuditoria.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (job != null) {
+            job.cerrar();
+        }
+        shards.forEach(ds -> new JdbcTemplate(ds).execute("shutdown"));
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void solicitar_borraPorLotesLasCotizacionesLineasYElCliente() throws Exception {
+        cliente(1);
+        cliente(2);
+        cotizaciones(jdbc, 1, 1, 1_234, 2);
+        cotizaciones(jdbc, 2, 5_000, 5, 2);
+        List<Long> invalidados = new CopyOnWriteArrayList<>();
+        bus.suscribir(TipoEntidad.CLIENTE, invalidados::add);
+        job = job(null);
+
+        assertThat(job.solicitar(1)).isTrue();
+        PurgaClienteResponse r = esperar(1);
+
+        assertThat(r.getEstado()).isEqualTo(PurgaClientesJob.COMPLETADA);
+        assertThat(r.getCotizacionesBorradas()).isEqualTo(1_234);
+        assertThat(r.getLineasBorradas()).isEqualTo(2_468);
+        assertThat(r.getFinalizada()).isNotNull();
+        assertThat(contar(jdbc, "select count(*) from cliente where id = 1")).isZero();
+        assertThat(contar(jdbc, "select count(*) from cotizacion where cliente_id = 1")).isZero();
+        assertThat(contar(jdbc, "select count(*) from cotizacion where cliente_id = 2")).isEqualTo(5);
+        assertThat(contar(jdbc, "select count(*) from cotizacion_linea")).isEqualTo(10);
+        assertThat(invalidados).containsExactly(1L);
+        verify(auditoria).registrar(TipoEventoAuditoria.CLIENTE_PURGADO, 1, 0, "cotizaciones=1234");
+    }
+
+    @Test
+    void solicitar_clienteInexistenteODuplicado() throws Exception {
+        cliente(2);
+        job = job(null);
+
+        assertThatThrownBy(() -> job.solicitar(99)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(job.solicitar(2)).isTrue();
+        assertThat(job.solicitar(2)).isFalse();
+        esperar(2);
+        assertThat(job.solicitar(2)).as("ya completada").isFalse();
+        assertThatThrownBy(() -> job.estado(99)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void run_retomaLasPurgasQueQuedaronAMitad() throws Exception {
+        cliente(1);
+        cotizaciones(jdbc, 1, 1, 300, 1);
+        // como si la instancia se hubiera caído después de borrar un lote
+        jdbc.update("delete from cotizacion_linea where cotizacion_id <= 100");
+        jdbc.update("delete from cotizacion where id <= 100");
+        jdbc.update("insert into purga_cliente (cliente_id, estado, cotizaciones_borradas, lineas_borradas)"
+                + " values (1, 'EN_CURSO', 100, 100)");
+        job = job(null);
+
+        job.run(null);
+        PurgaClienteResponse r = esperar(1);
+
+        assertThat(r.getEstado()).isEqualTo(PurgaClientesJob.COMPLETADA);
+        assertThat(r.getCotizacionesBorradas()).isEqualTo(300);
+        assertThat(contar(jdbc, "select count(*) from cotizacion")).isZero();
+        assertThat(contar(jdbc, "select count(*) from cliente")).isZero();
+    }
+
+    @Test
+    void purgar_tambienBorraEnCadaShard() throws Exception {
+        cliente(1);
+        cliente(2);
+        Map<String, DataSource> bases = new LinkedHashMap<>();
+        for (String s : List.of("s0", "s1")) {
+            DataSource ds = h2(s + "-" + prueba);
+            bases.put(s, ds);
+            shards.add(ds);
+        }
+        EnrutadorShards enrutador = new EnrutadorShards(jdbc, bases, 64, 0, List.of());
+        enrutador.iniciar();
+        // restos de un movimiento a medias: el cliente 1 quedó en los dos shards
+        long base = 1;
+        for (EnrutadorShards.Shard s : enrutador.shards()) {
+            cotizaciones(s.jdbc(), 1, base, 250, 1);
+            cotizaciones(s.jdbc(), 2, base + 10_000, 3, 1);
+            base += 1_000;
+        }
+        jdbc.update("insert into cliente_shard (cliente_id, shard) values (1, 's0')");
+        jdbc.update("insert into purga_cliente (cliente_id, estado) values (1, 'PENDIENTE')");
+        job = job(enrutador);
+
+        job.purgar(1);
+
+        assertThat(job.estado(1).getCotizacionesBorradas()).isEqualTo(500);
+        for (EnrutadorShards.Shard s : enrutador.shards()) {
+            assertThat(contar(s.jdbc(), "select count(*) from cotizacion where cliente_id = 1")).as(s.nombre()).isZero();
+            assertThat(contar(s.jdbc(), "select count(*) from cotizacion where cliente_id = 2")).as(s.nombre()).isEqualTo(3);
+            assertThat(contar(s.jdbc(), "select count(*) from cotizacion_linea")).as(s.nombre()).isEqualTo(3);
+        }
+        assertThat(contar(jdbc, "select count(*) from cliente_shard")).isZero();
+    }
+
+    private PurgaClientesJob job(EnrutadorShards enrutador) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        if (enrutador != null) {
+            beans.registerSingleton("enrutadorShards", enrutador);
+        }
+        ObjectProvider<EnrutadorShards> proveedor = beans.getBeanProvider(EnrutadorShards.class);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+        return new PurgaClientesJob(jdbc, tx, bus, auditoria, proveedor, 100, 0);
+    }
+
+    private PurgaClienteResponse esperar(long clienteId) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < limite) {
+            PurgaClienteResponse r = job.estado(clienteId);
+            if (PurgaClientesJob.COMPLETADA.equals(r.getEstado()) || PurgaClientesJob.ERROR.equals(r.getEstado())) {
+                return r;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("La purga del cliente " + clienteId + " no terminó");
+    }
+
+    private void cliente(long id) {
+        jdbc.update("insert into cliente (id, email) values (?, ?)", id, "c" + id + "@tienda.local");
+    }
+
+    /** Varias cotizaciones comparten {@code created_at} para que el keyset tenga que desempatar por id. */
+    private static void cotizaciones(JdbcTemplate jdbc, long clienteId, long desdeId, int n, int lineas) {
+        LocalDateTime base = LocalDateTime.parse("2026-01-01T00:00:00");
+        List<Object[]> filas = new ArrayList<>();
+        List<Object[]> detalle = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            long id = desdeId + i;
+            filas.add(new Object[]{id, clienteId, base.plusMinutes(i % 7)});
+            for (int l = 0; l < lineas; l++) {
+                detalle.add(new Object[]{id, l});
+            }
+        }
+        jdbc.batchUpdate("insert into cotizacion (id, cliente_id, total, estado, created_at)"
+                + " values (?, ?, 10.00, 'CREADA', ?)", filas);
+        jdbc.batchUpdate("insert into cotizacion_linea (cotizacion_id, linea, producto, cantidad, precio_unitario)"
+                + " values (?, ?, 'Teclado', 1, 10.00)", detalle);
+    }
+
+    private static long contar(JdbcTemplate jdbc, String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+
+    private static DataSource h2(String nombre) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+    }
+}
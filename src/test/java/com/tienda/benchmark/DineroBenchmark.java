@@ -0,0 +1,132 @@
+package com.tienda.benchmark;
+
+import com.tienda.dinero.Dinero;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Dinero} frente a {@link BigDecimal} en los tres caminos calientes del total de una cotización:
+ * <ul>
+ *   <li>crear: leer el JSON del request, validar {@code > 0} y comparar;</li>
+ *   <li>listar: serializar una página de 20 cotizaciones;</li>
+ *   <li>sumar: totalizar 10.000 montos.</li>
+ * </ul>
+ * Para ver las asignaciones por operación agregar el profiler de GC:
+ * <pre>
+ * ./mvnw -q test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.tienda.benchmark.DineroBenchmark
+ * </pre>
+ * ({@code main} ya lo activa: columna {@code gc.alloc.rate.norm}, bytes por operación).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DineroBenchmark {
+
+    public record RequestBigDecimal(Long clienteId, BigDecimal total) {
+    }
+
+    public record RequestDinero(Long clienteId, Dinero total) {
+    }
+
+    public record FilaBigDecimal(long id, long clienteId, BigDecimal total, String estado) {
+    }
+
+    public record FilaDinero(long id, long clienteId, Dinero total, String estado) {
+    }
+
+    private static final String REQUEST = "{\"clienteId\":1,\"total\":259900.50}";
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private List<FilaBigDecimal> paginaBigDecimal;
+    private List<FilaDinero> paginaDinero;
+    private BigDecimal[] montosBigDecimal;
+    private Dinero[] montosDinero;
+    private long[] montosCentavos;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom rnd = new SplittableRandom(7);
+        paginaBigDecimal = new ArrayList<>();
+        paginaDinero = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            long c = 100 + rnd.nextLong(100_000_000L);
+            paginaBigDecimal.add(new FilaBigDecimal(i, 1, BigDecimal.valueOf(c, 2), "CREADA"));
+            paginaDinero.add(new FilaDinero(i, 1, Dinero.deCentavos(c), "CREADA"));
+        }
+        montosBigDecimal = new BigDecimal[10_000];
+        montosDinero = new Dinero[10_000];
+        montosCentavos = new long[10_000];
+        for (int i = 0; i < montosCentavos.length; i++) {
+            long c = 100 + rnd.nextLong(100_000_000L);
+            montosCentavos[i] = c;
+            montosBigDecimal[i] = BigDecimal.valueOf(c, 2);
+            montosDinero[i] = Dinero.deCentavos(c);
+        }
+    }
+
+    @Benchmark
+    public boolean crearBigDecimal() {
+        RequestBigDecimal r = mapper.readValue(REQUEST, RequestBigDecimal.class);
+        return r.total().compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    @Benchmark
+    public boolean crearDinero() {
+        RequestDinero r = mapper.readValue(REQUEST, RequestDinero.class);
+        return r.total().esPositivo();
+    }
+
+    @Benchmark
+    public byte[] listarBigDecimal() {
+        return mapper.writeValueAsBytes(paginaBigDecimal);
+    }
+
+    @Benchmark
+    public byte[] listarDinero() {
+        return mapper.writeValueAsBytes(paginaDinero);
+    }
+
+    @Benchmark
+    public BigDecimal sumarBigDecimal() {
+        BigDecimal s = BigDecimal.ZERO;
+        for (BigDecimal m : montosBigDecimal) {
+            s = s.add(m);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public Dinero sumarDinero() {
+        Dinero s = Dinero.CERO;
+        for (Dinero m : montosDinero) {
+            s = s.mas(m);
+        }
+        return s;
+    }
+
+    /** Lo que hace la analítica columnar: sumar los centavos sin objetos. */
+    @Benchmark
+    public Dinero sumarCentavos() {
+        return Dinero.sumar(montosCentavos, 0, montosCentavos.length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DineroBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
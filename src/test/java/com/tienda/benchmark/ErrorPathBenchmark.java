@@ -0,0 +1,81 @@
+package com.tienda.benchmark;
+
+import com.tienda.exception.GlobalExceptionHandler;
+import com.tienda.exception.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Respuestas de error por segundo: camino anterior (excepción con stack trace, {@code LinkedHashMap}
+ * y serialización con Jackson) frente al actual (excepción sin stack y cuerpo por plantilla).
+ * La profundidad simula la pila de Tomcat + filtros + Spring MVC en la que se lanza la excepción.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * ./mvnw -q test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.tienda.benchmark.ErrorPathBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    @Param({"100"})
+    int profundidad;
+
+    private GlobalExceptionHandler handler;
+    private JsonMapper mapper;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler();
+        mapper = JsonMapper.builder().build();
+        request = new MockHttpServletRequest("GET", "/api/clientes/999");
+    }
+
+    @Benchmark
+    public byte[] antes() {
+        RuntimeException ex = lanzarEn(profundidad, true);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.NOT_FOUND.value());
+        body.put("error", HttpStatus.NOT_FOUND.getReasonPhrase());
+        body.put("message", ex.getMessage());
+        body.put("path", request.getRequestURI());
+        return mapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] despues() {
+        ResourceNotFoundException ex = (ResourceNotFoundException) lanzarEn(profundidad, false);
+        return handler.handleNotFound(ex, request).getBody();
+    }
+
+    private static RuntimeException lanzarEn(int profundidad, boolean conStack) {
+        if (profundidad > 0) {
+            return lanzarEn(profundidad - 1, conStack);
+        }
+        return conStack
+                ? new IllegalArgumentException("Cliente no encontrado con id: 999")
+                : new ResourceNotFoundException("Cliente no encontrado con id: 999");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ErrorPathBenchmark.class.getSimpleName()).build()).run();
+    }
+}
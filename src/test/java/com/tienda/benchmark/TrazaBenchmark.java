@@ -0,0 +1,68 @@
+package com.tienda.benchmark;
+
+import com.tienda.tracing.Categoria;
+import com.tienda.tracing.Traza;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de un span (abrir + cerrar, con la búsqueda en el {@code ThreadLocal}) y de armar la
+ * cabecera {@code Server-Timing} de una request típica. El objetivo es mantener el span por
+ * debajo de un par de microsegundos.
+ * <p>
+ * Ejecutar con:
+ * <pre>
+ * ./mvnw -q test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.tienda.benchmark.TrazaBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TrazaBenchmark {
+
+    @Setup(Level.Invocation)
+    public void nuevaTraza() {
+        Traza.iniciar();
+    }
+
+    @TearDown(Level.Invocation)
+    public void terminar() {
+        Traza.terminar();
+    }
+
+    @Benchmark
+    public int span() {
+        Traza traza = Traza.actual();
+        int s = traza.abrir(Categoria.REPOSITORIO, "findById");
+        traza.cerrar(s);
+        return s;
+    }
+
+    @Benchmark
+    public String requestTipica() {
+        Traza traza = Traza.actual();
+        int ctrl = traza.abrir(Categoria.CONTROLADOR, "listar");
+        int svc = traza.abrir(Categoria.SERVICIO, "listarPorClientePaginado");
+        int con = traza.abrir(Categoria.CONEXION, "getConnection");
+        traza.cerrar(con);
+        for (int i = 0; i < 3; i++) {
+            int repo = traza.abrir(Categoria.REPOSITORIO, "findByClienteIdWithCliente");
+            traza.cerrar(repo);
+        }
+        traza.cerrar(svc);
+        traza.cerrar(ctrl);
+        return traza.serverTiming();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TrazaBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,35 @@
+package com.tienda.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FiltroBloomTest {
+
+    @Test
+    void sinFalsosNegativosYFalsosPositivosCercaDelDisenio() {
+        int n = 200_000;
+        FiltroBloom filtro = new FiltroBloom(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filtro.agregar("gen" + i + "@perf.tienda.local");
+        }
+
+        for (int i = 0; i < n; i++) {
+            assertThat(filtro.puedeContener("gen" + i + "@perf.tienda.local")).isTrue();
+        }
+        int falsos = 0;
+        for (int i = 0; i < n; i++) {
+            if (filtro.puedeContener("nuevo" + i + "@correo.com")) {
+                falsos++;
+            }
+        }
+        assertThat((double) falsos / n).isLessThan(0.02);
+        assertThat(filtro.probabilidadEstimada()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    void capacidadInvalida_lanzaIllegalArgument() {
+        assertThatThrownBy(() -> new FiltroBloom(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloom(10, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tienda.carga;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Un pool Hikari por tipo de carga, cada uno sobre su propia base H2 para saber de cuál salió la conexión. */
+class DataSourcePorCargaTest {
+
+    private final Map<TipoCarga, HikariDataSource> pools = new EnumMap<>(TipoCarga.class);
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        String prueba = UUID.randomUUID().toString().substring(0, 8);
+        pools.put(TipoCarga.INTERACTIVA, pool("interactivo-" + prueba, 2, 2_000));
+        pools.put(TipoCarga.BATCH, pool("batch-" + prueba, 1, 250));
+        pools.forEach((tipo, ds) -> {
+            JdbcTemplate t = new JdbcTemplate(ds);
+            t.execute("create table origen (tipo varchar(20))");
+            t.update("insert into origen values (?)", tipo.name());
+        });
+        jdbc = new JdbcTemplate(new DataSourcePorCarga(pools));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.values().forEach(ds -> {
+            new JdbcTemplate(ds).execute("shutdown");
+            ds.close();
+        });
+    }
+
+    @Test
+    void porDefecto_usaElPoolInteractivoYEjecutarCambiaAlBatch() {
+        assertThat(origen()).isEqualTo("INTERACTIVA");
+        ContextoCarga.ejecutar(TipoCarga.BATCH, () -> assertThat(origen()).isEqualTo("BATCH"));
+        assertThat(origen()).isEqualTo("INTERACTIVA");
+    }
+
+    @Test
+    void hiloBatch_todoLoQueCorreEnElEjecutorUsaElPoolBatch() throws Exception {
+        ExecutorService ejecutor = Executors.newSingleThreadExecutor(ContextoCarga.hiloBatch("job-prueba"));
+        try {
+            assertThat(ejecutor.submit(this::origen).get()).isEqualTo("BATCH");
+            assertThat(ejecutor.submit(() -> Thread.currentThread().getName()).get()).isEqualTo("job-prueba");
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void batchAgotado_noBloqueaLasConexionesInteractivas() throws Exception {
+        Connection[] retenida = new Connection[1];
+        ContextoCarga.ejecutar(TipoCarga.BATCH, () -> retenida[0] = conexion());
+        try {
+            // el pool batch (tamaño 1) está tomado: otro job espera su turno y vence
+            ContextoCarga.ejecutar(TipoCarga.BATCH, () ->
+                    assertThatThrownBy(this::conexion).hasRootCauseInstanceOf(SQLException.class));
+
+            long t0 = System.nanoTime();
+            assertThat(origen()).isEqualTo("INTERACTIVA");
+            assertThat((System.nanoTime() - t0) / 1_000_000).isLessThan(200);
+        } finally {
+            retenida[0].close();
+        }
+        assertThat(pools.get(TipoCarga.BATCH).getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    private String origen() {
+        return jdbc.queryForObject("select tipo from origen", String.class);
+    }
+
+    private Connection conexion() {
+        try {
+            return jdbc.getDataSource().getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HikariDataSource pool(String nombre, int tamano, long esperaMs) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName(nombre);
+        ds.setJdbcUrl("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+        ds.setMaximumPoolSize(tamano);
+        ds.setConnectionTimeout(esperaMs);
+        return ds;
+    }
+}
@@ -0,0 +1,69 @@
+package com.tienda.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AdminTokenFilterTest {
+
+    private final AdminTokenFilter filtro = new AdminTokenFilter("secreto");
+
+    @Test
+    void doFilter_exigeElTokenEnAdminYActuatorSalvoHealth() throws Exception {
+        assertThat(pasa("/api/admin/duplicados", null)).isFalse();
+        assertThat(pasa("/api/admin/duplicados", "otro")).isFalse();
+        assertThat(pasa("/api/admin/duplicados", "secreto")).isTrue();
+
+        assertThat(pasa("/actuator", null)).isFalse();
+        assertThat(pasa("/actuator/metrics/tienda.errores", null)).isFalse();
+        assertThat(pasa("/actuator/metrics/tienda.errores", "secreto")).isTrue();
+
+        assertThat(pasa("/actuator/health", null)).isTrue();
+        assertThat(pasa("/actuator/health/readiness", null)).isTrue();
+        assertThat(pasa("/actuator/healthz", null)).isFalse();
+        assertThat(pasa("/api/clientes/1", null)).isTrue();
+    }
+
+    @Test
+    void doFilter_decideSobreLaRutaQueEnrutaSpringMvc() throws Exception {
+        assertThat(pasa("/api;a=b/admin/x", null)).isFalse();
+        assertThat(pasa("/api/admin;a/x", null)).isFalse();
+        assertThat(pasa("/%61pi/admin/x", null)).isFalse();
+        assertThat(pasa("/api//admin/x", null)).isFalse();
+        assertThat(pasa("/api/clientes/../admin/x", null)).isFalse();
+
+        assertThat(pasa("/actuator;a/metrics", null)).isFalse();
+        assertThat(pasa("/%61ctuator/metrics", null)).isFalse();
+        assertThat(pasa("/actuator/health/../metrics", null)).isFalse();
+        assertThat(pasa("/actuator/health;a/readiness", null)).isTrue();
+    }
+
+    @Test
+    void doFilter_sinTokenConfiguradoCierraLosEndpointsDeAdministracion() throws Exception {
+        AdminTokenFilter sinToken = new AdminTokenFilter("");
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/actuator/metrics");
+        req.addHeader(AdminTokenFilter.CABECERA, "");
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        sinToken.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(401);
+    }
+
+    private boolean pasa(String uri, String token) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", uri);
+        if (token != null) {
+            req.addHeader(AdminTokenFilter.CABECERA, token);
+        }
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        MockFilterChain cadena = new MockFilterChain();
+
+        filtro.doFilter(req, resp, cadena);
+
+        assertThat(resp.getStatus()).isEqualTo(cadena.getRequest() != null ? 200 : 401);
+        return cadena.getRequest() != null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tienda.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SalesforceWebhookFilterTest {
+
+    private final SalesforceWebhookFilter filtro = new SalesforceWebhookFilter("secreto");
+
+    @Test
+    void doFilter_exigeElTokenDeSalesforceEnElWebhook() throws Exception {
+        assertThat(pasa("/api/salesforce/webhook/quotes", null)).isFalse();
+        assertThat(pasa("/api/salesforce/webhook/quotes", "otro")).isFalse();
+        assertThat(pasa("/api/salesforce/webhook/quotes", "secreto")).isTrue();
+        assertThat(pasa("/api/cotizaciones/1", null)).isTrue();
+    }
+
+    @Test
+    void doFilter_decideSobreLaRutaQueEnrutaSpringMvc() throws Exception {
+        assertThat(pasa("/api;x/salesforce/webhook/quotes", null)).isFalse();
+        assertThat(pasa("/api/salesforce;x/webhook/quotes", null)).isFalse();
+        assertThat(pasa("/api/salesforce/webhook;x/quotes", null)).isFalse();
+        assertThat(pasa("/api/%73alesforce/webhook/quotes", null)).isFalse();
+        assertThat(pasa("/api/cotizaciones/../salesforce/webhook/quotes", null)).isFalse();
+    }
+
+    private boolean pasa(String uri, String token) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", uri);
+        if (token != null) {
+            req.addHeader(SalesforceWebhookFilter.CABECERA, token);
+        }
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        MockFilterChain cadena = new MockFilterChain();
+
+        filtro.doFilter(req, resp, cadena);
+
+        assertThat(resp.getStatus()).isEqualTo(cadena.getRequest() != null ? 200 : 401);
+        return cadena.getRequest() != null;
+    }
+}
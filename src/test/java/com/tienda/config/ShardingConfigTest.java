@@ -0,0 +1,39 @@
+package com.tienda.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ShardingConfigTest {
+
+    private JdbcTemplate principal;
+
+    @BeforeEach
+    void setUp() {
+        principal = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:sharding-config-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        principal.execute("create table cotizacion (id bigint primary key, cliente_id bigint not null)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        principal.execute("shutdown");
+    }
+
+    @Test
+    void verificarPrincipalSinCotizaciones_rechazaActivarConCotizacionesEnLaPrincipal() {
+        assertThatCode(() -> ShardingConfig.verificarPrincipalSinCotizaciones(principal)).doesNotThrowAnyException();
+
+        principal.update("insert into cotizacion (id, cliente_id) values (1, 7)");
+
+        assertThatThrownBy(() -> ShardingConfig.verificarPrincipalSinCotizaciones(principal))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("base principal");
+    }
+}
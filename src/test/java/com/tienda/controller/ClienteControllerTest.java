@@ -1,9 +1,16 @@
 package com.tienda.controller;
 
 import com.tienda.dto.ClienteCreateRequest;
+import com.tienda.dinero.Dinero;
 import com.tienda.dto.ClienteResponse;
+import com.tienda.dto.CotizacionResponse;
+import com.tienda.dto.PageResponse;
 import com.tienda.exception.GlobalExceptionHandler;
+import com.tienda.exception.RecursoDuplicadoException;
 import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.CachePaginasCotizaciones;
+import com.tienda.model.EstadoCotizacion;
 import com.tienda.service.ClienteService;
 import com.tienda.service.CotizacionService;
 import org.junit.jupiter.api.Test;
@@ -16,15 +23,22 @@ import org.springframework.test.web.servlet.MockMvc;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = ClienteController.class)
-@Import(GlobalExceptionHandler.class) // para tener cuerpo con mensaje en 404, 400, etc.
+@Import({GlobalExceptionHandler.class, // para tener cuerpo con mensaje en 404, 400, etc.
+        CachePaginasCotizaciones.class})
 class ClienteControllerTest {
 
     @Autowired private MockMvc mvc;
@@ -32,6 +46,7 @@ class ClienteControllerTest {
 
     @MockitoBean private ClienteService clienteService;
     @MockitoBean private CotizacionService cotizacionService;
+    @MockitoBean private BusInvalidacion busInvalidacion;
 
     @Test
     void crearCliente_deberiaRetornar201() throws Exception {
@@ -71,4 +86,60 @@ class ClienteControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("Cliente no encontrado")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void obtenerCliente_conFields_deberiaRetornarSoloCamposPedidos() throws Exception {
+        when(clienteService.obtenerClienteCampos(1L, "id,email"))
+                .thenReturn(Map.of("id", 1L, "email", "juan.perez@example.com"));
+
+        mvc.perform(get("/api/clientes/1").param("fields", "id,email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.email").value("juan.perez@example.com"))
+                .andExpect(jsonPath("$.nombres").doesNotExist());
+
+        verify(clienteService, never()).obtenerClientePorId(any());
+    }
+
+    @Test
+    void crearCliente_deberiaRetornar409ProblemDetailsCuandoEmailDuplicado() throws Exception {
+        var req = new ClienteCreateRequest("Juan", "Pérez", "juan.perez@example.com", null, null);
+        when(clienteService.crearCliente(any()))
+                .thenThrow(new RecursoDuplicadoException("Ya existe un cliente con el email: juan.perez@example.com"));
+
+        mvc.perform(post("/api/clientes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.codigo").value("CONFLICTO"))
+                .andExpect(jsonPath("$.instance").value("/api/clientes"));
+    }
+
+    @Test
+    void listarCotizaciones_laSegundaVezSaleDeLaCacheSinLlamarAlServicio() throws Exception {
+        when(busInvalidacion.sincronizado()).thenReturn(true);
+        var cotizacion = CotizacionResponse.builder()
+                .id(42L)
+                .clienteId(1L)
+                .estado(EstadoCotizacion.CREADA)
+                .total(Dinero.parse("10.50"))
+                .build();
+        when(cotizacionService.listarPorClientePaginado(eq(1L), any())).thenReturn(PageResponse.<CotizacionResponse>builder()
+                .content(List.of(cotizacion)).page(0).size(20).totalElements(1).totalPages(1).last(true).build());
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(get("/api/clientes/1/cotizaciones").param("page", "0").param("size", "20"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.content[0].id").value(42))
+                    .andExpect(jsonPath("$.content[0].total").value(10.50))
+                    .andExpect(jsonPath("$.totalElements").value(1));
+        }
+        mvc.perform(get("/api/clientes/1/cotizaciones").param("page", "0").param("size", "10"))
+                .andExpect(status().isOk());
+
+        verify(cotizacionService, times(2)).listarPorClientePaginado(eq(1L), any());
+    }
+}
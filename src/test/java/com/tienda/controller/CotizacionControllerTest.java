@@ -1,5 +1,6 @@
 package com.tienda.controller;
 
+import com.tienda.dinero.Dinero;
 import com.tienda.dto.CotizacionCreateRequest;
 import com.tienda.dto.CotizacionResponse;
 import com.tienda.dto.PageResponse;
@@ -14,7 +15,6 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import tools.jackson.databind.json.JsonMapper;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -36,7 +36,7 @@ class CotizacionControllerTest {
     void crearCotizacion_deberiaRetornar201() throws Exception {
         var req = CotizacionCreateRequest.builder()
                 .clienteId(1L)
-                .total(new BigDecimal("259900.00"))
+                .total(Dinero.parse("259900.00"))
                 .build();
 
         var res = CotizacionResponse.builder()
@@ -45,7 +45,7 @@ class CotizacionControllerTest {
                 .clienteNombre("Juan Pérez")
                 .clienteEmail("juan.perez@example.com")
                 .estado(EstadoCotizacion.CREADA)
-                .total(new BigDecimal("259900.00"))
+                .total(Dinero.parse("259900.00"))
                 .createdAt(LocalDateTime.parse("2026-02-12T15:27:45"))
                 .build();
 
@@ -56,6 +56,7 @@ class CotizacionControllerTest {
                         .content(mapper.writeValueAsString(req)))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(42))
+                .andExpect(jsonPath("$.total").value(259900.00))
                 .andExpect(jsonPath("$.estado").value("CREADA"));
     }
 
@@ -63,7 +64,7 @@ class CotizacionControllerTest {
     void crearCotizacion_deberiaRetornar400CuandoTotalNoEsPositivo() throws Exception {
         var req = CotizacionCreateRequest.builder()
                 .clienteId(1L)
-                .total(new BigDecimal("0.00")) // viola @DecimalMin(inclusive=false)
+                .total(Dinero.parse("0.00")) // viola @DineroPositivo
                 .build();
 
         mvc.perform(post("/api/cotizaciones")
@@ -76,7 +77,7 @@ class CotizacionControllerTest {
     void crearCotizacion_deberiaRetornar404CuandoClienteNoExiste() throws Exception {
         var req = CotizacionCreateRequest.builder()
                 .clienteId(999L)
-                .total(new BigDecimal("1000.00"))
+                .total(Dinero.parse("1000.00"))
                 .build();
 
         when(cotizacionService.crearCotizacion(any()))
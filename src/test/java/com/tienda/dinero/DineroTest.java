@@ -0,0 +1,88 @@
+package com.tienda.dinero;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DineroTest {
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    record Pedido(long clienteId, Dinero total) {
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1500, 150000, 1500.00",
+            "259900.5, 25990050, 259900.50",
+            "259900.00, 25990000, 259900.00",
+            "-3.25, -325, -3.25",
+            "0001.230, 123, 1.23",
+            "9999999999999.99, 999999999999999, 9999999999999.99"
+    })
+    void parse_aceptaHastaDosDecimalesYNormalizaAlEscribir(String texto, long centavos, String escrito) {
+        Dinero d = Dinero.parse(texto);
+        assertThat(d.centavos()).isEqualTo(centavos);
+        assertThat(d).hasToString(escrito);
+        assertThat(d.aBigDecimal()).isEqualTo(new BigDecimal(escrito));
+        assertThat(Dinero.de(d.aBigDecimal())).isEqualTo(d);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "-", ".", "1.234", "10000000000000", "1e3", "12a", "1.2.3"})
+    void parse_rechazaMontosInvalidos(String texto) {
+        assertThatThrownBy(() -> Dinero.parse(texto)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void aritmetica_esExactaYDetectaDesborde() {
+        Dinero a = Dinero.parse("0.10");
+        Dinero b = Dinero.parse("0.20");
+        assertThat(a.mas(b)).isEqualTo(Dinero.parse("0.30"));
+        assertThat(b.menos(a).por(3)).isEqualTo(Dinero.parse("0.30"));
+        assertThat(Dinero.sumar(new long[]{10, 20, -5}, 0, 3)).isEqualTo(Dinero.deCentavos(25));
+        assertThat(a.compareTo(b)).isNegative();
+
+        Dinero max = Dinero.deCentavos(Dinero.MAX_CENTAVOS);
+        assertThatThrownBy(() -> max.mas(a)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Dinero.de(new BigDecimal("1.005"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void json_escribeNumeroConDosDecimalesYLeeNumeroOString() {
+        assertThat(mapper.writeValueAsString(new Pedido(1, Dinero.parse("259900"))))
+                .isEqualTo("{\"clienteId\":1,\"total\":259900.00}");
+        assertThat(mapper.writeValueAsString(List.of(Dinero.parse("-0.5")))).isEqualTo("[-0.50]");
+
+        assertThat(mapper.readValue("{\"clienteId\":1,\"total\":259900.5}", Pedido.class).total())
+                .isEqualTo(Dinero.parse("259900.50"));
+        assertThat(mapper.readValue("{\"clienteId\":1,\"total\":1500}", Pedido.class).total())
+                .isEqualTo(Dinero.parse("1500.00"));
+        assertThat(mapper.readValue("{\"clienteId\":1,\"total\":\"12.30\"}", Pedido.class).total())
+                .isEqualTo(Dinero.parse("12.30"));
+        assertThat(mapper.readValue("{\"clienteId\":1,\"total\":null}", Pedido.class).total()).isNull();
+    }
+
+    @Test
+    void json_rechazaMasDeDosDecimales() {
+        assertThatThrownBy(() -> mapper.readValue("{\"clienteId\":1,\"total\":1.999}", Pedido.class))
+                .isInstanceOf(DatabindException.class);
+    }
+
+    @Test
+    void dineroPositivo_validaSoloMontosMayoresACero() {
+        DineroPositivoValidator v = new DineroPositivoValidator();
+        assertThat(v.isValid(null, null)).isTrue();
+        assertThat(v.isValid(Dinero.parse("0.01"), null)).isTrue();
+        assertThat(v.isValid(Dinero.CERO, null)).isFalse();
+        assertThat(v.isValid(Dinero.parse("-1"), null)).isFalse();
+    }
+}
@@ -0,0 +1,52 @@
+package com.tienda.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @Test
+    void handleNotFound_deberiaGenerarProblemDetailsValido() {
+        var req = new MockHttpServletRequest("GET", "/api/clientes/999");
+
+        ResponseEntity<byte[]> res = handler.handleNotFound(
+                new ResourceNotFoundException("Cliente \"no\" encontrado\ncon id: 999"), req);
+
+        assertThat(res.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(res.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PROBLEM_JSON);
+        JsonNode json = mapper.readTree(res.getBody());
+        assertThat(json.get("status").asInt()).isEqualTo(404);
+        assertThat(json.get("title").asString()).isEqualTo("Not Found");
+        assertThat(json.get("codigo").asString()).isEqualTo("NO_ENCONTRADO");
+        assertThat(json.get("detail").asString()).isEqualTo("Cliente \"no\" encontrado\ncon id: 999");
+        assertThat(json.get("instance").asString()).isEqualTo("/api/clientes/999");
+    }
+
+    @Test
+    void handleConflict_deberiaResponder409YContarPorTipo() {
+        var req = new MockHttpServletRequest("POST", "/api/clientes");
+
+        ResponseEntity<byte[]> res = handler.handleConflict(new RecursoDuplicadoException("Ya existe"), req);
+        handler.handleConflict(new RecursoDuplicadoException("Ya existe"), req);
+
+        assertThat(res.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(handler.conteo(TipoError.CONFLICTO)).isEqualTo(2);
+        assertThat(handler.conteo(TipoError.NO_ENCONTRADO)).isZero();
+    }
+
+    @Test
+    void excepcionesDeDominio_noCapturanStackTrace() {
+        assertThat(new ResourceNotFoundException("x").getStackTrace()).isEmpty();
+        assertThat(new RecursoDuplicadoException("x").getStackTrace()).isEmpty();
+    }
+}
@@ -0,0 +1,86 @@
+package com.tienda.frecuentes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ContadorFrecuentesTest {
+
+    @Test
+    void variosHilos_encuentranLasClavesPesadasSinSubestimar() throws Exception {
+        ContadorFrecuentes<Long> contador = new ContadorFrecuentes<>(ContadorFrecuentes::mezclar, 1024, 4, 6, 5);
+        int hilos = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                long hilo = h;
+                tareas.add(pool.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        contador.registrar(1_000_000 + hilo * 20_000 + i); // cola larga: cada una una vez
+                        contador.registrar(pesada(i));
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> t : tareas) {
+                t.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<ContadorFrecuentes.Frecuencia<Long>> top = contador.masFrecuentes(6);
+        assertThat(top).extracting(ContadorFrecuentes.Frecuencia::clave).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+        assertThat(top.get(0).clave()).isEqualTo(1L);
+        assertThat(contador.total(6)).isEqualTo(8 * 40_000L);
+        long[] reales = new long[6];
+        for (int i = 0; i < 20_000; i++) {
+            reales[(int) pesada(i)] += hilos;
+        }
+        long error = contador.errorMaximo(6);
+        for (long k = 1; k <= 5; k++) {
+            assertThat(contador.estimar(k, 6)).as("clave %d", k).isBetween(reales[(int) k], reales[(int) k] + error);
+        }
+    }
+
+    /** Claves 1 a 5; el 1 se lleva dos tercios. */
+    private static long pesada(int i) {
+        return i % 3 == 0 ? 1 + i % 5 : 1;
+    }
+
+    @Test
+    void rotar_olvidaLoQueSaleDeLaVentana() {
+        ContadorFrecuentes<String> contador = new ContadorFrecuentes<>(ContadorFrecuentes::hash, 256, 4, 3, 3);
+        for (int i = 0; i < 100; i++) {
+            contador.registrar("GET /api/clientes/{id}");
+        }
+        contador.rotar();
+        for (int i = 0; i < 10; i++) {
+            contador.registrar("GET /api/clientes/{id}/cotizaciones?page,size");
+        }
+
+        assertThat(contador.estimar("GET /api/clientes/{id}", 1)).as("solo el segmento actual").isZero();
+        assertThat(contador.masFrecuentes(3)).extracting(ContadorFrecuentes.Frecuencia::estimado).containsExactly(100L, 10L);
+
+        contador.rotar();
+        contador.rotar();
+
+        assertThat(contador.masFrecuentes(3)).extracting(ContadorFrecuentes.Frecuencia::clave)
+                .containsExactly("GET /api/clientes/{id}/cotizaciones?page,size");
+        assertThat(contador.total(3)).isEqualTo(10);
+        contador.rotar();
+        assertThat(contador.masFrecuentes(3)).isEmpty();
+        assertThat(contador.total(3)).isZero();
+    }
+}
@@ -0,0 +1,226 @@
+package com.tienda.invalidacion;
+
+import com.tienda.dto.ClienteResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Dos instancias del bus sobre la misma base H2, como dos réplicas sobre el MySQL compartido. */
+class BusInvalidacionTest {
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:bus-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbc.execute("create table cambio_entidad (id bigint auto_increment primary key, entidad varchar(20) not null,"
+                + " entidad_id bigint not null, version bigint not null, nodo int not null)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void publicar_avisaLocalEnseguidaYALaOtraInstanciaAlSondear() {
+        BusInvalidacion a = bus(2_000);
+        BusInvalidacion b = bus(2_000);
+        List<Long> enA = new CopyOnWriteArrayList<>();
+        List<Long> enB = new CopyOnWriteArrayList<>();
+        a.suscribir(TipoEntidad.CLIENTE, enA::add);
+        b.suscribir(TipoEntidad.CLIENTE, enB::add);
+        a.sondear();
+        b.sondear();
+
+        a.publicar(TipoEntidad.CLIENTE, 5);
+        a.publicar(TipoEntidad.COTIZACION, 5);
+        assertThat(enA).containsExactly(5L);
+        assertThat(enB).isEmpty();
+
+        b.sondear();
+        a.sondear();
+
+        assertThat(enB).containsExactly(5L);
+        assertThat(enA).as("las filas propias no se notifican dos veces").containsExactly(5L);
+        assertThat(b.eventosRemotos()).isEqualTo(2);
+        assertThat(b.marca()).isEqualTo(2);
+    }
+
+    @Test
+    void sondear_noAvanzaLaMarcaSobreUnHuecoHastaQueVence() {
+        BusInvalidacion b = bus(60_000);
+        List<Long> recibidos = new CopyOnWriteArrayList<>();
+        b.suscribir(TipoEntidad.CLIENTE, recibidos::add);
+        b.sondear();
+
+        insertar(1, 10);
+        insertar(3, 30); // el 2 sigue en una transacción sin confirmar
+        b.sondear();
+        assertThat(recibidos).containsExactly(10L, 30L);
+        assertThat(b.marca()).isEqualTo(1);
+
+        b.sondear();
+        assertThat(recibidos).as("el 3 no se repite mientras espera el hueco").containsExactly(10L, 30L);
+
+        insertar(2, 20);
+        b.sondear();
+        assertThat(recibidos).containsExactly(10L, 30L, 20L);
+        assertThat(b.marca()).isEqualTo(3);
+    }
+
+    @Test
+    void sondear_huecoVencidoSeDaPorRevertido() {
+        BusInvalidacion b = bus(0);
+        b.sondear();
+
+        insertar(1, 10);
+        insertar(4, 40);
+        b.sondear();
+
+        assertThat(b.marca()).isEqualTo(4);
+    }
+
+    @Test
+    void sondear_releeElHuecoVencidoSiLaTransaccionConfirmaTarde() {
+        BusInvalidacion b = bus(0);
+        List<Long> recibidos = new CopyOnWriteArrayList<>();
+        b.suscribir(TipoEntidad.CLIENTE, recibidos::add);
+        b.sondear();
+
+        insertar(1, 10);
+        insertar(3, 30);
+        b.sondear();
+        assertThat(b.marca()).isEqualTo(3);
+
+        insertar(2, 20); // la transacción del 2 duró más que la gracia
+        b.sondear();
+        b.sondear();
+
+        assertThat(recibidos).as("llega una sola vez aunque quedó detrás de la marca").containsExactly(10L, 30L, 20L);
+        assertThat(b.marca()).isEqualTo(3);
+    }
+
+    @Test
+    void caches_noSirvenEntradasMasViejasQueLaEdadMaxima() throws Exception {
+        BusInvalidacion b = bus(2_000);
+        CacheClientes clientes = new CacheClientes(b, 100, 200);
+        CachePaginasCotizaciones paginas = new CachePaginasCotizaciones(b, 1 << 20, 1024, 200);
+        var clave = new CachePaginasCotizaciones.Clave(1, 0, 20, "UNSORTED");
+        b.sondear();
+
+        clientes.guardar(1, ClienteResponse.builder().id(1L).build(), clientes.generacion());
+        paginas.obtener(clave, () -> "[1]".getBytes());
+        assertThat(clientes.buscar(1)).isNotNull();
+        assertThat(paginas.buscar(clave)).isNotNull();
+
+        // un cambio cuyo evento no llegó nunca: solo la edad máxima lo saca de la cache
+        Thread.sleep(250);
+        b.sondear();
+
+        assertThat(clientes.buscar(1)).isNull();
+        assertThat(paginas.buscar(clave)).isNull();
+        assertThat(paginas.bytes()).isZero();
+    }
+
+    @Test
+    void cacheClientes_descartaValoresLeidosAntesDeUnaInvalidacion() {
+        BusInvalidacion b = bus(2_000);
+        CacheClientes cache = new CacheClientes(b, 100, 300_000);
+        ClienteResponse ana = ClienteResponse.builder().id(1L).nombres("Ana").build();
+
+        assertThat(cache.buscar(1)).as("sin sondeo todavía no hay sincronía").isNull();
+        b.sondear();
+
+        cache.guardar(1, ana, cache.generacion());
+        assertThat(cache.buscar(1)).isSameAs(ana);
+
+        long generacion = cache.generacion();
+        b.publicar(TipoEntidad.CLIENTE, 1); // llega mientras otro hilo leía de la base
+        cache.guardar(1, ana, generacion);
+        assertThat(cache.buscar(1)).isNull();
+    }
+
+    @Test
+    void cacheClientes_noDesalojaLosFijadosPorCapacidad() {
+        BusInvalidacion b = bus(2_000);
+        CacheClientes cache = new CacheClientes(b, 3, 300_000);
+        b.sondear();
+        cache.fijar(Set.of(1L, 2L));
+
+        for (long id = 1; id <= 10; id++) {
+            cache.guardar(id, ClienteResponse.builder().id(id).build(), cache.generacion());
+        }
+
+        assertThat(cache.buscar(1)).isNotNull();
+        assertThat(cache.buscar(2)).isNotNull();
+        assertThat(cache.buscar(10)).isNotNull();
+        b.publicar(TipoEntidad.CLIENTE, 1);
+        assertThat(cache.buscar(1)).as("la invalidación vale también para los fijados").isNull();
+    }
+
+    @Test
+    void cachePaginas_unCambioDelClienteDejaViejasSusPaginas() {
+        BusInvalidacion a = bus(2_000);
+        BusInvalidacion b = bus(2_000);
+        CachePaginasCotizaciones cache = new CachePaginasCotizaciones(b, 1 << 20, 1024, 300_000);
+        a.sondear();
+        b.sondear();
+        var primera = new CachePaginasCotizaciones.Clave(5, 0, 20, "UNSORTED");
+        var deOtro = new CachePaginasCotizaciones.Clave(6, 0, 20, "UNSORTED");
+
+        assertThat(cache.obtener(primera, () -> "[1]".getBytes())).asString().isEqualTo("[1]");
+        cache.obtener(deOtro, () -> "[2]".getBytes());
+        assertThat(cache.obtener(primera, () -> { throw new AssertionError("no debía ir a la base"); }))
+                .asString().isEqualTo("[1]");
+
+        long version = cache.version(5);
+        a.publicar(TipoEntidad.COTIZACION, 5); // otra instancia crea una cotización
+        cache.guardar(primera, "[viejo]".getBytes(), version); // una lectura que empezó antes
+        assertThat(cache.buscar(primera)).as("hasta sondear, esta instancia no se enteró").isNotNull();
+        b.sondear();
+
+        assertThat(cache.buscar(primera)).isNull();
+        assertThat(cache.obtener(primera, () -> "[1,3]".getBytes())).asString().isEqualTo("[1,3]");
+        assertThat(cache.buscar(primera)).asString().isEqualTo("[1,3]");
+        assertThat(cache.buscar(deOtro)).asString().isEqualTo("[2]");
+    }
+
+    @Test
+    void cachePaginas_noPasaDelPresupuestoEnBytes() {
+        BusInvalidacion b = bus(2_000);
+        long presupuesto = 64 * 1024;
+        CachePaginasCotizaciones cache = new CachePaginasCotizaciones(b, presupuesto, 1024, 300_000);
+        b.sondear();
+        byte[] pagina = new byte[2_000];
+        var caliente = new CachePaginasCotizaciones.Clave(0, 0, 20, "UNSORTED");
+        cache.obtener(caliente, () -> pagina);
+
+        for (long cliente = 1; cliente <= 500; cliente++) {
+            cache.obtener(new CachePaginasCotizaciones.Clave(cliente, 0, 20, "UNSORTED"), () -> pagina);
+            assertThat(cache.buscar(caliente)).as("la que se sigue leyendo sobrevive").isNotNull();
+        }
+
+        assertThat(cache.bytes()).isLessThanOrEqualTo(presupuesto);
+        assertThat(cache.bytes()).isGreaterThan(presupuesto / 2);
+    }
+
+    private BusInvalidacion bus(long graciaMs) {
+        return new BusInvalidacion(jdbc, 5_000, graciaMs, 100, 60, 60_000);
+    }
+
+    private void insertar(long id, long clienteId) {
+        jdbc.update("insert into cambio_entidad (id, entidad, entidad_id, version, nodo) values (?, 'CLIENTE', ?, ?, 0)",
+                id, clienteId, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,59 @@
+package com.tienda.profiling;
+
+import com.tienda.dto.PerfilJfrResponse;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResumenJfrTest {
+
+    private static volatile long sumidero;
+
+    @Test
+    void leer_atribuyeMuestrasDeCpuAlMetodoCaliente(@TempDir Path dir) throws Exception {
+        Path archivo = dir.resolve("prueba.jfr");
+        try (Recording rec = new Recording()) {
+            rec.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10));
+            rec.enable("jdk.GarbageCollection");
+            rec.start();
+            long fin = System.nanoTime() + Duration.ofMillis(800).toNanos();
+            while (System.nanoTime() < fin) {
+                sumidero += calcular();
+            }
+            System.gc();
+            rec.stop();
+            rec.dump(archivo);
+        }
+
+        PerfilJfrResponse r = ResumenJfr.leer(archivo, 5);
+
+        assertThat(r.getMuestrasCpu()).isPositive();
+        assertThat(r.getTopCpuAplicacion())
+                .extracting(PerfilJfrResponse.Entrada::getNombre)
+                .anyMatch(n -> n.startsWith(ResumenJfrTest.class.getName() + "."));
+        assertThat(r.getGc().getColecciones()).isPositive();
+    }
+
+    @Test
+    void top_ordenaPorPesoYCalculaPorcentaje() {
+        List<PerfilJfrResponse.Entrada> top = ResumenJfr.top(Map.of("a", 10L, "b", 30L, "c", 60L), 100, 2, 1);
+
+        assertThat(top).extracting(PerfilJfrResponse.Entrada::getNombre).containsExactly("c", "b");
+        assertThat(top.get(0).getPorcentaje()).isEqualTo(60.0);
+    }
+
+    private static long calcular() {
+        long h = 0;
+        for (int i = 0; i < 10_000; i++) {
+            h = h * 31 + (i ^ (h >>> 7));
+        }
+        return h;
+    }
+}
@@ -0,0 +1,128 @@
+package com.tienda.repository;
+
+import com.tienda.dinero.Dinero;
+import com.tienda.model.Cliente;
+import com.tienda.model.Cotizacion;
+import com.tienda.model.EstadoCotizacion;
+import com.tienda.model.LineaCotizacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Cotizaciones grandes sobre H2: el esquema lo genera Hibernate a partir de las entidades (las
+ * migraciones de Flyway son de MySQL). Las sentencias se cuentan con las estadísticas de Hibernate.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CotizacionLineasJpaTest {
+
+    private static final int LINEAS = 500;
+    private static final int BATCH_SIZE = 100; // hibernate.jdbc.batch_size en application.properties
+
+    @Autowired private CotizacionRepository cotizacionRepository;
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private EntityManager em;
+    @Autowired private EntityManagerFactory emf;
+
+    private Statistics stats;
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        cliente = clienteRepository.save(Cliente.builder()
+                .nombres("Ana").apellidos("Ramírez").email("ana@example.com").build());
+    }
+
+    @Test
+    void guardar_insertaLasLineasEnLotes() {
+        em.flush();
+        stats.clear();
+
+        cotizacionRepository.save(cotizacion(0));
+        em.flush();
+
+        // un INSERT de la cotización (IDENTITY) y un lote de INSERT por cada batch_size líneas
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(1 + LINEAS / BATCH_SIZE);
+        assertThat(stats.getCollectionRecreateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listarPagina_cargaLasLineasDeTodaLaPaginaEnUnaConsulta() {
+        for (int i = 0; i < 20; i++) {
+            cotizacionRepository.save(cotizacion(i));
+        }
+        em.flush();
+        em.clear();
+        stats.clear();
+
+        long t0 = System.nanoTime();
+        Page<Cotizacion> page = cotizacionRepository.findByClienteIdWithCliente(
+                cliente.getId(), PageRequest.of(0, 20, Sort.by("id")));
+        long lineas = 0;
+        Dinero ultimas = Dinero.CERO;
+        for (Cotizacion c : page.getContent()) {
+            lineas += c.getLineas().size();
+            ultimas = ultimas.mas(c.getLineas().get(LINEAS - 1).subtotal());
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(lineas).isEqualTo(20L * LINEAS);
+        assertThat(ultimas).isEqualTo(Dinero.deCentavos(20L * LINEAS * 100));
+        // página + un "in (...)" para las líneas de las 20 cotizaciones (sin N+1)
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(ms).as("20 cotizaciones x %d líneas en %d ms", LINEAS, ms).isLessThan(2_000);
+    }
+
+    @Test
+    void lineas_conservanElOrden() {
+        Long id = cotizacionRepository.save(cotizacion(0)).getId();
+        em.flush();
+        em.clear();
+
+        List<LineaCotizacion> lineas = cotizacionRepository.findById(id).orElseThrow().getLineas();
+
+        assertThat(lineas).extracting(LineaCotizacion::getProducto)
+                .startsWith("SKU-0", "SKU-1", "SKU-2")
+                .endsWith("SKU-" + (LINEAS - 1));
+    }
+
+    private Cotizacion cotizacion(int n) {
+        List<LineaCotizacion> lineas = new ArrayList<>(LINEAS);
+        long total = 0;
+        for (int i = 0; i < LINEAS; i++) {
+            LineaCotizacion l = LineaCotizacion.builder()
+                    .producto("SKU-" + i)
+                    .cantidad(i + 1)
+                    .precioUnitario(Dinero.deCentavos(100))
+                    .build();
+            lineas.add(l);
+            total += l.subtotal().centavos();
+        }
+        return Cotizacion.builder()
+                .cliente(cliente)
+                .total(Dinero.deCentavos(total + n))
+                .estado(EstadoCotizacion.CREADA)
+                .lineas(lineas)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.tienda.salesforce;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Conciliación contra un Salesforce simulado con {@link HttpServer} que responde la consulta SOQL paginada. */
+class ConciliadorQuotesTest {
+
+    private static final Pattern DESPUES = Pattern.compile("Id > '([A-Za-z0-9]+)'");
+    private static final Pattern LIMITE = Pattern.compile("LIMIT (\\d+)");
+
+    private HttpServer servidor;
+    private final List<QuoteRemota> remotas = new ArrayList<>();
+    private final AtomicInteger consultas = new AtomicInteger();
+    private SalesforceQuoteClient cliente;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/services/data/v60.0/query", ex -> {
+            consultas.incrementAndGet();
+            String soql = URLDecoder.decode(ex.getRequestURI().getRawQuery().substring(2), StandardCharsets.UTF_8);
+            Matcher d = DESPUES.matcher(soql);
+            Matcher l = LIMITE.matcher(soql);
+            String despues = d.find() ? d.group(1) : null;
+            int limite = l.find() ? Integer.parseInt(l.group(1)) : Integer.MAX_VALUE;
+            StringBuilder json = new StringBuilder("{\"done\":true,\"records\":[");
+            int n = 0;
+            for (QuoteRemota q : remotas) {
+                if ((despues == null || ConciliadorQuotes.ORDEN_IDS.compare(q.id(), despues) > 0) && n < limite) {
+                    json.append(n++ > 0 ? "," : "")
+                            .append("{\"Id\":\"").append(q.id())
+                            .append("\",\"AccountId\":").append(q.accountId() == null ? "null" : "\"" + q.accountId() + "\"")
+                            .append(",\"GrandTotal\":").append(q.total())
+                            .append('}');
+                }
+            }
+            json.append("],\"totalSize\":").append(n).append('}');
+            byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        servidor.start();
+        cliente = new HttpSalesforceQuoteClient("http://127.0.0.1:" + servidor.getAddress().getPort(),
+                "v60.0", "token", JsonMapper.builder().build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void conciliar_detectaFaltantesHuerfanasYDiferenciasPaginandoElLadoRemoto() {
+        remotas.add(new QuoteRemota("0Q0000000000001AAA", "001000000000001AAA", new BigDecimal("100.00")));
+        remotas.add(new QuoteRemota("0Q0000000000002AAA", "001000000000001AAA", new BigDecimal("250.00")));
+        remotas.add(new QuoteRemota("0Q0000000000003AAA", "001000000000009AAA", new BigDecimal("80.00")));
+        remotas.add(new QuoteRemota("0Q0000000000005AAA", "001000000000002AAA", new BigDecimal("10.00")));
+        remotas.add(new QuoteRemota("0Q0000000000006AAA", "001000000000002AAA", new BigDecimal("12.00")));
+
+        List<QuoteLocal> locales = List.of(
+                new QuoteLocal(1, "0Q0000000000001AAA", "001000000000001", new BigDecimal("100.0")),
+                new QuoteLocal(2, "0q0000000000002aaa", "001000000000001AAA", new BigDecimal("200.00")),
+                new QuoteLocal(3, "0Q0000000000003AAA", "001000000000001AAA", new BigDecimal("80.00")),
+                new QuoteLocal(4, "0Q0000000000004AAA", "001000000000002AAA", new BigDecimal("5.00")),
+                new QuoteLocal(5, "0Q0000000000005AAA", "001000000000002AAA", new BigDecimal("10.00")),
+                new QuoteLocal(6, "0Q0000000000005AAA", "001000000000002AAA", new BigDecimal("10.00")));
+
+        FlujoPaginado<QuoteRemota> flujoRemoto = new FlujoPaginado<>(2,
+                (ultima, n) -> cliente.pagina(ultima != null ? ultima.id() : null, n));
+        List<Diferencia> diferencias = new ArrayList<>();
+
+        ConciliadorQuotes.Resultado r = ConciliadorQuotes.conciliar(locales.iterator(), flujoRemoto, diferencias::add);
+
+        assertThat(diferencias).extracting(Diferencia::tipo, Diferencia::cotizacionId).containsExactly(
+                tuple(TipoDiferencia.TOTAL_DISTINTO, 2L),
+                tuple(TipoDiferencia.CUENTA_DISTINTA, 3L),
+                tuple(TipoDiferencia.FALTA_EN_SALESFORCE, 4L),
+                tuple(TipoDiferencia.DUPLICADA_LOCAL, 6L),
+                tuple(TipoDiferencia.HUERFANA_EN_SALESFORCE, null));
+        assertThat(r.locales()).isEqualTo(6);
+        assertThat(r.remotas()).isEqualTo(5);
+        assertThat(r.coincidencias()).isEqualTo(2);
+        assertThat(flujoRemoto.paginas()).isEqualTo(3);
+        assertThat(consultas.get()).isEqualTo(3);
+    }
+
+    @Test
+    void conciliar_abortaSiUnFlujoNoEstaOrdenado() {
+        List<QuoteLocal> locales = List.of(
+                new QuoteLocal(1, "0Q0000000000002AAA", null, BigDecimal.ONE),
+                new QuoteLocal(2, "0Q0000000000001AAA", null, BigDecimal.ONE));
+
+        assertThatThrownBy(() -> ConciliadorQuotes.conciliar(locales.iterator(), List.<QuoteRemota>of().iterator(), d -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no está ordenado");
+    }
+
+    @Test
+    void mismaCuenta_equiparaIdsDe15y18Caracteres() {
+        assertThat(ConciliadorQuotes.mismaCuenta("001000000000001", "001000000000001AAA")).isTrue();
+        assertThat(ConciliadorQuotes.mismaCuenta("001000000000001aaa", "001000000000001AAA")).isTrue();
+        assertThat(ConciliadorQuotes.mismaCuenta("00100000000000a", "00100000000000A")).isFalse();
+        assertThat(ConciliadorQuotes.mismaCuenta(null, "001000000000001AAA")).isFalse();
+    }
+}
@@ -0,0 +1,192 @@
+package com.tienda.salesforce;
+
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.auditoria.TipoEventoAuditoria;
+import com.tienda.dto.EventosQuoteRequest;
+import com.tienda.exception.ServicioSaturadoException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.TipoEntidad;
+import com.tienda.model.EstadoCotizacion;
+import com.tienda.sharding.EnrutadorShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** Webhook de estados sobre una base H2 con la tabla de cotizaciones y la del bus de invalidación. */
+class IngestaEstadosQuoteTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.parse("2026-03-31T23:00:00");
+
+    private JdbcTemplate jdbc;
+    private BusInvalidacion bus;
+    private DiarioAuditoria auditoria;
+    private IngestaEstadosQuote ingesta;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:webhook-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbc.execute("create table cotizacion (id bigint primary key, cliente_id bigint not null,"
+                + " estado varchar(30) not null, salesforce_quote_id varchar(18), salesforce_estado_at timestamp(3))");
+        jdbc.execute("create index idx_cotizacion_sf_quote on cotizacion (salesforce_quote_id)");
+        jdbc.execute("create table cambio_entidad (id bigint auto_increment primary key, entidad varchar(20) not null,"
+                + " entidad_id bigint not null, version bigint not null, nodo int not null)");
+        for (long id = 1; id <= 3_000; id++) {
+            jdbc.update("insert into cotizacion (id, cliente_id, estado, salesforce_quote_id) values (?, ?, 'ENVIADA_SF', ?)",
+                    id, id % 100, quote(id));
+        }
+        bus = new BusInvalidacion(jdbc, 5_000, 2_000, 100, 60, 60_000);
+        auditoria = mock(DiarioAuditoria.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ingesta != null && ingesta.isRunning()) {
+            ingesta.stop();
+        }
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void aplicar_quedaElEventoMasRecienteDeCadaQuote() {
+        ingesta = ingesta(100);
+        List<Long> invalidados = new CopyOnWriteArrayList<>();
+        bus.suscribir(TipoEntidad.COTIZACION, invalidados::add);
+
+        int cambiadas = ingesta.aplicar(List.of(
+                evento(1, EstadoCotizacion.ACEPTADA, 1),
+                evento(1, EstadoCotizacion.RECHAZADA, 3),
+                evento(1, EstadoCotizacion.ACEPTADA, 2), // desordenado: llegó después pero es anterior
+                evento(2, EstadoCotizacion.ACEPTADA, 1),
+                new IngestaEstadosQuote.EventoEstado("0Q0NOEXISTE000000", EstadoCotizacion.ACEPTADA, T0)));
+
+        assertThat(cambiadas).isEqualTo(2);
+        assertThat(estado(1)).isEqualTo("RECHAZADA");
+        assertThat(estado(2)).isEqualTo("ACEPTADA");
+        assertThat(estado(3)).isEqualTo("ENVIADA_SF");
+        assertThat(invalidados).containsExactlyInAnyOrder(1L, 2L);
+        verify(auditoria).registrar(TipoEventoAuditoria.COTIZACION_ESTADO, 1, 1, "ENVIADA_SF>RECHAZADA");
+        verify(auditoria).registrar(TipoEventoAuditoria.COTIZACION_ESTADO, 2, 2, "ENVIADA_SF>ACEPTADA");
+
+        // un reintento viejo en otro lote no pisa el estado más nuevo
+        assertThat(ingesta.aplicar(List.of(evento(1, EstadoCotizacion.ACEPTADA, 2)))).isZero();
+        assertThat(estado(1)).isEqualTo("RECHAZADA");
+        verifyNoMoreInteractions(auditoria);
+    }
+
+    @Test
+    void encolar_rechazaElEnvioCompletoSiNoEntraYElTrabajadorAplicaTodo() throws Exception {
+        ingesta = ingesta(1_000);
+        List<EventosQuoteRequest.Evento> rafaga = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            rafaga.add(request(id, "Accepted", 1));
+        }
+
+        assertThat(ingesta.encolar(rafaga)).isEqualTo(1_000);
+        assertThatThrownBy(() -> ingesta.encolar(List.of(request(2_000, "Denied", 1))))
+                .isInstanceOf(ServicioSaturadoException.class);
+        assertThat(ingesta.enCola()).isEqualTo(1_000);
+
+        ingesta.start();
+        esperarColaVacia();
+        ingesta.encolar(List.of(request(2_000, "Denied", 1), request(2_001, "Rejected", 1)));
+        ingesta.stop();
+
+        assertThat(jdbc.queryForObject("select count(*) from cotizacion where estado = 'ACEPTADA'", Long.class))
+                .isEqualTo(1_000);
+        assertThat(estado(2_000)).isEqualTo("RECHAZADA");
+        assertThat(estado(2_001)).as("al detenerse se aplica lo que quedaba").isEqualTo("RECHAZADA");
+        assertThatThrownBy(() -> ingesta.encolar(List.of(request(5, "Accepted", 2))))
+                .as("detenida, ya no acepta")
+                .isInstanceOf(ServicioSaturadoException.class);
+    }
+
+    @Test
+    void aplicar_buscaEnCadaShardYActualizaElDelCliente() {
+        String prueba = UUID.randomUUID().toString().substring(0, 8);
+        Map<String, DataSource> bases = new LinkedHashMap<>();
+        for (String s : List.of("s0", "s1")) {
+            bases.put(s, new DriverManagerDataSource("jdbc:h2:mem:" + s + "-" + prueba + ";DB_CLOSE_DELAY=-1"));
+        }
+        jdbc.execute("create table cliente_shard (cliente_id bigint primary key, shard varchar(50) not null, destino varchar(50),"
+                + " actualizado timestamp default current_timestamp not null)");
+        EnrutadorShards enrutador = new EnrutadorShards(jdbc, bases, 64, 0, List.of());
+        enrutador.iniciar();
+        try {
+            EnrutadorShards.Shard propio = enrutador.shardDe(7);
+            EnrutadorShards.Shard otro = enrutador.shard(propio.nombre().equals("s0") ? "s1" : "s0");
+            // la fila vigente y un resto de un movimiento interrumpido
+            for (EnrutadorShards.Shard s : List.of(propio, otro)) {
+                s.jdbc().update("insert into cotizacion (id, cliente_id, total, estado, salesforce_quote_id, created_at)"
+                        + " values (9001, 7, 10.00, 'ENVIADA_SF', ?, current_timestamp)", quote(9_001));
+            }
+            DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+            beans.registerSingleton("enrutadorShards", enrutador);
+            ingesta = new IngestaEstadosQuote(jdbc, tx(), beans.getBeanProvider(EnrutadorShards.class), bus, auditoria,
+                    100, 100, 0);
+
+            assertThat(ingesta.aplicar(List.of(evento(9_001, EstadoCotizacion.ACEPTADA, 1),
+                    evento(4, EstadoCotizacion.RECHAZADA, 1)))).isEqualTo(2);
+
+            assertThat(propio.jdbc().queryForObject("select estado from cotizacion where id = 9001", String.class))
+                    .isEqualTo("ACEPTADA");
+            assertThat(otro.jdbc().queryForObject("select estado from cotizacion where id = 9001", String.class))
+                    .isEqualTo("ENVIADA_SF");
+            assertThat(estado(4)).isEqualTo("RECHAZADA");
+        } finally {
+            bases.values().forEach(ds -> new JdbcTemplate(ds).execute("shutdown"));
+        }
+    }
+
+    private IngestaEstadosQuote ingesta(int capacidad) {
+        return new IngestaEstadosQuote(jdbc, tx(), new DefaultListableBeanFactory().getBeanProvider(EnrutadorShards.class),
+                bus, auditoria, capacidad, 100, 20);
+    }
+
+    private TransactionTemplate tx() {
+        return new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+    }
+
+    private void esperarColaVacia() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (ingesta.enCola() > 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        assertThat(ingesta.enCola()).isZero();
+    }
+
+    private String estado(long id) {
+        return jdbc.queryForObject("select estado from cotizacion where id = ?", String.class, id);
+    }
+
+    private static String quote(long id) {
+        return String.format("0Q0%015d", id);
+    }
+
+    private static IngestaEstadosQuote.EventoEstado evento(long id, EstadoCotizacion estado, int minutos) {
+        return new IngestaEstadosQuote.EventoEstado(quote(id), estado, T0.plusMinutes(minutos));
+    }
+
+    private static EventosQuoteRequest.Evento request(long id, String estado, int minutos) {
+        return new EventosQuoteRequest.Evento(quote(id), estado, OffsetDateTime.of(T0.plusMinutes(minutos), ZoneOffset.UTC));
+    }
+}
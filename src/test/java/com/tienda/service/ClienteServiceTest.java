@@ -1,8 +1,13 @@
 package com.tienda.service;
 
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.bloom.FiltroEmailsClientes;
 import com.tienda.dto.ClienteCreateRequest;
 import com.tienda.dto.ClienteResponse;
+import com.tienda.exception.RecursoDuplicadoException;
 import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.invalidacion.CacheClientes;
 import com.tienda.model.Cliente;
 import com.tienda.repository.ClienteRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +30,18 @@ class ClienteServiceTest {
     @Mock
     private ClienteRepository clienteRepository;
 
+    @Mock
+    private BusInvalidacion busInvalidacion;
+
+    @Mock
+    private DiarioAuditoria auditoria;
+
+    @Mock
+    private CacheClientes cacheClientes;
+
+    @Mock
+    private FiltroEmailsClientes filtroEmails;
+
     @InjectMocks
     private ClienteService clienteService;
 
@@ -40,6 +57,8 @@ class ClienteServiceTest {
                 .telefono(" 3001234567 ")
                 .documento(" 1234567890 ")
                 .build();
+        // Por defecto el filtro de Bloom no descarta: se ejercita el chequeo contra la base
+        lenient().when(filtroEmails.puedeExistir(anyString())).thenReturn(true);
     }
 
     @Test
@@ -86,7 +105,7 @@ class ClienteServiceTest {
 
         // act + assert
         assertThatThrownBy(() -> clienteService.crearCliente(requestValida))
-                .isInstanceOf(IllegalArgumentException.class)
+                .isInstanceOf(RecursoDuplicadoException.class)
                 .hasMessageContaining("Ya existe un cliente con el email");
 
         verify(clienteRepository, never()).save(any());
@@ -101,12 +120,42 @@ class ClienteServiceTest {
 
         // act + assert
         assertThatThrownBy(() -> clienteService.crearCliente(requestValida))
-                .isInstanceOf(IllegalArgumentException.class)
+                .isInstanceOf(RecursoDuplicadoException.class)
                 .hasMessageContaining("email sea único");
 
         verify(clienteRepository).save(any(Cliente.class));
     }
 
+    @Test
+    void crearCliente_omiteFindByEmailCuandoElFiltroAseguraQueNoExiste() {
+        when(filtroEmails.puedeExistir("juan.perez@example.com")).thenReturn(false);
+        when(clienteRepository.save(any(Cliente.class))).thenAnswer(inv -> {
+            Cliente c = inv.getArgument(0);
+            c.setId(2L);
+            return c;
+        });
+
+        ClienteResponse res = clienteService.crearCliente(requestValida);
+
+        assertThat(res.getId()).isEqualTo(2L);
+        verify(clienteRepository, never()).findByEmail(any());
+        verify(filtroEmails).agregar("juan.perez@example.com");
+    }
+
+    @Test
+    void crearCliente_cuentaFalsoPositivoCuandoElEmailNoExistia() {
+        when(clienteRepository.findByEmail("juan.perez@example.com")).thenReturn(Optional.empty());
+        when(clienteRepository.save(any(Cliente.class))).thenAnswer(inv -> {
+            Cliente c = inv.getArgument(0);
+            c.setId(3L);
+            return c;
+        });
+
+        clienteService.crearCliente(requestValida);
+
+        verify(filtroEmails).falsoPositivo();
+    }
+
     @Test
     void obtenerClientePorId_deberiaRetornarClienteCuandoExiste() {
         // arrange
@@ -1,25 +1,33 @@
 package com.tienda.service;
 
+import com.tienda.auditoria.DiarioAuditoria;
+import com.tienda.dinero.Dinero;
 import com.tienda.dto.CotizacionCreateRequest;
 import com.tienda.dto.CotizacionResponse;
+import com.tienda.dto.LineaCotizacionRequest;
 import com.tienda.dto.PageResponse;
 import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.invalidacion.BusInvalidacion;
 import com.tienda.model.Cliente;
 import com.tienda.model.Cotizacion;
 import com.tienda.model.EstadoCotizacion;
 import com.tienda.repository.ClienteRepository;
 import com.tienda.repository.CotizacionRepository;
+import com.tienda.sharding.CotizacionShardRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,6 +42,15 @@ class CotizacionServiceTest {
     @Mock
     private ClienteRepository clienteRepository;
 
+    @Mock
+    private ObjectProvider<CotizacionShardRepository> cotizacionShardRepository;
+
+    @Mock
+    private BusInvalidacion busInvalidacion;
+
+    @Mock
+    private DiarioAuditoria auditoria;
+
     @InjectMocks
     private CotizacionService cotizacionService;
 
@@ -51,7 +68,7 @@ class CotizacionServiceTest {
 
         requestValida = CotizacionCreateRequest.builder()
                 .clienteId(1L)
-                .total(new BigDecimal("259900.00"))
+                .total(Dinero.parse("259900.00"))
                 .build();
     }
 
@@ -78,7 +95,7 @@ class CotizacionServiceTest {
         // getNombreCompleto() debería concatenar nombres + apellidos:
         assertThat(res.getClienteNombre()).contains("Juan").contains("Pérez");
         assertThat(res.getEstado()).isEqualTo(EstadoCotizacion.CREADA);
-        assertThat(res.getTotal()).isEqualByComparingTo("259900.00");
+        assertThat(res.getTotal()).isEqualTo(Dinero.parse("259900.00"));
         assertThat(res.getCreatedAt()).isEqualTo(LocalDateTime.parse("2026-02-12T15:27:45"));
 
         // verificaciones adicionales sobre el entity guardado
@@ -87,7 +104,7 @@ class CotizacionServiceTest {
         Cotizacion guardada = captor.getValue();
         assertThat(guardada.getCliente().getId()).isEqualTo(1L);
         assertThat(guardada.getEstado()).isEqualTo(EstadoCotizacion.CREADA);
-        assertThat(guardada.getTotal()).isEqualByComparingTo("259900.00");
+        assertThat(guardada.getTotal()).isEqualTo(Dinero.parse("259900.00"));
     }
 
     @Test
@@ -103,6 +120,64 @@ class CotizacionServiceTest {
         verify(cotizacionRepository, never()).save(any());
     }
 
+    @Test
+    void crearCotizacion_conLineas_deberiaCalcularElTotalYGuardarLasLineas() {
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteExistente));
+        when(cotizacionRepository.save(any(Cotizacion.class))).thenAnswer(inv -> {
+            Cotizacion c = inv.getArgument(0);
+            c.setId(43L);
+            return c;
+        });
+        CotizacionCreateRequest request = CotizacionCreateRequest.builder()
+                .clienteId(1L)
+                .lineas(List.of(
+                        linea(" Portátil ", 2, "1299.90"),
+                        linea("Mouse", 3, "45.50")))
+                .build();
+
+        CotizacionResponse res = cotizacionService.crearCotizacion(request);
+
+        assertThat(res.getTotal()).isEqualTo(Dinero.parse("2736.30"));
+        assertThat(res.getLineas()).hasSize(2);
+        assertThat(res.getLineas().get(0).getProducto()).isEqualTo("Portátil");
+        assertThat(res.getLineas().get(0).getSubtotal()).isEqualTo(Dinero.parse("2599.80"));
+        assertThat(res.getLineas().get(1).getSubtotal()).isEqualTo(Dinero.parse("136.50"));
+    }
+
+    @Test
+    void crearCotizacion_deberiaRechazarTotalQueNoCoincideConLasLineas() {
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteExistente));
+        CotizacionCreateRequest request = CotizacionCreateRequest.builder()
+                .clienteId(1L)
+                .total(Dinero.parse("100.00"))
+                .lineas(List.of(linea("Mouse", 3, "45.50")))
+                .build();
+
+        assertThatThrownBy(() -> cotizacionService.crearCotizacion(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no coincide");
+
+        verify(cotizacionRepository, never()).save(any());
+    }
+
+    @Test
+    void crearCotizacion_sinLineasNiTotal_deberiaLanzarIllegalArgument() {
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteExistente));
+        CotizacionCreateRequest request = CotizacionCreateRequest.builder().clienteId(1L).build();
+
+        assertThatThrownBy(() -> cotizacionService.crearCotizacion(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("líneas o un total");
+    }
+
+    private static LineaCotizacionRequest linea(String producto, int cantidad, String precio) {
+        return LineaCotizacionRequest.builder()
+                .producto(producto)
+                .cantidad(cantidad)
+                .precioUnitario(Dinero.parse(precio))
+                .build();
+    }
+
     @Test
     void listarPorClientePaginado_deberiaRetornarPageResponseMapeado() {
         // arrange
@@ -116,7 +191,7 @@ class CotizacionServiceTest {
         Cotizacion q1 = Cotizacion.builder()
                 .id(10L)
                 .cliente(clienteExistente)
-                .total(new BigDecimal("100000.00"))
+                .total(Dinero.parse("100000.00"))
                 .estado(EstadoCotizacion.CREADA)
                 .createdAt(LocalDateTime.parse("2026-02-12T10:00:00"))
                 .build();
@@ -124,7 +199,7 @@ class CotizacionServiceTest {
         Cotizacion q2 = Cotizacion.builder()
                 .id(11L)
                 .cliente(clienteExistente)
-                .total(new BigDecimal("159900.00"))
+                .total(Dinero.parse("159900.00"))
                 .estado(EstadoCotizacion.CREADA)
                 .createdAt(LocalDateTime.parse("2026-02-12T09:00:00"))
                 .build();
@@ -156,12 +231,12 @@ class CotizacionServiceTest {
         assertThat(r1.getClienteId()).isEqualTo(1L);
         assertThat(r1.getClienteEmail()).isEqualTo("juan.perez@example.com");
         assertThat(r1.getEstado()).isEqualTo(EstadoCotizacion.CREADA);
-        assertThat(r1.getTotal()).isEqualByComparingTo("100000.00");
+        assertThat(r1.getTotal()).isEqualTo(Dinero.parse("100000.00"));
         assertThat(r1.getCreatedAt()).isEqualTo(LocalDateTime.parse("2026-02-12T10:00:00"));
 
         CotizacionResponse r2 = res.getContent().get(1);
         assertThat(r2.getId()).isEqualTo(11L);
-        assertThat(r2.getTotal()).isEqualByComparingTo("159900.00");
+        assertThat(r2.getTotal()).isEqualTo(Dinero.parse("159900.00"));
         assertThat(r2.getCreatedAt()).isEqualTo(LocalDateTime.parse("2026-02-12T09:00:00"));
     }
 
@@ -211,4 +286,41 @@ class CotizacionServiceTest {
         assertThat(res.getTotalPages()).isEqualTo(0);
         assertThat(res.isLast()).isTrue(); // una page vacía con total 0 se considera last
     }
+
+    @Test
+    void listarPorClienteCampos_deberiaPedirSoloLosCamposSolicitados() {
+        // arrange
+        Pageable pageable = PageRequest.of(0, 20);
+        when(clienteRepository.existsById(1L)).thenReturn(true);
+
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("id", 10L);
+        fila.put("estado", EstadoCotizacion.CREADA);
+        when(cotizacionRepository.findCamposByClienteId(eq(1L), anySet(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(fila), pageable, 1));
+
+        // act
+        PageResponse<Map<String, Object>> res = cotizacionService.listarPorClienteCampos(1L, " id, estado ", pageable);
+
+        // assert
+        assertThat(res.getContent()).containsExactly(fila);
+        assertThat(res.getTotalElements()).isEqualTo(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Set<String>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(cotizacionRepository).findCamposByClienteId(eq(1L), captor.capture(), eq(pageable));
+        assertThat(captor.getValue()).containsExactly("id", "estado");
+        // no se carga la entidad Cliente ni se usa la consulta con join fetch
+        verify(clienteRepository, never()).findById(anyLong());
+        verify(cotizacionRepository, never()).findByClienteIdWithCliente(anyLong(), any());
+    }
+
+    @Test
+    void listarPorClienteCampos_deberiaRechazarCamposDesconocidos() {
+        assertThatThrownBy(() -> cotizacionService.listarPorClienteCampos(1L, "id,password", PageRequest.of(0, 10)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("password");
+
+        verifyNoInteractions(cotizacionRepository);
+    }
 }
\ No newline at end of file
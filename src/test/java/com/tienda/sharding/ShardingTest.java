@@ -0,0 +1,326 @@
+package com.tienda.sharding;
+
+import com.tienda.dinero.Dinero;
+import com.tienda.dto.MovimientoShardResponse;
+import com.tienda.dto.RebalanceoResponse;
+import com.tienda.invalidacion.BusInvalidacion;
+import com.tienda.model.Cliente;
+import com.tienda.model.Cotizacion;
+import com.tienda.model.EstadoCotizacion;
+import com.tienda.model.LineaCotizacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Sharding sobre varias bases H2 en memoria: una principal y una por shard. */
+class ShardingTest {
+
+    private JdbcTemplate principal;
+    private final Map<String, DataSource> bases = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        String prueba = UUID.randomUUID().toString().substring(0, 8);
+        principal = new JdbcTemplate(h2("principal-" + prueba));
+        principal.execute("create table cliente_shard (cliente_id bigint primary key, shard varchar(50) not null, destino varchar(50),"
+                + " actualizado timestamp default current_timestamp not null)");
+        for (String s : List.of("s0", "s1", "s2")) {
+            bases.put(s, h2(s + "-" + prueba));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bases.values().forEach(ds -> new JdbcTemplate(ds).execute("shutdown"));
+        principal.execute("shutdown");
+    }
+
+    @Test
+    void anillo_reparteParejoYAlAgregarUnShardSoloMueveSuParte() {
+        AnilloConsistente tres = new AnilloConsistente(List.of("s0", "s1", "s2"), 160);
+        AnilloConsistente cuatro = new AnilloConsistente(List.of("s0", "s1", "s2", "s3"), 160);
+        int n = 30_000;
+        Map<String, Integer> conteo = new LinkedHashMap<>();
+        int movidos = 0;
+        for (long id = 1; id <= n; id++) {
+            String antes = tres.shardDe(id);
+            String despues = cuatro.shardDe(id);
+            conteo.merge(antes, 1, Integer::sum);
+            if (!antes.equals(despues)) {
+                movidos++;
+                assertThat(despues).as("solo se mueven claves hacia el shard nuevo").isEqualTo("s3");
+            }
+        }
+        assertThat(conteo.values()).allSatisfy(c -> assertThat(c).isBetween(n * 25 / 100, n * 42 / 100));
+        assertThat(movidos).isBetween(n * 15 / 100, n * 35 / 100);
+    }
+
+    @Test
+    void generador_idsUnicosCrecientesYConShardDeOrigen() {
+        GeneradorIdShard gen = new GeneradorIdShard(3, 17);
+        Set<Long> vistos = new HashSet<>();
+        long anterior = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long id = gen.siguiente();
+            assertThat(id).isGreaterThan(anterior);
+            assertThat(vistos.add(id)).isTrue();
+            anterior = id;
+        }
+        assertThat(GeneradorIdShard.shardDe(anterior)).isEqualTo(17);
+        assertThat(GeneradorIdShard.instanciaDe(anterior)).isEqualTo(3);
+    }
+
+    @Test
+    void guardarYBuscar_vanAlShardDelCliente() {
+        EnrutadorShards enrutador = enrutador(List.of("s0", "s1", "s2"), List.of());
+        CotizacionShardRepository repo = new CotizacionShardRepository(enrutador);
+        Cliente cliente = cliente(42);
+        for (int i = 1; i <= 5; i++) {
+            repo.guardar(cotizacion(cliente, i));
+        }
+
+        Page<Cotizacion> page = repo.buscarPorCliente(cliente, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "total")));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(Cotizacion::getTotal)
+                .containsExactly(Dinero.parse("5.00"), Dinero.parse("4.00"), Dinero.parse("3.00"));
+        assertThat(page.getContent()).allSatisfy(c -> assertThat(c.getCliente()).isSameAs(cliente));
+        String ubicacion = enrutador.ubicacion(42);
+        for (EnrutadorShards.Shard s : enrutador.shards()) {
+            assertThat(filas(s, 42)).isEqualTo(s.nombre().equals(ubicacion) ? 5 : 0);
+        }
+    }
+
+    @Test
+    void moverCliente_copiaCambiaUbicacionYBorraOrigen() {
+        EnrutadorShards enrutador = enrutador(List.of("s0", "s1", "s2"), List.of());
+        CotizacionShardRepository repo = new CotizacionShardRepository(enrutador);
+        Cliente cliente = cliente(7);
+        for (int i = 1; i <= 2_500; i++) {
+            repo.guardar(cotizacion(cliente, i));
+        }
+        String origen = enrutador.ubicacion(7);
+        String destino = origen.equals("s0") ? "s1" : "s0";
+        Timestamp estadoAt = Timestamp.valueOf("2026-03-01 10:15:30.123");
+        enrutador.shard(origen).jdbc().update("update cotizacion set salesforce_estado_at = ? where cliente_id = 7",
+                estadoAt);
+
+        MovimientoShardResponse r;
+        try (RebalanceadorShards rebalanceador = new RebalanceadorShards(enrutador)) {
+            r = rebalanceador.moverCliente(7, destino);
+        }
+
+        assertThat(r.getFilas()).isEqualTo(2_500);
+        assertThat(enrutador.ubicacion(7)).isEqualTo(destino);
+        assertThat(filas(enrutador.shard(origen), 7)).isZero();
+        assertThat(filas(enrutador.shard(destino), 7)).isEqualTo(2_500);
+        assertThat(repo.buscarPorCliente(cliente, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2_500);
+        assertThat(principal.queryForObject("select shard from cliente_shard where cliente_id = 7", String.class))
+                .isEqualTo(destino);
+        assertThat(enrutador.shard(destino).jdbc().queryForObject("select count(*) from cotizacion"
+                + " where cliente_id = 7 and salesforce_estado_at = ?", Long.class, estadoAt)).isEqualTo(2_500);
+    }
+
+    @Test
+    void lineas_seGuardanLeenYMuevenConSuCotizacion() {
+        EnrutadorShards enrutador = enrutador(List.of("s0", "s1", "s2"), List.of());
+        CotizacionShardRepository repo = new CotizacionShardRepository(enrutador);
+        Cliente cliente = cliente(9);
+        for (int i = 1; i <= 30; i++) {
+            Cotizacion c = cotizacion(cliente, i);
+            for (int l = 0; l < 400; l++) {
+                c.getLineas().add(LineaCotizacion.builder()
+                        .producto("SKU-" + l).cantidad(1).precioUnitario(Dinero.deCentavos(l + 1)).build());
+            }
+            repo.guardar(c);
+        }
+        String origen = enrutador.ubicacion(9);
+        String destino = origen.equals("s0") ? "s1" : "s0";
+
+        try (RebalanceadorShards rebalanceador = new RebalanceadorShards(enrutador)) {
+            rebalanceador.moverCliente(9, destino);
+        }
+
+        assertThat(lineas(enrutador.shard(origen))).isZero();
+        assertThat(lineas(enrutador.shard(destino))).isEqualTo(30 * 400);
+        Page<Cotizacion> page = repo.buscarPorCliente(cliente, PageRequest.of(0, 20, Sort.by("total")));
+        assertThat(page.getContent()).hasSize(20).allSatisfy(c -> {
+            assertThat(c.getLineas()).hasSize(400);
+            assertThat(c.getLineas().get(399).getProducto()).isEqualTo("SKU-399");
+        });
+        assertThat(repo.buscarCamposPorCliente(cliente, Set.of("id", "total"), PageRequest.of(0, 5)).getContent()).hasSize(5);
+    }
+
+    @Test
+    void buscarCamposPorCliente_leeSoloLasColumnasPedidas() {
+        EnrutadorShards enrutador = enrutador(List.of("s0", "s1"), List.of());
+        CotizacionShardRepository repo = new CotizacionShardRepository(enrutador);
+        Cliente cliente = cliente(4);
+        for (int i = 1; i <= 3; i++) {
+            repo.guardar(cotizacion(cliente, i));
+        }
+        // si el select leyera todas las columnas, fallaría sin esta
+        enrutador.shardDe(4).jdbc().execute("alter table cotizacion drop column salesforce_estado_at");
+
+        Page<Map<String, Object>> page = repo.buscarCamposPorCliente(cliente,
+                new LinkedHashSet<>(List.of("total", "clienteEmail", "id")),
+                PageRequest.of(0, 2, Sort.by("total").descending()));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).hasSize(2);
+        Map<String, Object> primera = page.getContent().get(0);
+        assertThat(primera.keySet()).containsExactly("total", "clienteEmail", "id");
+        assertThat(primera.get("total")).isEqualTo(Dinero.deCentavos(300));
+        assertThat(primera.get("clienteEmail")).isEqualTo("c4@tienda.local");
+        assertThat(primera.get("id")).isInstanceOf(Long.class);
+    }
+
+    @Test
+    void rebalancear_trasAgregarUnShardLlevaCadaClienteASuDestinoSinPerderLecturas() {
+        EnrutadorShards dos = enrutador(List.of("s0", "s1"), List.of());
+        CotizacionShardRepository repoDos = new CotizacionShardRepository(dos);
+        int clientes = 300;
+        for (long c = 1; c <= clientes; c++) {
+            for (int i = 1; i <= 3; i++) {
+                repoDos.guardar(cotizacion(cliente(c), i));
+            }
+        }
+
+        // se agrega s2: durante la transición las lecturas siguen el anillo anterior
+        EnrutadorShards tres = enrutador(List.of("s0", "s1", "s2"), List.of("s0", "s1"));
+        CotizacionShardRepository repoTres = new CotizacionShardRepository(tres);
+        for (long c = 1; c <= clientes; c++) {
+            assertThat(repoTres.buscarPorCliente(cliente(c), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(3);
+        }
+
+        RebalanceoResponse r;
+        try (RebalanceadorShards rebalanceador = new RebalanceadorShards(tres)) {
+            r = rebalanceador.rebalancear();
+        }
+
+        assertThat(r.getClientesMovidos()).isPositive();
+        assertThat(r.getFilasMovidas()).isEqualTo(r.getClientesMovidos() * 3);
+        long total = 0;
+        for (EnrutadorShards.Shard s : tres.shards()) {
+            total += s.jdbc().queryForObject("select count(*) from cotizacion", Long.class);
+        }
+        assertThat(total).isEqualTo(clientes * 3L);
+
+        // terminada la transición, una instancia nueva sin anillo anterior lee todo donde corresponde
+        EnrutadorShards despues = enrutador(List.of("s0", "s1", "s2"), List.of());
+        CotizacionShardRepository repoDespues = new CotizacionShardRepository(despues);
+        for (long c = 1; c <= clientes; c++) {
+            assertThat(despues.ubicacion(c)).isEqualTo(despues.destino(c));
+            assertThat(repoDespues.buscarPorCliente(cliente(c), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void moverCliente_otraReplicaVeLaMarcaPorElBusYSigueAlCliente() throws Exception {
+        principal.execute("create table cambio_entidad (id bigint auto_increment primary key, entidad varchar(20) not null,"
+                + " entidad_id bigint not null, version bigint not null, nodo int not null)");
+        BusInvalidacion busA = new BusInvalidacion(principal, 5_000, 2_000, 100, 60, 60_000);
+        BusInvalidacion busB = new BusInvalidacion(principal, 5_000, 2_000, 100, 60, 60_000);
+        EnrutadorShards a = enrutador(List.of("s0", "s1", "s2"), List.of(), busA);
+        EnrutadorShards b = enrutador(List.of("s0", "s1", "s2"), List.of(), busB);
+        busA.sondear();
+        busB.sondear();
+        CotizacionShardRepository repoA = new CotizacionShardRepository(a);
+        CotizacionShardRepository repoB = new CotizacionShardRepository(b);
+        Cliente cliente = cliente(7);
+        for (int i = 1; i <= 10; i++) {
+            repoA.guardar(cotizacion(cliente, i));
+        }
+        String origen = a.ubicacion(7);
+        String destino = origen.equals("s0") ? "s1" : "s0";
+
+        MovimientoShardResponse r;
+        try (RebalanceadorShards rebalanceador = new RebalanceadorShards(a, 2_000)) {
+            CompletableFuture<MovimientoShardResponse> movimiento =
+                    CompletableFuture.supplyAsync(() -> rebalanceador.moverCliente(7, destino));
+            while (principal.queryForObject("select count(*) from cliente_shard where destino is not null",
+                    Long.class) == 0) {
+                Thread.sleep(10);
+            }
+            // B lee la marca mientras A espera la propagación: sus escrituras siguen yendo al origen
+            busB.sondear();
+            repoB.guardar(cotizacion(cliente, 11));
+            assertThat(filas(a.shard(origen), 7)).isEqualTo(11);
+            r = movimiento.get(10, TimeUnit.SECONDS);
+        }
+
+        // B todavía no leyó el cambio final, pero con la marca vigente consulta cliente_shard
+        repoB.guardar(cotizacion(cliente, 12));
+        assertThat(r.getFilas()).isEqualTo(11);
+        assertThat(b.ubicacion(7)).isEqualTo(destino);
+        assertThat(filas(a.shard(origen), 7)).isZero();
+        assertThat(filas(a.shard(destino), 7)).isEqualTo(12);
+        assertThat(repoB.buscarPorCliente(cliente, PageRequest.of(0, 20)).getTotalElements()).isEqualTo(12);
+        try (RebalanceadorShards rebalanceador = new RebalanceadorShards(b)) {
+            assertThat(rebalanceador.rebalancear().getRestosEliminados()).isZero();
+        }
+        long total = 0;
+        for (EnrutadorShards.Shard s : b.shards()) {
+            total += filas(s, 7);
+        }
+        assertThat(total).isEqualTo(12);
+    }
+
+    private EnrutadorShards enrutador(List<String> shards, List<String> anterior) {
+        return enrutador(shards, anterior, null);
+    }
+
+    private EnrutadorShards enrutador(List<String> shards, List<String> anterior, BusInvalidacion bus) {
+        Map<String, DataSource> ds = new LinkedHashMap<>();
+        for (String s : shards) {
+            ds.put(s, bases.get(s));
+        }
+        EnrutadorShards e = new EnrutadorShards(principal, ds, 64, 0, anterior, bus);
+        e.iniciar();
+        return e;
+    }
+
+    private static long filas(EnrutadorShards.Shard s, long clienteId) {
+        return s.jdbc().queryForObject("select count(*) from cotizacion where cliente_id = ?", Long.class, clienteId);
+    }
+
+    private static long lineas(EnrutadorShards.Shard s) {
+        return s.jdbc().queryForObject("select count(*) from cotizacion_linea", Long.class);
+    }
+
+    private static DataSource h2(String nombre) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private static Cliente cliente(long id) {
+        return Cliente.builder().id(id).nombres("Cliente").apellidos(String.valueOf(id))
+                .email("c" + id + "@tienda.local").build();
+    }
+
+    private static Cotizacion cotizacion(Cliente cliente, int total) {
+        return Cotizacion.builder()
+                .cliente(cliente)
+                .total(Dinero.deCentavos(total * 100L))
+                .estado(EstadoCotizacion.CREADA)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.tienda.tracing;
+
+import com.tienda.dto.TrazaResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TrazaTest {
+
+    @AfterEach
+    void limpiar() {
+        Traza.terminar();
+    }
+
+    @Test
+    void serverTiming_sumaSoloElSpanExternoYCuentaLlamadas() {
+        Traza traza = Traza.iniciar();
+        int svc = traza.abrir(Categoria.SERVICIO, "crearCotizacion");
+        int interno = traza.abrir(Categoria.SERVICIO, "validar");
+        traza.cerrar(interno);
+        int repo = traza.abrir(Categoria.REPOSITORIO, "save");
+        traza.cerrar(repo);
+        traza.cerrar(svc);
+
+        String cabecera = traza.serverTiming();
+
+        assertThat(cabecera).matches("svc;dur=\\d+\\.\\d;desc=\"2\", repo;dur=\\d+\\.\\d, app;dur=\\d+\\.\\d");
+        TrazaResponse r = traza.aRespuesta("POST", "/api/cotizaciones", 201, traza.transcurridoNanos());
+        assertThat(r.getSpans()).extracting(TrazaResponse.Span::getProfundidad).containsExactly(0, 1, 1);
+        assertThat(r.getSpans()).extracting(TrazaResponse.Span::getNombre)
+                .containsExactly("crearCotizacion", "validar", "save");
+    }
+
+    @Test
+    void abrir_sinEspacioDescartaSpansSinRomperElAnidamiento() {
+        Traza traza = Traza.iniciar();
+        int total = Traza.MAX_SPANS + 5;
+        int[] spans = new int[total];
+        for (int i = 0; i < total; i++) {
+            spans[i] = traza.abrir(Categoria.REPOSITORIO, "findById");
+        }
+        for (int i = total - 1; i >= 0; i--) {
+            traza.cerrar(spans[i]);
+        }
+
+        TrazaResponse r = traza.aRespuesta("GET", "/api/clientes/1", 200, traza.transcurridoNanos());
+        assertThat(r.getSpans()).hasSize(Traza.MAX_SPANS);
+        assertThat(r.getSpansDescartados()).isEqualTo(5);
+        assertThat(traza.serverTiming()).startsWith("repo;dur=").contains("desc=\"" + Traza.MAX_SPANS + "\"");
+    }
+
+    @Test
+    void cerrarUltimo_cierraElSpanAbiertoDeLaCategoria() {
+        Traza traza = Traza.iniciar();
+        traza.abrir(Categoria.CONTROLADOR, "obtener");
+        traza.cerrarUltimo(Categoria.CONTROLADOR);
+        traza.cerrarUltimo(Categoria.CONTROLADOR);
+
+        TrazaResponse r = traza.aRespuesta("GET", "/api/clientes/1", 200, traza.transcurridoNanos());
+        assertThat(r.getSpans().get(0).getDuracionMs()).isGreaterThanOrEqualTo(0);
+        assertThat(traza.serverTiming()).startsWith("ctrl;dur=");
+    }
+
+    @Test
+    void buffer_conservaLasMasRecientes() {
+        BufferTrazas buffer = new BufferTrazas(3, 100);
+        for (int i = 1; i <= 5; i++) {
+            buffer.agregar(TrazaResponse.builder().uri("/api/" + i).build());
+        }
+
+        assertThat(buffer.recientes(10)).extracting(TrazaResponse::getUri)
+                .containsExactly("/api/5", "/api/4", "/api/3");
+        assertThat(buffer.totalRegistradas()).isEqualTo(5);
+        assertThat(buffer.esLenta(99_000_000L)).isFalse();
+        assertThat(buffer.esLenta(100_000_000L)).isTrue();
+    }
+}
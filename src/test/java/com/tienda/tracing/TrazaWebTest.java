@@ -0,0 +1,75 @@
+package com.tienda.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Service;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Filtro, interceptor, advice y post-procesador juntos en un contexto de Spring: el span del servicio solo
+ * aparece en {@code Server-Timing} si {@link TrazaBeanPostProcessor} envolvió el bean.
+ */
+@WebMvcTest(controllers = TrazaWebTest.EcoController.class)
+@Import({TrazaBeanPostProcessor.class, TrazaWebTest.EcoController.class, TrazaWebTest.EcoService.class})
+class TrazaWebTest {
+
+    @Autowired private MockMvc mvc;
+    @Autowired private EcoService servicio;
+
+    @Test
+    void get_escribeServerTimingConElSpanDelServicio() throws Exception {
+        assertThat(AopUtils.isCglibProxy(servicio)).isTrue();
+
+        mvc.perform(get("/api/eco"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TrazaFilter.CABECERA,
+                        matchesPattern("ctrl;dur=\\d+\\.\\d, svc;dur=\\d+\\.\\d, app;dur=\\d+\\.\\d")));
+    }
+
+    @Test
+    void postProcessAfterInitialization_envuelveSoloElDataSourcePrincipal() {
+        TrazaBeanPostProcessor bpp = new TrazaBeanPostProcessor();
+        DataSource ds = mock(DataSource.class);
+
+        assertThat(bpp.postProcessAfterInitialization(ds, TrazaBeanPostProcessor.DATA_SOURCE_PRINCIPAL))
+                .isInstanceOf(TrazaDataSource.class);
+        assertThat(bpp.postProcessAfterInitialization(ds, "batchDataSource")).isSameAs(ds);
+    }
+
+    @RestController
+    static class EcoController {
+
+        private final EcoService servicio;
+
+        EcoController(EcoService servicio) {
+            this.servicio = servicio;
+        }
+
+        @GetMapping("/api/eco")
+        Map<String, String> eco() {
+            return Map.of("eco", servicio.responder());
+        }
+    }
+
+    @Service
+    static class EcoService {
+
+        public String responder() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.tienda.volcado;
+
+import com.tienda.batch.GeneradorDatos;
+import com.tienda.batch.GeneradorDatosProperties;
+import com.tienda.sharding.EnrutadorShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Exporta una base H2 generada con {@link GeneradorDatos} y la restaura en otra vacía. */
+class VolcadoDatosTest {
+
+    @TempDir
+    Path dir;
+
+    private String prueba;
+    private JdbcTemplate origen;
+    private JdbcTemplate destino;
+    private VolcadoProperties props;
+
+    @BeforeEach
+    void setUp() {
+        prueba = UUID.randomUUID().toString().substring(0, 8);
+        origen = new JdbcTemplate(h2("origen-" + prueba));
+        destino = new JdbcTemplate(h2("destino-" + prueba));
+        esquema(origen);
+        esquema(destino);
+
+        GeneradorDatosProperties gen = new GeneradorDatosProperties();
+        gen.setClientes(3_000);
+        gen.setCotizacionesPorCliente(3);
+        gen.setDesde(LocalDate.parse("2026-01-01"));
+        gen.setHasta(LocalDate.parse("2026-06-30"));
+        gen.setClientesPorBloque(500);
+        gen.setHilos(2);
+        new GeneradorDatos(origen.getDataSource(), gen).generar();
+        origen.update("update cliente set telefono = null, salesforce_account_id = '001AAAAAAAAAAAAAAA' where mod(id, 7) = 0");
+        // hashes de 64 bits en todo el rango, con null entre medio
+        origen.update("update cliente set hash_contenido = (id - 1500) * 3074457345618258 where mod(id, 3) <> 0");
+        origen.update("update cotizacion set salesforce_quote_id = concat('0Q0', id) where mod(id, 5) = 0");
+        origen.update("update cotizacion set salesforce_estado_at = dateadd(millisecond, id * 37, created_at)"
+                + " where mod(id, 5) = 0 and mod(id, 10) <> 0");
+        origen.update("insert into cotizacion_linea (cotizacion_id, linea, producto, cantidad, precio_unitario)"
+                + " select id, 0, 'Teclado ñandú', 2, total from cotizacion where mod(id, 3) = 0");
+        origen.update("insert into cotizacion_linea (cotizacion_id, linea, producto, cantidad, precio_unitario)"
+                + " select id, 1, 'Mouse', 1, 0.99 from cotizacion where mod(id, 3) = 0");
+
+        props = new VolcadoProperties();
+        props.setIdsPorRango(700);
+        props.setFilasPorBloque(256);
+        props.setTamanoLote(100);
+        props.setHilos(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        origen.execute("shutdown");
+        destino.execute("shutdown");
+    }
+
+    @Test
+    void exportarYRestaurar_copiaLasTablasYRecreaLosIndices() {
+        VolcadoDatos.Resumen exportado = new VolcadoDatos(origen.getDataSource(), props).exportar(dir);
+        VolcadoDatos.Resumen restaurado = new VolcadoDatos(destino.getDataSource(), props).restaurar(dir);
+
+        long filas = contar(origen, "cliente") + contar(origen, "cotizacion") + contar(origen, "cotizacion_linea");
+        assertThat(exportado.filas()).isEqualTo(filas);
+        assertThat(exportado.rangos()).isGreaterThan(10);
+        assertThat(exportado.omitidos()).isZero();
+        assertThat(restaurado.filas()).isEqualTo(filas);
+        assertThat(restaurado.filasPorSegundo()).isPositive();
+        assertIguales();
+        assertThat(indices(destino)).contains("UK_CLIENTE_EMAIL", "IDX_CLIENTE_SF_ACCOUNT", "IDX_COTIZACION_ESTADO",
+                "IDX_COTIZACION_SF_QUOTE");
+    }
+
+    @Test
+    void exportar_reanudaSoloLosRangosQueFaltan() throws Exception {
+        VolcadoDatos volcado = new VolcadoDatos(origen.getDataSource(), props);
+        VolcadoDatos.Resumen primero = volcado.exportar(dir);
+        Path borrado = dir.resolve("cotizacion-000000000700.vol");
+        Files.delete(borrado);
+        Files.writeString(dir.resolve("cotizacion-000000001400.vol.tmp"), "a medias");
+
+        VolcadoDatos.Resumen segundo = volcado.exportar(dir);
+
+        assertThat(segundo.rangos()).isEqualTo(primero.rangos());
+        assertThat(segundo.omitidos()).isEqualTo(primero.rangos() - 1);
+        assertThat(borrado).exists();
+        new VolcadoDatos(destino.getDataSource(), props).restaurar(dir);
+        assertIguales();
+    }
+
+    @Test
+    void restaurar_reanudaUnaCorridaInterrumpida() {
+        new VolcadoDatos(origen.getDataSource(), props).exportar(dir);
+        VolcadoDatos restauracion = new VolcadoDatos(destino.getDataSource(), props);
+        VolcadoDatos.Resumen primera = restauracion.restaurar(dir);
+        // como si se cortara a mitad: un rango de líneas incompleto y los índices aún sin crear
+        destino.update("delete from cotizacion_linea where cotizacion_id between 700 and 1000");
+        destino.execute("drop index idx_cotizacion_estado");
+
+        VolcadoDatos.Resumen segunda = restauracion.restaurar(dir);
+
+        assertThat(segunda.rangos()).isEqualTo(primera.rangos());
+        assertThat(segunda.omitidos()).isEqualTo(primera.rangos() - 1);
+        assertIguales();
+        assertThat(indices(destino)).contains("IDX_COTIZACION_ESTADO");
+    }
+
+    @Test
+    void restaurar_archivoDanado_fallaSinCargarEseRango() throws Exception {
+        new VolcadoDatos(origen.getDataSource(), props).exportar(dir);
+        Path archivo = dir.resolve("cliente-000000000700.vol");
+        byte[] bytes = Files.readAllBytes(archivo);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(archivo, bytes);
+
+        assertThatThrownBy(() -> new VolcadoDatos(destino.getDataSource(), props).restaurar(dir))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cliente-000000000700.vol");
+        assertThat(destino.queryForObject("select count(*) from cliente where id between 700 and 1399",
+                Long.class)).isZero();
+    }
+
+    @Test
+    void exportarYRestaurar_conSharding_vuelcaCadaShardEnSuSubdirectorio() throws Exception {
+        EnrutadorShards enOrigen = enrutador(origen, "origen");
+        EnrutadorShards enDestino = enrutador(destino, "destino");
+        try {
+            for (EnrutadorShards.Shard shard : enOrigen.shards()) {
+                cotizaciones(shard, 1_500);
+            }
+            // un cliente movido fuera del shard que le asigna el anillo
+            String movido = "s0".equals(enOrigen.ubicacion(7)) ? "s1" : "s0";
+            origen.update("insert into cliente_shard (cliente_id, shard, actualizado)"
+                    + " values (7, ?, timestamp '2026-03-02 08:00:00')", movido);
+
+            new VolcadoDatos(origen.getDataSource(), props, enOrigen).exportar(dir);
+            new VolcadoDatos(destino.getDataSource(), props, enDestino).restaurar(dir);
+
+            try (Stream<Path> archivos = Files.list(dir.resolve("shard-s0"))) {
+                // ids dispersos: 1500 cotizaciones en cortes de 700 ids y sus líneas en los mismos cortes
+                assertThat(archivos).hasSize(6);
+            }
+            assertThat(contar(destino, "cotizacion")).isZero();
+            for (String sql : List.of(
+                    "select id, nombres, apellidos, email, telefono, documento, salesforce_account_id, created_at,"
+                            + " hash_contenido from cliente order by id",
+                    "select cliente_id, shard, actualizado, destino from cliente_shard order by cliente_id")) {
+                assertThat(destino.queryForList(sql)).as(sql).isEqualTo(origen.queryForList(sql));
+            }
+            for (String s : List.of("s0", "s1")) {
+                JdbcTemplate o = enOrigen.shard(s).jdbc();
+                JdbcTemplate d = enDestino.shard(s).jdbc();
+                for (String sql : List.of(
+                        "select id, cliente_id, total, estado, salesforce_quote_id, created_at, salesforce_estado_at"
+                                + " from cotizacion order by id",
+                        "select cotizacion_id, linea, producto, cantidad, precio_unitario from cotizacion_linea"
+                                + " order by cotizacion_id, linea")) {
+                    assertThat(d.queryForList(sql)).as(s + ": " + sql).isEqualTo(o.queryForList(sql));
+                }
+                assertThat(indices(d)).contains("IDX_COTIZACION_SF_QUOTE").doesNotContain("IDX_COTIZACION_ESTADO");
+            }
+            assertThat(enDestino.ubicacion(7)).isEqualTo(movido);
+
+            assertThatThrownBy(() -> new VolcadoDatos(destino.getDataSource(), props).restaurar(dir))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("[s0, s1]");
+        } finally {
+            for (EnrutadorShards e : List.of(enOrigen, enDestino)) {
+                e.shards().forEach(s -> s.jdbc().execute("shutdown"));
+            }
+        }
+    }
+
+    private EnrutadorShards enrutador(JdbcTemplate principal, String nombre) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (String s : List.of("s0", "s1")) {
+            shards.put(s, h2(nombre + "-" + s + "-" + prueba));
+        }
+        EnrutadorShards enrutador = new EnrutadorShards(principal, shards, 64, 0, List.of());
+        enrutador.iniciar();
+        return enrutador;
+    }
+
+    private static void cotizaciones(EnrutadorShards.Shard shard, int cantidad) {
+        LocalDateTime fecha = LocalDateTime.parse("2026-03-01T10:15:30");
+        for (int i = 0; i < cantidad; i++) {
+            long id = shard.ids().siguiente();
+            shard.jdbc().update("insert into cotizacion (id, cliente_id, total, estado, salesforce_quote_id, created_at,"
+                            + " salesforce_estado_at) values (?, ?, ?, 'BORRADOR', ?, ?, ?)",
+                    id, i % 3_000 + 1, i * 1.25, i % 5 == 0 ? "0Q0" + i : null, fecha.plusMinutes(i),
+                    i % 10 == 5 ? fecha.plusMinutes(i).plusNanos(123_000_000) : null);
+            shard.jdbc().update("insert into cotizacion_linea (cotizacion_id, linea, producto, cantidad,"
+                    + " precio_unitario) values (?, 0, 'Monitor', 1, 99.90)", id);
+        }
+    }
+
+    private void assertIguales() {
+        for (String sql : List.of(
+                "select id, nombres, apellidos, email, telefono, documento, salesforce_account_id, created_at, hash_contenido"
+                        + " from cliente order by id",
+                "select id, cliente_id, total, estado, salesforce_quote_id, created_at, salesforce_estado_at from cotizacion order by id",
+                "select cotizacion_id, linea, producto, cantidad, precio_unitario from cotizacion_linea order by cotizacion_id, linea")) {
+            assertThat(destino.queryForList(sql)).as(sql).isEqualTo(origen.queryForList(sql));
+        }
+    }
+
+    private static long contar(JdbcTemplate jdbc, String tabla) {
+        return jdbc.queryForObject("select count(*) from " + tabla, Long.class);
+    }
+
+    private static List<String> indices(JdbcTemplate jdbc) {
+        return jdbc.queryForList("select index_name from information_schema.indexes", String.class);
+    }
+
+    private static void esquema(JdbcTemplate jdbc) {
+        jdbc.execute("create table cliente (id bigint auto_increment primary key, nombres varchar(100) not null,"
+                + " apellidos varchar(100) not null, email varchar(150) not null, telefono varchar(30),"
+                + " documento varchar(50), salesforce_account_id varchar(18), created_at timestamp not null,"
+                + " hash_contenido bigint)");
+        jdbc.execute("create unique index uk_cliente_email on cliente (email)");
+        jdbc.execute("create index idx_cliente_sf_account on cliente (salesforce_account_id)");
+        jdbc.execute("create table cotizacion (id bigint auto_increment primary key, cliente_id bigint not null,"
+                + " total decimal(15,2) not null, estado varchar(30) not null, salesforce_quote_id varchar(18),"
+                + " created_at timestamp not null, salesforce_estado_at timestamp(3),"
+                + " foreign key (cliente_id) references cliente (id))");
+        jdbc.execute("create index idx_cotizacion_estado on cotizacion (estado)");
+        jdbc.execute("create index idx_cotizacion_sf_quote on cotizacion (salesforce_quote_id)");
+        jdbc.execute("create table cotizacion_linea (cotizacion_id bigint not null, linea int not null,"
+                + " producto varchar(120) not null, cantidad int not null, precio_unitario decimal(15,2) not null,"
+                + " primary key (cotizacion_id, linea), foreign key (cotizacion_id) references cotizacion (id))");
+        jdbc.execute("create table cliente_shard (cliente_id bigint primary key, shard varchar(50) not null,"
+                + " actualizado timestamp default current_timestamp not null, destino varchar(50))");
+    }
+
+    private static DataSource h2(String nombre) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+    }
+}
@@ -0,0 +1,108 @@
+package com.tienda.warmup;
+
+import com.tienda.dto.CalentamientoResponse;
+import com.tienda.dto.ClienteResponse;
+import com.tienda.dto.CotizacionResponse;
+import com.tienda.dto.PageResponse;
+import com.tienda.exception.ResourceNotFoundException;
+import com.tienda.service.ClienteService;
+import com.tienda.service.CotizacionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalentamientoServiceTest {
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private CotizacionService cotizacionService;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private CalentamientoService servicio(boolean habilitado, int iteraciones) {
+        return new CalentamientoService(clienteService, cotizacionService, dataSource, jdbcTemplate,
+                transactionTemplate, jsonMapper, habilitado, iteraciones, 3, false, false);
+    }
+
+    @Test
+    void run_ejercitaCaminosCalientesYReporta() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(7L);
+        when(clienteService.obtenerClientePorId(7L)).thenReturn(ClienteResponse.builder().id(7L).nombres("Ana").build());
+        when(clienteService.obtenerClientePorId(-1L)).thenThrow(new ResourceNotFoundException("Cliente no encontrado con id: -1"));
+        when(cotizacionService.listarPorClientePaginado(eq(7L), any())).thenReturn(
+                PageResponse.<CotizacionResponse>builder().content(List.of()).build());
+        when(cotizacionService.listarPorClienteCampos(eq(7L), anyString(), any())).thenReturn(
+                PageResponse.<Map<String, Object>>builder().content(List.of()).build());
+
+        CalentamientoService service = servicio(true, 5);
+        service.run(null);
+
+        CalentamientoResponse r = service.reporte();
+        assertThat(r.getEstado()).isEqualTo("COMPLETADO");
+        assertThat(r.getIteraciones()).isEqualTo(5);
+        assertThat(r.getPasosMs()).containsKeys("pool(3)", "muestra", "caminos-calientes");
+        verify(dataSource, times(3)).getConnection();
+        verify(connection, times(3)).close();
+        verify(clienteService, times(5)).obtenerClientePorId(7L);
+        verify(cotizacionService, times(5)).listarPorClientePaginado(eq(7L), any());
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void run_fallaSinImpedirArranque() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenThrow(new IllegalStateException("sin base"));
+
+        CalentamientoService service = servicio(true, 5);
+        service.run(null);
+
+        assertThat(service.reporte().getEstado()).isEqualTo("ERROR");
+        assertThat(service.reporte().getError()).isEqualTo("sin base");
+    }
+
+    @Test
+    void run_deshabilitado_noTocaLaBase() throws Exception {
+        CalentamientoService service = servicio(false, 5);
+        service.run(null);
+
+        assertThat(service.reporte().getEstado()).isEqualTo("DESHABILITADO");
+        verifyNoInteractions(jdbcTemplate, clienteService);
+    }
+
+    @Test
+    void escriturasConSharding_seRechazanAlArrancar() {
+        assertThatThrownBy(() -> new CalentamientoService(clienteService, cotizacionService, dataSource, jdbcTemplate,
+                transactionTemplate, jsonMapper, true, 5, 3, true, true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("tienda.sharding.enabled");
+    }
+}
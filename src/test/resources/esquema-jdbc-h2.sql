@@ -0,0 +1,29 @@
+-- Tablas y columnas que usan solo los servicios JDBC (en MySQL las crean las migraciones de Flyway).
+-- Corre después de que Hibernate genera las tablas de las entidades (spring.jpa.defer-datasource-initialization).
+ALTER TABLE cliente ADD COLUMN hash_contenido BIGINT;
+ALTER TABLE cotizacion ADD COLUMN salesforce_estado_at TIMESTAMP(3);
+
+CREATE TABLE cliente_shard (
+  cliente_id  BIGINT      NOT NULL PRIMARY KEY,
+  shard       VARCHAR(50) NOT NULL,
+  destino     VARCHAR(50),
+  actualizado TIMESTAMP   DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE cambio_entidad (
+  id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+  entidad    VARCHAR(20) NOT NULL,
+  entidad_id BIGINT      NOT NULL,
+  version    BIGINT      NOT NULL,
+  nodo       INT         NOT NULL
+);
+
+CREATE TABLE purga_cliente (
+  cliente_id            BIGINT      NOT NULL PRIMARY KEY,
+  estado                VARCHAR(20) NOT NULL,
+  solicitada            TIMESTAMP   DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  finalizada            TIMESTAMP,
+  cotizaciones_borradas BIGINT      DEFAULT 0 NOT NULL,
+  lineas_borradas       BIGINT      DEFAULT 0 NOT NULL,
+  error                 VARCHAR(500)
+);